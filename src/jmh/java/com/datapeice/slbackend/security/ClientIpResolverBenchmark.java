@@ -0,0 +1,66 @@
+package com.datapeice.slbackend.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What RateLimitFilter and JwtRequestFilter pay per request for {@link ClientIpResolver#resolve}:
+ * header lookups on the servlet request plus the trie walks over a Heroku-style X-Forwarded-For
+ * chain, with and without a Cloudflare hop vouching for CF-Connecting-IP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClientIpResolverBenchmark {
+
+    private ClientIpResolver resolver;
+    private MockHttpServletRequest direct;
+    private MockHttpServletRequest forwarded;
+    private MockHttpServletRequest cloudflare;
+
+    @Setup
+    public void setUp() {
+        resolver = new ClientIpResolver("198.51.100.0/24, 173.245.48.0/20");
+
+        direct = new MockHttpServletRequest("GET", "/api/applications");
+        direct.setRemoteAddr("203.0.113.77");
+
+        forwarded = new MockHttpServletRequest("GET", "/api/applications");
+        forwarded.setRemoteAddr("10.1.45.3");
+        forwarded.addHeader("X-Forwarded-For", "203.0.113.77, 198.51.100.20");
+
+        cloudflare = new MockHttpServletRequest("GET", "/api/applications");
+        cloudflare.setRemoteAddr("10.1.45.3");
+        cloudflare.addHeader("CF-Connecting-IP", "203.0.113.77");
+        cloudflare.addHeader("X-Forwarded-For", "203.0.113.77, 173.245.48.7");
+
+        for (MockHttpServletRequest request : new MockHttpServletRequest[]{direct, forwarded, cloudflare}) {
+            if (!"203.0.113.77".equals(resolver.resolve(request))) {
+                throw new IllegalStateException("Unexpected client IP for " + request.getRemoteAddr());
+            }
+        }
+    }
+
+    @Benchmark
+    public String directPeer() {
+        return resolver.resolve(direct);
+    }
+
+    @Benchmark
+    public String forwardedChain() {
+        return resolver.resolve(forwarded);
+    }
+
+    @Benchmark
+    public String cloudflareHeader() {
+        return resolver.resolve(cloudflare);
+    }
+}
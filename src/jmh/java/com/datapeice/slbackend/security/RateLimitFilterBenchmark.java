@@ -0,0 +1,142 @@
+package com.datapeice.slbackend.security;
+
+import com.datapeice.slbackend.service.DistributedRateLimiter;
+import com.datapeice.slbackend.service.RateLimitService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link RateLimitFilter} with the policy shapes of application.properties,
+ * in-memory buckets only (ratelimit.distributed.enabled=false). Capacities are raised so the
+ * measured requests keep passing; {@link #rejected} covers the 429 path separately.
+ * <p>
+ * {@link #noPolicyMatches} is the floor every request pays; the difference to {@link #ipPolicy}
+ * is path matching plus one bucket lookup, and {@link #userPolicy} adds the JWT signature check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimitFilterBenchmark {
+
+    private static final long CAPACITY = 1_000_000_000L;
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+    private static final FilterChain PASS = (request, response) -> {
+    };
+
+    private RateLimitFilter filter;
+    private RateLimitService rateLimitService;
+    private MockHttpServletRequest unmatched;
+    private MockHttpServletRequest byIp;
+    private MockHttpServletRequest byUser;
+    private MockHttpServletRequest byApiKey;
+    private MockHttpServletRequest limited;
+
+    @Setup
+    public void setUp() throws ServletException, IOException {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(
+                policy("anticheat", "POST", "/api/anticheat", RateLimitProperties.KeyType.API_KEY, CAPACITY),
+                policy("users-list", "GET", "/api/users", RateLimitProperties.KeyType.USER, CAPACITY),
+                policy("public-pages", "GET", "/api/pages/**", RateLimitProperties.KeyType.IP, CAPACITY),
+                policy("file-upload", "POST", "/api/files/upload", RateLimitProperties.KeyType.USER, CAPACITY),
+                policy("discord-callback", "GET", "/api/auth/discord/callback", RateLimitProperties.KeyType.IP, CAPACITY),
+                policy("limited", "GET", "/api/limited", RateLimitProperties.KeyType.IP, 1)));
+
+        JwtCore jwtCore = new JwtCore();
+        ReflectionTestUtils.setField(jwtCore, "secretKey", SECRET);
+        rateLimitService = new RateLimitService(new DistributedRateLimiter(null), 100_000, 200_000);
+        filter = new RateLimitFilter(properties, rateLimitService, jwtCore, new ClientIpResolver(""));
+
+        String token = Jwts.builder()
+                .subject("steve")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        unmatched = request("GET", "/api/settings");
+        byIp = request("GET", "/api/pages/rules");
+        byUser = request("GET", "/api/users");
+        byUser.addHeader("Authorization", "Bearer " + token);
+        byApiKey = request("POST", "/api/anticheat");
+        byApiKey.addHeader("X-Anticheat-Key", "anticheat-plugin-key");
+        limited = request("GET", "/api/limited");
+
+        filter.doFilter(limited, new MockHttpServletResponse(), PASS);
+        MockHttpServletResponse check = new MockHttpServletResponse();
+        filter.doFilter(limited, check, PASS);
+        if (check.getStatus() != 429) {
+            throw new IllegalStateException("Expected the limited policy to reject");
+        }
+    }
+
+    private static RateLimitProperties.Policy policy(String name, String method, String pattern,
+                                                     RateLimitProperties.KeyType key, long capacity) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setName(name);
+        policy.setMethods(List.of(method));
+        policy.setPattern(pattern);
+        policy.setKey(key);
+        policy.setCapacity(capacity);
+        policy.setPeriod(Duration.ofMinutes(1));
+        return policy;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr("203.0.113.7");
+        return request;
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, PASS);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse noPolicyMatches() throws ServletException, IOException {
+        return run(unmatched);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse ipPolicy() throws ServletException, IOException {
+        return run(byIp);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse userPolicy() throws ServletException, IOException {
+        return run(byUser);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse apiKeyPolicy() throws ServletException, IOException {
+        return run(byApiKey);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse rejected() throws ServletException, IOException {
+        return run(limited);
+    }
+
+    @Benchmark
+    public RateLimitService.Decision serviceTryConsume() {
+        return rateLimitService.tryConsume("public-pages", "ip:203.0.113.7");
+    }
+}
@@ -0,0 +1,83 @@
+package com.datapeice.slbackend.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ToxicityMatcher#find} over the bundled word list, as BannedWordService builds it, on a
+ * typical clean bio (the common case: every rule scanned, nothing found) and on one with a
+ * disguised word that only the smart patterns catch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ToxicityMatcherBenchmark {
+
+    private static final String CLEAN_BIO = "Привет! Я Стив, играю на сервере с 2021 года. Люблю редстоун, "
+            + "строю фермы и помогаю новичкам. Пишите в дискорд, если нужна помощь.";
+
+    private ToxicityMatcher matcher;
+    private String toxicBio;
+
+    @Setup
+    public void setUp() throws IOException {
+        Set<String> words = readBundledWords();
+        matcher = new ToxicityMatcher(words, 4);
+
+        String word = words.stream()
+                .filter(w -> w.length() >= 6 && w.chars().allMatch(c -> c >= 'а' && c <= 'я'))
+                .findFirst()
+                .orElseThrow();
+        toxicBio = CLEAN_BIO.replace("дискорд", String.join(".", word.split("")));
+        if (matcher.find(CLEAN_BIO) != null || matcher.find(toxicBio) == null) {
+            throw new IllegalStateException("Benchmark inputs no longer classify as expected");
+        }
+    }
+
+    @Benchmark
+    public ToxicityMatcher.Hit cleanBio() {
+        return matcher.find(CLEAN_BIO);
+    }
+
+    @Benchmark
+    public ToxicityMatcher.Hit toxicBio() {
+        return matcher.find(toxicBio);
+    }
+
+    // Same parsing as BannedWordService.readClasspathWords
+    private static Set<String> readBundledWords() throws IOException {
+        Set<String> result = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(ToxicityMatcherBenchmark.class.getResourceAsStream("/banned_words.txt")),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim().toLowerCase();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                for (String word : line.split(",")) {
+                    word = word.trim();
+                    if (!word.isEmpty()) {
+                        result.add(word);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package com.datapeice.slbackend.config;
 
+import com.datapeice.slbackend.service.AuditLogMaintenanceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
@@ -17,9 +18,11 @@ public class DatabaseMigrationService implements ApplicationRunner {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseMigrationService.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final AuditLogMaintenanceService auditLogMaintenanceService;
 
-    public DatabaseMigrationService(JdbcTemplate jdbcTemplate) {
+    public DatabaseMigrationService(JdbcTemplate jdbcTemplate, AuditLogMaintenanceService auditLogMaintenanceService) {
         this.jdbcTemplate = jdbcTemplate;
+        this.auditLogMaintenanceService = auditLogMaintenanceService;
     }
 
     @Override
@@ -41,6 +44,22 @@ public class DatabaseMigrationService implements ApplicationRunner {
         addColumnIfNotExists("bot_messages", "reactions", "TEXT");
         createWarningsTableIfNotExists();
         createSiteSettingsTableIfNotExists();
+        createRateLimitBucketsTableIfNotExists();
+        // Lookups for incoming bot DMs (DiscordIdentityResolver)
+        createIndexIfNotExists("idx_users_discord_user_id", "users", "(discord_user_id)");
+        createIndexIfNotExists("idx_users_lower_discord_nickname", "users", "(LOWER(discord_nickname))");
+        createIndexIfNotExists("idx_users_lower_username", "users", "(LOWER(username))");
+        backfillConversationSummaries();
+        migrateLegacyReactions();
+        partitionAuditLogs();
+        // Audit log lookups by user and full-text search (indexes on the partitioned parent apply to every partition)
+        createIndexIfNotExists("idx_audit_logs_actor_created", "audit_logs", "(actor_id, created_at)");
+        createIndexIfNotExists("idx_audit_logs_target_created", "audit_logs", "(target_user_id, created_at)");
+        createIndexIfNotExists("idx_audit_logs_actor_name_created", "audit_logs", "(LOWER(actor_username), created_at)");
+        createIndexIfNotExists("idx_audit_logs_target_name_created", "audit_logs", "(LOWER(target_username), created_at)");
+        createIndexIfNotExists("idx_audit_logs_created", "audit_logs", "(created_at)");
+        createIndexIfNotExists("idx_audit_logs_search", "audit_logs", "USING GIN (search_tsv)");
+        auditLogMaintenanceService.ensureUpcomingPartitions();
     }
 
     /**
@@ -79,6 +98,18 @@ public class DatabaseMigrationService implements ApplicationRunner {
         }
     }
 
+    /**
+     * Creates an index if missing. Used for expression indexes, which @Index cannot describe.
+     */
+    private void createIndexIfNotExists(String name, String table, String definition) {
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " " + definition);
+            logger.info("Index ensured: {}", name);
+        } catch (Exception e) {
+            logger.warn("Could not create index {}: {}", name, e.getMessage());
+        }
+    }
+
     private void createWarningsTableIfNotExists() {
         try {
             jdbcTemplate.execute("""
@@ -97,6 +128,39 @@ public class DatabaseMigrationService implements ApplicationRunner {
         }
     }
 
+    /**
+     * Shared rate-limit counters (DistributedRateLimiter). UNLOGGED: no WAL per request, and losing
+     * the counters on a database crash only resets the current windows.
+     */
+    private void createRateLimitBucketsTableIfNotExists() {
+        try {
+            // Fixed-window counters of the previous shared limiter; the state is transient
+            jdbcTemplate.execute("DROP TABLE IF EXISTS rate_limit_buckets");
+            // Bucket4j keeps the serialized bucket in state; touched_at is only for deleting idle rows
+            jdbcTemplate.execute("""
+                CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_bucket_state (
+                    bucket_key VARCHAR(255) PRIMARY KEY,
+                    state BYTEA,
+                    touched_at TIMESTAMPTZ NOT NULL DEFAULT now()
+                )
+                """);
+            jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION rate_limit_bucket_touch() RETURNS trigger AS $$
+                BEGIN
+                    NEW.touched_at := now();
+                    RETURN NEW;
+                END
+                $$ LANGUAGE plpgsql
+                """);
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS rate_limit_bucket_touch ON rate_limit_bucket_state");
+            jdbcTemplate.execute("CREATE TRIGGER rate_limit_bucket_touch BEFORE UPDATE ON rate_limit_bucket_state " +
+                    "FOR EACH ROW EXECUTE FUNCTION rate_limit_bucket_touch()");
+            createIndexIfNotExists("idx_rate_limit_bucket_state_touched", "rate_limit_bucket_state", "(touched_at)");
+        } catch (Exception e) {
+            logger.warn("Could not create rate_limit_bucket_state table: {}", e.getMessage());
+        }
+    }
+
     private void createSiteSettingsTableIfNotExists() {
         try {
             jdbcTemplate.execute("""
@@ -120,5 +184,126 @@ public class DatabaseMigrationService implements ApplicationRunner {
             logger.warn("Could not create site_settings table: {}", e.getMessage());
         }
     }
-}
 
+    /**
+     * Fills conversation_summaries from existing bot_messages once, after the table is first created.
+     * Afterwards BotMessengerService keeps it current on every message write.
+     */
+    private void backfillConversationSummaries() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM conversation_summaries", Integer.class);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            int rows = jdbcTemplate.update("""
+                INSERT INTO conversation_summaries (recipient_user_id, last_message_id, last_message_snippet,
+                    last_message_time, last_message_is_edited, last_message_from_player, unread_count, updated_at)
+                SELECT DISTINCT ON (m.recipient_user_id) m.recipient_user_id, m.id,
+                    CASE WHEN (m.content IS NULL OR m.content = '') AND m.media_url IS NOT NULL
+                        THEN '📷 [Медиа]' ELSE LEFT(m.content, 200) END,
+                    m.created_at, m.is_edited, m.is_from_player,
+                    (SELECT COUNT(*) FROM bot_messages u WHERE u.recipient_user_id = m.recipient_user_id
+                        AND u.is_from_player = true AND u.is_read = false),
+                    NOW()
+                FROM bot_messages m
+                ORDER BY m.recipient_user_id, m.id DESC
+                ON CONFLICT (recipient_user_id) DO NOTHING
+                """);
+            logger.info("conversation_summaries backfilled: {} conversations", rows);
+        } catch (Exception e) {
+            logger.warn("Could not backfill conversation_summaries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the old comma-separated bot_messages.reactions into bot_message_reactions (actor 0).
+     * Entries longer than the 64-character emoji column are dropped: they can't be valid emojis,
+     * and one of them would otherwise fail the whole INSERT.
+     */
+    private void migrateLegacyReactions() {
+        try {
+            int rows = jdbcTemplate.update("""
+                INSERT INTO bot_message_reactions (message_id, emoji, actor_user_id, created_at)
+                SELECT m.id, TRIM(e.emoji), 0, NOW()
+                FROM bot_messages m, unnest(string_to_array(m.reactions, ',')) AS e(emoji)
+                WHERE m.reactions IS NOT NULL AND TRIM(e.emoji) <> '' AND length(TRIM(e.emoji)) <= 64
+                ON CONFLICT (message_id, emoji, actor_user_id) DO NOTHING
+                """);
+            jdbcTemplate.update("UPDATE bot_messages SET reactions = NULL WHERE reactions IS NOT NULL");
+            if (rows > 0) {
+                logger.info("Migrated {} legacy bot message reactions", rows);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not migrate legacy bot message reactions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Turns the plain audit_logs table created by Hibernate into one range-partitioned by month
+     * on created_at, with a generated tsvector column for search. Runs once, in one transaction:
+     * the old table is renamed, a monthly partition is created for every month that has rows,
+     * and the rows are copied over. The primary key becomes (id, created_at) because a
+     * partitioned table's unique keys must contain the partition column.
+     */
+    private void partitionAuditLogs() {
+        try {
+            if (auditLogMaintenanceService.isPartitioned()) {
+                return;
+            }
+            jdbcTemplate.execute("""
+                DO $$
+                DECLARE
+                    m DATE;
+                    last_month DATE;
+                BEGIN
+                    IF to_regclass('audit_logs') IS NULL THEN
+                        RETURN;
+                    END IF;
+                    ALTER TABLE audit_logs RENAME TO audit_logs_unpartitioned;
+
+                    CREATE SEQUENCE IF NOT EXISTS audit_logs_id_part_seq;
+                    PERFORM setval('audit_logs_id_part_seq',
+                        COALESCE((SELECT MAX(id) FROM audit_logs_unpartitioned), 0) + 1, false);
+
+                    CREATE TABLE audit_logs (
+                        id BIGINT NOT NULL DEFAULT nextval('audit_logs_id_part_seq'),
+                        actor_id BIGINT,
+                        actor_username VARCHAR(255),
+                        action_type VARCHAR(255) NOT NULL,
+                        details TEXT,
+                        target_user_id BIGINT,
+                        target_username VARCHAR(255),
+                        ip_address VARCHAR(255),
+                        user_agent VARCHAR(512),
+                        created_at TIMESTAMP(6) NOT NULL,
+                        search_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('simple',
+                            COALESCE(action_type, '') || ' ' || COALESCE(actor_username, '') || ' ' ||
+                            COALESCE(target_username, '') || ' ' || COALESCE(details, ''))) STORED,
+                        PRIMARY KEY (id, created_at)
+                    ) PARTITION BY RANGE (created_at);
+                    ALTER SEQUENCE audit_logs_id_part_seq OWNED BY audit_logs.id;
+                    CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+
+                    m := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM audit_logs_unpartitioned), now()))::date;
+                    last_month := date_trunc('month', now())::date;
+                    WHILE m <= last_month LOOP
+                        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+                            'audit_logs_' || to_char(m, '"y"YYYY"m"MM'), m, (m + interval '1 month')::date);
+                        m := (m + interval '1 month')::date;
+                    END LOOP;
+
+                    INSERT INTO audit_logs (id, actor_id, actor_username, action_type, details, target_user_id,
+                        target_username, ip_address, user_agent, created_at)
+                    SELECT id, actor_id, actor_username, action_type, details, target_user_id,
+                        target_username, ip_address, user_agent, created_at
+                    FROM audit_logs_unpartitioned;
+
+                    DROP TABLE audit_logs_unpartitioned;
+                END $$;
+                """);
+            logger.info("audit_logs converted to a monthly partitioned table");
+        } catch (Exception e) {
+            logger.warn("Could not partition audit_logs: {}", e.getMessage());
+        }
+    }
+}
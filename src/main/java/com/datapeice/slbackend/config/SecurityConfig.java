@@ -1,7 +1,9 @@
 package com.datapeice.slbackend.config;
 
+import com.datapeice.slbackend.security.AnticheatAuthFilter;
 import com.datapeice.slbackend.security.JwtRequestFilter;
 import com.datapeice.slbackend.security.MaintenanceFilter;
+import com.datapeice.slbackend.security.RateLimitFilter;
 import com.datapeice.slbackend.service.CustomUserDetailsService;
 import com.datapeice.slbackend.security.CustomAccessDeniedHandler;
 import com.datapeice.slbackend.security.CustomAuthenticationEntryPoint;
@@ -30,17 +32,23 @@ import java.util.Arrays;
 public class SecurityConfig {
         private final JwtRequestFilter jwtRequestFilter;
         private final MaintenanceFilter maintenanceFilter;
+        private final RateLimitFilter rateLimitFilter;
+        private final AnticheatAuthFilter anticheatAuthFilter;
         private final CustomUserDetailsService userDetailsService;
         private final CustomAccessDeniedHandler customAccessDeniedHandler;
         private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
 
         SecurityConfig(JwtRequestFilter jwtRequestFilter,
                         MaintenanceFilter maintenanceFilter,
+                        RateLimitFilter rateLimitFilter,
+                        AnticheatAuthFilter anticheatAuthFilter,
                         CustomUserDetailsService userDetailsService,
                         CustomAccessDeniedHandler customAccessDeniedHandler,
                         CustomAuthenticationEntryPoint customAuthenticationEntryPoint) {
                 this.jwtRequestFilter = jwtRequestFilter;
                 this.maintenanceFilter = maintenanceFilter;
+                this.rateLimitFilter = rateLimitFilter;
+                this.anticheatAuthFilter = anticheatAuthFilter;
                 this.userDetailsService = userDetailsService;
                 this.customAccessDeniedHandler = customAccessDeniedHandler;
                 this.customAuthenticationEntryPoint = customAuthenticationEntryPoint;
@@ -111,6 +119,10 @@ public class SecurityConfig {
                                                 .requestMatchers("/api/admin/**").hasAnyRole("ADMIN", "MODERATOR")
                                                 .anyRequest().authenticated())
                                 .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+                                // Throttle before the JWT filter loads the user from the database
+                                .addFilterBefore(rateLimitFilter, JwtRequestFilter.class)
+                                // Reject bad anticheat keys before they get their own rate-limit buckets
+                                .addFilterBefore(anticheatAuthFilter, RateLimitFilter.class)
                                 .addFilterAfter(maintenanceFilter, JwtRequestFilter.class);
 
                 return http.build();
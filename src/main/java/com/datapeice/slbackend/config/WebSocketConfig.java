@@ -1,27 +1,94 @@
 package com.datapeice.slbackend.config;
 
+import com.datapeice.slbackend.security.StompAuthChannelInterceptor;
+import com.datapeice.slbackend.security.ClientIpResolver;
+import com.datapeice.slbackend.security.WebSocketHandshakeInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final WebSocketTrafficStats trafficStats;
+    private final ClientIpResolver clientIpResolver;
+
+    // External STOMP broker (RabbitMQ / ActiveMQ) so events reach sessions on every instance
+    @Value("${websocket.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor, WebSocketTrafficStats trafficStats,
+                           ClientIpResolver clientIpResolver) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.trafficStats = trafficStats;
+        this.clientIpResolver = clientIpResolver;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if (relayEnabled) {
+            var relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    // /user/queue/... targets sessions that may live on another instance
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(trafficStats::decorate);
+    }
+
+    // permessage-deflate is negotiated by Tomcat's container, which installs it for every endpoint;
+    // Spring's extension filtering can't remove it. deflateSessions in WebSocketTrafficStats shows who got it
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws/admin")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new WebSocketHandshakeInterceptor(clientIpResolver));
         registry.addEndpoint("/ws/admin")
                 .setAllowedOriginPatterns("*")
+                .addInterceptors(new WebSocketHandshakeInterceptor(clientIpResolver))
                 .withSockJS();
     }
 }
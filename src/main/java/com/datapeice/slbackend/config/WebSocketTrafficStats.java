@@ -0,0 +1,107 @@
+package com.datapeice.slbackend.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts outbound WebSocket frames and payload bytes across all STOMP sessions, and how many
+ * sessions negotiated permessage-deflate. Rates are sampled every 10 seconds, so the numbers
+ * before and after a change (e.g. messenger event coalescing) can be compared on a live server.
+ * Bytes are the uncompressed payload; with permessage-deflate the wire size is smaller.
+ */
+@Component
+public class WebSocketTrafficStats {
+
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final AtomicInteger deflateSessions = new AtomicInteger();
+
+    private long lastSampleNanos = System.nanoTime();
+    private long lastSampleFrames;
+    private long lastSampleBytes;
+    private volatile double framesPerSecond;
+    private volatile double bytesPerSecond;
+
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                if (usesDeflate(session)) {
+                    deflateSessions.incrementAndGet();
+                }
+                // The sub-protocol handler keeps the session it receives here and sends through it
+                super.afterConnectionEstablished(new CountingSession(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                if (usesDeflate(session)) {
+                    deflateSessions.decrementAndGet();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private static boolean usesDeflate(WebSocketSession session) {
+        try {
+            return session.getExtensions().stream().anyMatch(e -> "permessage-deflate".equals(e.getName()));
+        } catch (UnsupportedOperationException e) {
+            return false; // SockJS sessions
+        }
+    }
+
+    private class CountingSession extends WebSocketSessionDecorator {
+        CountingSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            super.sendMessage(message);
+            framesSent.incrementAndGet();
+            bytesSent.addAndGet(message.getPayloadLength());
+        }
+    }
+
+    @Scheduled(fixedRate = 10000)
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        long frames = framesSent.get();
+        long bytes = bytesSent.get();
+        double seconds = (now - lastSampleNanos) / 1_000_000_000.0;
+        if (seconds > 0) {
+            framesPerSecond = (frames - lastSampleFrames) / seconds;
+            bytesPerSecond = (bytes - lastSampleBytes) / seconds;
+        }
+        lastSampleNanos = now;
+        lastSampleFrames = frames;
+        lastSampleBytes = bytes;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openSessions", openSessions.get());
+        stats.put("deflateSessions", deflateSessions.get());
+        stats.put("framesSent", framesSent.get());
+        stats.put("bytesSent", bytesSent.get());
+        stats.put("framesPerSecond", Math.round(framesPerSecond * 10) / 10.0);
+        stats.put("bytesPerSecond", Math.round(bytesPerSecond));
+        return stats;
+    }
+}
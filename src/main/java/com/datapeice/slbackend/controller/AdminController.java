@@ -37,6 +37,7 @@ public class AdminController {
     private final com.datapeice.slbackend.service.TotpService totpService;
     private final com.datapeice.slbackend.repository.BotMessageRepository botMessageRepository;
     private final com.datapeice.slbackend.repository.WarningRepository warningRepository;
+    private final com.datapeice.slbackend.service.RateLimitService rateLimitService;
     private final SimpMessagingTemplate messagingTemplate;
 
     public AdminController(ApplicationService applicationService, UserService userService,
@@ -46,7 +47,8 @@ public class AdminController {
             com.datapeice.slbackend.service.TotpService totpService,
             SimpMessagingTemplate messagingTemplate,
             com.datapeice.slbackend.repository.BotMessageRepository botMessageRepository,
-            com.datapeice.slbackend.repository.WarningRepository warningRepository) {
+            com.datapeice.slbackend.repository.WarningRepository warningRepository,
+            com.datapeice.slbackend.service.RateLimitService rateLimitService) {
         this.applicationService = applicationService;
         this.userService = userService;
         this.badgeService = badgeService;
@@ -57,6 +59,7 @@ public class AdminController {
         this.messagingTemplate = messagingTemplate;
         this.botMessageRepository = botMessageRepository;
         this.warningRepository = warningRepository;
+        this.rateLimitService = rateLimitService;
     }
 
     @GetMapping("/applications")
@@ -371,7 +374,7 @@ public class AdminController {
     @GetMapping("/settings/public")
     @PreAuthorize("permitAll()")
     public ResponseEntity<java.util.Map<String, Object>> getPublicSettings() {
-        SiteSettings settings = siteSettingsService.getSettings();
+        com.datapeice.slbackend.dto.SiteSettingsSnapshot settings = siteSettingsService.getSnapshot();
         return ResponseEntity.ok(java.util.Map.of(
                 "applicationsOpen", settings.isApplicationsOpen(),
                 "registrationOpen", settings.isRegistrationOpen(),
@@ -386,11 +389,24 @@ public class AdminController {
             @RequestParam(required = false) String query,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size) {
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size,
-                org.springframework.data.domain.Sort.by("createdAt").descending());
+        // Bulk reads go through /api/admin/logs/export
+        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page,
+                Math.min(Math.max(size, 1), 500), org.springframework.data.domain.Sort.by("createdAt").descending());
         return ResponseEntity.ok(auditLogService.getLogs(query, pageable));
     }
 
+    @GetMapping("/logs/writer-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<java.util.Map<String, Object>> getAuditWriterStats() {
+        return ResponseEntity.ok(auditLogService.getWriterStats());
+    }
+
+    @GetMapping("/rate-limits/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<java.util.Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimitService.getStats());
+    }
+
     @GetMapping("/users/{userId}/audit-logs")
     public ResponseEntity<org.springframework.data.domain.Page<com.datapeice.slbackend.entity.AuditLog>> getUserAuditLogs(
             @PathVariable Long userId,
@@ -4,6 +4,7 @@ import com.datapeice.slbackend.dto.AnticheatPayloadRequest;
 import com.datapeice.slbackend.dto.AnticheatSnapshotResponse;
 import com.datapeice.slbackend.dto.KnownModDto;
 import com.datapeice.slbackend.dto.KnownModRequest;
+import com.datapeice.slbackend.security.ClientIpResolver;
 import com.datapeice.slbackend.service.AnticheatService;
 import com.datapeice.slbackend.service.AuditLogService;
 import com.datapeice.slbackend.service.KnownModService;
@@ -11,7 +12,6 @@ import com.datapeice.slbackend.entity.User;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,7 +20,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -31,55 +30,30 @@ public class AnticheatController {
     private final AnticheatService anticheatService;
     private final AuditLogService auditLogService;
     private final KnownModService knownModService;
-
-    @Value("${anticheat.allowed-ips:}")
-    private String allowedIpsRaw;
-
-    @Value("${anticheat.api-key:}")
-    private String apiKey;
+    private final ClientIpResolver clientIpResolver;
 
     public AnticheatController(AnticheatService anticheatService,
                                AuditLogService auditLogService,
-                               KnownModService knownModService) {
+                               KnownModService knownModService,
+                               ClientIpResolver clientIpResolver) {
         this.anticheatService = anticheatService;
         this.auditLogService = auditLogService;
         this.knownModService = knownModService;
+        this.clientIpResolver = clientIpResolver;
     }
 
     // ==================== Public endpoint (from Minecraft server) ====================
 
     /**
      * Receive anticheat telemetry from Minecraft server.
-     * Protected by IP whitelist + API key (not JWT).
+     * Protected by IP whitelist + API key (not JWT), checked in AnticheatAuthFilter before the body is parsed.
      */
     @PostMapping("/api/anticheat")
     public ResponseEntity<?> receiveAnticheatData(
             @RequestBody AnticheatPayloadRequest request,
-            @RequestHeader(value = "X-Anticheat-Key", required = false) String providedKey,
             HttpServletRequest httpRequest) {
 
-        String clientIp = getClientIp(httpRequest);
-
-        // Validate API key
-        if (apiKey != null && !apiKey.isBlank()) {
-            if (providedKey == null || !providedKey.equals(apiKey)) {
-                log.warn("[Anticheat] Rejected request from {} - invalid API key", clientIp);
-                return ResponseEntity.status(403).body(Map.of("error", "Invalid API key"));
-            }
-        }
-
-        // Validate IP (0.0.0.0 = accept from all)
-        if (allowedIpsRaw != null && !allowedIpsRaw.isBlank()) {
-            List<String> allowedIps = Arrays.stream(allowedIpsRaw.split(","))
-                    .map(String::trim)
-                    .filter(s -> !s.isEmpty())
-                    .toList();
-
-            if (!allowedIps.isEmpty() && !allowedIps.contains("0.0.0.0") && !allowedIps.contains(clientIp)) {
-                log.warn("[Anticheat] Rejected request from unauthorized IP: {}", clientIp);
-                return ResponseEntity.status(403).body(Map.of("error", "IP not allowed"));
-            }
-        }
+        String clientIp = clientIpResolver.resolve(httpRequest);
 
         // Validate payload
         if (request.getPlayer() == null || request.getPlayer().isBlank()) {
@@ -180,18 +154,6 @@ public class AnticheatController {
         }
     }
 
-    /**
-     * Extract real client IP considering proxies (Heroku uses X-Forwarded-For).
-     */
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isBlank()) {
-            // X-Forwarded-For can contain multiple IPs: client, proxy1, proxy2
-            return xForwardedFor.split(",")[0].trim();
-        }
-        return request.getRemoteAddr();
-    }
-
     // ==================== Known Mods endpoints ====================
 
     /** Get all known (trusted/suspicious) mods */
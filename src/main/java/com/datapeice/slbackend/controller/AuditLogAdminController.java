@@ -0,0 +1,128 @@
+package com.datapeice.slbackend.controller;
+
+import com.datapeice.slbackend.entity.AuditLogArchive;
+import com.datapeice.slbackend.entity.AuditLogDailyRollup;
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.service.AuditLogExportService;
+import com.datapeice.slbackend.service.AuditLogRetentionService;
+import com.datapeice.slbackend.service.AuditLogService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk audit history: streaming export, daily rollups, archive index and on-demand search in archived days.
+ */
+@RestController
+@RequestMapping("/api/admin/logs")
+@PreAuthorize("hasRole('ADMIN')")
+public class AuditLogAdminController {
+
+    private final AuditLogRetentionService retentionService;
+    private final AuditLogExportService exportService;
+    private final AuditLogService auditLogService;
+
+    public AuditLogAdminController(AuditLogRetentionService retentionService,
+                                   AuditLogExportService exportService,
+                                   AuditLogService auditLogService) {
+        this.retentionService = retentionService;
+        this.exportService = exportService;
+        this.auditLogService = auditLogService;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<?> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long actorId,
+            @RequestParam(required = false) Long targetUserId,
+            @RequestParam(required = false) String actionType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @AuthenticationPrincipal User admin) {
+        AuditLogExportService.ExportFilter filter =
+                new AuditLogExportService.ExportFilter(actorId, targetUserId, actionType, from, to);
+        AuditLogExportService.Format exportFormat;
+        if ("csv".equalsIgnoreCase(format)) {
+            exportFormat = AuditLogExportService.Format.CSV;
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = AuditLogExportService.Format.NDJSON;
+        } else {
+            return ResponseEntity.badRequest().body("Неизвестный формат: " + format);
+        }
+        try {
+            exportService.validate(filter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        // Each export holds a database connection until it finishes
+        if (!exportService.tryAcquireSlot()) {
+            return ResponseEntity.status(429).body(Map.of("error", "Другой экспорт уже выполняется. Попробуйте позже."));
+        }
+        auditLogService.logAction(admin.getId(), admin.getUsername(), "ADMIN_EXPORT_AUDIT_LOGS",
+                "Экспорт логов (" + format + "): " + filter, null, null);
+
+        String fileName = "audit-logs-" + LocalDate.now() + (exportFormat == AuditLogExportService.Format.CSV ? ".csv" : ".ndjson");
+        StreamingResponseBody body = out -> {
+            try {
+                exportService.export(filter, exportFormat, out);
+            } finally {
+                exportService.releaseSlot();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(exportFormat == AuditLogExportService.Format.CSV
+                        ? new MediaType("text", "csv", java.nio.charset.StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/rollups")
+    public ResponseEntity<List<AuditLogDailyRollup>> getRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(retentionService.getRollups(from, to));
+    }
+
+    @GetMapping("/archives")
+    public ResponseEntity<List<AuditLogArchive>> getArchives(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(retentionService.getArchives(from, to));
+    }
+
+    @GetMapping("/archives/search")
+    public ResponseEntity<?> searchArchives(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String actionType,
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "200") int limit) {
+        try {
+            return ResponseEntity.ok(retentionService.searchArchives(from, to, actionType, query, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/retention")
+    public ResponseEntity<Map<String, Object>> getRetentionStatus() {
+        return ResponseEntity.ok(retentionService.getStatus());
+    }
+
+    @PostMapping("/retention/run")
+    public ResponseEntity<Map<String, Object>> runRetention() {
+        return ResponseEntity.ok(retentionService.run());
+    }
+}
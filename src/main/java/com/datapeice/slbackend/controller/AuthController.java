@@ -5,13 +5,15 @@ import com.datapeice.slbackend.dto.SignUpBody;
 import com.datapeice.slbackend.dto.VerifyEmailRequest;
 import com.datapeice.slbackend.dto.ForgotPasswordRequest;
 import com.datapeice.slbackend.dto.ResetPasswordRequest;
-import com.datapeice.slbackend.entity.SiteSettings;
+import com.datapeice.slbackend.dto.SiteSettingsSnapshot;
 import com.datapeice.slbackend.entity.User;
 import com.datapeice.slbackend.entity.UserRole;
 import com.datapeice.slbackend.repository.UserRepository;
+import com.datapeice.slbackend.security.ClientIpResolver;
 import com.datapeice.slbackend.security.JwtCore;
 import com.datapeice.slbackend.service.DiscordOAuthService;
 import com.datapeice.slbackend.service.DiscordOAuthService.DiscordUserInfo;
+import com.datapeice.slbackend.service.DiscordIdentityResolver;
 import com.datapeice.slbackend.service.DiscordService;
 import com.datapeice.slbackend.service.EmailService;
 import com.datapeice.slbackend.service.GeoIpService;
@@ -60,6 +62,8 @@ public class AuthController {
     private final SiteSettingsService siteSettingsService;
     private final com.datapeice.slbackend.service.AuditLogService auditLogService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ClientIpResolver clientIpResolver;
+    private final DiscordIdentityResolver identityResolver;
 
     @Value("${email.verification.expiration}")
     private long emailVerificationExpiration;
@@ -90,7 +94,9 @@ public class AuthController {
             DiscordService discordService,
             SiteSettingsService siteSettingsService,
             com.datapeice.slbackend.service.AuditLogService auditLogService,
-            SimpMessagingTemplate messagingTemplate) {
+            SimpMessagingTemplate messagingTemplate,
+            ClientIpResolver clientIpResolver,
+            DiscordIdentityResolver identityResolver) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
@@ -106,11 +112,13 @@ public class AuthController {
         this.siteSettingsService = siteSettingsService;
         this.auditLogService = auditLogService;
         this.messagingTemplate = messagingTemplate;
+        this.clientIpResolver = clientIpResolver;
+        this.identityResolver = identityResolver;
     }
 
     @GetMapping("/public/settings")
     public ResponseEntity<?> getPublicSettings() {
-        SiteSettings settings = siteSettingsService.getSettings();
+        SiteSettingsSnapshot settings = siteSettingsService.getSnapshot();
         return ResponseEntity.ok(Map.of(
                 "registrationOpen", settings.isRegistrationOpen(),
                 "applicationsOpen", settings.isApplicationsOpen(),
@@ -119,11 +127,11 @@ public class AuthController {
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody SignUpBody body, HttpServletRequest request) {
-        String ipAddress = getClientIP(request);
+        String ipAddress = clientIpResolver.resolve(request);
         String userAgent = request.getHeader("User-Agent");
 
         // Check if registration is open
-        if (!siteSettingsService.getSettings().isRegistrationOpen()) {
+        if (!siteSettingsService.getSnapshot().isRegistrationOpen()) {
             return ResponseEntity.status(403).body(Map.of("error", "Регистрация временно закрыта"));
         }
 
@@ -196,6 +204,8 @@ public class AuthController {
             user.setEmailVerificationTokenExpiry(System.currentTimeMillis() + emailVerificationExpiration);
 
             userRepository.save(user);
+            // Their earlier DMs to the bot may have been cached as coming from a stranger
+            identityResolver.forgetUser(user);
             auditLogService.logAction(user.getId(), user.getUsername(), "USER_REGISTER",
                     String.format("Зарегистрировался (MC: %s)", user.getMinecraftNickname()),
                     user.getId(), user.getUsername());
@@ -219,6 +229,7 @@ public class AuthController {
 
         // Если auto-verify включен, сразу логиним пользователя
         userRepository.save(user);
+        identityResolver.forgetUser(user);
         auditLogService.logAction(user.getId(), user.getUsername(), "USER_REGISTER",
                 String.format("Зарегистрировался (MC: %s)", user.getMinecraftNickname()),
                 user.getId(), user.getUsername());
@@ -238,7 +249,7 @@ public class AuthController {
     @PostMapping("/verify-email")
     public ResponseEntity<?> verifyEmail(@Valid @RequestBody VerifyEmailRequest request,
             HttpServletRequest httpRequest) {
-        String ipAddress = getClientIP(httpRequest);
+        String ipAddress = clientIpResolver.resolve(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
         logger.info("Email verification attempt with token: {}", request.getToken());
 
@@ -307,7 +318,7 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody SignInBody body, HttpServletRequest request) {
-        String ipAddress = getClientIP(request);
+        String ipAddress = clientIpResolver.resolve(request);
         String userAgent = request.getHeader("User-Agent");
 
         // Проверка User-Agent
@@ -326,7 +337,7 @@ public class AuthController {
                     .orElseThrow(() -> new RuntimeException("Неверное имя пользователя или пароль"));
 
             // Проверяем режим техобслуживания
-            if (siteSettingsService.getSettings().isMaintenanceMode()) {
+            if (siteSettingsService.getSnapshot().isMaintenanceMode()) {
                 if (user.getRole() != UserRole.ROLE_ADMIN && user.getRole() != UserRole.ROLE_MODERATOR) {
                     return ResponseEntity.status(503).body(Map.of(
                             "error", "MAINTENANCE_MODE",
@@ -378,7 +389,7 @@ public class AuthController {
     public ResponseEntity<?> resendVerification(@RequestBody Map<String, String> request,
             HttpServletRequest httpRequest) {
         String email = request.get("email");
-        String ipAddress = getClientIP(httpRequest);
+        String ipAddress = clientIpResolver.resolve(httpRequest);
 
         if (email == null || email.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Email обязателен"));
@@ -679,21 +690,6 @@ public class AuthController {
         return ResponseEntity.ok(Map.of("status", "success", "message", "Discord аккаунт отвязан."));
     }
 
-    private String getClientIP(HttpServletRequest request) {
-        // Cloudflare passes real IP in CF-Connecting-IP
-        String cfIp = request.getHeader("CF-Connecting-IP");
-        if (cfIp != null && !cfIp.isBlank()) {
-            return cfIp.trim();
-        }
-        // Fallback: X-Forwarded-For (other proxies/load balancers)
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader != null && !xfHeader.isBlank()) {
-            return xfHeader.split(",")[0].trim();
-        }
-        // Last resort: direct connection IP
-        return request.getRemoteAddr();
-    }
-
     private String generateVerificationToken() {
         SecureRandom random = new SecureRandom();
         byte[] bytes = new byte[32];
@@ -1,16 +1,23 @@
 package com.datapeice.slbackend.controller;
 
+import com.datapeice.slbackend.dto.BotMessageBatchRequest;
+import com.datapeice.slbackend.dto.BotMessageHistoryPage;
 import com.datapeice.slbackend.dto.BotMessageRequest;
 import com.datapeice.slbackend.dto.BotMessageResponse;
+import com.datapeice.slbackend.dto.ConversationInboxResponse;
 import com.datapeice.slbackend.dto.ConversationResponse;
 import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.config.WebSocketTrafficStats;
 import com.datapeice.slbackend.service.BotMessengerService;
+import com.datapeice.slbackend.service.MessengerEventPublisher;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -20,9 +27,15 @@ import java.util.Map;
 public class BotMessengerController {
 
     private final BotMessengerService botMessengerService;
+    private final MessengerEventPublisher eventPublisher;
+    private final WebSocketTrafficStats trafficStats;
 
-    public BotMessengerController(BotMessengerService botMessengerService) {
+    public BotMessengerController(BotMessengerService botMessengerService,
+                                  MessengerEventPublisher eventPublisher,
+                                  WebSocketTrafficStats trafficStats) {
         this.botMessengerService = botMessengerService;
+        this.eventPublisher = eventPublisher;
+        this.trafficStats = trafficStats;
     }
 
     @GetMapping("/conversations")
@@ -30,11 +43,38 @@ public class BotMessengerController {
         return ResponseEntity.ok(botMessengerService.getConversations());
     }
 
+    @GetMapping("/inbox")
+    public ResponseEntity<ConversationInboxResponse> getInbox(
+            @RequestParam(defaultValue = "30") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeTime,
+            @RequestParam(required = false) Long beforeUserId) {
+        return ResponseEntity.ok(botMessengerService.getInbox(limit, beforeTime, beforeUserId));
+    }
+
     @GetMapping("/messages/{userId}")
     public ResponseEntity<List<BotMessageResponse>> getMessageHistory(@PathVariable Long userId) {
         return ResponseEntity.ok(botMessengerService.getMessageHistory(userId));
     }
 
+    @GetMapping("/messages/{userId}/history")
+    public ResponseEntity<?> getMessagePage(@PathVariable Long userId,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @RequestParam(required = false) Long beforeId,
+                                            @RequestParam(required = false) Long afterId) {
+        try {
+            BotMessageHistoryPage page = botMessengerService.getMessagePage(userId, limit, beforeId, afterId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/messages/{userId}/read")
+    public ResponseEntity<Void> markConversationRead(@PathVariable Long userId) {
+        botMessengerService.markConversationRead(userId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/messages")
     public ResponseEntity<BotMessageResponse> sendMessage(@AuthenticationPrincipal User admin,
                                                            @Valid @RequestBody BotMessageRequest request) {
@@ -56,8 +96,28 @@ public class BotMessengerController {
     }
 
     @PostMapping("/messages/{messageId}/react")
-    public ResponseEntity<BotMessageResponse> toggleReaction(@PathVariable Long messageId,
-                                                              @RequestParam String emoji) {
-        return ResponseEntity.ok(botMessengerService.toggleReaction(messageId, emoji));
+    public ResponseEntity<?> toggleReaction(@AuthenticationPrincipal User admin,
+                                            @PathVariable Long messageId,
+                                            @RequestParam String emoji) {
+        try {
+            return ResponseEntity.ok(botMessengerService.toggleReaction(messageId, emoji, admin.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/messages/{userId}/batch")
+    public ResponseEntity<List<BotMessageResponse>> applyBatch(@AuthenticationPrincipal User admin,
+                                                               @PathVariable Long userId,
+                                                               @Valid @RequestBody BotMessageBatchRequest request) {
+        return ResponseEntity.ok(botMessengerService.applyBatch(userId, admin.getId(), request));
+    }
+
+    @GetMapping("/ws-stats")
+    public ResponseEntity<Map<String, Object>> getWebSocketStats() {
+        Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("transport", trafficStats.getStats());
+        stats.put("messenger", eventPublisher.getStats());
+        return ResponseEntity.ok(stats);
     }
 }
@@ -0,0 +1,90 @@
+package com.datapeice.slbackend.controller;
+
+import com.datapeice.slbackend.dto.DiscordTriggerDto;
+import com.datapeice.slbackend.dto.DiscordTriggerRequest;
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.service.DiscordOutboxService;
+import com.datapeice.slbackend.service.DiscordService;
+import com.datapeice.slbackend.service.DiscordTriggerService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/discord")
+@PreAuthorize("hasRole('ADMIN')")
+public class DiscordAdminController {
+
+    private final DiscordService discordService;
+    private final DiscordOutboxService outboxService;
+    private final DiscordTriggerService triggerService;
+
+    public DiscordAdminController(DiscordService discordService, DiscordOutboxService outboxService,
+                                  DiscordTriggerService triggerService) {
+        this.discordService = discordService;
+        this.outboxService = outboxService;
+        this.triggerService = triggerService;
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(discordService.getStatus());
+    }
+
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxDashboard() {
+        return ResponseEntity.ok(outboxService.getDashboard());
+    }
+
+    @PostMapping("/outbox/{id}/retry")
+    public ResponseEntity<?> retryOutboundMessage(@PathVariable Long id) {
+        try {
+            outboxService.retry(id);
+            return ResponseEntity.ok(Map.of("message", "Сообщение возвращено в очередь"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ==================== Keyword triggers ====================
+
+    @GetMapping("/triggers")
+    public ResponseEntity<List<DiscordTriggerDto>> getTriggers() {
+        return ResponseEntity.ok(triggerService.getAll());
+    }
+
+    @PostMapping("/triggers")
+    public ResponseEntity<?> createTrigger(@Valid @RequestBody DiscordTriggerRequest request,
+                                           @AuthenticationPrincipal User admin) {
+        try {
+            return ResponseEntity.ok(triggerService.create(request, admin.getId(), admin.getUsername()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/triggers/{id}")
+    public ResponseEntity<?> updateTrigger(@PathVariable Long id, @Valid @RequestBody DiscordTriggerRequest request,
+                                           @AuthenticationPrincipal User admin) {
+        try {
+            return ResponseEntity.ok(triggerService.update(id, request, admin.getId(), admin.getUsername()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/triggers/{id}")
+    public ResponseEntity<?> deleteTrigger(@PathVariable Long id, @AuthenticationPrincipal User admin) {
+        try {
+            triggerService.delete(id, admin.getId(), admin.getUsername());
+            return ResponseEntity.ok(Map.of("message", "Триггер удалён"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.datapeice.slbackend.controller;
 
 import com.datapeice.slbackend.entity.User;
 import com.datapeice.slbackend.service.FileStorageService;
+import com.datapeice.slbackend.service.ImageModerationService;
 import com.datapeice.slbackend.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -17,18 +18,37 @@ public class FileController {
         private final FileStorageService fileStorageService;
         private final UserService userService;
         private final com.datapeice.slbackend.service.AuditLogService auditLogService;
+        private final ImageModerationService imageModerationService;
 
         public FileController(FileStorageService fileStorageService, UserService userService,
-                        com.datapeice.slbackend.service.AuditLogService auditLogService) {
+                        com.datapeice.slbackend.service.AuditLogService auditLogService,
+                        ImageModerationService imageModerationService) {
                 this.fileStorageService = fileStorageService;
                 this.userService = userService;
                 this.auditLogService = auditLogService;
+                this.imageModerationService = imageModerationService;
         }
 
+        /**
+         * The image is served right away; moderation runs in the background and may move it to
+         * quarantine later. Content already judged inappropriate is refused up front.
+         */
         @PostMapping("/upload")
-        public ResponseEntity<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file) {
-                String objectKey = fileStorageService.uploadFile(file, "messenger");
-                String url = fileStorageService.resolveUrl(objectKey);
-                return ResponseEntity.ok(Map.of("url", url, "key", objectKey));
+        public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file,
+                        @AuthenticationPrincipal User user) {
+                try {
+                        String contentHash = imageModerationService.isEnabled() ? imageModerationService.hash(file) : null;
+                        if (contentHash != null) {
+                                imageModerationService.rejectIfKnownBad(contentHash);
+                        }
+                        String objectKey = fileStorageService.uploadFile(file, "messenger");
+                        if (contentHash != null) {
+                                imageModerationService.track(objectKey, contentHash, file.getContentType(), user);
+                        }
+                        String url = fileStorageService.resolveUrl(objectKey);
+                        return ResponseEntity.ok(Map.of("url", url, "key", objectKey));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(e.getMessage());
+                }
         }
 }
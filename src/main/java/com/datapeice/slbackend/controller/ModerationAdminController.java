@@ -0,0 +1,109 @@
+package com.datapeice.slbackend.controller;
+
+import com.datapeice.slbackend.dto.BannedWordDto;
+import com.datapeice.slbackend.dto.BannedWordRequest;
+import com.datapeice.slbackend.entity.ImageModerationStatus;
+import com.datapeice.slbackend.entity.ModeratedImage;
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.service.BannedWordService;
+import com.datapeice.slbackend.service.ImageModerationService;
+import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/moderation")
+@PreAuthorize("hasRole('ADMIN')")
+public class ModerationAdminController {
+
+    private final BannedWordService bannedWordService;
+    private final ImageModerationService imageModerationService;
+
+    public ModerationAdminController(BannedWordService bannedWordService,
+                                     ImageModerationService imageModerationService) {
+        this.bannedWordService = bannedWordService;
+        this.imageModerationService = imageModerationService;
+    }
+
+    // ==================== Banned words ====================
+
+    @GetMapping("/words")
+    public ResponseEntity<Page<BannedWordDto>> getWords(
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(bannedWordService.getWords(query, page, size));
+    }
+
+    @PostMapping("/words")
+    public ResponseEntity<?> addWord(@Valid @RequestBody BannedWordRequest request,
+                                     @AuthenticationPrincipal User admin) {
+        try {
+            return ResponseEntity.ok(bannedWordService.add(request, admin.getId(), admin.getUsername()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/words/{id}")
+    public ResponseEntity<?> updateWord(@PathVariable Long id, @Valid @RequestBody BannedWordRequest request,
+                                        @AuthenticationPrincipal User admin) {
+        try {
+            return ResponseEntity.ok(bannedWordService.update(id, request, admin.getId(), admin.getUsername()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/words/{id}")
+    public ResponseEntity<?> deleteWord(@PathVariable Long id, @AuthenticationPrincipal User admin) {
+        try {
+            bannedWordService.delete(id, admin.getId(), admin.getUsername());
+            return ResponseEntity.ok(Map.of("message", "Слово удалено"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /** Which matcher version is serving and whether a rebuild is still pending */
+    @GetMapping("/words/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(bannedWordService.getStatus());
+    }
+
+    @PostMapping("/words/reload")
+    public ResponseEntity<?> reload() {
+        long version = bannedWordService.requestRebuild();
+        return ResponseEntity.ok(Map.of("message", "Пересборка списка запущена", "version", version));
+    }
+
+    // ==================== Image moderation ====================
+
+    @GetMapping("/images")
+    public ResponseEntity<Page<ModeratedImage>> getImages(
+            @RequestParam(defaultValue = "QUARANTINED") ImageModerationStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(imageModerationService.getImages(status, page, size));
+    }
+
+    @GetMapping("/images/stats")
+    public ResponseEntity<Map<String, Object>> getImageStats() {
+        return ResponseEntity.ok(imageModerationService.getStats());
+    }
+
+    /** False positive: restore the image and remember its content as safe */
+    @PostMapping("/images/{id}/release")
+    public ResponseEntity<?> releaseImage(@PathVariable Long id, @AuthenticationPrincipal User admin) {
+        try {
+            return ResponseEntity.ok(imageModerationService.release(id, admin));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.datapeice.slbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BannedWordDto {
+    private Long id;
+    private String word;
+    private String addedBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,13 @@
+package com.datapeice.slbackend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class BannedWordRequest {
+
+    @NotBlank(message = "Word is required")
+    @Size(max = 100)
+    private String word;
+}
@@ -0,0 +1,38 @@
+package com.datapeice.slbackend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Several edits / deletions / reactions on messages of one conversation, applied together.
+ */
+@Data
+public class BotMessageBatchRequest {
+
+    public enum Action {
+        EDIT, DELETE, REACT
+    }
+
+    @NotEmpty
+    @Valid
+    private List<Operation> operations;
+
+    @Data
+    public static class Operation {
+        @NotNull
+        private Long messageId;
+
+        @NotNull
+        private Action action;
+
+        private String content;
+
+        private String mediaUrl;
+
+        private String emoji;
+    }
+}
@@ -0,0 +1,18 @@
+package com.datapeice.slbackend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BotMessageHistoryPage {
+    /** Always oldest first, regardless of the direction that was requested */
+    private List<BotMessageResponse> messages;
+    /**
+     * True if more messages exist in the requested direction: older ones for the latest / beforeId
+     * queries, newer ones for afterId (the client keeps calling with the new newestId).
+     */
+    private boolean hasMore;
+    private Long oldestId;
+    private Long newestId;
+}
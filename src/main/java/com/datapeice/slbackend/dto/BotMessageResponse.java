@@ -3,6 +3,7 @@ package com.datapeice.slbackend.dto;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 public class BotMessageResponse {
@@ -18,7 +19,10 @@ public class BotMessageResponse {
     private boolean isFromPlayer;
     @JsonProperty("isRead")
     private boolean isRead;
+    // Emojis with at least one reaction, comma-separated (kept for older clients)
     private String reactions;
+    // Emoji -> number of admins who set it
+    private Map<String, Long> reactionCounts;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
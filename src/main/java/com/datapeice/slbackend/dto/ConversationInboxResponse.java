@@ -0,0 +1,25 @@
+package com.datapeice.slbackend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class ConversationInboxResponse {
+    private List<InboxItem> items;
+    /** Pass both back as beforeTime / beforeUserId to get the next page. Null when there are no more rows */
+    private LocalDateTime nextBeforeTime;
+    private Long nextBeforeUserId;
+
+    @Data
+    public static class InboxItem {
+        private MessengerUserSummary user;
+        private Long lastMessageId;
+        private String lastMessage;
+        private LocalDateTime lastMessageTime;
+        private boolean lastMessageIsEdited;
+        private boolean lastMessageFromPlayer;
+        private int unreadCount;
+    }
+}
@@ -0,0 +1,26 @@
+package com.datapeice.slbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiscordTriggerDto {
+    private Long id;
+    private String name;
+    private List<String> keywords;
+    private String response;
+    private List<String> channelIds;
+    private int cooldownSeconds;
+    private boolean exclusive;
+    private boolean enabled;
+    private int sortOrder;
+    private String updatedBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
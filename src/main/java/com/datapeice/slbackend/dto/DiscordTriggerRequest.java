@@ -0,0 +1,33 @@
+package com.datapeice.slbackend.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class DiscordTriggerRequest {
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    @NotEmpty(message = "At least one keyword is required")
+    private List<String> keywords;
+
+    @NotBlank(message = "Response is required")
+    private String response;
+
+    /** Empty = every channel */
+    private List<String> channelIds;
+
+    @Min(0)
+    private int cooldownSeconds;
+
+    private boolean exclusive;
+
+    private boolean enabled = true;
+
+    private int sortOrder;
+}
@@ -0,0 +1,28 @@
+package com.datapeice.slbackend.dto;
+
+import com.datapeice.slbackend.entity.UserRole;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Just the user fields the admin messenger list needs, loaded with a single projection query
+ * instead of a full profile per user.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MessengerUserSummary {
+    private Long id;
+    private String username;
+    private String discordNickname;
+    private String minecraftNickname;
+    private String avatarUrl;
+    private UserRole role;
+    @JsonProperty("isPlayer")
+    private boolean isPlayer;
+    private boolean banned;
+    private String discordUserId;
+    private boolean inDiscord;
+}
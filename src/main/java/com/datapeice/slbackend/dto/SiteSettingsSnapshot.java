@@ -0,0 +1,40 @@
+package com.datapeice.slbackend.dto;
+
+import com.datapeice.slbackend.entity.SiteSettings;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Immutable copy of {@link SiteSettings} for hot paths (maintenance filter, registration and
+ * application checks). Getter names match the entity, so readers only change the type.
+ */
+@Getter
+@AllArgsConstructor
+public final class SiteSettingsSnapshot {
+    private final int maxWarningsBeforeBan;
+    private final boolean autoBanOnMaxWarnings;
+    private final boolean sendEmailOnWarning;
+    private final boolean sendDiscordDmOnWarning;
+    private final boolean sendEmailOnBan;
+    private final boolean sendDiscordDmOnBan;
+    private final boolean sendEmailOnApplicationApproved;
+    private final boolean sendEmailOnApplicationRejected;
+    private final boolean applicationsOpen;
+    private final boolean registrationOpen;
+    private final boolean maintenanceMode;
+
+    public static SiteSettingsSnapshot of(SiteSettings settings) {
+        return new SiteSettingsSnapshot(
+                settings.getMaxWarningsBeforeBan(),
+                settings.isAutoBanOnMaxWarnings(),
+                settings.isSendEmailOnWarning(),
+                settings.isSendDiscordDmOnWarning(),
+                settings.isSendEmailOnBan(),
+                settings.isSendDiscordDmOnBan(),
+                settings.isSendEmailOnApplicationApproved(),
+                settings.isSendEmailOnApplicationRejected(),
+                settings.isApplicationsOpen(),
+                settings.isRegistrationOpen(),
+                settings.isMaintenanceMode());
+    }
+}
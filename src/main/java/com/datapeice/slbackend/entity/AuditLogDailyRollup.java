@@ -0,0 +1,37 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Number of audit events per day, action type and actor, kept after the raw rows are archived.
+ * Anonymous actors are stored as actor id 0 / empty username so the unique key stays usable.
+ */
+@Entity
+@Table(name = "audit_log_daily_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_audit_rollup", columnNames = {"day", "action_type", "actor_id", "actor_username"})
+})
+@Data
+public class AuditLogDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "action_type", nullable = false)
+    private String actionType;
+
+    @Column(name = "actor_id", nullable = false)
+    private Long actorId;
+
+    @Column(name = "actor_username", nullable = false)
+    private String actorUsername;
+
+    @Column(name = "event_count", nullable = false)
+    private long eventCount;
+}
@@ -0,0 +1,29 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Word rejected by the local toxicity check (ModerationService). Stored lowercased and trimmed.
+ */
+@Entity
+@Table(name = "banned_words")
+@Data
+public class BannedWord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String word;
+
+    private String addedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime updatedAt;
+}
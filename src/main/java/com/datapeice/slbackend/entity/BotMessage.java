@@ -5,7 +5,9 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bot_messages")
+@Table(name = "bot_messages", indexes = {
+        @Index(name = "idx_bot_messages_recipient_id", columnList = "recipient_user_id, id")
+})
 @Data
 public class BotMessage {
 
@@ -39,6 +41,7 @@ public class BotMessage {
     @Column(name = "is_read", columnDefinition = "boolean default false")
     private boolean isRead = false;
 
+    // Legacy comma-separated reactions; moved to bot_message_reactions on startup and no longer written
     @Column(columnDefinition = "TEXT")
     private String reactions;
 
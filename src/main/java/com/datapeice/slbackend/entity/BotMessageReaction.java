@@ -0,0 +1,39 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * One emoji set by one admin on a bot message. Toggles are a single insert or delete on the
+ * unique key, so concurrent reactions never overwrite each other.
+ */
+@Entity
+@Table(name = "bot_message_reactions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_bot_message_reaction", columnNames = {"message_id", "emoji", "actor_user_id"})
+})
+@Data
+public class BotMessageReaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "message_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private BotMessage message;
+
+    @Column(nullable = false, length = 64)
+    private String emoji;
+
+    // Admin who reacted; 0 for reactions migrated from the old comma-separated column
+    @Column(name = "actor_user_id", nullable = false)
+    private Long actorUserId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
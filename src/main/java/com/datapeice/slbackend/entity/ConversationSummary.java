@@ -0,0 +1,44 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized messenger inbox row, one per player the bot has talked to.
+ * Maintained by {@link com.datapeice.slbackend.repository.ConversationSummaryRepository#refresh(Long)}
+ * on every bot_messages write, never edited directly.
+ */
+@Entity
+@Table(name = "conversation_summaries", indexes = {
+        @Index(name = "idx_conversation_summary_inbox", columnList = "last_message_time, recipient_user_id")
+})
+@Data
+public class ConversationSummary {
+
+    @Id
+    @Column(name = "recipient_user_id")
+    private Long recipientUserId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message_snippet", columnDefinition = "TEXT")
+    private String lastMessageSnippet;
+
+    @Column(name = "last_message_time", nullable = false)
+    private LocalDateTime lastMessageTime;
+
+    @Column(name = "last_message_is_edited", nullable = false)
+    private boolean lastMessageIsEdited;
+
+    @Column(name = "last_message_from_player", nullable = false)
+    private boolean lastMessageFromPlayer;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
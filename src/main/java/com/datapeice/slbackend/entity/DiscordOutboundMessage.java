@@ -0,0 +1,67 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Discord action (DM, channel message, role change) waiting to be delivered by
+ * {@link com.datapeice.slbackend.service.DiscordOutboxService}.
+ */
+@Entity
+@Table(name = "discord_outbound_messages", indexes = {
+        @Index(name = "idx_discord_outbound_dispatch", columnList = "status, priority, next_attempt_at")
+})
+@Data
+public class DiscordOutboundMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DiscordOutboundType type;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    private DiscordOutboundPriority priority;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DiscordOutboundStatus status = DiscordOutboundStatus.PENDING;
+
+    /** Discord user ID for DMs and role changes, channel ID for channel messages */
+    @Column(name = "target_id", nullable = false)
+    private String targetId;
+
+    private String roleId;
+
+    @Column(columnDefinition = "TEXT")
+    private String content;
+
+    @Column(columnDefinition = "TEXT")
+    private String mediaUrl;
+
+    /** Messenger message that receives the Discord message ID once delivered */
+    @Column(name = "bot_message_id")
+    private Long botMessageId;
+
+    private int attempts = 0;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime sentAt;
+
+    // When a dispatcher moved the row to SENDING; rows stuck longer than the lease are re-queued
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+}
@@ -0,0 +1,13 @@
+package com.datapeice.slbackend.entity;
+
+/**
+ * Dispatch order of queued Discord actions. Stored by ordinal, so the declaration
+ * order is the priority order and existing values must never move: append new values
+ * at the end only (they rank below everything else).
+ */
+public enum DiscordOutboundPriority {
+    MODERATION,
+    APPLICATION,
+    MESSENGER,
+    BULK
+}
@@ -0,0 +1,8 @@
+package com.datapeice.slbackend.entity;
+
+public enum DiscordOutboundStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
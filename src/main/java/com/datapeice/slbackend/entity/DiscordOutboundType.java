@@ -0,0 +1,8 @@
+package com.datapeice.slbackend.entity;
+
+public enum DiscordOutboundType {
+    DIRECT_MESSAGE,
+    CHANNEL_MESSAGE,
+    ADD_ROLE,
+    REMOVE_ROLE
+}
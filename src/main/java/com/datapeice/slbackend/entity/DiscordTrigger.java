@@ -0,0 +1,52 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyword trigger for the bot: when a message contains one of the keywords, the bot replies
+ * with the configured response.
+ */
+@Entity
+@Table(name = "discord_triggers")
+@Data
+public class DiscordTrigger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    /** One keyword per line, case-insensitive substring match against the raw message text */
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String keywords;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String response;
+
+    /** Comma-separated channel IDs the trigger is limited to. Empty = every channel and DMs */
+    @Column(columnDefinition = "TEXT")
+    private String channelIds;
+
+    /** Minimum time between two replies of this trigger in the same channel */
+    private int cooldownSeconds = 0;
+
+    /** When this trigger fires, its response is the only reply to the message */
+    private boolean exclusive = false;
+
+    private boolean enabled = true;
+
+    /** Evaluation order, lower first */
+    private int sortOrder = 0;
+
+    private String updatedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,11 @@
+package com.datapeice.slbackend.entity;
+
+public enum ImageModerationStatus {
+    PENDING,
+    APPROVED,
+    QUARANTINED,
+    /** Quarantined, then restored by an admin */
+    RELEASED,
+    /** The check kept failing; the image stays visible */
+    FAILED
+}
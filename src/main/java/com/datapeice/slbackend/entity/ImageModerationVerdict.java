@@ -0,0 +1,34 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sightengine verdict for one image content (SHA-256 of the bytes), so the same picture is never
+ * sent to the API twice.
+ */
+@Entity
+@Table(name = "image_moderation_verdicts")
+@Data
+public class ImageModerationVerdict {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    private boolean inappropriate;
+
+    /** Sightengine "nudity.none" probability; null when set by an admin */
+    private Double safeScore;
+
+    /** Admin who overrode the API verdict, if any */
+    private String overriddenBy;
+
+    @Column(nullable = false)
+    private LocalDateTime checkedAt = LocalDateTime.now();
+}
@@ -0,0 +1,48 @@
+package com.datapeice.slbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uploaded image awaiting or past its moderation check. Uploads are served right away and moved
+ * to quarantine if the check comes back negative.
+ */
+@Entity
+@Table(name = "moderated_images", indexes = {
+        @Index(name = "idx_moderated_images_status_created", columnList = "status, created_at")
+})
+@Data
+public class ModeratedImage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 512)
+    private String objectKey;
+
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    private String contentType;
+
+    private Long uploaderId;
+
+    private String uploaderUsername;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImageModerationStatus status = ImageModerationStatus.PENDING;
+
+    private int attempts = 0;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime checkedAt;
+}
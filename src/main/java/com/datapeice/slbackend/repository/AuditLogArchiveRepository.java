@@ -0,0 +1,17 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.AuditLogArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AuditLogArchiveRepository extends JpaRepository<AuditLogArchive, Long> {
+
+    Optional<AuditLogArchive> findByDay(LocalDate day);
+
+    List<AuditLogArchive> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,14 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.AuditLogDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AuditLogDailyRollupRepository extends JpaRepository<AuditLogDailyRollup, Long> {
+
+    List<AuditLogDailyRollup> findByDayBetweenOrderByDayDescEventCountDesc(LocalDate from, LocalDate to);
+}
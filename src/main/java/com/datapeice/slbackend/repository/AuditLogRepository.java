@@ -1,31 +1,69 @@
 package com.datapeice.slbackend.repository;
 
 import com.datapeice.slbackend.entity.AuditLog;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
 
-    @Query("SELECT a FROM AuditLog a WHERE " +
-            "LOWER(a.actorUsername) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(a.targetUsername) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(a.actionType) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(a.details) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<AuditLog> searchLogs(@Param("query") String query, Pageable pageable);
-
-    @Query("SELECT DISTINCT a FROM AuditLog a WHERE " +
-            "a.actorId = :userId OR a.targetUserId = :userId OR " +
-            "LOWER(a.actorUsername) = LOWER(:username) OR LOWER(a.targetUsername) = LOWER(:username) OR " +
-            "(:hasRelated = true AND (a.actorId IN :relatedIds OR a.targetUserId IN :relatedIds))")
-    Page<AuditLog> findUserRelatedLogs(
-            @Param("userId") Long userId,
-            @Param("username") String username,
-            @Param("relatedIds") java.util.List<Long> relatedIds,
-            @Param("hasRelated") boolean hasRelated,
-            Pageable pageable);
+    String COLUMNS = "a.id, a.actor_id, a.actor_username, a.action_type, a.details, a.target_user_id, " +
+            "a.target_username, a.ip_address, a.user_agent, a.created_at";
+
+    /**
+     * Full-text search over action type, both usernames and details via the GIN-indexed search_tsv.
+     * {@code tsQuery} is a to_tsquery expression built by AuditLogService (prefix terms joined with &).
+     */
+    @Query(value = "SELECT " + COLUMNS + " FROM audit_logs a WHERE a.search_tsv @@ to_tsquery('simple', :tsQuery) " +
+            "ORDER BY a.created_at DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<AuditLog> searchLogs(@Param("tsQuery") String tsQuery, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(value = "SELECT COUNT(*) FROM audit_logs a WHERE a.search_tsv @@ to_tsquery('simple', :tsQuery)",
+            nativeQuery = true)
+    long countSearchLogs(@Param("tsQuery") String tsQuery);
+
+    /**
+     * Substring search for queries the full-text parser would split apart (IPs, emails, host:port).
+     * Not index-backed, so only used for those. {@code pattern} is an escaped ILIKE pattern.
+     */
+    @Query(value = "SELECT " + COLUMNS + " FROM audit_logs a WHERE a.actor_username ILIKE :pattern " +
+            "OR a.target_username ILIKE :pattern OR a.action_type ILIKE :pattern OR a.details ILIKE :pattern " +
+            "OR a.ip_address ILIKE :pattern ORDER BY a.created_at DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<AuditLog> searchLogsBySubstring(@Param("pattern") String pattern, @Param("limit") int limit,
+                                         @Param("offset") long offset);
+
+    @Query(value = "SELECT COUNT(*) FROM audit_logs a WHERE a.actor_username ILIKE :pattern " +
+            "OR a.target_username ILIKE :pattern OR a.action_type ILIKE :pattern OR a.details ILIKE :pattern " +
+            "OR a.ip_address ILIKE :pattern", nativeQuery = true)
+    long countSearchLogsBySubstring(@Param("pattern") String pattern);
+
+    /**
+     * Logs where any of the users is actor or target, by id or by name. Each UNION branch is a
+     * top-N scan of one (column, created_at) index; UNION also removes rows matched by several branches.
+     * {@code fetch} must be offset + limit.
+     */
+    @Query(value = "SELECT * FROM (" +
+            "(SELECT " + COLUMNS + " FROM audit_logs a WHERE a.actor_id IN (:userIds) ORDER BY a.created_at DESC LIMIT :fetch) " +
+            "UNION (SELECT " + COLUMNS + " FROM audit_logs a WHERE a.target_user_id IN (:userIds) ORDER BY a.created_at DESC LIMIT :fetch) " +
+            "UNION (SELECT " + COLUMNS + " FROM audit_logs a WHERE LOWER(a.actor_username) = LOWER(:username) ORDER BY a.created_at DESC LIMIT :fetch) " +
+            "UNION (SELECT " + COLUMNS + " FROM audit_logs a WHERE LOWER(a.target_username) = LOWER(:username) ORDER BY a.created_at DESC LIMIT :fetch)" +
+            ") related ORDER BY related.created_at DESC, related.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<AuditLog> findUserRelatedLogs(@Param("userIds") Collection<Long> userIds,
+                                       @Param("username") String username,
+                                       @Param("fetch") long fetch,
+                                       @Param("limit") int limit,
+                                       @Param("offset") long offset);
+
+    @Query(value = "SELECT COUNT(*) FROM (" +
+            "SELECT a.id, a.created_at FROM audit_logs a WHERE a.actor_id IN (:userIds) " +
+            "UNION SELECT a.id, a.created_at FROM audit_logs a WHERE a.target_user_id IN (:userIds) " +
+            "UNION SELECT a.id, a.created_at FROM audit_logs a WHERE LOWER(a.actor_username) = LOWER(:username) " +
+            "UNION SELECT a.id, a.created_at FROM audit_logs a WHERE LOWER(a.target_username) = LOWER(:username)" +
+            ") related", nativeQuery = true)
+    long countUserRelatedLogs(@Param("userIds") Collection<Long> userIds, @Param("username") String username);
 }
@@ -0,0 +1,34 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.BannedWord;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BannedWordRepository extends JpaRepository<BannedWord, Long> {
+
+    boolean existsByWord(String word);
+
+    Page<BannedWord> findByWordContainingOrderByWordAsc(String query, Pageable pageable);
+
+    @Query("SELECT b.word FROM BannedWord b")
+    List<String> findAllWords();
+
+    /** Changes whenever a word is added, edited or removed, so instances can spot edits made elsewhere */
+    interface Fingerprint {
+        long getWordCount();
+
+        Long getMaxId();
+
+        LocalDateTime getLastUpdated();
+    }
+
+    @Query("SELECT COUNT(b) AS wordCount, MAX(b.id) AS maxId, MAX(b.updatedAt) AS lastUpdated FROM BannedWord b")
+    Fingerprint fingerprint();
+}
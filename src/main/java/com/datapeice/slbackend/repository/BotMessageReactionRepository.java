@@ -0,0 +1,65 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.BotMessageReaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BotMessageReactionRepository extends JpaRepository<BotMessageReaction, Long> {
+
+    // Holder of reactions migrated from the old comma-separated column, which recorded no admin
+    long LEGACY_ACTOR_ID = 0L;
+
+    interface ReactionCount {
+        Long getMessageId();
+
+        String getEmoji();
+
+        long getCount();
+    }
+
+    @Modifying
+    @Query(value = "DELETE FROM bot_message_reactions WHERE message_id = :messageId AND emoji = :emoji " +
+            "AND actor_user_id = :actorId", nativeQuery = true)
+    int removeReaction(@Param("messageId") Long messageId, @Param("emoji") String emoji, @Param("actorId") Long actorId);
+
+    @Modifying
+    @Query(value = "INSERT INTO bot_message_reactions (message_id, emoji, actor_user_id, created_at) " +
+            "VALUES (:messageId, :emoji, :actorId, now()) " +
+            "ON CONFLICT (message_id, emoji, actor_user_id) DO NOTHING", nativeQuery = true)
+    int addReaction(@Param("messageId") Long messageId, @Param("emoji") String emoji, @Param("actorId") Long actorId);
+
+    /**
+     * Serializes toggles of one (message, emoji) pair until the surrounding transaction ends, so
+     * the holder count read after a toggle can't interleave with another admin's toggle.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(:emoji, :messageId))", nativeQuery = true)
+    Integer lockMessageEmoji(@Param("messageId") Long messageId, @Param("emoji") String emoji);
+
+    /**
+     * Flips one actor's reaction without reading the message row. Returns true if it is now set.
+     * A migrated reaction belongs to no admin, so whoever clicks it first clears it instead of
+     * becoming a second holder.
+     */
+    default boolean toggle(Long messageId, String emoji, Long actorId) {
+        if (removeReaction(messageId, emoji, actorId) > 0
+                || removeReaction(messageId, emoji, LEGACY_ACTOR_ID) > 0) {
+            return false;
+        }
+        addReaction(messageId, emoji, actorId);
+        return true;
+    }
+
+    // Ordered by first use so emojis keep a stable position in the UI
+    @Query("SELECT r.message.id AS messageId, r.emoji AS emoji, COUNT(r) AS count FROM BotMessageReaction r " +
+            "WHERE r.message.id IN :messageIds GROUP BY r.message.id, r.emoji ORDER BY MIN(r.id)")
+    List<ReactionCount> countByMessageIds(@Param("messageIds") Collection<Long> messageIds);
+
+    long countByMessageIdAndEmoji(Long messageId, String emoji);
+}
@@ -1,6 +1,7 @@
 package com.datapeice.slbackend.repository;
 
 import com.datapeice.slbackend.entity.BotMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,9 +14,12 @@ public interface BotMessageRepository extends JpaRepository<BotMessage, Long> {
 
     List<BotMessage> findByRecipientUserIdOrderByCreatedAtAsc(Long recipientUserId);
 
-    @Query("SELECT bm FROM BotMessage bm WHERE bm.id IN " +
-           "(SELECT MAX(m.id) FROM BotMessage m GROUP BY m.recipientUser.id)")
-    List<BotMessage> findLatestMessagePerRecipient();
+    // Cursor queries for paged history, all served by idx_bot_messages_recipient_id
+    List<BotMessage> findByRecipientUserIdOrderByIdDesc(Long recipientUserId, Pageable pageable);
+
+    List<BotMessage> findByRecipientUserIdAndIdLessThanOrderByIdDesc(Long recipientUserId, Long beforeId, Pageable pageable);
+
+    List<BotMessage> findByRecipientUserIdAndIdGreaterThanOrderByIdAsc(Long recipientUserId, Long afterId, Pageable pageable);
 
     void deleteByRecipientUserId(Long recipientUserId);
 
@@ -0,0 +1,63 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.ConversationSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    String SNIPPET_SQL = "CASE WHEN (m.content IS NULL OR m.content = '') AND m.media_url IS NOT NULL " +
+            "THEN '📷 [Медиа]' ELSE LEFT(m.content, 200) END";
+
+    /**
+     * Recomputes the summary of one conversation from bot_messages (latest message + unread count).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO conversation_summaries (recipient_user_id, last_message_id, last_message_snippet, " +
+            "last_message_time, last_message_is_edited, last_message_from_player, unread_count, updated_at) " +
+            "SELECT m.recipient_user_id, m.id, " + SNIPPET_SQL + ", m.created_at, m.is_edited, m.is_from_player, " +
+            "(SELECT COUNT(*) FROM bot_messages u WHERE u.recipient_user_id = m.recipient_user_id " +
+            "AND u.is_from_player = true AND u.is_read = false), now() " +
+            "FROM bot_messages m WHERE m.recipient_user_id = :userId ORDER BY m.id DESC LIMIT 1 " +
+            "ON CONFLICT (recipient_user_id) DO UPDATE SET last_message_id = EXCLUDED.last_message_id, " +
+            "last_message_snippet = EXCLUDED.last_message_snippet, last_message_time = EXCLUDED.last_message_time, " +
+            "last_message_is_edited = EXCLUDED.last_message_is_edited, " +
+            "last_message_from_player = EXCLUDED.last_message_from_player, " +
+            "unread_count = EXCLUDED.unread_count, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int upsertFromMessages(@Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM conversation_summaries s WHERE s.recipient_user_id = :userId " +
+            "AND NOT EXISTS (SELECT 1 FROM bot_messages m WHERE m.recipient_user_id = :userId)", nativeQuery = true)
+    int deleteIfEmpty(@Param("userId") Long userId);
+
+    default void refresh(Long userId) {
+        if (upsertFromMessages(userId) == 0) {
+            deleteIfEmpty(userId);
+        }
+    }
+
+    @Query("SELECT s FROM ConversationSummary s ORDER BY s.lastMessageTime DESC, s.recipientUserId DESC")
+    List<ConversationSummary> findInboxFirstPage(Pageable pageable);
+
+    /**
+     * Keyset page: rows strictly after the (time, userId) of the last row the client has seen.
+     */
+    @Query("SELECT s FROM ConversationSummary s WHERE s.lastMessageTime < :beforeTime " +
+            "OR (s.lastMessageTime = :beforeTime AND s.recipientUserId < :beforeUserId) " +
+            "ORDER BY s.lastMessageTime DESC, s.recipientUserId DESC")
+    List<ConversationSummary> findInboxPageBefore(@Param("beforeTime") LocalDateTime beforeTime,
+                                                  @Param("beforeUserId") Long beforeUserId,
+                                                  Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(s.unreadCount), 0) FROM ConversationSummary s")
+    long sumUnread();
+}
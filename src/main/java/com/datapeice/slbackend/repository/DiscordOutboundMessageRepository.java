@@ -0,0 +1,58 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.DiscordOutboundMessage;
+import com.datapeice.slbackend.entity.DiscordOutboundStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DiscordOutboundMessageRepository extends JpaRepository<DiscordOutboundMessage, Long> {
+
+    /**
+     * Locks the next due rows, highest priority first. SKIP LOCKED lets several
+     * instances dispatch from the same table without handing out a row twice.
+     */
+    @Query(value = "SELECT * FROM discord_outbound_messages WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY priority, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<DiscordOutboundMessage> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Re-queues rows claimed before the cutoff. Rows claimed more recently may still be in
+     * flight on another instance and are left alone.
+     */
+    @Modifying
+    @Query("UPDATE DiscordOutboundMessage m SET m.status = com.datapeice.slbackend.entity.DiscordOutboundStatus.PENDING " +
+            "WHERE m.status = com.datapeice.slbackend.entity.DiscordOutboundStatus.SENDING " +
+            "AND (m.claimedAt IS NULL OR m.claimedAt < :cutoff)")
+    int resetInFlight(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Extends the lease of rows this instance is still sending, so recovery doesn't re-queue them.
+     */
+    @Modifying
+    @Query("UPDATE DiscordOutboundMessage m SET m.claimedAt = :now WHERE m.id IN :ids " +
+            "AND m.status = com.datapeice.slbackend.entity.DiscordOutboundStatus.SENDING")
+    int renewClaims(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("SELECT m.status, m.priority, COUNT(m) FROM DiscordOutboundMessage m GROUP BY m.status, m.priority")
+    List<Object[]> countByStatusAndPriority();
+
+    @Query("SELECT MIN(m.createdAt) FROM DiscordOutboundMessage m " +
+            "WHERE m.status = com.datapeice.slbackend.entity.DiscordOutboundStatus.PENDING")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    List<DiscordOutboundMessage> findByStatusOrderByIdDesc(DiscordOutboundStatus status, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM DiscordOutboundMessage m WHERE m.status = com.datapeice.slbackend.entity.DiscordOutboundStatus.SENT " +
+            "AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,31 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.DiscordTrigger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DiscordTriggerRepository extends JpaRepository<DiscordTrigger, Long> {
+
+    List<DiscordTrigger> findAllByOrderBySortOrderAscIdAsc();
+
+    boolean existsByNameIgnoreCase(String name);
+
+    boolean existsByNameIgnoreCaseAndIdNot(String name, Long id);
+
+    /** Changes whenever a trigger is created, edited or deleted, so instances can spot edits made elsewhere */
+    interface Fingerprint {
+        long getTriggerCount();
+
+        Long getMaxId();
+
+        LocalDateTime getLastUpdated();
+    }
+
+    @Query("SELECT COUNT(t) AS triggerCount, MAX(t.id) AS maxId, MAX(t.updatedAt) AS lastUpdated FROM DiscordTrigger t")
+    Fingerprint fingerprint();
+}
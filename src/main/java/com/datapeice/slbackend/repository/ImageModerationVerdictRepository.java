@@ -0,0 +1,13 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.ImageModerationVerdict;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImageModerationVerdictRepository extends JpaRepository<ImageModerationVerdict, Long> {
+
+    Optional<ImageModerationVerdict> findByContentHash(String contentHash);
+}
@@ -0,0 +1,22 @@
+package com.datapeice.slbackend.repository;
+
+import com.datapeice.slbackend.entity.ImageModerationStatus;
+import com.datapeice.slbackend.entity.ModeratedImage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ModeratedImageRepository extends JpaRepository<ModeratedImage, Long> {
+
+    List<ModeratedImage> findTop100ByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(ImageModerationStatus status,
+                                                                                 LocalDateTime before);
+
+    Page<ModeratedImage> findByStatusOrderByCreatedAtDesc(ImageModerationStatus status, Pageable pageable);
+
+    long countByStatus(ImageModerationStatus status);
+}
@@ -34,8 +34,31 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByDiscordUserId(String discordUserId);
 
+    // LOWER(...) on both sides so the idx_users_lower_* expression indexes are used
+    @org.springframework.data.jpa.repository.Query("SELECT u FROM User u WHERE LOWER(u.discordNickname) = LOWER(:name) ORDER BY u.id")
+    List<User> findByDiscordNicknameLower(@org.springframework.data.repository.query.Param("name") String name);
+
+    @org.springframework.data.jpa.repository.Query("SELECT u FROM User u WHERE LOWER(u.username) = LOWER(:name) ORDER BY u.id")
+    List<User> findByUsernameLower(@org.springframework.data.repository.query.Param("name") String name);
+
+    @org.springframework.data.jpa.repository.Query("SELECT u.discordUserId FROM User u WHERE u.discordUserId IS NOT NULL")
+    List<String> findAllLinkedDiscordUserIds();
+
     Page<User> findAll(Pageable pageable);
 
+    @org.springframework.data.jpa.repository.Query("SELECT new com.datapeice.slbackend.dto.MessengerUserSummary(" +
+            "u.id, u.username, u.discordNickname, u.minecraftNickname, u.avatarUrl, u.role, u.isPlayer, u.banned, " +
+            "u.discordUserId, u.inDiscord) FROM User u WHERE u.id IN :ids")
+    List<com.datapeice.slbackend.dto.MessengerUserSummary> findMessengerSummariesByIds(
+            @org.springframework.data.repository.query.Param("ids") java.util.Collection<Long> ids);
+
+    @org.springframework.data.jpa.repository.Query("SELECT new com.datapeice.slbackend.dto.MessengerUserSummary(" +
+            "u.id, u.username, u.discordNickname, u.minecraftNickname, u.avatarUrl, u.role, u.isPlayer, u.banned, " +
+            "u.discordUserId, u.inDiscord) FROM User u " +
+            "WHERE NOT EXISTS (SELECT 1 FROM ConversationSummary s WHERE s.recipientUserId = u.id) " +
+            "ORDER BY LOWER(u.username)")
+    List<com.datapeice.slbackend.dto.MessengerUserSummary> findUncontactedMessengerSummaries();
+
     @org.springframework.data.jpa.repository.Query("SELECT DISTINCT u FROM User u WHERE " +
             "(:query IS NULL OR :query = '' OR " +
             "LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
@@ -0,0 +1,132 @@
+package com.datapeice.slbackend.security;
+
+import com.datapeice.slbackend.util.CidrTrie;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authenticates anticheat telemetry ({@code POST /api/anticheat}) before the body is read, so
+ * rejected requests never reach Jackson, the rate-limit store or the controller.
+ * <p>
+ * The IP allow-list is compiled once into a {@link CidrTrie}. API keys are compared as SHA-256
+ * digests with {@link MessageDigest#isEqual}, against every configured key, so neither the key
+ * contents nor its length nor which key matched shows up in response timing. Several keys can be
+ * active at once ({@code anticheat.api-keys}) to rotate without downtime. Rejections are logged at
+ * most once per second so a flood doesn't turn into log I/O.
+ */
+@Component
+@Slf4j
+public class AnticheatAuthFilter extends OncePerRequestFilter {
+
+    static final String PATH = "/api/anticheat";
+    static final String KEY_HEADER = "X-Anticheat-Key";
+
+    private final ClientIpResolver clientIpResolver;
+    private final CidrTrie allowedIps;
+    private final boolean allowAllIps;
+    private final byte[][] keyDigests;
+
+    private final AtomicLong lastWarnNanos = new AtomicLong(System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+    private final AtomicLong suppressedWarnings = new AtomicLong();
+
+    public AnticheatAuthFilter(ClientIpResolver clientIpResolver,
+                               @Value("${anticheat.allowed-ips:}") String allowedIpsRaw,
+                               @Value("${anticheat.api-key:}") String apiKey,
+                               @Value("${anticheat.api-keys:}") String apiKeys) {
+        this.clientIpResolver = clientIpResolver;
+        // Empty list or 0.0.0.0 = accept from all
+        this.allowAllIps = Arrays.stream(allowedIpsRaw.split(",")).map(String::trim).anyMatch("0.0.0.0"::equals);
+        this.allowedIps = ClientIpResolver.parseAllowList(allowedIpsRaw, "anticheat.allowed-ips");
+
+        List<byte[]> digests = new ArrayList<>();
+        for (String key : (apiKey + "," + apiKeys).split(",")) {
+            String trimmed = key.trim();
+            if (!trimmed.isEmpty()) {
+                digests.add(sha256(trimmed));
+            }
+        }
+        this.keyDigests = digests.toArray(new byte[0][]);
+        log.info("[Anticheat] {} API key(s) active, IP allow-list: {}", keyDigests.length,
+                allowAllIps || allowedIps.isEmpty() ? "any" : allowedIps.size() + " range(s)");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String clientIp = clientIpResolver.resolve(request);
+
+        if (!allowAllIps && !allowedIps.isEmpty() && !allowedIps.contains(clientIp)) {
+            warnRejected("unauthorized IP", clientIp);
+            reject(response, "IP not allowed");
+            return;
+        }
+
+        if (keyDigests.length > 0 && !isValidKey(request.getHeader(KEY_HEADER))) {
+            warnRejected("invalid API key", clientIp);
+            reject(response, "Invalid API key");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isValidKey(String providedKey) {
+        byte[] provided = sha256(providedKey == null ? "" : providedKey);
+        boolean match = false;
+        // No early exit: every key is compared on every request
+        for (byte[] digest : keyDigests) {
+            match |= MessageDigest.isEqual(digest, provided);
+        }
+        return match && providedKey != null;
+    }
+
+    private void warnRejected(String reason, String clientIp) {
+        long now = System.nanoTime();
+        long last = lastWarnNanos.get();
+        if (now - last < TimeUnit.SECONDS.toNanos(1) || !lastWarnNanos.compareAndSet(last, now)) {
+            suppressedWarnings.incrementAndGet();
+            return;
+        }
+        long suppressed = suppressedWarnings.getAndSet(0);
+        log.warn("[Anticheat] Rejected request from {} - {}{}", clientIp, reason,
+                suppressed > 0 ? " (" + suppressed + " more rejections not logged)" : "");
+    }
+
+    private static void reject(HttpServletResponse response, String error) throws IOException {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        // Don't let the container drain an unread (possibly large) body to keep the connection alive
+        response.setHeader("Connection", "close");
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.datapeice.slbackend.security;
+
+import com.datapeice.slbackend.util.CidrTrie;
+import com.datapeice.slbackend.util.IpAddress;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The one place that decides which IP a request comes from.
+ * <p>
+ * {@code X-Forwarded-For} is only believed when the direct peer is a proxy: a private address
+ * (Heroku router, local reverse proxy) or one of {@code security.client-ip.trusted-proxies}. The
+ * chain is walked from the right and the first untrusted hop wins, so a client can't prepend a
+ * fake IP.
+ * <p>
+ * {@code CF-Connecting-IP} needs more: private proxies such as the Heroku router pass client
+ * headers through unchanged, so it is only believed when the hop that handed the request to them
+ * (or the peer itself) is one of the configured {@code trusted-proxies}, e.g. Cloudflare's ranges.
+ * <p>
+ * By default only private peers are trusted. {@code *} is an explicit opt-in to believing the
+ * headers from any peer (leftmost hop), which lets any client that reaches the app directly pick
+ * its own IP.
+ */
+@Component
+@Slf4j
+public class ClientIpResolver {
+
+    // RFC 1918, loopback, link-local, CGNAT, "this network", IPv6 ULA / link-local / loopback
+    private static final List<String> PRIVATE_RANGES = List.of(
+            "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "127.0.0.0/8", "169.254.0.0/16",
+            "100.64.0.0/10", "0.0.0.0/8", "::1/128", "::/128", "fc00::/7", "fe80::/10");
+
+    private final CidrTrie privateRanges = new CidrTrie().addAll(PRIVATE_RANGES);
+    private final CidrTrie trustedProxies = new CidrTrie().addAll(PRIVATE_RANGES);
+    // Only the configured entries: the proxies allowed to vouch for CF-Connecting-IP
+    private final CidrTrie configuredProxies = new CidrTrie();
+    private final boolean trustAnyPeer;
+
+    public ClientIpResolver(@Value("${security.client-ip.trusted-proxies:}") String trustedProxiesRaw) {
+        boolean any = false;
+        for (String entry : trustedProxiesRaw.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.equals("*")) {
+                any = true;
+            } else {
+                trustedProxies.add(trimmed);
+                configuredProxies.add(trimmed);
+            }
+        }
+        this.trustAnyPeer = any;
+        log.info("[ClientIp] Forwarding headers trusted from {}", any ? "any peer" : trustedProxies.size() + " proxy ranges");
+    }
+
+    public String resolve(HttpServletRequest request) {
+        return resolve(request.getRemoteAddr(), request.getHeader("CF-Connecting-IP"),
+                request.getHeader("X-Forwarded-For"));
+    }
+
+    public String resolve(String remoteAddr, String cfConnectingIp, String forwardedFor) {
+        IpAddress peer = IpAddress.parse(remoteAddr);
+        if (!trustAnyPeer && !trustedProxies.contains(peer)) {
+            return remoteAddr;
+        }
+        // Cloudflare passes real IP in CF-Connecting-IP
+        if (cfConnectingIp != null && IpAddress.parse(cfConnectingIp) != null
+                && (trustAnyPeer || deliveredByConfiguredProxy(peer, forwardedFor))) {
+            return cfConnectingIp.trim();
+        }
+        // Fallback: X-Forwarded-For (other proxies/load balancers)
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            String client = trustAnyPeer ? leftmostHop(forwardedFor) : firstUntrustedHop(forwardedFor);
+            if (client != null) {
+                return client;
+            }
+        }
+        // Last resort: direct connection IP
+        return remoteAddr;
+    }
+
+    private static String leftmostHop(String header) {
+        int comma = header.indexOf(',');
+        int end = comma < 0 ? header.length() : comma;
+        return IpAddress.parse(header, 0, end) != null ? header.substring(0, end).trim() : null;
+    }
+
+    /**
+     * Whether the peer, or the first non-private hop right of it in X-Forwarded-For, is a
+     * configured proxy. A client talking to the Heroku router directly shows up as that hop.
+     */
+    private boolean deliveredByConfiguredProxy(IpAddress peer, String forwardedFor) {
+        if (configuredProxies.contains(peer)) {
+            return true;
+        }
+        if (forwardedFor == null) {
+            return false;
+        }
+        int end = forwardedFor.length();
+        while (end > 0) {
+            int comma = forwardedFor.lastIndexOf(',', end - 1);
+            IpAddress hop = IpAddress.parse(forwardedFor, comma + 1, end);
+            if (hop == null) {
+                return false;
+            }
+            if (configuredProxies.contains(hop)) {
+                return true;
+            }
+            if (!privateRanges.contains(hop)) {
+                return false;
+            }
+            end = comma;
+        }
+        return false;
+    }
+
+    private String firstUntrustedHop(String header) {
+        String leftmost = null;
+        int end = header.length();
+        while (end > 0) {
+            int comma = header.lastIndexOf(',', end - 1);
+            IpAddress hop = IpAddress.parse(header, comma + 1, end);
+            if (hop == null) {
+                return leftmost; // garbage in the chain: don't look further left
+            }
+            leftmost = header.substring(comma + 1, end).trim();
+            if (!trustedProxies.contains(hop)) {
+                return leftmost;
+            }
+            end = comma;
+        }
+        return leftmost;
+    }
+
+    /**
+     * True for loopback, private, link-local and CGNAT addresses (IPv4 and IPv6).
+     */
+    public boolean isPrivate(String ip) {
+        return privateRanges.contains(IpAddress.parse(ip));
+    }
+
+    /**
+     * Allow-list from a comma-separated property of IPs and CIDRs; invalid entries are logged and skipped.
+     */
+    public static CidrTrie parseAllowList(String raw, String name) {
+        CidrTrie trie = new CidrTrie();
+        if (raw == null) {
+            return trie;
+        }
+        Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .forEach(entry -> {
+                    try {
+                        trie.add(entry);
+                    } catch (IllegalArgumentException e) {
+                        log.warn("[ClientIp] Ignoring invalid {} entry '{}'", name, entry);
+                    }
+                });
+        return trie;
+    }
+}
@@ -20,27 +20,18 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private final CustomUserDetailsService customUserDetailsService;
     private final UserRepository userRepository;
     private final com.datapeice.slbackend.service.AuditLogService auditLogService;
+    private final ClientIpResolver clientIpResolver;
 
     public JwtRequestFilter(JwtCore jwtCore,
             CustomUserDetailsService customUserDetailsService,
             UserRepository userRepository,
-            com.datapeice.slbackend.service.AuditLogService auditLogService) {
+            com.datapeice.slbackend.service.AuditLogService auditLogService,
+            ClientIpResolver clientIpResolver) {
         this.jwtCore = jwtCore;
         this.customUserDetailsService = customUserDetailsService;
         this.userRepository = userRepository;
         this.auditLogService = auditLogService;
-    }
-
-    private String getClientIP(HttpServletRequest request) {
-        String cfIp = request.getHeader("CF-Connecting-IP");
-        if (cfIp != null && !cfIp.isBlank()) {
-            return cfIp.trim();
-        }
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader != null && !xfHeader.isBlank()) {
-            return xfHeader.split(",")[0].trim();
-        }
-        return request.getRemoteAddr();
+        this.clientIpResolver = clientIpResolver;
     }
 
     @Override
@@ -52,7 +43,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             try {
                 String token = authHeader.substring(7);
-                String ipAddress = getClientIP(request);
+                String ipAddress = clientIpResolver.resolve(request);
                 String userAgent = request.getHeader("User-Agent");
 
                 try {
@@ -31,8 +31,8 @@ public class MaintenanceFilter extends OncePerRequestFilter {
 
         String path = request.getRequestURI();
 
-        // Check if maintenance mode is active
-        if (siteSettingsService.getSettings().isMaintenanceMode()) {
+        // Check if maintenance mode is active (in-memory snapshot, no database round-trip)
+        if (siteSettingsService.getSnapshot().isMaintenanceMode()) {
             // Allow public settings endpoints, login page endpoint, anticheat telemetry, discord callback, websocket, and error page
             boolean isAllowedPublicPath = path.equals("/api/auth/public/settings")
                     || path.equals("/api/admin/settings/public")
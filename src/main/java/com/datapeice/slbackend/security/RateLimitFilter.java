@@ -0,0 +1,176 @@
+package com.datapeice.slbackend.security;
+
+import com.datapeice.slbackend.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the policies from {@link RateLimitProperties} before authentication, so a throttled
+ * request never reaches the user lookup in {@link JwtRequestFilter} or any controller.
+ * <p>
+ * Responses carry {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset}
+ * (seconds) for the most restrictive matching policy; rejected requests get 429 with
+ * {@code Retry-After}. USER keys come from the JWT subject, verified by signature only (no database).
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RateLimitProperties properties;
+    private final RateLimitService rateLimitService;
+    private final JwtCore jwtCore;
+    private final ClientIpResolver clientIpResolver;
+    private final List<CompiledPolicy> policies;
+
+    private record CompiledPolicy(RateLimitProperties.Policy policy, Set<String> methods, String literalPrefix) {
+        boolean matches(String method, String path) {
+            return (methods.isEmpty() || methods.contains(method))
+                    && path.startsWith(literalPrefix)
+                    && PATH_MATCHER.match(policy.getPattern(), path);
+        }
+    }
+
+    public RateLimitFilter(RateLimitProperties properties, RateLimitService rateLimitService, JwtCore jwtCore,
+                           ClientIpResolver clientIpResolver) {
+        this.properties = properties;
+        this.rateLimitService = rateLimitService;
+        this.jwtCore = jwtCore;
+        this.clientIpResolver = clientIpResolver;
+        this.policies = properties.getPolicies().stream()
+                .filter(p -> p.getName() != null && p.getPattern() != null)
+                .map(p -> new CompiledPolicy(p,
+                        p.getMethods().stream().map(m -> m.trim().toUpperCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet()),
+                        literalPrefix(p.getPattern())))
+                .toList();
+        for (CompiledPolicy compiled : policies) {
+            RateLimitProperties.Policy p = compiled.policy();
+            rateLimitService.registerPolicy(p.getName(), p.getCapacity(), p.getPeriod(), properties.getMaxEntriesPerPolicy());
+        }
+        log.info("[RateLimit] {} policies loaded", policies.size());
+    }
+
+    private static String literalPrefix(String pattern) {
+        int wildcard = pattern.length();
+        for (char c : new char[]{'*', '?', '{'}) {
+            int i = pattern.indexOf(c);
+            if (i >= 0 && i < wildcard) {
+                wildcard = i;
+            }
+        }
+        return pattern.substring(0, wildcard);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || policies.isEmpty() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+
+        RateLimitService.Decision tightest = null;
+        RateLimitProperties.Policy tightestPolicy = null;
+        for (CompiledPolicy compiled : policies) {
+            if (!compiled.matches(method, path)) {
+                continue;
+            }
+            RateLimitProperties.Policy policy = compiled.policy();
+            RateLimitService.Decision probe = rateLimitService.tryConsume(policy.getName(), resolveKey(policy, request));
+            if (!probe.consumed()) {
+                tightest = probe;
+                tightestPolicy = policy;
+                break;
+            }
+            if (tightest == null || probe.remaining() < tightest.remaining()) {
+                tightest = probe;
+                tightestPolicy = policy;
+            }
+        }
+
+        if (tightest != null) {
+            response.setHeader("RateLimit-Limit", String.valueOf(tightestPolicy.getCapacity()));
+            response.setHeader("RateLimit-Remaining", String.valueOf(tightest.remaining()));
+            response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(tightest.nanosToReset())));
+        }
+        boolean rejected = tightest != null && !tightest.consumed();
+        rateLimitService.recordFilterCheck(System.nanoTime() - start, rejected);
+
+        if (rejected) {
+            long retryAfter = toSeconds(tightest.nanosToRetry());
+            log.debug("[RateLimit] {} {} rejected by policy '{}'", method, path, tightestPolicy.getName());
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write("{\"error\":\"RATE_LIMITED\",\"message\":\"Слишком много запросов. Попробуйте через "
+                    + retryAfter + " сек.\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String resolveKey(RateLimitProperties.Policy policy, HttpServletRequest request) {
+        switch (policy.getKey()) {
+            case USER -> {
+                String authHeader = request.getHeader("Authorization");
+                if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                    try {
+                        String username = jwtCore.getUsernameFromToken(authHeader.substring(7));
+                        if (username != null) {
+                            return "u:" + username;
+                        }
+                    } catch (RuntimeException ignored) {
+                        // Invalid or expired token: limit by IP like an anonymous client
+                    }
+                }
+            }
+            case API_KEY -> {
+                String apiKey = request.getHeader(policy.getApiKeyHeader());
+                if (apiKey != null && !apiKey.isBlank()) {
+                    // Don't keep raw secrets in memory as map keys
+                    return "k:" + sha256(apiKey);
+                }
+            }
+            default -> {
+            }
+        }
+        return "ip:" + clientIpResolver.resolve(request);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(0, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.datapeice.slbackend.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Declarative rate-limit policies enforced by {@link RateLimitFilter}, e.g.
+ * <pre>
+ * ratelimit.policies[0].name=anticheat
+ * ratelimit.policies[0].methods=POST
+ * ratelimit.policies[0].pattern=/api/anticheat
+ * ratelimit.policies[0].key=API_KEY
+ * ratelimit.policies[0].capacity=120
+ * ratelimit.policies[0].period=1m
+ * </pre>
+ * Every policy matching a request is applied; the request is rejected if any of them is exhausted.
+ */
+@Component
+@ConfigurationProperties(prefix = "ratelimit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // Upper bound of tracked keys per policy, see ExpiringBucketStore
+    private int maxEntriesPerPolicy = 100_000;
+    private List<Policy> policies = new ArrayList<>();
+
+    public enum KeyType {
+        /** Client IP */
+        IP,
+        /** JWT subject if a valid bearer token is present, otherwise the client IP */
+        USER,
+        /** Value of {@link Policy#apiKeyHeader}, otherwise the client IP */
+        API_KEY
+    }
+
+    @Data
+    public static class Policy {
+        private String name;
+        /** Ant-style path pattern, e.g. /api/pages/** */
+        private String pattern;
+        /** HTTP methods; empty = all */
+        private List<String> methods = new ArrayList<>();
+        private KeyType key = KeyType.IP;
+        private String apiKeyHeader = "X-Anticheat-Key";
+        private long capacity = 60;
+        private Duration period = Duration.ofMinutes(1);
+    }
+}
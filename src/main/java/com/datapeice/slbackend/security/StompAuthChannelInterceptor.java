@@ -0,0 +1,129 @@
+package com.datapeice.slbackend.security;
+
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.service.CustomUserDetailsService;
+import com.datapeice.slbackend.service.MessengerEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Authenticates STOMP sessions and filters subscriptions on the server.
+ * <p>
+ * CONNECT may carry {@code Authorization: Bearer <jwt>}; the token is validated like in
+ * {@link JwtRequestFilter} and the user becomes the session principal (needed for /user/queue/...).
+ * SUBSCRIBE to admin destinations is allowed for moderators and admins only. While
+ * {@code websocket.auth.required=false}, anonymous sessions are still let through to the old
+ * admin topics for clients that don't send a token yet. The per-admin queues and all messenger
+ * topics, including the old catch-all one, carry players' private messages and always need a
+ * staff principal.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompAuthChannelInterceptor.class);
+
+    private final JwtCore jwtCore;
+    private final CustomUserDetailsService customUserDetailsService;
+
+    @Value("${websocket.auth.required:false}")
+    private boolean authRequired;
+
+    public StompAuthChannelInterceptor(JwtCore jwtCore, CustomUserDetailsService customUserDetailsService) {
+        this.jwtCore = jwtCore;
+        this.customUserDetailsService = customUserDetailsService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            authenticate(accessor);
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            checkSubscription(accessor);
+        }
+        return message;
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (authRequired) {
+                throw new MessageDeliveryException("Требуется авторизация");
+            }
+            return;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        String ipAddress = attributes != null ? (String) attributes.get(WebSocketHandshakeInterceptor.IP_ATTRIBUTE) : null;
+        String userAgent = attributes != null ? (String) attributes.get(WebSocketHandshakeInterceptor.USER_AGENT_ATTRIBUTE) : null;
+
+        try {
+            String token = authHeader.substring(7);
+            String username = jwtCore.getUsernameFromToken(token);
+            User user = (User) customUserDetailsService.loadUserByUsername(username);
+            if (!jwtCore.validateToken(token, ipAddress, userAgent, user.getTokenVersion())) {
+                throw new MessageDeliveryException("Недействительный токен");
+            }
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        } catch (MessageDeliveryException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.info("WebSocket CONNECT rejected: {}", e.getMessage());
+            throw new MessageDeliveryException("Недействительный токен");
+        }
+    }
+
+    private void checkSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !isAdminDestination(destination)) {
+            return;
+        }
+        Principal principal = accessor.getUser();
+        if (principal == null) {
+            if (authRequired || destination.startsWith("/user/") || isMessengerDestination(destination)) {
+                throw new MessageDeliveryException("Нет доступа к " + destination);
+            }
+            return;
+        }
+        if (!isStaff(principal)) {
+            logger.warn("WebSocket subscription to {} denied for {}", destination, principal.getName());
+            throw new MessageDeliveryException("Нет доступа к " + destination);
+        }
+    }
+
+    private static boolean isAdminDestination(String destination) {
+        return destination.startsWith("/topic/admin/") || destination.startsWith("/user/queue/admin/");
+    }
+
+    private static boolean isMessengerDestination(String destination) {
+        return destination.equals(MessengerEventPublisher.LEGACY_TOPIC)
+                || destination.equals(MessengerEventPublisher.INBOX_TOPIC)
+                || destination.startsWith(MessengerEventPublisher.CONVERSATION_TOPIC_PREFIX);
+    }
+
+    private static boolean isStaff(Principal principal) {
+        if (!(principal instanceof Authentication authentication)) {
+            return false;
+        }
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()) || "ROLE_MODERATOR".equals(a.getAuthority()));
+    }
+}
@@ -0,0 +1,52 @@
+package com.datapeice.slbackend.security;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Copies the client IP and User-Agent of the HTTP upgrade request into the WebSocket session,
+ * so the STOMP CONNECT can validate the JWT fingerprint the same way {@link JwtRequestFilter} does.
+ */
+public class WebSocketHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String IP_ATTRIBUTE = "clientIp";
+    public static final String USER_AGENT_ATTRIBUTE = "userAgent";
+
+    private final ClientIpResolver clientIpResolver;
+
+    public WebSocketHandshakeInterceptor(ClientIpResolver clientIpResolver) {
+        this.clientIpResolver = clientIpResolver;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String ip;
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            ip = clientIpResolver.resolve(servletRequest.getServletRequest());
+        } else {
+            String remote = request.getRemoteAddress() != null
+                    ? request.getRemoteAddress().getAddress().getHostAddress() : null;
+            ip = clientIpResolver.resolve(remote, request.getHeaders().getFirst("CF-Connecting-IP"),
+                    request.getHeaders().getFirst("X-Forwarded-For"));
+        }
+        if (ip != null) {
+            attributes.put(IP_ATTRIBUTE, ip.trim());
+        }
+        String userAgent = request.getHeaders().getFirst("User-Agent");
+        if (userAgent != null) {
+            attributes.put(USER_AGENT_ATTRIBUTE, userAgent);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
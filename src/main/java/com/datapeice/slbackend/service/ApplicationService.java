@@ -6,10 +6,11 @@ import com.datapeice.slbackend.dto.MyApplicationsResponse;
 import com.datapeice.slbackend.dto.UpdateApplicationStatusRequest;
 import com.datapeice.slbackend.entity.Application;
 import com.datapeice.slbackend.entity.ApplicationStatus;
+import com.datapeice.slbackend.entity.DiscordOutboundPriority;
 import com.datapeice.slbackend.entity.User;
 import com.datapeice.slbackend.repository.ApplicationRepository;
 import com.datapeice.slbackend.repository.UserRepository;
-import com.datapeice.slbackend.entity.SiteSettings;
+import com.datapeice.slbackend.dto.SiteSettingsSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -53,7 +54,7 @@ public class ApplicationService {
         logger.info("Application creation attempt by user: {}", user.getUsername());
 
 
-        if (!siteSettingsService.getSettings().isApplicationsOpen()) {
+        if (!siteSettingsService.getSnapshot().isApplicationsOpen()) {
             logger.warn("User {} tried to create application while applications are closed", user.getUsername());
             throw new IllegalStateException("Прием заявок в данный момент закрыт. Пожалуйста, следите за новостями.");
         }
@@ -145,7 +146,7 @@ public class ApplicationService {
             discordService.sendDirectMessage(user.getDiscordUserId(),
                     "**StoryLegends** — Ваша заявка на вступление была успешно отправлена! " +
                             "Мы рассмотрим её в ближайшее время.\n"
-                            + "***С уважением, <:slteam:1244336090928906351>***");
+                            + "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.APPLICATION);
         }
 
         // Notify admins
@@ -206,7 +207,7 @@ public class ApplicationService {
         application.setAdminComment(request.getAdminComment());
         application.setHandledBy(adminName);
 
-        SiteSettings settings = siteSettingsService.getSettings();
+        SiteSettingsSnapshot settings = siteSettingsService.getSnapshot();
 
         if (request.getStatus() == ApplicationStatus.ACCEPTED) {
             User user = application.getUser();
@@ -228,7 +229,7 @@ public class ApplicationService {
 
             if (user.getDiscordUserId() != null) {
                 // Выдаем роль @SL при принятии заявки
-                discordService.assignSlRole(user.getDiscordUserId());
+                discordService.assignSlRole(user.getDiscordUserId(), DiscordOutboundPriority.APPLICATION);
 
                 // Отправляем личное сообщение
                 discordService.sendDirectMessage(user.getDiscordUserId(),
@@ -241,7 +242,7 @@ public class ApplicationService {
                                 "Так-же если вы ещё не ознакомилсь с [правилами](https://www.storylegends.xyz/rules) сервера, то обязательно это сделайте!\n"
                                 +
                                 "**Удачной игры**\n" +
-                                "***С уважением, <:slteam:1244336090928906351>***");
+                                "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.APPLICATION);
             }
             // Выполняем RCON команду
             rconService.addPlayerToWhitelist(user.getMinecraftNickname());
@@ -262,10 +263,10 @@ public class ApplicationService {
                                 +
                                 "Комментарий от администрации: *" + reason + "*\n" +
                                 "\n**Администратор:** " + adminName + "\n" +
-                                "***С уважением, <:slteam:1244336090928906351>***");
+                                "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.APPLICATION);
 
                 // Remove @SL role if exists
-                discordService.removeSlRole(user.getDiscordUserId());
+                discordService.removeSlRole(user.getDiscordUserId(), DiscordOutboundPriority.APPLICATION);
             }
             user.setPlayer(false);
             user.setInSeason(true);
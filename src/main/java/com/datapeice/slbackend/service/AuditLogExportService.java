@@ -0,0 +1,228 @@
+package com.datapeice.slbackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams audit_logs to a client as NDJSON or CSV.
+ * <p>
+ * Rows are read through a server-side cursor (fetch size {@code audit.export.fetch-size} inside a
+ * read-only transaction) and written straight to the response, so memory use does not depend on
+ * the number of exported rows. No entities are created.
+ * <p>
+ * Every running export holds a pool connection for its whole duration, so at most
+ * {@code audit.export.max-concurrent} run at once. An export cut at {@code audit.export.max-rows}
+ * ends with a trailer saying so. CSV cells that a spreadsheet would read as a formula get a
+ * leading {@code '}.
+ */
+@Service
+@Slf4j
+public class AuditLogExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    public record ExportFilter(Long actorId, Long targetUserId, String actionType,
+                               LocalDateTime from, LocalDateTime to) {
+    }
+
+    private static final String[] COLUMNS = {"id", "created_at", "actor_id", "actor_username", "action_type",
+            "details", "target_user_id", "target_username", "ip_address", "user_agent"};
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    @Value("${audit.export.max-rows:5000000}")
+    private long maxRows;
+
+    private final Semaphore exportSlots;
+
+    public AuditLogExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${audit.export.fetch-size:1000}") int fetchSize,
+                                 @Value("${audit.export.max-concurrent:1}") int maxConcurrent) {
+        this.exportSlots = new Semaphore(Math.max(1, maxConcurrent));
+        // Postgres only uses a cursor when autocommit is off and a fetch size is set
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public void validate(ExportFilter filter) {
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new IllegalArgumentException("Начало периода должно быть раньше конца");
+        }
+    }
+
+    /**
+     * Reserves one of the export slots; false if all are taken. The holder must call
+     * {@link #releaseSlot()} once the export has finished.
+     */
+    public boolean tryAcquireSlot() {
+        return exportSlots.tryAcquire();
+    }
+
+    public void releaseSlot() {
+        exportSlots.release();
+    }
+
+    /**
+     * Writes every matching row, newest first, and returns the number of rows written.
+     */
+    public long export(ExportFilter filter, Format format, OutputStream outputStream) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", COLUMNS))
+                .append(" FROM audit_logs WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.actorId() != null) {
+            sql.append(" AND actor_id = ?");
+            args.add(filter.actorId());
+        }
+        if (filter.targetUserId() != null) {
+            sql.append(" AND target_user_id = ?");
+            args.add(filter.targetUserId());
+        }
+        if (filter.actionType() != null && !filter.actionType().isBlank()) {
+            sql.append(" AND action_type = ?");
+            args.add(filter.actionType().trim());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        // One row more than allowed tells a cut export from one that fits exactly
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(maxRows + 1);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        long[] written = {0};
+        try {
+            if (format == Format.CSV) {
+                writer.write(String.join(",", COLUMNS));
+                writer.write('\n');
+            }
+            boolean truncated = Boolean.TRUE.equals(readOnlyTransaction.execute(status ->
+                    streamingJdbcTemplate.query(sql.toString(), rs -> {
+                        while (rs.next()) {
+                            if (written[0] == maxRows) {
+                                return true;
+                            }
+                            try {
+                                if (format == Format.CSV) {
+                                    writeCsvRow(writer, rs);
+                                } else {
+                                    writeJsonRow(writer, rs);
+                                }
+                            } catch (IOException e) {
+                                // Client went away: abort the query instead of reading the rest
+                                throw new UncheckedIOException(e);
+                            }
+                            written[0]++;
+                        }
+                        return false;
+                    }, args.toArray())));
+            if (truncated) {
+                writeTruncatedTrailer(writer, format);
+            }
+            writer.flush();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("[Audit] Export aborted after {} rows: {}", written[0], e.getMessage());
+        }
+        return written[0];
+    }
+
+    private void writeTruncatedTrailer(Writer writer, Format format) throws IOException {
+        if (format == Format.CSV) {
+            writer.write("# TRUNCATED: export limited to " + maxRows + " rows (audit.export.max-rows), narrow the filter\n");
+        } else {
+            Map<String, Object> trailer = new LinkedHashMap<>();
+            trailer.put("truncated", true);
+            trailer.put("maxRows", maxRows);
+            writer.write(objectMapper.writeValueAsString(trailer));
+            writer.write('\n');
+        }
+        log.warn("[Audit] Export cut at {} rows", maxRows);
+    }
+
+    private void writeJsonRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", rs.getLong("id"));
+        row.put("createdAt", rs.getTimestamp("created_at").toLocalDateTime().toString());
+        row.put("actorId", rs.getObject("actor_id"));
+        row.put("actorUsername", rs.getString("actor_username"));
+        row.put("actionType", rs.getString("action_type"));
+        row.put("details", rs.getString("details"));
+        row.put("targetUserId", rs.getObject("target_user_id"));
+        row.put("targetUsername", rs.getString("target_username"));
+        row.put("ipAddress", rs.getString("ip_address"));
+        row.put("userAgent", rs.getString("user_agent"));
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    private static void writeCsvRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = COLUMNS[i].equals("created_at")
+                    ? rs.getTimestamp(COLUMNS[i]).toLocalDateTime()
+                    : rs.getObject(COLUMNS[i]);
+            if (value instanceof String text) {
+                writeCsvValue(writer, neutralizeFormula(text));
+            } else if (value != null) {
+                writeCsvValue(writer, value.toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Spreadsheets evaluate cells starting with these characters; details and usernames are user input.
+     */
+    static String neutralizeFormula(String value) {
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            return "'" + value;
+        }
+        return value;
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
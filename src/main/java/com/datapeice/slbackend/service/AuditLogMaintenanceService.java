@@ -0,0 +1,92 @@
+package com.datapeice.slbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Housekeeping for the monthly-partitioned audit_logs table.
+ * Partitions are named audit_logs_yYYYYmMM and cover [first day of month, first day of next month).
+ */
+@Service
+@Slf4j
+public class AuditLogMaintenanceService {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final int MONTHS_AHEAD = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditLogMaintenanceService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPartitioned() {
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT COALESCE((SELECT c.relkind::text FROM pg_class c " +
+                        "WHERE c.oid = to_regclass('audit_logs')), '')", String.class);
+        return "p".equals(kind);
+    }
+
+    /**
+     * Creates partitions for the current month and the next few, so inserts never land in the
+     * default partition (a default partition holding rows of a month blocks creating that month later).
+     */
+    @Scheduled(cron = "0 15 3 * * *")
+    public void ensureUpcomingPartitions() {
+        try {
+            if (!isPartitioned()) {
+                return;
+            }
+            LocalDate month = LocalDate.now().withDayOfMonth(1);
+            for (int i = 0; i <= MONTHS_AHEAD; i++) {
+                createMonthPartition(month.plusMonths(i));
+            }
+        } catch (Exception e) {
+            log.warn("[Audit] Could not create upcoming audit_logs partitions: {}", e.getMessage());
+        }
+    }
+
+    public void createMonthPartition(LocalDate month) {
+        LocalDate from = month.withDayOfMonth(1);
+        String name = partitionName(from);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF audit_logs " +
+                "FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+    }
+
+    /**
+     * Drops monthly partitions that end on or before {@code before} and hold no rows any more
+     * (after retention archived and deleted them). Dropping is far cheaper than vacuuming.
+     */
+    public int dropEmptyPartitionsBefore(LocalDate before) {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        java.util.List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass('audit_logs') AND c.relname ~ '^audit_logs_y[0-9]{4}m[0-9]{2}$'",
+                String.class);
+        int dropped = 0;
+        for (String name : names) {
+            LocalDate month = LocalDate.of(Integer.parseInt(name.substring(12, 16)), Integer.parseInt(name.substring(17, 19)), 1);
+            if (month.plusMonths(1).isAfter(before)) {
+                continue;
+            }
+            Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + name + ")", Boolean.class);
+            if (Boolean.TRUE.equals(empty)) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                dropped++;
+                log.info("[Audit] Dropped empty partition {}", name);
+            }
+        }
+        return dropped;
+    }
+
+    public static String partitionName(LocalDate month) {
+        return "audit_logs_" + month.withDayOfMonth(1).format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,317 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.AuditLogArchive;
+import com.datapeice.slbackend.entity.AuditLogDailyRollup;
+import com.datapeice.slbackend.repository.AuditLogArchiveRepository;
+import com.datapeice.slbackend.repository.AuditLogDailyRollupRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps audit_logs bounded. Each day older than {@code audit.retention.days} is processed once:
+ * <ol>
+ *   <li>rolled up into audit_log_daily_rollups (count per action type and actor)</li>
+ *   <li>streamed into a gzip NDJSON object {@code audit-archive/YYYY/MM/YYYY-MM-DD.ndjson.gz}</li>
+ *   <li>recorded in audit_log_archives, then deleted from audit_logs in chunks</li>
+ * </ol>
+ * A day with an archive record is never rolled up or uploaded again, so a run interrupted during
+ * deletion just finishes deleting next time. Monthly partitions left empty are dropped.
+ */
+@Service
+@Slf4j
+public class AuditLogRetentionService {
+
+    private static final String ARCHIVE_FOLDER = "audit-archive";
+    private static final int MAX_ARCHIVE_QUERY_ROWS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final FileStorageService fileStorageService;
+    private final AuditLogArchiveRepository archiveRepository;
+    private final AuditLogDailyRollupRepository rollupRepository;
+    private final AuditLogMaintenanceService maintenanceService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${audit.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.retention.days:90}")
+    private int retentionDays;
+
+    @Value("${audit.retention.delete-chunk-size:5000}")
+    private int deleteChunkSize;
+
+    @Value("${audit.retention.max-days-per-run:31}")
+    private int maxDaysPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong archivedRows = new AtomicLong();
+    private final AtomicLong deletedRows = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile String lastError;
+
+    public AuditLogRetentionService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    FileStorageService fileStorageService,
+                                    AuditLogArchiveRepository archiveRepository,
+                                    AuditLogDailyRollupRepository rollupRepository,
+                                    AuditLogMaintenanceService maintenanceService,
+                                    ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Postgres only streams a result set with a fetch size inside a transaction
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(1000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fileStorageService = fileStorageService;
+        this.archiveRepository = archiveRepository;
+        this.rollupRepository = rollupRepository;
+        this.maintenanceService = maintenanceService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * Processes up to {@code audit.retention.max-days-per-run} expired days. Returns a short report.
+     */
+    public Map<String, Object> run() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (!fileStorageService.isEnabled()) {
+            report.put("skipped", "Хранилище файлов не настроено, архивировать некуда");
+            return report;
+        }
+        if (!running.compareAndSet(false, true)) {
+            report.put("skipped", "Уже выполняется");
+            return report;
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+            List<LocalDate> processed = new ArrayList<>();
+            Timestamp oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(created_at) FROM audit_logs WHERE created_at < ?", Timestamp.class,
+                    Timestamp.valueOf(cutoff.atStartOfDay()));
+            if (oldest != null) {
+                for (LocalDate day = oldest.toLocalDateTime().toLocalDate();
+                     day.isBefore(cutoff) && processed.size() < maxDaysPerRun; day = day.plusDays(1)) {
+                    processDay(day);
+                    processed.add(day);
+                }
+            }
+            int droppedPartitions = maintenanceService.dropEmptyPartitionsBefore(cutoff);
+            lastRunAt = LocalDateTime.now();
+            lastError = null;
+            report.put("cutoff", cutoff);
+            report.put("daysProcessed", processed.size());
+            report.put("droppedPartitions", droppedPartitions);
+            return report;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.error("[Audit] Retention run failed: {}", e.getMessage(), e);
+            report.put("error", e.getMessage());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void processDay(LocalDate day) throws IOException {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+
+        if (archiveRepository.findByDay(day).isEmpty()) {
+            rollUp(day, from, to);
+            AuditLogArchive archive = archive(day, from, to);
+            if (archive == null) {
+                return; // nothing that day
+            }
+            archiveRepository.save(archive);
+            archivedRows.addAndGet(archive.getRowCount());
+        }
+
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM audit_logs WHERE (id, created_at) IN (" +
+                    "SELECT id, created_at FROM audit_logs WHERE created_at >= ? AND created_at < ? LIMIT ?)",
+                    from, to, deleteChunkSize);
+            deletedRows.addAndGet(deleted);
+        } while (deleted > 0);
+    }
+
+    private void rollUp(LocalDate day, Timestamp from, Timestamp to) {
+        // Replaces the day's counts; only ever runs while every raw row of the day is still present
+        jdbcTemplate.update("""
+                INSERT INTO audit_log_daily_rollups (day, action_type, actor_id, actor_username, event_count)
+                SELECT ?, action_type, COALESCE(actor_id, 0), COALESCE(actor_username, ''), COUNT(*)
+                FROM audit_logs WHERE created_at >= ? AND created_at < ?
+                GROUP BY action_type, COALESCE(actor_id, 0), COALESCE(actor_username, '')
+                ON CONFLICT (day, action_type, actor_id, actor_username)
+                DO UPDATE SET event_count = EXCLUDED.event_count
+                """, java.sql.Date.valueOf(day), from, to);
+    }
+
+    private AuditLogArchive archive(LocalDate day, Timestamp from, Timestamp to) throws IOException {
+        Path tmp = Files.createTempFile("audit-" + day, ".ndjson.gz");
+        try {
+            long rows;
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                rows = writeNdjson(out, from, to);
+            }
+            if (rows == 0) {
+                return null;
+            }
+            String objectKey = String.format("%s/%04d/%02d/%s.ndjson.gz", ARCHIVE_FOLDER,
+                    day.getYear(), day.getMonthValue(), day);
+            long size = Files.size(tmp);
+            try (InputStream in = Files.newInputStream(tmp)) {
+                fileStorageService.uploadObject(objectKey, in, size, "application/gzip");
+            }
+            log.info("[Audit] Archived {} rows of {} to {} ({} bytes)", rows, day, objectKey, size);
+
+            AuditLogArchive archive = new AuditLogArchive();
+            archive.setDay(day);
+            archive.setObjectKey(objectKey);
+            archive.setRowCount(rows);
+            archive.setSizeBytes(size);
+            return archive;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private long writeNdjson(OutputStream out, Timestamp from, Timestamp to) {
+        Long rows = readOnlyTransaction.execute(status -> {
+            long[] count = {0};
+            streamingJdbcTemplate.query("SELECT id, actor_id, actor_username, action_type, details, target_user_id, " +
+                    "target_username, ip_address, user_agent, created_at FROM audit_logs " +
+                    "WHERE created_at >= ? AND created_at < ? ORDER BY created_at, id", rs -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", rs.getLong("id"));
+                row.put("actorId", rs.getObject("actor_id"));
+                row.put("actorUsername", rs.getString("actor_username"));
+                row.put("actionType", rs.getString("action_type"));
+                row.put("details", rs.getString("details"));
+                row.put("targetUserId", rs.getObject("target_user_id"));
+                row.put("targetUsername", rs.getString("target_username"));
+                row.put("ipAddress", rs.getString("ip_address"));
+                row.put("userAgent", rs.getString("user_agent"));
+                row.put("createdAt", rs.getTimestamp("created_at").toLocalDateTime().toString());
+                try {
+                    out.write(objectMapper.writeValueAsBytes(row));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            }, from, to);
+            return count[0];
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Reads archived days in [from, to] back from storage. Optional filters: exact action type and
+     * a case-insensitive substring of usernames or details. Stops after {@code limit} rows.
+     */
+    public List<Map<String, Object>> searchArchives(LocalDate from, LocalDate to, String actionType, String query, int limit) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Неверный диапазон дат");
+        }
+        int max = Math.max(1, Math.min(limit, MAX_ARCHIVE_QUERY_ROWS));
+        String needle = query != null && !query.isBlank() ? query.toLowerCase() : null;
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        for (AuditLogArchive archive : archiveRepository.findByDayBetweenOrderByDayAsc(from, to)) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(fileStorageService.openObject(archive.getObjectKey())), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Map<String, Object> row = objectMapper.readValue(line, new TypeReference<>() {});
+                    if (matches(row, actionType, needle)) {
+                        result.add(row);
+                        if (result.size() >= max) {
+                            return result;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать архив " + archive.getObjectKey(), e);
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(Map<String, Object> row, String actionType, String needle) {
+        if (actionType != null && !actionType.isBlank() && !actionType.equalsIgnoreCase((String) row.get("actionType"))) {
+            return false;
+        }
+        if (needle == null) {
+            return true;
+        }
+        for (String field : List.of("actorUsername", "targetUsername", "details", "actionType")) {
+            Object value = row.get(field);
+            if (value != null && value.toString().toLowerCase().contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<AuditLogArchive> getArchives(LocalDate from, LocalDate to) {
+        return archiveRepository.findByDayBetweenOrderByDayAsc(from, to);
+    }
+
+    public List<AuditLogDailyRollup> getRollups(LocalDate from, LocalDate to) {
+        return rollupRepository.findByDayBetweenOrderByDayDescEventCountDesc(from, to);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("retentionDays", retentionDays);
+        status.put("running", running.get());
+        status.put("lastRunAt", lastRunAt);
+        status.put("lastError", lastError);
+        status.put("archivedRows", archivedRows.get());
+        status.put("deletedRows", deletedRows.get());
+        return status;
+    }
+}
@@ -3,28 +3,33 @@ package com.datapeice.slbackend.service;
 import com.datapeice.slbackend.entity.AuditLog;
 import com.datapeice.slbackend.repository.AuditLogRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    public AuditLogService(AuditLogRepository auditLogRepository) {
+    public AuditLogService(AuditLogRepository auditLogRepository, AuditLogWriter auditLogWriter) {
         this.auditLogRepository = auditLogRepository;
+        this.auditLogWriter = auditLogWriter;
     }
 
-    @Async
+    // Non-blocking: events are queued and written in batches by AuditLogWriter
     public void logAction(Long actorId, String actorUsername, String actionType, String details, Long targetUserId,
             String targetUsername) {
         logAction(actorId, actorUsername, actionType, details, targetUserId, targetUsername, null, null);
     }
 
-    @Async
     public void logAction(Long actorId, String actorUsername, String actionType, String details, Long targetUserId,
             String targetUsername, String ipAddress, String userAgent) {
         AuditLog log = new AuditLog();
@@ -38,28 +43,77 @@ public class AuditLogService {
         log.setUserAgent(userAgent != null && userAgent.length() > 512 ? userAgent.substring(0, 512) : userAgent);
         log.setCreatedAt(LocalDateTime.now());
 
-        auditLogRepository.save(log);
+        auditLogWriter.enqueue(log);
     }
 
     /**
      * Special method for security-related events.
      */
-    @Async
     public void logSecurityIncident(String actorUsername, String actionType, String details, String ip, String ua) {
         logAction(null, actorUsername, "SECURITY_" + actionType, details, null, null, ip, ua);
     }
 
+    public java.util.Map<String, Object> getWriterStats() {
+        return auditLogWriter.getStats();
+    }
+
     public Page<AuditLog> getLogs(String query, Pageable pageable) {
-        if (query == null || query.isBlank()) {
+        if (needsSubstringSearch(query)) {
+            String pattern = toLikePattern(query);
+            List<AuditLog> content = auditLogRepository.searchLogsBySubstring(pattern, pageable.getPageSize(),
+                    pageable.getOffset());
+            return new PageImpl<>(content, pageable, auditLogRepository.countSearchLogsBySubstring(pattern));
+        }
+        String tsQuery = toPrefixTsQuery(query);
+        if (tsQuery == null) {
             return auditLogRepository.findAll(pageable);
-        } else {
-            return auditLogRepository.searchLogs(query.trim(), pageable);
         }
+        List<AuditLog> content = auditLogRepository.searchLogs(tsQuery, pageable.getPageSize(), pageable.getOffset());
+        return new PageImpl<>(content, pageable, auditLogRepository.countSearchLogs(tsQuery));
+    }
+
+    public Page<AuditLog> getLogsForUser(Long userId, String username, List<Long> relatedIds, Pageable pageable) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        userIds.add(userId);
+        if (relatedIds != null) {
+            userIds.addAll(relatedIds);
+        }
+        String safeUsername = username != null ? username : "";
+        List<AuditLog> content = auditLogRepository.findUserRelatedLogs(userIds, safeUsername,
+                pageable.getOffset() + pageable.getPageSize(), pageable.getPageSize(), pageable.getOffset());
+        return new PageImpl<>(content, pageable, auditLogRepository.countUserRelatedLogs(userIds, safeUsername));
+    }
+
+    /**
+     * IPs ("10.0.0.1", "::1") and emails are split by the full-text parser into pieces that match
+     * far too much, so queries containing '.', '@' or ':' are searched as plain substrings.
+     */
+    static boolean needsSubstringSearch(String query) {
+        return query != null && query.chars().anyMatch(c -> c == '.' || c == '@' || c == ':');
+    }
+
+    /**
+     * "%" + query + "%" with LIKE wildcards in the query escaped (backslash is Postgres' default escape).
+     */
+    static String toLikePattern(String query) {
+        String escaped = query.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 
-    public Page<AuditLog> getLogsForUser(Long userId, String username, java.util.List<Long> relatedIds, Pageable pageable) {
-        boolean hasRelated = relatedIds != null && !relatedIds.isEmpty();
-        java.util.List<Long> safeRelated = hasRelated ? relatedIds : java.util.List.of(-1L);
-        return auditLogRepository.findUserRelatedLogs(userId, username != null ? username : "", safeRelated, hasRelated, pageable);
+    /**
+     * "bob ban" -> "bob:* & ban:*". Only letters and digits survive, so user input can't inject
+     * tsquery operators. Returns null when nothing searchable is left.
+     */
+    static String toPrefixTsQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : query.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                terms.add(token + ":*");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" & ", terms);
     }
 }
@@ -0,0 +1,251 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.AuditLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffered audit log pipeline.
+ * <p>
+ * Callers put events into a bounded queue and return immediately; one background thread writes
+ * them with a JDBC batch insert every {@code audit.writer.batch-size} events or
+ * {@code audit.writer.flush-interval-ms}, whichever comes first. Security events have a queue of
+ * their own, so ordinary traffic can never evict them. When a queue is full:
+ * <ul>
+ *   <li>security events wait up to {@code audit.writer.offer-timeout-ms} for space</li>
+ *   <li>other events follow {@code audit.writer.overflow-policy}: DROP_NEWEST discards the new
+ *       event, DROP_OLDEST evicts the oldest queued one, BLOCK waits like security events</li>
+ * </ul>
+ * Anything that still doesn't fit is dropped and counted, so memory stays bounded. A batch the
+ * database rejects is retried row by row, so one bad event doesn't take its neighbours with it.
+ */
+@Component
+@Slf4j
+public class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        DROP_NEWEST, DROP_OLDEST, BLOCK
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO audit_logs (actor_id, actor_username, action_type, details, " +
+            "target_user_id, target_username, ip_address, user_agent, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArrayBlockingQueue<AuditLog> queue;
+    private final ArrayBlockingQueue<AuditLog> securityQueue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${audit.writer.capacity:10000}") int capacity,
+                          @Value("${audit.writer.security-capacity:2000}") int securityCapacity,
+                          @Value("${audit.writer.batch-size:200}") int batchSize,
+                          @Value("${audit.writer.flush-interval-ms:500}") long flushIntervalMillis,
+                          @Value("${audit.writer.offer-timeout-ms:100}") long offerTimeoutMillis,
+                          @Value("${audit.writer.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.securityQueue = new ArrayBlockingQueue<>(securityCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::run, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever is still queued after the worker stopped
+        List<AuditLog> rest = new ArrayList<>();
+        securityQueue.drainTo(rest);
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += batchSize) {
+            write(rest.subList(i, Math.min(i + batchSize, rest.size())));
+        }
+        log.info("[Audit] Writer stopped: {} flushed, {} dropped, {} failed", flushed.get(), dropped.get(), failed.get());
+    }
+
+    /**
+     * Queue an event. Never throws; returns false if the event was dropped.
+     */
+    public boolean enqueue(AuditLog entry) {
+        boolean security = entry.getActionType() != null && entry.getActionType().startsWith("SECURITY_");
+        boolean accepted;
+        if (security) {
+            accepted = securityQueue.offer(entry) || offerWithTimeout(securityQueue, entry);
+        } else {
+            accepted = queue.offer(entry);
+        }
+        if (!accepted && !security) {
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                accepted = offerWithTimeout(queue, entry);
+            } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+                accepted = queue.offer(entry);
+            }
+        }
+        if (accepted) {
+            enqueued.incrementAndGet();
+        } else {
+            long total = dropped.incrementAndGet();
+            if (total == 1 || total % 1000 == 0) {
+                log.warn("[Audit] Queue full ({} events, {} security), {} audit events dropped so far",
+                        queue.size(), securityQueue.size(), total);
+            }
+        }
+        return accepted;
+    }
+
+    private boolean offerWithTimeout(ArrayBlockingQueue<AuditLog> target, AuditLog entry) {
+        try {
+            return target.offer(entry, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (running) {
+            try {
+                long waitNanos = deadline - System.nanoTime();
+                AuditLog first = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                // Security events first, so a flood of ordinary ones can't keep them waiting
+                securityQueue.drainTo(batch, batchSize - batch.size());
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                if (batch.size() >= batchSize || (System.nanoTime() >= deadline && !batch.isEmpty())) {
+                    write(batch);
+                    batch.clear();
+                }
+                if (System.nanoTime() >= deadline || batch.isEmpty()) {
+                    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                log.error("[Audit] Writer loop error: {}", e.getMessage());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<AuditLog> batch) {
+        try {
+            // In a transaction, so a rejected batch leaves nothing behind and the retry can't duplicate rows
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), AuditLogWriter::bind));
+            flushed.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                failed.incrementAndGet();
+                log.error("[Audit] Failed to write audit event {}: {}", batch.get(0).getActionType(), e.getMessage());
+                return;
+            }
+            log.warn("[Audit] Batch of {} audit events rejected, retrying one by one: {}", batch.size(), e.getMessage());
+            writeOneByOne(batch);
+        }
+    }
+
+    private void writeOneByOne(List<AuditLog> batch) {
+        for (AuditLog entry : batch) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, entry));
+                flushed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("[Audit] Failed to write audit event {} by {}: {}", entry.getActionType(),
+                        entry.getActorUsername(), e.getMessage());
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, AuditLog entry) throws SQLException {
+        setLong(ps, 1, entry.getActorId());
+        ps.setString(2, entry.getActorUsername());
+        ps.setString(3, entry.getActionType());
+        ps.setString(4, entry.getDetails());
+        setLong(ps, 5, entry.getTargetUserId());
+        ps.setString(6, entry.getTargetUsername());
+        ps.setString(7, entry.getIpAddress());
+        ps.setString(8, entry.getUserAgent());
+        ps.setTimestamp(9, Timestamp.valueOf(entry.getCreatedAt()));
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enqueued", enqueued.get());
+        stats.put("flushed", flushed.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        stats.put("queued", queue.size());
+        stats.put("securityQueued", securityQueue.size());
+        stats.put("capacity", queue.size() + queue.remainingCapacity());
+        stats.put("securityCapacity", securityQueue.size() + securityQueue.remainingCapacity());
+        stats.put("overflowPolicy", overflowPolicy);
+        return stats;
+    }
+}
@@ -3,6 +3,7 @@ package com.datapeice.slbackend.service;
 import com.datapeice.slbackend.dto.BadgeRequest;
 import com.datapeice.slbackend.dto.BadgeResponse;
 import com.datapeice.slbackend.entity.Badge;
+import com.datapeice.slbackend.entity.DiscordOutboundPriority;
 import com.datapeice.slbackend.entity.User;
 import com.datapeice.slbackend.repository.BadgeRepository;
 import com.datapeice.slbackend.repository.UserRepository;
@@ -98,7 +99,7 @@ public class BadgeService {
 
         // Sync Discord role
         if (badge.getDiscordRoleId() != null && user.getDiscordUserId() != null) {
-            discordService.assignRole(user.getDiscordUserId(), badge.getDiscordRoleId());
+            discordService.assignRole(user.getDiscordUserId(), badge.getDiscordRoleId(), DiscordOutboundPriority.BULK);
         }
 
         auditLogService.logAction(adminId, adminName, "ADMIN_ASSIGN_BADGE",
@@ -121,7 +122,7 @@ public class BadgeService {
 
         // Sync Discord role
         if (badge.getDiscordRoleId() != null && user.getDiscordUserId() != null) {
-            discordService.removeRole(user.getDiscordUserId(), badge.getDiscordRoleId());
+            discordService.removeRole(user.getDiscordUserId(), badge.getDiscordRoleId(), DiscordOutboundPriority.BULK);
         }
 
         auditLogService.logAction(adminId, adminName, "ADMIN_REMOVE_BADGE",
@@ -0,0 +1,298 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.dto.BannedWordDto;
+import com.datapeice.slbackend.dto.BannedWordRequest;
+import com.datapeice.slbackend.entity.BannedWord;
+import com.datapeice.slbackend.repository.BannedWordRepository;
+import com.datapeice.slbackend.util.ToxicityMatcher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Banned-word dictionary for the local toxicity check, stored in the database and editable by admins.
+ * <p>
+ * The words are compiled into an immutable {@link ToxicityMatcher}. Every edit requests a new
+ * version, which is built on a background thread and then swapped in through a volatile reference;
+ * until then the previous matcher keeps serving, so checks never wait for a rebuild. Bursts of
+ * edits collapse into one build of the newest version. Other instances pick up edits through a
+ * periodic fingerprint check. On first start the table is seeded from {@code banned_words.txt}.
+ */
+@Service
+@Slf4j
+public class BannedWordService {
+
+    // Shorter words get no repeated-letter-tolerant rule: too many false hits on prepositions and conjunctions
+    private static final int SMART_PATTERN_MIN_LENGTH = 4;
+    private static final List<String> FALLBACK_WORDS = List.of("негр", "пидарас", "пидор", "ебан", "уеб", "хуй",
+            "шлюха", "бляд", "spam", "scam");
+
+    private static final String DUPLICATE_WORD = "Такое слово уже есть в списке";
+
+    private final BannedWordRepository repository;
+    private final AuditLogService auditLogService;
+    private final Resource bannedWordsResource;
+
+    public record CompiledWords(long version, ToxicityMatcher matcher, int wordCount, String source,
+                                LocalDateTime builtAt, long buildMillis) {
+    }
+
+    private volatile CompiledWords compiled =
+            new CompiledWords(0, new ToxicityMatcher(FALLBACK_WORDS, 0), FALLBACK_WORDS.size(), "fallback",
+                    LocalDateTime.now(), 0);
+    private final AtomicLong requestedVersion = new AtomicLong();
+    // Newest version whose build failed; without it a failure would look like a rebuild that never ends
+    private volatile long failedVersion;
+    private volatile String lastError;
+    private volatile String lastFingerprint;
+
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "banned-words-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BannedWordService(BannedWordRepository repository, AuditLogService auditLogService,
+                             @Value("classpath:banned_words.txt") Resource bannedWordsResource) {
+        this.repository = repository;
+        this.auditLogService = auditLogService;
+        this.bannedWordsResource = bannedWordsResource;
+    }
+
+    @PostConstruct
+    public void init() {
+        Set<String> fileWords;
+        try {
+            fileWords = readClasspathWords();
+            // Serve the bundled list right away; the database version replaces it in the background
+            compiled = build(0, fileWords, "classpath");
+        } catch (Exception e) {
+            log.error("Could not load banned_words.txt from resources! Using default fallback list. Error: {}",
+                    e.getMessage());
+            fileWords = Set.of();
+        }
+
+        try {
+            if (repository.count() == 0 && !fileWords.isEmpty()) {
+                List<BannedWord> seed = new ArrayList<>();
+                for (String word : fileWords) {
+                    BannedWord entity = new BannedWord();
+                    entity.setWord(word);
+                    entity.setAddedBy("system");
+                    seed.add(entity);
+                }
+                repository.saveAll(seed);
+                log.info("[BannedWords] Seeded {} words from banned_words.txt", seed.size());
+            }
+            requestRebuild();
+        } catch (Exception e) {
+            log.error("[BannedWords] Failed to load banned words from the database: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private Set<String> readClasspathWords() throws IOException {
+        Set<String> words = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(bannedWordsResource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim().toLowerCase();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    for (String word : line.split(",")) {
+                        word = word.trim();
+                        if (!word.isEmpty()) {
+                            words.add(word);
+                        }
+                    }
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * The matcher to check text with. Never blocks.
+     */
+    public ToxicityMatcher getMatcher() {
+        return compiled.matcher();
+    }
+
+    /**
+     * Queues a rebuild from the database.
+     *
+     * @return the version that will be served once the rebuild is done
+     */
+    public long requestRebuild() {
+        long version = requestedVersion.incrementAndGet();
+        rebuilder.execute(() -> rebuild(version));
+        return version;
+    }
+
+    private void rebuild(long version) {
+        if (version < requestedVersion.get()) {
+            return; // a newer version is already queued behind us
+        }
+        try {
+            String fingerprint = fingerprint();
+            List<String> words = repository.findAllWords();
+            CompiledWords fresh = build(version, words, "database");
+            compiled = fresh;
+            lastFingerprint = fingerprint;
+            lastError = null;
+            log.info("[BannedWords] Swapped in matcher v{} ({} words, built in {} ms)",
+                    version, fresh.wordCount(), fresh.buildMillis());
+        } catch (Exception e) {
+            failedVersion = version;
+            lastError = e.getMessage();
+            log.error("[BannedWords] Rebuild v{} failed, keeping v{}: {}", version, compiled.version(), e.getMessage());
+        }
+    }
+
+    private static CompiledWords build(long version, Collection<String> words, String source) {
+        long start = System.nanoTime();
+        ToxicityMatcher matcher = new ToxicityMatcher(words, SMART_PATTERN_MIN_LENGTH);
+        return new CompiledWords(version, matcher, words.size(), source, LocalDateTime.now(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private String fingerprint() {
+        BannedWordRepository.Fingerprint fp = repository.fingerprint();
+        return fp.getWordCount() + ":" + fp.getMaxId() + ":" + fp.getLastUpdated();
+    }
+
+    /**
+     * Picks up edits made through another instance.
+     */
+    @Scheduled(fixedDelayString = "${moderation.words.refresh-ms:60000}", initialDelayString = "${moderation.words.refresh-ms:60000}")
+    public void refreshIfChanged() {
+        try {
+            if (!fingerprint().equals(lastFingerprint)) {
+                requestRebuild();
+            }
+        } catch (Exception e) {
+            log.warn("[BannedWords] Change check failed: {}", e.getMessage());
+        }
+    }
+
+    public Page<BannedWordDto> getWords(String query, int page, int size) {
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        return repository.findByWordContainingOrderByWordAsc(q, PageRequest.of(page, Math.min(Math.max(size, 1), 500)))
+                .map(this::toDto);
+    }
+
+    public BannedWordDto add(BannedWordRequest request, Long adminId, String adminName) {
+        String word = normalize(request.getWord());
+        if (repository.existsByWord(word)) {
+            throw new IllegalArgumentException(DUPLICATE_WORD);
+        }
+        BannedWord entity = new BannedWord();
+        entity.setWord(word);
+        entity.setAddedBy(adminName);
+        BannedWord saved = saveUnique(entity);
+        requestRebuild();
+        auditLogService.logAction(adminId, adminName, "ADMIN_ADD_BANNED_WORD", "Добавил запрещённое слово: " + word,
+                null, null);
+        log.info("[BannedWords] {} added '{}'", adminName, word);
+        return toDto(saved);
+    }
+
+    public BannedWordDto update(Long id, BannedWordRequest request, Long adminId, String adminName) {
+        BannedWord entity = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Слово не найдено"));
+        String word = normalize(request.getWord());
+        String oldWord = entity.getWord();
+        if (!word.equals(oldWord) && repository.existsByWord(word)) {
+            throw new IllegalArgumentException(DUPLICATE_WORD);
+        }
+        entity.setWord(word);
+        entity.setAddedBy(adminName);
+        entity.setUpdatedAt(LocalDateTime.now());
+        BannedWord saved = saveUnique(entity);
+        requestRebuild();
+        auditLogService.logAction(adminId, adminName, "ADMIN_UPDATE_BANNED_WORD",
+                "Изменил запрещённое слово: " + oldWord + " -> " + word, null, null);
+        log.info("[BannedWords] {} changed word id={} to '{}'", adminName, id, word);
+        return toDto(saved);
+    }
+
+    public void delete(Long id, Long adminId, String adminName) {
+        BannedWord entity = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Слово не найдено"));
+        repository.delete(entity);
+        requestRebuild();
+        auditLogService.logAction(adminId, adminName, "ADMIN_DELETE_BANNED_WORD",
+                "Удалил запрещённое слово: " + entity.getWord(), null, null);
+        log.info("[BannedWords] {} removed '{}'", adminName, entity.getWord());
+    }
+
+    // existsByWord can't see a concurrent insert of the same word; the unique index can
+    private BannedWord saveUnique(BannedWord entity) {
+        try {
+            return repository.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException(DUPLICATE_WORD);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        CompiledWords current = compiled;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("version", current.version());
+        long requested = requestedVersion.get();
+        status.put("requestedVersion", requested);
+        status.put("rebuilding", requested > Math.max(current.version(), failedVersion));
+        status.put("failedVersion", failedVersion);
+        status.put("lastError", lastError);
+        status.put("source", current.source());
+        status.put("wordCount", current.wordCount());
+        status.put("smartWordCount", current.matcher().getSmartWordCount());
+        status.put("builtAt", current.builtAt());
+        status.put("buildMillis", current.buildMillis());
+        return status;
+    }
+
+    private static String normalize(String word) {
+        String normalized = word == null ? "" : word.trim().toLowerCase();
+        if (normalized.length() < 3) {
+            throw new IllegalArgumentException("Слово должно содержать минимум 3 символа");
+        }
+        if (normalized.contains(",")) {
+            throw new IllegalArgumentException("Слово не должно содержать запятых");
+        }
+        return normalized;
+    }
+
+    private BannedWordDto toDto(BannedWord entity) {
+        return new BannedWordDto(entity.getId(), entity.getWord(), entity.getAddedBy(),
+                entity.getCreatedAt(), entity.getUpdatedAt());
+    }
+}
@@ -1,15 +1,26 @@
 package com.datapeice.slbackend.service;
 
+import com.datapeice.slbackend.dto.BotMessageBatchRequest;
+import com.datapeice.slbackend.dto.BotMessageHistoryPage;
 import com.datapeice.slbackend.dto.BotMessageRequest;
 import com.datapeice.slbackend.dto.BotMessageResponse;
+import com.datapeice.slbackend.dto.ConversationInboxResponse;
 import com.datapeice.slbackend.dto.ConversationResponse;
+import com.datapeice.slbackend.dto.MessengerUserSummary;
+import com.datapeice.slbackend.dto.UserResponse;
 import com.datapeice.slbackend.entity.BotMessage;
+import com.datapeice.slbackend.entity.ConversationSummary;
 import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.repository.BotMessageReactionRepository;
 import com.datapeice.slbackend.repository.BotMessageRepository;
+import com.datapeice.slbackend.repository.ConversationSummaryRepository;
 import com.datapeice.slbackend.repository.UserRepository;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -18,84 +29,199 @@ import java.util.stream.Collectors;
 @Service
 public class BotMessengerService {
 
+    private static final int MAX_INBOX_PAGE = 100;
+    private static final int MAX_HISTORY_PAGE = 200;
+
     private final BotMessageRepository botMessageRepository;
+    private final BotMessageReactionRepository reactionRepository;
+    private final ConversationSummaryRepository conversationSummaryRepository;
     private final UserRepository userRepository;
     private final DiscordService discordService;
+    private final DiscordIdentityResolver identityResolver;
     private final UserService userService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final MessengerEventPublisher eventPublisher;
 
     public BotMessengerService(BotMessageRepository botMessageRepository,
+                               BotMessageReactionRepository reactionRepository,
+                               ConversationSummaryRepository conversationSummaryRepository,
                                UserRepository userRepository,
                                DiscordService discordService,
+                               DiscordIdentityResolver identityResolver,
                                UserService userService,
-                               SimpMessagingTemplate messagingTemplate) {
+                               MessengerEventPublisher eventPublisher) {
         this.botMessageRepository = botMessageRepository;
+        this.reactionRepository = reactionRepository;
+        this.conversationSummaryRepository = conversationSummaryRepository;
         this.userRepository = userRepository;
         this.discordService = discordService;
+        this.identityResolver = identityResolver;
         this.userService = userService;
-        this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Full conversation list (all active conversations + every uncontacted user). Built from the
+     * conversation_summaries read model and a user projection, so it costs three queries instead of
+     * a full profile load per user. Prefer {@link #getInbox} for the paged active list.
+     */
     @Transactional(readOnly = true)
     public ConversationResponse getConversations() {
-        List<User> allUsers = userRepository.findAll();
-        List<BotMessage> latestMessages = botMessageRepository.findLatestMessagePerRecipient();
+        List<ConversationSummary> summaries = conversationSummaryRepository.findAll(
+                Sort.by(Sort.Order.desc("lastMessageTime"), Sort.Order.desc("recipientUserId")));
+        Map<Long, MessengerUserSummary> users = loadUsers(summaries);
 
-        Map<Long, BotMessage> latestMessageMap = new HashMap<>();
-        for (BotMessage msg : latestMessages) {
-            latestMessageMap.put(msg.getRecipientUser().getId(), msg);
+        List<ConversationResponse.ConversationItem> activeList = new ArrayList<>();
+        for (ConversationSummary summary : summaries) {
+            MessengerUserSummary user = users.get(summary.getRecipientUserId());
+            if (user == null) {
+                continue;
+            }
+            ConversationResponse.ConversationItem item = new ConversationResponse.ConversationItem();
+            item.setUser(toUserResponse(user));
+            item.setLastMessage(summary.getLastMessageSnippet());
+            item.setLastMessageTime(summary.getLastMessageTime());
+            item.setLastMessageIsEdited(summary.isLastMessageIsEdited());
+            activeList.add(item);
         }
 
-        List<ConversationResponse.ConversationItem> activeList = new ArrayList<>();
+        // Already sorted alphabetically by username in the query
         List<ConversationResponse.ConversationItem> uncontactedList = new ArrayList<>();
-
-        for (User u : allUsers) {
+        for (MessengerUserSummary user : userRepository.findUncontactedMessengerSummaries()) {
             ConversationResponse.ConversationItem item = new ConversationResponse.ConversationItem();
-            item.setUser(userService.getUserProfile(u));
+            item.setUser(toUserResponse(user));
+            uncontactedList.add(item);
+        }
 
-            if (latestMessageMap.containsKey(u.getId())) {
-                BotMessage latest = latestMessageMap.get(u.getId());
-                String snippet = latest.getContent();
-                if ((snippet == null || snippet.isBlank()) && latest.getMediaUrl() != null) {
-                    snippet = "📷 [Медиа]";
-                }
-                item.setLastMessage(snippet);
-                item.setLastMessageTime(latest.getCreatedAt());
-                item.setLastMessageIsEdited(latest.isEdited());
-                activeList.add(item);
-            } else {
-                uncontactedList.add(item);
+        ConversationResponse response = new ConversationResponse();
+        response.setActiveConversations(activeList);
+        response.setUncontactedPlayers(uncontactedList);
+        return response;
+    }
+
+    /**
+     * One page of active conversations, newest first. Keyset pagination on
+     * (lastMessageTime, recipientUserId): pass the nextBefore* values of the previous page.
+     */
+    @Transactional(readOnly = true)
+    public ConversationInboxResponse getInbox(int limit, LocalDateTime beforeTime, Long beforeUserId) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_INBOX_PAGE));
+        PageRequest page = PageRequest.of(0, pageSize);
+        List<ConversationSummary> summaries = (beforeTime != null && beforeUserId != null)
+                ? conversationSummaryRepository.findInboxPageBefore(beforeTime, beforeUserId, page)
+                : conversationSummaryRepository.findInboxFirstPage(page);
+        Map<Long, MessengerUserSummary> users = loadUsers(summaries);
+
+        List<ConversationInboxResponse.InboxItem> items = new ArrayList<>();
+        for (ConversationSummary summary : summaries) {
+            MessengerUserSummary user = users.get(summary.getRecipientUserId());
+            if (user == null) {
+                continue;
             }
+            user.setAvatarUrl(userService.resolveAvatarUrl(user.getAvatarUrl(), user.getUsername()));
+            ConversationInboxResponse.InboxItem item = new ConversationInboxResponse.InboxItem();
+            item.setUser(user);
+            item.setLastMessageId(summary.getLastMessageId());
+            item.setLastMessage(summary.getLastMessageSnippet());
+            item.setLastMessageTime(summary.getLastMessageTime());
+            item.setLastMessageIsEdited(summary.isLastMessageIsEdited());
+            item.setLastMessageFromPlayer(summary.isLastMessageFromPlayer());
+            item.setUnreadCount(summary.getUnreadCount());
+            items.add(item);
         }
 
-        // Sort active conversations by latest message time descending
-        activeList.sort((a, b) -> {
-            if (a.getLastMessageTime() == null) return 1;
-            if (b.getLastMessageTime() == null) return -1;
-            return b.getLastMessageTime().compareTo(a.getLastMessageTime());
-        });
+        ConversationInboxResponse response = new ConversationInboxResponse();
+        response.setItems(items);
+        if (summaries.size() == pageSize) {
+            ConversationSummary last = summaries.get(summaries.size() - 1);
+            response.setNextBeforeTime(last.getLastMessageTime());
+            response.setNextBeforeUserId(last.getRecipientUserId());
+        }
+        return response;
+    }
 
-        // Sort uncontacted players alphabetically by username
-        uncontactedList.sort((a, b) -> {
-            String uA = a.getUser().getUsername() != null ? a.getUser().getUsername() : "";
-            String uB = b.getUser().getUsername() != null ? b.getUser().getUsername() : "";
-            return uA.compareToIgnoreCase(uB);
-        });
+    private Map<Long, MessengerUserSummary> loadUsers(List<ConversationSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = summaries.stream().map(ConversationSummary::getRecipientUserId).toList();
+        return userRepository.findMessengerSummariesByIds(ids).stream()
+                .collect(Collectors.toMap(MessengerUserSummary::getId, u -> u));
+    }
 
-        ConversationResponse response = new ConversationResponse();
-        response.setActiveConversations(activeList);
-        response.setUncontactedPlayers(uncontactedList);
+    private UserResponse toUserResponse(MessengerUserSummary user) {
+        UserResponse response = new UserResponse();
+        response.setId(user.getId());
+        response.setUsername(user.getUsername());
+        response.setDiscordNickname(user.getDiscordNickname());
+        response.setMinecraftNickname(user.getMinecraftNickname());
+        response.setRole(user.getRole());
+        response.setAvatarUrl(userService.resolveAvatarUrl(user.getAvatarUrl(), user.getUsername()));
+        response.setPlayer(user.isPlayer());
+        response.setBanned(user.isBanned());
+        response.setDiscordUserId(user.getDiscordUserId());
+        response.setInDiscordServer(user.isInDiscord());
         return response;
     }
 
     @Transactional
     public List<BotMessageResponse> getMessageHistory(Long recipientUserId) {
         botMessageRepository.markPlayerMessagesAsRead(recipientUserId);
-        messagingTemplate.convertAndSend("/topic/admin/messenger", Map.of("readRecipientUserId", recipientUserId));
-        return botMessageRepository.findByRecipientUserIdOrderByCreatedAtAsc(recipientUserId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        refreshSummary(recipientUserId);
+        eventPublisher.conversationRead(recipientUserId);
+        return mapToResponses(botMessageRepository.findByRecipientUserIdOrderByCreatedAtAsc(recipientUserId));
+    }
+
+    /**
+     * One slice of a conversation without touching read state:
+     * <ul>
+     *   <li>no cursor: the latest {@code limit} messages</li>
+     *   <li>{@code beforeId}: up to {@code limit} messages older than that id (scrolling up)</li>
+     *   <li>{@code afterId}: up to {@code limit} messages newer than that id (resuming after a reconnect)</li>
+     * </ul>
+     */
+    @Transactional(readOnly = true)
+    public BotMessageHistoryPage getMessagePage(Long recipientUserId, int limit, Long beforeId, Long afterId) {
+        if (beforeId != null && afterId != null) {
+            throw new IllegalArgumentException("Укажите только beforeId или afterId");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE));
+        // One extra row tells whether there is another page
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<BotMessage> rows;
+        if (afterId != null) {
+            rows = botMessageRepository.findByRecipientUserIdAndIdGreaterThanOrderByIdAsc(recipientUserId, afterId, page);
+        } else if (beforeId != null) {
+            rows = botMessageRepository.findByRecipientUserIdAndIdLessThanOrderByIdDesc(recipientUserId, beforeId, page);
+        } else {
+            rows = botMessageRepository.findByRecipientUserIdOrderByIdDesc(recipientUserId, page);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<BotMessage> slice = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        if (afterId == null) {
+            Collections.reverse(slice);
+        }
+
+        BotMessageHistoryPage response = new BotMessageHistoryPage();
+        response.setMessages(mapToResponses(slice));
+        response.setHasMore(hasMore);
+        if (!slice.isEmpty()) {
+            response.setOldestId(slice.get(0).getId());
+            response.setNewestId(slice.get(slice.size() - 1).getId());
+        }
+        return response;
+    }
+
+    /**
+     * Marks the player's messages in a conversation as read. Split out of history loading so paging
+     * and reconnect catch-up requests stay read-only.
+     */
+    @Transactional
+    public void markConversationRead(Long recipientUserId) {
+        botMessageRepository.markPlayerMessagesAsRead(recipientUserId);
+        refreshSummary(recipientUserId);
+        eventPublisher.conversationRead(recipientUserId);
     }
 
     @Transactional
@@ -112,6 +238,7 @@ public class BotMessengerService {
         message.setCreatedAt(LocalDateTime.now());
 
         BotMessage saved = botMessageRepository.save(message);
+        refreshSummary(recipient.getId());
 
         // Resolve Discord User ID if missing
         if (recipient.getDiscordUserId() == null && recipient.getDiscordNickname() != null) {
@@ -123,31 +250,23 @@ public class BotMessengerService {
         }
 
         if (recipient.getDiscordUserId() != null) {
-            discordService.sendDirectMessageAndGetId(
+            // Delivered by the outbox, which writes the Discord message ID back to this message
+            discordService.queueMessengerMessage(
                     recipient.getDiscordUserId(),
                     saved.getContent(),
                     saved.getMediaUrl(),
-                    discordMsgId -> {
-                        saved.setDiscordMessageId(discordMsgId);
-                        botMessageRepository.save(saved);
-                    }
+                    saved.getId()
             );
         }
 
         BotMessageResponse response = mapToResponse(saved);
-        messagingTemplate.convertAndSend("/topic/admin/messenger", response);
+        eventPublisher.messageChanged(response);
         return response;
     }
 
     @Transactional
     public void processIncomingPlayerMessage(String discordUserId, String authorName, String content, String mediaUrl, String discordMessageId) {
-        User playerUser = userRepository.findByDiscordUserId(discordUserId).orElse(null);
-        if (playerUser == null && authorName != null) {
-            playerUser = userRepository.findAll().stream()
-                    .filter(u -> authorName.equalsIgnoreCase(u.getDiscordNickname()) || authorName.equalsIgnoreCase(u.getUsername()))
-                    .findFirst()
-                    .orElse(null);
-        }
+        User playerUser = identityResolver.resolve(discordUserId, authorName).orElse(null);
         if (playerUser == null) {
             return; // User not associated with any registered site user
         }
@@ -167,8 +286,9 @@ public class BotMessengerService {
         message.setCreatedAt(LocalDateTime.now());
 
         BotMessage saved = botMessageRepository.save(message);
+        refreshSummary(playerUser.getId());
         BotMessageResponse response = mapToResponse(saved);
-        messagingTemplate.convertAndSend("/topic/admin/messenger", response);
+        eventPublisher.messageChanged(response);
     }
 
     @Transactional
@@ -182,6 +302,7 @@ public class BotMessengerService {
         message.setUpdatedAt(LocalDateTime.now());
 
         BotMessage updated = botMessageRepository.save(message);
+        refreshSummary(updated.getRecipientUser().getId());
 
         User recipient = updated.getRecipientUser();
         if (recipient != null && recipient.getDiscordUserId() != null && updated.getDiscordMessageId() != null) {
@@ -194,7 +315,7 @@ public class BotMessengerService {
         }
 
         BotMessageResponse response = mapToResponse(updated);
-        messagingTemplate.convertAndSend("/topic/admin/messenger", response);
+        eventPublisher.messageChanged(response);
         return response;
     }
 
@@ -209,41 +330,186 @@ public class BotMessengerService {
         }
 
         botMessageRepository.delete(message);
-        Map<String, Object> deletePayload = Map.of("deletedMessageId", messageId, "recipientUserId", recipient != null ? recipient.getId() : 0);
-        messagingTemplate.convertAndSend("/topic/admin/messenger", deletePayload);
+        if (recipient != null) {
+            refreshSummary(recipient.getId());
+        }
+        eventPublisher.messageDeleted(recipient != null ? recipient.getId() : 0L, messageId);
     }
 
+    /**
+     * Sets or clears the admin's reaction. The bot mirrors it on Discord when the first admin
+     * adds an emoji and removes it when the last one clears it.
+     */
     @Transactional
-    public BotMessageResponse toggleReaction(Long messageId, String emoji) {
+    public BotMessageResponse toggleReaction(Long messageId, String emoji, Long actorUserId) {
         BotMessage message = botMessageRepository.findById(messageId)
                 .orElseThrow(() -> new IllegalArgumentException("Сообщение не найдено"));
+        DiscordService.DirectMessageOperation discordOperation = toggleReactionRow(message, emoji, actorUserId);
 
-        String current = message.getReactions();
-        List<String> list = (current != null && !current.isBlank())
-                ? new ArrayList<>(Arrays.asList(current.split(",")))
-                : new ArrayList<>();
+        User recipient = message.getRecipientUser();
+        if (discordOperation != null && recipient != null && recipient.getDiscordUserId() != null) {
+            discordService.applyDirectMessageOperations(recipient.getDiscordUserId(), List.of(discordOperation));
+        }
+
+        BotMessageResponse response = mapToResponse(message);
+        eventPublisher.messageChanged(response);
+        return response;
+    }
+
+    /**
+     * Applies several edits, deletions and reactions within one conversation. Every operation is
+     * checked before anything is changed, so an invalid one rejects the whole batch. The database
+     * changes share one transaction; the WebSocket events and the Discord side (which reuses a
+     * single DM channel handle) only go out once it has committed.
+     */
+    @Transactional
+    public List<BotMessageResponse> applyBatch(Long recipientUserId, Long actorUserId, BotMessageBatchRequest request) {
+        User recipient = userRepository.findById(recipientUserId)
+                .orElseThrow(() -> new IllegalArgumentException("Получатель не найден"));
+
+        Map<Long, BotMessage> messages = new HashMap<>();
+        botMessageRepository.findAllById(request.getOperations().stream()
+                        .map(BotMessageBatchRequest.Operation::getMessageId).collect(Collectors.toSet()))
+                .forEach(message -> messages.put(message.getId(), message));
+        Set<Long> deleted = new HashSet<>();
+        for (BotMessageBatchRequest.Operation op : request.getOperations()) {
+            BotMessage message = messages.get(op.getMessageId());
+            if (message == null || deleted.contains(op.getMessageId())) {
+                throw new IllegalArgumentException("Сообщение не найдено");
+            }
+            if (message.getRecipientUser() == null || !message.getRecipientUser().getId().equals(recipientUserId)) {
+                throw new IllegalArgumentException("Сообщение относится к другому диалогу");
+            }
+            if (op.getAction() == BotMessageBatchRequest.Action.REACT) {
+                if (op.getEmoji() == null || op.getEmoji().isBlank()) {
+                    throw new IllegalArgumentException("Не указана реакция");
+                }
+                validateEmoji(op.getEmoji());
+            } else if (op.getAction() == BotMessageBatchRequest.Action.DELETE) {
+                deleted.add(op.getMessageId());
+            }
+        }
+
+        List<BotMessageResponse> responses = new ArrayList<>();
+        List<DiscordService.DirectMessageOperation> discordOperations = new ArrayList<>();
+        List<Runnable> events = new ArrayList<>();
+
+        for (BotMessageBatchRequest.Operation op : request.getOperations()) {
+            BotMessage message = messages.get(op.getMessageId());
+            switch (op.getAction()) {
+                case EDIT -> {
+                    message.setContent(op.getContent() != null ? op.getContent() : "");
+                    message.setMediaUrl(op.getMediaUrl());
+                    message.setEdited(true);
+                    message.setUpdatedAt(LocalDateTime.now());
+                    BotMessage updated = botMessageRepository.save(message);
+                    discordOperations.add(new DiscordService.DirectMessageOperation(DiscordService.DirectMessageAction.EDIT,
+                            updated.getDiscordMessageId(), updated.getContent(), updated.getMediaUrl(), null));
+                    BotMessageResponse response = mapToResponse(updated);
+                    events.add(() -> eventPublisher.messageChanged(response));
+                    responses.add(response);
+                }
+                case REACT -> {
+                    DiscordService.DirectMessageOperation discordOperation =
+                            toggleReactionRow(message, op.getEmoji(), actorUserId);
+                    if (discordOperation != null) {
+                        discordOperations.add(discordOperation);
+                    }
+                    BotMessageResponse response = mapToResponse(message);
+                    events.add(() -> eventPublisher.messageChanged(response));
+                    responses.add(response);
+                }
+                case DELETE -> {
+                    discordOperations.add(new DiscordService.DirectMessageOperation(DiscordService.DirectMessageAction.DELETE,
+                            message.getDiscordMessageId(), null, null, null));
+                    botMessageRepository.delete(message);
+                    events.add(() -> eventPublisher.messageDeleted(recipientUserId, message.getId()));
+                }
+            }
+        }
+
+        conversationSummaryRepository.refresh(recipientUserId);
+        ConversationSummary summary = conversationSummaryRepository.findById(recipientUserId).orElse(null);
+        events.add(() -> eventPublisher.inboxChanged(recipientUserId, summary));
 
-        if (list.contains(emoji)) {
-            list.remove(emoji);
+        String discordUserId = recipient.getDiscordUserId();
+        afterCommit(() -> {
+            events.forEach(Runnable::run);
+            if (discordUserId != null) {
+                discordService.applyDirectMessageOperations(discordUserId, discordOperations);
+            }
+        });
+        return responses;
+    }
+
+    // Subscribers and Discord must not see changes that a later failure in the transaction rolls back
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
         } else {
-            list.add(emoji);
+            action.run();
         }
+    }
 
-        String updated = String.join(",", list);
-        message.setReactions(updated.isBlank() ? null : updated);
-        BotMessage saved = botMessageRepository.save(message);
+    private void refreshSummary(Long recipientUserId) {
+        conversationSummaryRepository.refresh(recipientUserId);
+        eventPublisher.inboxChanged(recipientUserId, conversationSummaryRepository.findById(recipientUserId).orElse(null));
+    }
 
-        User recipient = saved.getRecipientUser();
-        if (recipient != null && recipient.getDiscordUserId() != null && saved.getDiscordMessageId() != null) {
-            discordService.addReactionToDirectMessage(recipient.getDiscordUserId(), saved.getDiscordMessageId(), emoji);
+    /**
+     * Atomic toggle in bot_message_reactions. Returns the Discord-side change to make, or null if
+     * other admins still hold the emoji (or still did before this one added it). Must run inside
+     * the caller's transaction: the advisory lock taken here is held until it commits.
+     */
+    private DiscordService.DirectMessageOperation toggleReactionRow(BotMessage message, String emoji, Long actorUserId) {
+        validateEmoji(emoji);
+        // Without the lock two admins toggling the same emoji both count 1 (or 0) and Discord gets
+        // two REACTs or no UNREACT
+        reactionRepository.lockMessageEmoji(message.getId(), emoji);
+        boolean added = reactionRepository.toggle(message.getId(), emoji, actorUserId);
+        long holders = reactionRepository.countByMessageIdAndEmoji(message.getId(), emoji);
+        if (message.getDiscordMessageId() == null || (added ? holders != 1 : holders != 0)) {
+            return null;
         }
+        return new DiscordService.DirectMessageOperation(
+                added ? DiscordService.DirectMessageAction.REACT : DiscordService.DirectMessageAction.UNREACT,
+                message.getDiscordMessageId(), null, null, emoji);
+    }
 
-        BotMessageResponse response = mapToResponse(saved);
-        messagingTemplate.convertAndSend("/topic/admin/messenger", response);
-        return response;
+    private static void validateEmoji(String emoji) {
+        if (emoji == null || emoji.isBlank() || emoji.length() > 64) {
+            throw new IllegalArgumentException("Неверная реакция");
+        }
+    }
+
+    private List<BotMessageResponse> mapToResponses(List<BotMessage> messages) {
+        if (messages.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Map<String, Long>> counts = loadReactionCounts(messages.stream().map(BotMessage::getId).toList());
+        return messages.stream()
+                .map(msg -> mapToResponse(msg, counts.getOrDefault(msg.getId(), Map.of())))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Map<String, Long>> loadReactionCounts(List<Long> messageIds) {
+        Map<Long, Map<String, Long>> counts = new HashMap<>();
+        for (BotMessageReactionRepository.ReactionCount row : reactionRepository.countByMessageIds(messageIds)) {
+            counts.computeIfAbsent(row.getMessageId(), id -> new LinkedHashMap<>()).put(row.getEmoji(), row.getCount());
+        }
+        return counts;
     }
 
     private BotMessageResponse mapToResponse(BotMessage msg) {
+        return mapToResponse(msg, loadReactionCounts(List.of(msg.getId())).getOrDefault(msg.getId(), Map.of()));
+    }
+
+    private BotMessageResponse mapToResponse(BotMessage msg, Map<String, Long> reactionCounts) {
         BotMessageResponse dto = new BotMessageResponse();
         dto.setId(msg.getId());
         dto.setRecipientUserId(msg.getRecipientUser().getId());
@@ -254,7 +520,8 @@ public class BotMessengerService {
         dto.setEdited(msg.isEdited());
         dto.setFromPlayer(msg.isFromPlayer());
         dto.setRead(msg.isRead());
-        dto.setReactions(msg.getReactions());
+        dto.setReactionCounts(reactionCounts);
+        dto.setReactions(reactionCounts.isEmpty() ? null : String.join(",", reactionCounts.keySet()));
         dto.setCreatedAt(msg.getCreatedAt());
         dto.setUpdatedAt(msg.getUpdatedAt());
         return dto;
@@ -0,0 +1,142 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the author of an incoming bot DM to a site user.
+ * <p>
+ * Lookup order: linked Discord user id, then the Discord nickname, then the site username
+ * (both case-insensitive, served by the lower() indexes created in DatabaseMigrationService).
+ * Senders that match nobody are remembered for a while, so repeated DMs from strangers
+ * don't hit the database at all. Whenever a site user appears that such a sender could match
+ * (registration, Discord linking, nickname or username change) the entry is dropped through
+ * {@link #forgetUser(User)}.
+ */
+@Service
+@Slf4j
+public class DiscordIdentityResolver {
+
+    private static final int NEGATIVE_CACHE_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final long negativeTtlMillis;
+
+    private record Stranger(long since, String name) {
+    }
+
+    // Discord user id -> when it was last confirmed unknown (epoch millis) and its lowercased name. LRU-bounded
+    private final Map<String, Stranger> unknownSenders = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Stranger> eldest) {
+                    if (size() > NEGATIVE_CACHE_SIZE) {
+                        unindex(eldest.getKey(), eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            });
+    // Lowercased author name -> Discord user id of the cached stranger, so a new user name finds its entry
+    private final Map<String, String> strangersByName = new ConcurrentHashMap<>();
+
+    public DiscordIdentityResolver(UserRepository userRepository,
+                                   @Value("${discord.identity.negative-cache-ttl-seconds:600}") long negativeTtlSeconds) {
+        this.userRepository = userRepository;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000L;
+    }
+
+    /**
+     * True if this sender was recently looked up and matched no site user.
+     */
+    public boolean isKnownStranger(String discordUserId) {
+        Stranger stranger = unknownSenders.get(discordUserId);
+        if (stranger == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - stranger.since() >= negativeTtlMillis) {
+            forget(discordUserId);
+            return false;
+        }
+        return true;
+    }
+
+    public Optional<User> resolve(String discordUserId, String authorName) {
+        if (discordUserId == null || isKnownStranger(discordUserId)) {
+            return Optional.empty();
+        }
+
+        Optional<User> user = userRepository.findByDiscordUserId(discordUserId);
+        if (user.isEmpty() && authorName != null && !authorName.isBlank()) {
+            user = first(userRepository.findByDiscordNicknameLower(authorName))
+                    .or(() -> first(userRepository.findByUsernameLower(authorName)));
+        }
+
+        if (user.isEmpty()) {
+            String name = authorName == null || authorName.isBlank() ? null : authorName.toLowerCase(Locale.ROOT);
+            unknownSenders.put(discordUserId, new Stranger(System.currentTimeMillis(), name));
+            if (name != null) {
+                strangersByName.put(name, discordUserId);
+            }
+            log.debug("[Identity] No site user for Discord sender {} ({})", discordUserId, authorName);
+        }
+        return user;
+    }
+
+    /**
+     * Drop a sender from the negative cache, e.g. right after they linked their Discord account.
+     */
+    public void forget(String discordUserId) {
+        if (discordUserId != null) {
+            Stranger removed = unknownSenders.remove(discordUserId);
+            if (removed != null) {
+                unindex(discordUserId, removed);
+            }
+        }
+    }
+
+    /**
+     * Drop every cached sender this user could now be matched to: their linked Discord id, and
+     * senders named like their Discord nickname or site username. Call after the user is saved.
+     */
+    public void forgetUser(User user) {
+        forget(user.getDiscordUserId());
+        forgetName(user.getDiscordNickname());
+        forgetName(user.getUsername());
+    }
+
+    private void forgetName(String name) {
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        String discordUserId = strangersByName.remove(name.toLowerCase(Locale.ROOT));
+        if (discordUserId != null) {
+            unknownSenders.remove(discordUserId);
+        }
+    }
+
+    private void unindex(String discordUserId, Stranger stranger) {
+        if (stranger.name() != null) {
+            strangersByName.remove(stranger.name(), discordUserId);
+        }
+    }
+
+    public int getUnknownSenderCount() {
+        return unknownSenders.size();
+    }
+
+    private static Optional<User> first(List<User> users) {
+        return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
+    }
+}
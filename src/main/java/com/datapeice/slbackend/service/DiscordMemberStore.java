@@ -0,0 +1,435 @@
+package com.datapeice.slbackend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact copy of the guild member list.
+ * <p>
+ * JDA's full cache keeps a Member + User object graph (roles, presence, flags, permission
+ * overrides...) for every guild member. The backend only needs the snowflake, the three
+ * names used for nickname lookups, the boost timestamp and the avatar hash, so those are
+ * kept here in parallel arrays of an open-addressing table keyed by the snowflake {@code long}.
+ * No per-member wrapper objects are allocated; the only objects are the name strings.
+ * <p>
+ * Name lookups use a second open-addressing table built together with the first: one entry
+ * (case-insensitive name hash, snowflake) per distinct name of a member. Names are not unique,
+ * so a hash may appear several times; candidates are confirmed against the stored names.
+ */
+@Component
+public class DiscordMemberStore {
+
+    private static final long EMPTY = 0L; // Discord snowflakes are never 0
+    private static final float MAX_LOAD = 0.6f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids;
+    private long[] boostedSince; // epoch millis, 0 = not boosting
+    private String[] usernames;
+    private String[] globalNames;
+    private String[] nicknames;
+    private String[] avatarHashes;
+    private int size;
+
+    // Name index: parallel arrays, entries with nameIds[i] == EMPTY are free
+    private int[] nameHashes;
+    private long[] nameIds;
+    private int nameEntries;
+    private volatile boolean loaded;
+
+    public DiscordMemberStore() {
+        allocate(1024);
+        allocateNames(2048);
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        boostedSince = new long[capacity];
+        usernames = new String[capacity];
+        globalNames = new String[capacity];
+        nicknames = new String[capacity];
+        avatarHashes = new String[capacity];
+    }
+
+    private void allocateNames(int capacity) {
+        nameHashes = new int[capacity];
+        nameIds = new long[capacity];
+    }
+
+    private static int slot(long id, int mask) {
+        // Snowflakes share their high (timestamp) bits, mix before masking
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int indexOf(long id) {
+        int mask = ids.length - 1;
+        int i = slot(id, mask);
+        while (ids[i] != EMPTY) {
+            if (ids[i] == id) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Insert or overwrite a member record.
+     */
+    public void put(long id, String username, String globalName, String nickname, long boostedSinceMillis, String avatarHash) {
+        if (id == EMPTY) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (size + 1 > ids.length * MAX_LOAD) {
+                rehash(ids.length * 2);
+            }
+            int mask = ids.length - 1;
+            int i = slot(id, mask);
+            while (ids[i] != EMPTY && ids[i] != id) {
+                i = (i + 1) & mask;
+            }
+            if (ids[i] == EMPTY) {
+                ids[i] = id;
+                size++;
+            } else {
+                unindexNames(i);
+            }
+            boostedSince[i] = boostedSinceMillis;
+            usernames[i] = username;
+            globalNames[i] = globalName;
+            nicknames[i] = nickname;
+            avatarHashes[i] = avatarHash;
+            indexNames(i);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int i = indexOf(id);
+            if (i < 0) {
+                return;
+            }
+            unindexNames(i);
+            // Backward-shift deletion keeps linear probing chains intact without tombstones
+            int mask = ids.length - 1;
+            int hole = i;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (ids[j] == EMPTY) {
+                    break;
+                }
+                int home = slot(ids[j], mask);
+                boolean between = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+                if (!between) {
+                    moveSlot(j, hole);
+                    hole = j;
+                }
+            }
+            clearSlot(hole);
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void moveSlot(int from, int to) {
+        ids[to] = ids[from];
+        boostedSince[to] = boostedSince[from];
+        usernames[to] = usernames[from];
+        globalNames[to] = globalNames[from];
+        nicknames[to] = nicknames[from];
+        avatarHashes[to] = avatarHashes[from];
+    }
+
+    private void clearSlot(int i) {
+        ids[i] = EMPTY;
+        boostedSince[i] = 0;
+        usernames[i] = null;
+        globalNames[i] = null;
+        nicknames[i] = null;
+        avatarHashes[i] = null;
+    }
+
+    /**
+     * Case-insensitive hash, consistent with {@link String#equalsIgnoreCase}: that method treats two
+     * chars as equal exactly when {@code toLowerCase(toUpperCase(c))} is equal for both.
+     */
+    private static int nameHash(String name) {
+        int h = 0;
+        for (int k = 0; k < name.length(); k++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(k)));
+        }
+        return h;
+    }
+
+    private static int nameSlot(int hash, int mask) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static boolean isIndexed(String name) {
+        return name != null && !name.isBlank();
+    }
+
+    // Each distinct name once, so a member whose username equals their global name has one entry
+    private void indexNames(int slot) {
+        String username = usernames[slot];
+        String globalName = globalNames[slot];
+        String nickname = nicknames[slot];
+        if (isIndexed(username)) {
+            addName(nameHash(username), ids[slot]);
+        }
+        if (isIndexed(globalName) && !globalName.equalsIgnoreCase(username)) {
+            addName(nameHash(globalName), ids[slot]);
+        }
+        if (isIndexed(nickname) && !nickname.equalsIgnoreCase(username) && !nickname.equalsIgnoreCase(globalName)) {
+            addName(nameHash(nickname), ids[slot]);
+        }
+    }
+
+    private void unindexNames(int slot) {
+        String username = usernames[slot];
+        String globalName = globalNames[slot];
+        String nickname = nicknames[slot];
+        if (isIndexed(username)) {
+            removeName(nameHash(username), ids[slot]);
+        }
+        if (isIndexed(globalName) && !globalName.equalsIgnoreCase(username)) {
+            removeName(nameHash(globalName), ids[slot]);
+        }
+        if (isIndexed(nickname) && !nickname.equalsIgnoreCase(username) && !nickname.equalsIgnoreCase(globalName)) {
+            removeName(nameHash(nickname), ids[slot]);
+        }
+    }
+
+    private void addName(int hash, long id) {
+        if (nameEntries + 1 > nameIds.length * MAX_LOAD) {
+            rehashNames(nameIds.length * 2);
+        }
+        int mask = nameIds.length - 1;
+        int i = nameSlot(hash, mask);
+        while (nameIds[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        nameHashes[i] = hash;
+        nameIds[i] = id;
+        nameEntries++;
+    }
+
+    private void removeName(int hash, long id) {
+        int mask = nameIds.length - 1;
+        int i = nameSlot(hash, mask);
+        while (nameIds[i] != EMPTY && (nameIds[i] != id || nameHashes[i] != hash)) {
+            i = (i + 1) & mask;
+        }
+        if (nameIds[i] == EMPTY) {
+            return;
+        }
+        // Same backward-shift deletion as remove()
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (nameIds[j] == EMPTY) {
+                break;
+            }
+            int home = nameSlot(nameHashes[j], mask);
+            boolean between = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!between) {
+                nameHashes[hole] = nameHashes[j];
+                nameIds[hole] = nameIds[j];
+                hole = j;
+            }
+        }
+        nameHashes[hole] = 0;
+        nameIds[hole] = EMPTY;
+        nameEntries--;
+    }
+
+    private void rehashNames(int newCapacity) {
+        int[] oldHashes = nameHashes;
+        long[] oldIds = nameIds;
+        allocateNames(newCapacity);
+        int mask = newCapacity - 1;
+        for (int k = 0; k < oldIds.length; k++) {
+            if (oldIds[k] == EMPTY) {
+                continue;
+            }
+            int i = nameSlot(oldHashes[k], mask);
+            while (nameIds[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            nameHashes[i] = oldHashes[k];
+            nameIds[i] = oldIds[k];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldIds = ids;
+        long[] oldBoost = boostedSince;
+        String[] oldUsernames = usernames;
+        String[] oldGlobalNames = globalNames;
+        String[] oldNicknames = nicknames;
+        String[] oldAvatars = avatarHashes;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int k = 0; k < oldIds.length; k++) {
+            if (oldIds[k] == EMPTY) {
+                continue;
+            }
+            int i = slot(oldIds[k], mask);
+            while (ids[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            ids[i] = oldIds[k];
+            boostedSince[i] = oldBoost[k];
+            usernames[i] = oldUsernames[k];
+            globalNames[i] = oldGlobalNames[k];
+            nicknames[i] = oldNicknames[k];
+            avatarHashes[i] = oldAvatars[k];
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return indexOf(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isBoosting(long id) {
+        lock.readLock().lock();
+        try {
+            int i = indexOf(id);
+            return i >= 0 && boostedSince[i] != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getAvatarHash(long id) {
+        lock.readLock().lock();
+        try {
+            int i = indexOf(id);
+            return i >= 0 ? avatarHashes[i] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find a member by username, global name or guild nickname (case-insensitive).
+     * Returns 0 if nobody matches.
+     */
+    public long findIdByName(String name) {
+        if (name == null || name.isBlank()) {
+            return 0L;
+        }
+        int hash = nameHash(name);
+        lock.readLock().lock();
+        try {
+            int mask = nameIds.length - 1;
+            for (int i = nameSlot(hash, mask); nameIds[i] != EMPTY; i = (i + 1) & mask) {
+                if (nameHashes[i] != hash) {
+                    continue;
+                }
+                int member = indexOf(nameIds[i]);
+                if (member >= 0 && (name.equalsIgnoreCase(usernames[member])
+                        || name.equalsIgnoreCase(nicknames[member])
+                        || name.equalsIgnoreCase(globalNames[member]))) {
+                    return ids[member];
+                }
+            }
+            return 0L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<String> getBoostingIds() {
+        Set<String> result = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != EMPTY && boostedSince[i] != 0) {
+                    result.add(Long.toUnsignedString(ids[i]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            allocate(1024);
+            allocateNames(2048);
+            size = 0;
+            nameEntries = 0;
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * True once the initial member download finished. Until then lookups may miss members.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * Rough retained size: the six member arrays, the two name-index arrays and the name strings
+     * (compact Latin-1 strings: 24 byte String header + 16 byte array header + 1 byte per char).
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 2L * (16 + 8L * ids.length) + 4L * (16 + 4L * ids.length)
+                    + (16 + 4L * nameHashes.length) + (16 + 8L * nameIds.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == EMPTY) {
+                    continue;
+                }
+                bytes += stringBytes(usernames[i]) + stringBytes(globalNames[i])
+                        + stringBytes(nicknames[i]) + stringBytes(avatarHashes[i]);
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 40L + s.length();
+    }
+}
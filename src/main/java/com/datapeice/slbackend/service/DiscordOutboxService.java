@@ -0,0 +1,428 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.BotMessage;
+import com.datapeice.slbackend.entity.DiscordOutboundMessage;
+import com.datapeice.slbackend.entity.DiscordOutboundPriority;
+import com.datapeice.slbackend.entity.DiscordOutboundStatus;
+import com.datapeice.slbackend.entity.DiscordOutboundType;
+import com.datapeice.slbackend.repository.BotMessageRepository;
+import com.datapeice.slbackend.repository.DiscordOutboundMessageRepository;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.annotation.PostConstruct;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent queue for everything the bot sends to Discord (DMs, channel messages, role changes).
+ * <p>
+ * Rows are dispatched by priority ({@link DiscordOutboundPriority}), paced by a token bucket per
+ * Discord route so mass actions cannot burn through the rate limit, and retried with backoff.
+ * Rows that keep failing end up as FAILED and are visible on the admin dashboard.
+ * <p>
+ * A claimed row is leased for {@code in-flight-timeout-seconds}. While its send is still running
+ * the lease is renewed, so a slow send (e.g. one queued behind JDA's own rate limiter) is not
+ * re-queued and delivered twice; only rows of a crashed instance expire. A send that hasn't
+ * completed after {@code send-timeout-seconds} is given up and retried.
+ */
+@Service
+public class DiscordOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscordOutboxService.class);
+
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    @Value("${discord.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${discord.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${discord.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${discord.outbox.in-flight-timeout-seconds:120}")
+    private int inFlightTimeoutSeconds;
+
+    @Value("${discord.outbox.send-timeout-seconds:600}")
+    private int sendTimeoutSeconds;
+
+    @Value("${discord.outbox.rate-window-seconds:5}")
+    private int rateWindowSeconds;
+
+    @Value("${discord.outbox.rate.direct-message:5}")
+    private int directMessageRate;
+
+    @Value("${discord.outbox.rate.channel-message:5}")
+    private int channelMessageRate;
+
+    @Value("${discord.outbox.rate.role:5}")
+    private int roleRate;
+
+    private final DiscordOutboundMessageRepository outboundRepository;
+    private final BotMessageRepository botMessageRepository;
+    private final DiscordService discordService;
+    private final MessengerEventPublisher messengerEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<DiscordOutboundType, Bucket> routeBuckets = new EnumMap<>(DiscordOutboundType.class);
+    private final Map<DiscordOutboundPriority, LatencyWindow> latencies = new EnumMap<>(DiscordOutboundPriority.class);
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    // Ids of rows whose send is running on this instance; their leases are renewed
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public DiscordOutboxService(DiscordOutboundMessageRepository outboundRepository,
+                                BotMessageRepository botMessageRepository,
+                                DiscordService discordService,
+                                MessengerEventPublisher messengerEventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.outboundRepository = outboundRepository;
+        this.botMessageRepository = botMessageRepository;
+        this.discordService = discordService;
+        this.messengerEventPublisher = messengerEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        Duration window = Duration.ofSeconds(rateWindowSeconds);
+        routeBuckets.put(DiscordOutboundType.DIRECT_MESSAGE, createRouteBucket(directMessageRate, window));
+        routeBuckets.put(DiscordOutboundType.CHANNEL_MESSAGE, createRouteBucket(channelMessageRate, window));
+        // Adding and removing a role share Discord's member role route
+        Bucket roleBucket = createRouteBucket(roleRate, window);
+        routeBuckets.put(DiscordOutboundType.ADD_ROLE, roleBucket);
+        routeBuckets.put(DiscordOutboundType.REMOVE_ROLE, roleBucket);
+        for (DiscordOutboundPriority priority : DiscordOutboundPriority.values()) {
+            latencies.put(priority, new LatencyWindow(256));
+        }
+    }
+
+    private Bucket createRouteBucket(int capacity, Duration window) {
+        Bandwidth limit = Bandwidth.builder().capacity(capacity).refillGreedy(capacity, window).build();
+        return Bucket.builder()
+                .addLimit(limit)
+                .build();
+    }
+
+    /**
+     * Rows left in SENDING by a crash or restart were never confirmed - put them back in the queue.
+     * Only rows whose lease has expired are touched, so a restarting instance doesn't re-queue
+     * (and double-send) what other instances are delivering right now.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${discord.outbox.recovery-interval-ms:60000}",
+            initialDelayString = "${discord.outbox.recovery-interval-ms:60000}")
+    public void recoverInFlight() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(inFlightTimeoutSeconds);
+        Integer reset = transactionTemplate.execute(status -> outboundRepository.resetInFlight(cutoff));
+        if (reset != null && reset > 0) {
+            logger.info("Discord outbox: returned {} stale in-flight messages to the queue", reset);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${discord.outbox.lease-renewal-ms:30000}",
+            initialDelayString = "${discord.outbox.lease-renewal-ms:30000}")
+    public void renewLeases() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(inFlight);
+        try {
+            transactionTemplate.execute(status -> outboundRepository.renewClaims(ids, LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.warn("Discord outbox: failed to renew {} in-flight leases: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    public DiscordOutboundMessage enqueue(DiscordOutboundType type, DiscordOutboundPriority priority, String targetId,
+                                          String roleId, String content, String mediaUrl, Long botMessageId) {
+        DiscordOutboundMessage message = new DiscordOutboundMessage();
+        message.setType(type);
+        message.setPriority(priority);
+        message.setTargetId(targetId);
+        message.setRoleId(roleId);
+        message.setContent(content);
+        message.setMediaUrl(mediaUrl);
+        message.setBotMessageId(botMessageId);
+        return outboundRepository.save(message);
+    }
+
+    @Scheduled(fixedDelayString = "${discord.outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        if (!discordService.isEnabled()) {
+            return;
+        }
+        List<DiscordOutboundMessage> batch;
+        try {
+            batch = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<DiscordOutboundMessage> due = outboundRepository.lockDueBatch(now, batchSize);
+                for (DiscordOutboundMessage message : due) {
+                    message.setStatus(DiscordOutboundStatus.SENDING);
+                    message.setClaimedAt(now);
+                }
+                return outboundRepository.saveAll(due);
+            });
+        } catch (Exception e) {
+            logger.error("Discord outbox: failed to claim batch: {}", e.getMessage());
+            return;
+        }
+        if (batch == null) {
+            return;
+        }
+        for (DiscordOutboundMessage message : batch) {
+            deliver(message);
+        }
+    }
+
+    private void deliver(DiscordOutboundMessage message) {
+        ConsumptionProbe probe = routeBuckets.get(message.getType()).tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            // Route is saturated: back into the queue without counting an attempt
+            throttledCount.incrementAndGet();
+            message.setStatus(DiscordOutboundStatus.PENDING);
+            message.setNextAttemptAt(LocalDateTime.now().plusNanos(probe.getNanosToWaitForRefill()));
+            outboundRepository.save(message);
+            return;
+        }
+
+        inFlight.add(message.getId());
+        CompletableFuture<String> future;
+        try {
+            future = switch (message.getType()) {
+                case DIRECT_MESSAGE -> discordService.deliverDirectMessage(message.getTargetId(), message.getContent(),
+                        message.getMediaUrl());
+                case CHANNEL_MESSAGE -> discordService.deliverChannelMessage(message.getTargetId(), message.getContent());
+                case ADD_ROLE -> discordService.deliverRoleChange(message.getTargetId(), message.getRoleId(), true)
+                        .thenApply(v -> null);
+                case REMOVE_ROLE -> discordService.deliverRoleChange(message.getTargetId(), message.getRoleId(), false)
+                        .thenApply(v -> null);
+            };
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.orTimeout(sendTimeoutSeconds, TimeUnit.SECONDS).whenComplete((discordMessageId, error) -> {
+            inFlight.remove(message.getId());
+            try {
+                if (error == null) {
+                    onDelivered(message, discordMessageId);
+                } else {
+                    onFailed(message, error);
+                }
+            } catch (Exception e) {
+                logger.error("Discord outbox: failed to record result of message {}: {}", message.getId(), e.getMessage());
+            }
+        });
+    }
+
+    private void onDelivered(DiscordOutboundMessage message, String discordMessageId) {
+        LocalDateTime now = LocalDateTime.now();
+        message.setStatus(DiscordOutboundStatus.SENT);
+        message.setAttempts(message.getAttempts() + 1);
+        message.setSentAt(now);
+        message.setLastError(null);
+        outboundRepository.save(message);
+
+        sentCount.incrementAndGet();
+        latencies.get(message.getPriority()).add(Duration.between(message.getCreatedAt(), now).toMillis());
+
+        if (message.getBotMessageId() != null && discordMessageId != null) {
+            botMessageRepository.findById(message.getBotMessageId()).ifPresent(botMessage -> {
+                botMessage.setDiscordMessageId(discordMessageId);
+                botMessageRepository.save(botMessage);
+                notifySender(botMessage, true, null);
+            });
+        }
+        logger.info("Discord {} delivered to {} (priority {})", message.getType(), message.getTargetId(),
+                message.getPriority());
+    }
+
+    private void onFailed(DiscordOutboundMessage message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+
+        if (isPermanent(cause) || attempts >= maxAttempts) {
+            message.setStatus(DiscordOutboundStatus.FAILED);
+            failedCount.incrementAndGet();
+            logger.warn("Discord {} to {} failed permanently after {} attempt(s): {}", message.getType(),
+                    message.getTargetId(), attempts, cause.getMessage());
+            if (message.getBotMessageId() != null) {
+                botMessageRepository.findById(message.getBotMessageId())
+                        .ifPresent(botMessage -> notifySender(botMessage, false, message.getLastError()));
+            }
+        } else {
+            long backoffMillis = Math.min(BASE_BACKOFF.toMillis() << (attempts - 1), MAX_BACKOFF.toMillis());
+            message.setStatus(DiscordOutboundStatus.PENDING);
+            message.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMillis)));
+            retriedCount.incrementAndGet();
+            logger.info("Discord {} to {} failed (attempt {}), retrying in {} ms: {}", message.getType(),
+                    message.getTargetId(), attempts, backoffMillis, cause.getMessage());
+        }
+        outboundRepository.save(message);
+    }
+
+    private void notifySender(BotMessage botMessage, boolean delivered, String error) {
+        if (botMessage.getSenderAdmin() != null) {
+            messengerEventPublisher.deliveryStatus(botMessage.getSenderAdmin().getUsername(),
+                    botMessage.getRecipientUser().getId(), botMessage.getId(), delivered, error);
+        }
+    }
+
+    /**
+     * Errors that will not go away by retrying: closed DMs, unknown user/role/channel, missing permissions.
+     */
+    private static boolean isPermanent(Throwable cause) {
+        if (cause instanceof ErrorResponseException ere) {
+            return switch (ere.getErrorResponse()) {
+                case CANNOT_SEND_TO_USER, UNKNOWN_USER, UNKNOWN_MEMBER, UNKNOWN_ROLE, UNKNOWN_CHANNEL,
+                     MISSING_PERMISSIONS, MISSING_ACCESS -> true;
+                default -> false;
+            };
+        }
+        return cause instanceof IllegalArgumentException;
+    }
+
+    /**
+     * Put a FAILED message back into the queue.
+     */
+    public void retry(Long id) {
+        DiscordOutboundMessage message = outboundRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Сообщение не найдено"));
+        if (message.getStatus() != DiscordOutboundStatus.FAILED) {
+            throw new IllegalArgumentException("Повторить можно только неотправленное сообщение");
+        }
+        message.setStatus(DiscordOutboundStatus.PENDING);
+        message.setAttempts(0);
+        message.setNextAttemptAt(LocalDateTime.now());
+        outboundRepository.save(message);
+    }
+
+    @Scheduled(cron = "0 30 4 * * *")
+    public void cleanupDelivered() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboundRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            logger.info("Discord outbox: removed {} delivered messages older than {} days", deleted, retentionDays);
+        }
+    }
+
+    /**
+     * Queue depth per status and priority, delivery latency and recent failures for the admin panel.
+     */
+    public Map<String, Object> getDashboard() {
+        Map<String, Map<String, Long>> depth = new LinkedHashMap<>();
+        for (DiscordOutboundStatus status : DiscordOutboundStatus.values()) {
+            Map<String, Long> byPriority = new LinkedHashMap<>();
+            for (DiscordOutboundPriority priority : DiscordOutboundPriority.values()) {
+                byPriority.put(priority.name(), 0L);
+            }
+            depth.put(status.name(), byPriority);
+        }
+        for (Object[] row : outboundRepository.countByStatusAndPriority()) {
+            depth.get(((DiscordOutboundStatus) row[0]).name())
+                    .put(((DiscordOutboundPriority) row[1]).name(), (Long) row[2]);
+        }
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latencies.forEach((priority, window) -> latency.put(priority.name(), window.snapshot()));
+
+        LocalDateTime oldestPending = outboundRepository.findOldestPendingCreatedAt();
+
+        List<Map<String, Object>> recentFailures = new ArrayList<>();
+        for (DiscordOutboundMessage failed : outboundRepository.findByStatusOrderByIdDesc(DiscordOutboundStatus.FAILED,
+                PageRequest.of(0, 20))) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", failed.getId());
+            item.put("type", failed.getType());
+            item.put("priority", failed.getPriority());
+            item.put("targetId", failed.getTargetId());
+            item.put("attempts", failed.getAttempts());
+            item.put("lastError", failed.getLastError());
+            item.put("createdAt", failed.getCreatedAt());
+            recentFailures.add(item);
+        }
+
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        dashboard.put("depth", depth);
+        dashboard.put("oldestPendingSeconds",
+                oldestPending != null ? Duration.between(oldestPending, LocalDateTime.now()).toSeconds() : null);
+        dashboard.put("latencyMillis", latency);
+        dashboard.put("sent", sentCount.get());
+        dashboard.put("retried", retriedCount.get());
+        dashboard.put("failed", failedCount.get());
+        dashboard.put("throttled", throttledCount.get());
+        dashboard.put("recentFailures", recentFailures);
+        return dashboard;
+    }
+
+    /**
+     * Ring buffer of the last N enqueue-to-delivery latencies.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void add(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("samples", count);
+            if (count == 0) {
+                return result;
+            }
+            long[] sorted = java.util.Arrays.copyOf(samples, count);
+            java.util.Arrays.sort(sorted);
+            long sum = 0;
+            for (long value : sorted) {
+                sum += value;
+            }
+            result.put("avg", sum / count);
+            result.put("p50", sorted[(count - 1) / 2]);
+            result.put("p95", sorted[(int) Math.ceil(count * 0.95) - 1]);
+            result.put("max", sorted[count - 1]);
+            return result;
+        }
+    }
+}
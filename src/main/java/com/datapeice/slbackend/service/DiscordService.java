@@ -1,5 +1,7 @@
 package com.datapeice.slbackend.service;
 
+import com.datapeice.slbackend.entity.DiscordOutboundPriority;
+import com.datapeice.slbackend.entity.DiscordOutboundType;
 import com.datapeice.slbackend.repository.UserRepository;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
@@ -7,24 +9,33 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.UserSnowflake;
+import net.dv8tion.jda.api.entities.channel.concrete.PrivateChannel;
 import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
 import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberUpdateEvent;
 import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateAvatarEvent;
 import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateBoostTimeEvent;
 import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateNicknameEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.events.user.update.UserUpdateAvatarEvent;
 import net.dv8tion.jda.api.events.user.update.UserUpdateGlobalNameEvent;
 import net.dv8tion.jda.api.events.user.update.UserUpdateNameEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
 import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -32,10 +43,17 @@ import java.net.http.HttpResponse;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @Service
 public class DiscordService {
@@ -57,37 +75,76 @@ public class DiscordService {
     @Value("${discord.bot.enabled:false}")
     private boolean botEnabled;
 
-    private JDA jda;
+    /**
+     * background - connect to the gateway on a separate thread, HTTP starts immediately;
+     * blocking - wait for the gateway and member chunking before the context finishes (old behaviour).
+     */
+    @Value("${discord.bot.startup-mode:background}")
+    private String startupMode;
+
+    public enum BotState {
+        DISABLED, CONNECTING, READY, FAILED
+    }
+
+    private volatile JDA jda;
+    private volatile BotState botState = BotState.DISABLED;
+    private volatile String lastStartupError;
+
+    // Startup timing, epoch millis. 0 = not reached yet
+    private volatile long botConnectStartedAt;
+    private volatile long botReadyAt;
+    private volatile long contextReadyAt;
+
+    // Sorted snowflakes of site users with a linked Discord account, the only members JDA keeps cached
+    private volatile long[] linkedDiscordIds = new long[0];
+
+    private static final int PRIVATE_CHANNEL_CACHE_SIZE = 500;
+
+    public enum DirectMessageAction {
+        EDIT, DELETE, REACT, UNREACT
+    }
+
+    /**
+     * One action on an already sent DM, see {@link #applyDirectMessageOperations(String, List)}.
+     */
+    public record DirectMessageOperation(DirectMessageAction action, String discordMessageId, String content,
+                                         String mediaUrl, String emoji) {
+    }
+
+    // Opened DM channels by user snowflake, LRU-bounded. Saves a REST call per message to the same player
+    private final Map<Long, PrivateChannel> privateChannels = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, PrivateChannel> eldest) {
+                    return size() > PRIVATE_CHANNEL_CACHE_SIZE;
+                }
+            });
 
     private final FileStorageService fileStorageService;
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
     private final RconService rconService;
     private final BotMessengerService botMessengerService;
+    private final DiscordMemberStore memberStore;
+    private final DiscordOutboxService outboxService;
+    private final DiscordTriggerService triggerService;
+    private final DiscordIdentityResolver identityResolver;
 
     public DiscordService(FileStorageService fileStorageService, UserRepository userRepository, AuditLogService auditLogService,
-                          RconService rconService, @org.springframework.context.annotation.Lazy BotMessengerService botMessengerService) {
+                          RconService rconService, @org.springframework.context.annotation.Lazy BotMessengerService botMessengerService,
+                          DiscordMemberStore memberStore, @org.springframework.context.annotation.Lazy DiscordOutboxService outboxService,
+                          DiscordTriggerService triggerService, DiscordIdentityResolver identityResolver) {
         this.fileStorageService = fileStorageService;
         this.userRepository = userRepository;
         this.auditLogService = auditLogService;
         this.rconService = rconService;
         this.botMessengerService = botMessengerService;
+        this.memberStore = memberStore;
+        this.outboxService = outboxService;
+        this.triggerService = triggerService;
+        this.identityResolver = identityResolver;
     }
 
-    private static final String MIMI_GIF_URL = "https://tenor.com/view/mimi-typh-heart-sit-mimi-the-dog-gif-13978401409055125823";
-    private static final String DATAPEICE_IMAGE_URL = "https://i.imgur.com/5hbmB3v.png";
-    private static final String ROXY_GIF_URL = "https://tenor.com/bvLHN.gif";
-    private static final String ANGRY_PING = "<:angryping:1121035024179933204>";
-    private static final String MILKY_GIF_URL = "https://tenor.com/view/%D7%9E%D7%99%D7%9C%D7%A7%D7%99-%D7%99%D7%A9%D7%A8%D7%90%D7%9C-%D7%A0%D7%92%D7%91-%D7%A2%D7%91%D7%A8%D7%99%D7%AA-negev-gif-8641426212027285266";
-
-    private static final Set<String> MILKY_KEYWORDS = Set.of(
-            "Биби", "Нетаньяху", "Сионизм", "Сионист", "ЦАХАЛ", "Моссад", "Газа", "Хамас", "Палестина", "Палантир",
-            "Оракл", "Апартеид", "Оккупация", "Хасбара", "Яхуд", "Интифада", "Накба", "Поселенцы", "Нимбус",
-            "Железный купол",
-            "Bibi", "Netanyahu", "Zionism", "Zionist", "IDF", "Mossad", "Gaza", "Hamas", "Palestine", "Palantir",
-            "Oracle", "Apartheid", "Occupation", "Hasbara", "Yahood", "Intifada", "Nakba", "Settlers", "Nimbus",
-            "Iron Dome", "Израил", "Israel", "шекел", "shekel");
-
     /**
      * JDA event listener that fires when a Discord user changes their username or
      * global name.
@@ -186,7 +243,9 @@ public class DiscordService {
             if (event.getAuthor().isBot())
                 return;
 
-            if (event.isFromType(net.dv8tion.jda.api.entities.channel.ChannelType.PRIVATE)) {
+            // Senders recently confirmed to match no site user are dropped before any DB work
+            if (event.isFromType(net.dv8tion.jda.api.entities.channel.ChannelType.PRIVATE)
+                    && !identityResolver.isKnownStranger(event.getAuthor().getId())) {
                 String discordUserId = event.getAuthor().getId();
                 String rawText = event.getMessage().getContentRaw();
                 String mediaUrl = null;
@@ -203,34 +262,9 @@ public class DiscordService {
                 }
             }
 
-            String content = event.getMessage().getContentDisplay().toLowerCase();
-            // mimi/мими пасхалка
-            if (content.contains("mimi") || content.contains("мими")) {
-                event.getMessage().reply(MIMI_GIF_URL).queue();
-                return;
-            }
-            String rawContent = event.getMessage().getContentRaw().toLowerCase();
-
-            // @datapeice пасхалка
-            if (rawContent.contains("<@861896140617809920>") || rawContent.contains("<@!861896140617809920>")) {
-                event.getMessage().reply(DATAPEICE_IMAGE_URL).queue();
-            }
-
-            // @lendspele_ пасхалка
-            if (rawContent.contains("<@881159130990129212>") || rawContent.contains("<@!881159130990129212>")) {
-                event.getMessage().reply(ANGRY_PING).queue();
-            }
-            // Roxy/Migurdia пасхалка
-            if (content.contains("рокси") || content.contains("migurdia") || content.contains("roxy")
-                    || content.contains("мигурдия")) {
-                event.getMessage().reply(ROXY_GIF_URL).queue();
-            }
-
-            for (String keyword : MILKY_KEYWORDS) {
-                if (content.contains(keyword.toLowerCase())) {
-                    event.getMessage().reply(MILKY_GIF_URL).queue();
-                    break;
-                }
+            // Keyword triggers: one pass over the raw text (mentions stay as <@id>)
+            for (String response : triggerService.evaluate(event.getMessage().getContentRaw(), event.getChannel().getIdLong())) {
+                event.getMessage().reply(response).queue();
             }
         }
     }
@@ -311,60 +345,244 @@ public class DiscordService {
         }
     }
 
+    /**
+     * Keeps {@link DiscordMemberStore} in sync with the guild. GuildMemberUpdateEvent fires for
+     * every member update, including members JDA does not keep in its own cache.
+     */
+    private class MemberStoreListener extends ListenerAdapter {
+        @Override
+        public void onGuildMemberJoin(GuildMemberJoinEvent event) {
+            if (event.getGuild().getId().equals(guildId)) {
+                storeMember(event.getMember());
+            }
+        }
+
+        @Override
+        public void onGuildMemberUpdate(GuildMemberUpdateEvent event) {
+            if (event.getGuild().getId().equals(guildId)) {
+                storeMember(event.getMember());
+            }
+        }
+
+        @Override
+        public void onGuildMemberRemove(GuildMemberRemoveEvent event) {
+            if (event.getGuild().getId().equals(guildId)) {
+                memberStore.remove(event.getUser().getIdLong());
+            }
+        }
+    }
+
+    private void storeMember(Member member) {
+        User user = member.getUser();
+        memberStore.put(user.getIdLong(), user.getName(), user.getGlobalName(), member.getNickname(),
+                member.getTimeBoosted() != null ? member.getTimeBoosted().toInstant().toEpochMilli() : 0L,
+                user.getAvatarId());
+    }
+
+    /**
+     * Fires once the gateway session is ready. In background mode this is the moment
+     * the bot becomes usable for the rest of the application.
+     */
+    private class ReadyListener extends ListenerAdapter {
+        @Override
+        public void onReady(ReadyEvent event) {
+            botReadyAt = System.currentTimeMillis();
+            botState = BotState.READY;
+            logger.info("Discord bot is ready. Guilds: {}", event.getJDA().getGuilds().size());
+            logStartupTiming();
+            try {
+                refreshLinkedDiscordIds();
+                // ReadyEvent can fire on the gateway thread before build() has returned and jda is assigned
+                loadMemberStore(event.getJDA());
+            } catch (Exception e) {
+                logger.error("Failed to start member download: {}", e.getMessage());
+            }
+        }
+    }
+
     @PostConstruct
     public void init() {
         if (!botEnabled || botToken.isBlank()) {
             logger.info("Discord bot is disabled or token not configured");
             return;
         }
+        botState = BotState.CONNECTING;
+        botConnectStartedAt = System.currentTimeMillis();
+
+        if ("blocking".equalsIgnoreCase(startupMode)) {
+            connect(true);
+            return;
+        }
+
+        // Token check and gateway login happen off the main thread so the HTTP server is not held back
+        Thread starter = new Thread(() -> connect(false), "discord-bot-startup");
+        starter.setDaemon(true);
+        starter.start();
+        logger.info("Discord bot is connecting in background, callers will degrade until it is ready");
+    }
+
+    private void connect(boolean awaitReady) {
         try {
-            jda = JDABuilder.createDefault(botToken)
+            JDA built = JDABuilder.createDefault(botToken)
                     .enableIntents(
                             GatewayIntent.GUILD_MEMBERS,
                             GatewayIntent.GUILD_MESSAGES,
                             GatewayIntent.DIRECT_MESSAGES,
                             GatewayIntent.MESSAGE_CONTENT)
-                    .setMemberCachePolicy(MemberCachePolicy.ALL)
-                    .setChunkingFilter(net.dv8tion.jda.api.utils.ChunkingFilter.ALL)
+                    // Full Member objects only for linked site users; everyone else lives in memberStore
+                    .setMemberCachePolicy(linkedMemberPolicy())
+                    .setChunkingFilter(ChunkingFilter.NONE)
+                    .addEventListeners(new ReadyListener())
+                    .addEventListeners(new MemberStoreListener())
                     .addEventListeners(new NicknameListener())
                     .addEventListeners(new MessageListener())
                     .addEventListeners(new MemberJoinListener())
                     .addEventListeners(new MemberLeaveListener())
                     .addEventListeners(new MemberBoostListener())
                     .build();
-            jda.awaitReady();
-            logger.info("Discord bot started successfully. Guilds: {}", jda.getGuilds().size());
-            syncAllBoostStatuses();
+            jda = built;
+            if (awaitReady) {
+                built.awaitReady();
+                logger.info("Discord bot started successfully. Guilds: {}", built.getGuilds().size());
+            }
         } catch (Exception e) {
             logger.error("Failed to start Discord bot: {}", e.getMessage());
+            lastStartupError = e.getMessage();
+            botState = BotState.FAILED;
             jda = null;
         }
     }
 
-    private void syncAllBoostStatuses() {
-        Guild guild = jda.getGuildById(guildId);
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        contextReadyAt = System.currentTimeMillis();
+        logStartupTiming();
+    }
+
+    /**
+     * Logs how long the Spring context took to come up and, separately, how long
+     * the Discord bot needed to become ready. Printed once both are known.
+     */
+    private synchronized void logStartupTiming() {
+        if (contextReadyAt == 0) {
+            return;
+        }
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long contextMillis = contextReadyAt - jvmStart;
+        if (botState == BotState.READY && botReadyAt != 0) {
+            logger.info("Startup timing: context ready in {} ms, Discord bot ready in {} ms (connect took {} ms, {} ms after context)",
+                    contextMillis, botReadyAt - jvmStart, botReadyAt - botConnectStartedAt, botReadyAt - contextReadyAt);
+        } else {
+            logger.info("Startup timing: context ready in {} ms, Discord bot state: {}", contextMillis, botState);
+        }
+    }
+
+    /**
+     * Bot readiness and startup timing for the admin panel.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", botState);
+        status.put("startupMode", startupMode);
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        status.put("contextReadyMillis", contextReadyAt == 0 ? null : contextReadyAt - jvmStart);
+        status.put("botReadyMillis", botReadyAt == 0 ? null : botReadyAt - jvmStart);
+        status.put("connectMillis", botReadyAt == 0 ? null : botReadyAt - botConnectStartedAt);
+        status.put("lastError", lastStartupError);
+        JDA current = jda;
+        if (current != null && botState == BotState.READY) {
+            status.put("guilds", current.getGuilds().size());
+            status.put("gatewayPing", current.getGatewayPing());
+        }
+        status.put("memberStoreLoaded", memberStore.isLoaded());
+        status.put("memberStoreSize", memberStore.size());
+        status.put("memberStoreBytes", memberStore.estimatedBytes());
+        status.put("linkedMembers", linkedDiscordIds.length);
+        return status;
+    }
+
+    public BotState getBotState() {
+        return botState;
+    }
+
+    private MemberCachePolicy linkedMemberPolicy() {
+        return member -> Arrays.binarySearch(linkedDiscordIds, member.getIdLong()) >= 0;
+    }
+
+    /**
+     * Reloads the set of Discord ids linked to site accounts. New links made through
+     * OAuth are added right away by {@link #rememberLinkedUser(String)}, this catches the rest.
+     */
+    @Scheduled(fixedDelay = 600000, initialDelay = 600000)
+    public void refreshLinkedDiscordIds() {
+        if (!botEnabled || botState != BotState.READY) {
+            return;
+        }
+        linkedDiscordIds = userRepository.findAllLinkedDiscordUserIds().stream()
+                .mapToLong(DiscordService::parseSnowflake)
+                .filter(id -> id != 0)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private void rememberLinkedUser(String discordUserId) {
+        identityResolver.forget(discordUserId);
+        long id = parseSnowflake(discordUserId);
+        long[] current = linkedDiscordIds;
+        if (id == 0 || Arrays.binarySearch(current, id) >= 0) {
+            return;
+        }
+        long[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = id;
+        Arrays.sort(updated);
+        linkedDiscordIds = updated;
+    }
+
+    private static long parseSnowflake(String id) {
+        if (id == null || id.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseUnsignedLong(id.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Streams the whole member list into memberStore. JDA hands every chunk to the callback and
+     * only caches the members allowed by linkedMemberPolicy.
+     */
+    private void loadMemberStore(JDA api) {
+        Guild guild = api.getGuildById(guildId);
         if (guild == null) return;
 
-        guild.loadMembers().onSuccess(members -> {
-            Set<String> boostingDiscordIds = members.stream()
-                    .filter(m -> m.getTimeBoosted() != null)
-                    .map(net.dv8tion.jda.api.entities.Member::getId)
-                    .collect(Collectors.toSet());
-
-            List<com.datapeice.slbackend.entity.User> allUsers = userRepository.findAll();
-            int updatedCount = 0;
-            for (com.datapeice.slbackend.entity.User user : allUsers) {
-                if (user.getDiscordUserId() != null) {
-                    boolean isBoosting = boostingDiscordIds.contains(user.getDiscordUserId());
-                    if (user.isBoosted() != isBoosting) {
-                        user.setBoosted(isBoosting);
-                        userRepository.save(user);
-                        updatedCount++;
-                    }
+        long started = System.currentTimeMillis();
+        guild.loadMembers(this::storeMember).onSuccess(v -> {
+            memberStore.markLoaded();
+            logger.info("Loaded {} guild members into compact store in {} ms (~{} KB)", memberStore.size(),
+                    System.currentTimeMillis() - started, memberStore.estimatedBytes() / 1024);
+            syncAllBoostStatuses();
+        }).onError(err -> logger.error("Failed to load guild members: {}", err.getMessage()));
+    }
+
+    private void syncAllBoostStatuses() {
+        Set<String> boostingDiscordIds = memberStore.getBoostingIds();
+
+        List<com.datapeice.slbackend.entity.User> allUsers = userRepository.findAll();
+        int updatedCount = 0;
+        for (com.datapeice.slbackend.entity.User user : allUsers) {
+            if (user.getDiscordUserId() != null) {
+                boolean isBoosting = boostingDiscordIds.contains(user.getDiscordUserId());
+                if (user.isBoosted() != isBoosting) {
+                    user.setBoosted(isBoosting);
+                    userRepository.save(user);
+                    updatedCount++;
                 }
             }
-            logger.info("Startup sync finished: found {} boosting members, updated {} user records", boostingDiscordIds.size(), updatedCount);
-        }).onError(err -> logger.error("Failed to load members for syncAllBoostStatuses: {}", err.getMessage()));
+        }
+        logger.info("Startup sync finished: found {} boosting members, updated {} user records", boostingDiscordIds.size(), updatedCount);
     }
 
     @PreDestroy
@@ -374,8 +592,20 @@ public class DiscordService {
         }
     }
 
+    /**
+     * True when the bot is configured and has not failed to start, even if it is still connecting.
+     * Used to decide whether queued Discord actions will ever be delivered.
+     */
+    public boolean isConfigured() {
+        return botEnabled && !botToken.isBlank() && botState != BotState.DISABLED && botState != BotState.FAILED;
+    }
+
+    /**
+     * True only once the gateway session is ready. While the bot is still connecting
+     * callers take their "bot disabled" branch instead of touching a half-started JDA.
+     */
     public boolean isEnabled() {
-        return botEnabled && jda != null;
+        return botEnabled && jda != null && botState == BotState.READY;
     }
 
     /**
@@ -393,22 +623,20 @@ public class DiscordService {
             return false;
         }
 
-        String searchName = discordNickname.toLowerCase().trim();
-        // Remove discriminator if present (old Discord format user#1234)
-        if (searchName.contains("#")) {
-            searchName = searchName.substring(0, searchName.indexOf("#"));
+        String searchName = normalizeSearchName(discordNickname);
+
+        if (memberStore.isLoaded()) {
+            boolean found = memberStore.findIdByName(searchName) != 0;
+            logger.info("Discord guild membership check for '{}': {} (total members: {})", discordNickname, found,
+                    memberStore.size());
+            return found;
         }
-        final String finalSearch = searchName;
 
         try {
-            // Force load ALL members from Discord API (not just cache)
-            List<Member> members = guild.loadMembers().get();
-            boolean found = members.stream().anyMatch(m -> m.getUser().getName().toLowerCase().equals(finalSearch) ||
-                    (m.getNickname() != null && m.getNickname().toLowerCase().equals(finalSearch)) ||
-                    (m.getUser().getGlobalName() != null
-                            && m.getUser().getGlobalName().toLowerCase().equals(finalSearch)));
-            logger.info("Discord guild membership check for '{}': {} (total members: {})", discordNickname, found,
-                    members.size());
+            // Member list not downloaded yet - ask Discord directly, matches are not cached
+            List<Member> members = guild.findMembers(m -> matchesName(m, searchName)).get();
+            boolean found = !members.isEmpty();
+            logger.info("Discord guild membership check for '{}': {} (member store not loaded yet)", discordNickname, found);
             return found;
         } catch (Exception e) {
             logger.error("Failed to load guild members: {}", e.getMessage());
@@ -417,6 +645,21 @@ public class DiscordService {
         }
     }
 
+    private static String normalizeSearchName(String discordNickname) {
+        String searchName = discordNickname.toLowerCase().trim();
+        // Remove discriminator if present (old Discord format user#1234)
+        if (searchName.contains("#")) {
+            searchName = searchName.substring(0, searchName.indexOf("#"));
+        }
+        return searchName;
+    }
+
+    private static boolean matchesName(Member m, String search) {
+        return m.getUser().getName().equalsIgnoreCase(search)
+                || (m.getNickname() != null && m.getNickname().equalsIgnoreCase(search))
+                || (m.getUser().getGlobalName() != null && m.getUser().getGlobalName().equalsIgnoreCase(search));
+    }
+
     /**
      * Check if a member is in the guild quickly using JDA cache or user ID.
      */
@@ -430,23 +673,13 @@ public class DiscordService {
         }
 
         if (discordUserId != null && !discordUserId.isBlank()) {
-            net.dv8tion.jda.api.entities.Member member = guild.getMemberById(discordUserId);
-            if (member != null)
+            long id = parseSnowflake(discordUserId);
+            if (memberStore.contains(id) || guild.getMemberById(id) != null)
                 return true;
         }
 
         if (discordNickname != null && !discordNickname.isBlank()) {
-            String searchName = discordNickname.toLowerCase().trim();
-            if (searchName.contains("#")) {
-                searchName = searchName.substring(0, searchName.indexOf("#"));
-            }
-            final String finalSearch = searchName;
-
-            return guild.getMemberCache().stream()
-                    .anyMatch(m -> m.getUser().getName().toLowerCase().equals(finalSearch) ||
-                            (m.getNickname() != null && m.getNickname().toLowerCase().equals(finalSearch)) ||
-                            (m.getUser().getGlobalName() != null
-                                    && m.getUser().getGlobalName().toLowerCase().equals(finalSearch)));
+            return memberStore.findIdByName(normalizeSearchName(discordNickname)) != 0;
         }
         return false;
     }
@@ -454,10 +687,15 @@ public class DiscordService {
     public boolean checkMemberRest(String discordUserId) {
         if (!isEnabled() || discordUserId == null || discordUserId.isBlank())
             return false;
+        // Called right after an account gets linked - let JDA cache this member from now on
+        rememberLinkedUser(discordUserId);
         try {
             Guild guild = jda.getGuildById(guildId);
             if (guild != null) {
                 net.dv8tion.jda.api.entities.Member member = guild.retrieveMemberById(discordUserId).complete();
+                if (member != null) {
+                    storeMember(member);
+                }
                 return member != null;
             }
         } catch (Exception e) {
@@ -473,10 +711,14 @@ public class DiscordService {
         if (!isEnabled() || discordUserId == null || discordUserId.isBlank()) {
             return false;
         }
+        long id = parseSnowflake(discordUserId);
+        if (memberStore.isLoaded()) {
+            return memberStore.isBoosting(id);
+        }
         try {
             Guild guild = jda.getGuildById(guildId);
             if (guild != null) {
-                net.dv8tion.jda.api.entities.Member member = guild.getMemberById(discordUserId);
+                net.dv8tion.jda.api.entities.Member member = guild.getMemberById(id);
                 if (member == null) {
                     member = guild.retrieveMemberById(discordUserId).complete();
                 }
@@ -500,19 +742,16 @@ public class DiscordService {
         if (guild == null)
             return Optional.empty();
 
-        String searchName = discordNickname.toLowerCase().trim();
-        if (searchName.contains("#")) {
-            searchName = searchName.substring(0, searchName.indexOf("#"));
+        String searchName = normalizeSearchName(discordNickname);
+
+        if (memberStore.isLoaded()) {
+            long id = memberStore.findIdByName(searchName);
+            return id != 0 ? Optional.of(Long.toUnsignedString(id)) : Optional.empty();
         }
-        final String finalSearch = searchName;
 
         try {
-            List<Member> members = guild.loadMembers().get();
+            List<Member> members = guild.findMembers(m -> matchesName(m, searchName)).get();
             return members.stream()
-                    .filter(m -> m.getUser().getName().toLowerCase().equals(finalSearch) ||
-                            (m.getNickname() != null && m.getNickname().toLowerCase().equals(finalSearch)) ||
-                            (m.getUser().getGlobalName() != null
-                                    && m.getUser().getGlobalName().toLowerCase().equals(finalSearch)))
                     .map(m -> m.getUser().getId())
                     .findFirst();
         } catch (Exception e) {
@@ -522,111 +761,223 @@ public class DiscordService {
     }
 
     /**
-     * Send a private DM to a Discord user by their user ID.
+     * Queue a private DM to a Discord user by their user ID.
      */
-    public void sendDirectMessage(String discordUserId, String message) {
-        if (!isEnabled() || discordUserId == null || discordUserId.isBlank())
+    public void sendDirectMessage(String discordUserId, String message, DiscordOutboundPriority priority) {
+        if (!isConfigured() || discordUserId == null || discordUserId.isBlank())
             return;
-        try {
-            jda.retrieveUserById(discordUserId).queue(user -> user.openPrivateChannel().queue(channel -> channel.sendMessage(message).queue(
-                    success -> logger.info("DM sent to Discord user: {}", discordUserId),
-                    error -> logger.error("Failed to send DM to {}: {}", discordUserId, error.getMessage()))), error -> logger.error("Failed to find Discord user {}: {}", discordUserId, error.getMessage()));
-        } catch (Exception e) {
-            logger.error("Error sending DM to {}: {}", discordUserId, e.getMessage());
+        outboxService.enqueue(DiscordOutboundType.DIRECT_MESSAGE, priority, discordUserId, null, message, null, null);
+    }
+
+    /**
+     * Queue a messenger DM. Once delivered, the Discord message ID is written back to the BotMessage.
+     */
+    public void queueMessengerMessage(String discordUserId, String messageContent, String mediaUrl, Long botMessageId) {
+        if (!isConfigured() || discordUserId == null || discordUserId.isBlank())
+            return;
+        outboxService.enqueue(DiscordOutboundType.DIRECT_MESSAGE, DiscordOutboundPriority.MESSENGER, discordUserId, null,
+                messageContent, mediaUrl, botMessageId);
+    }
+
+    /**
+     * Returns the DM channel for a user, opening it through REST only on a cache miss.
+     */
+    private CompletableFuture<PrivateChannel> openPrivateChannel(String discordUserId) {
+        long id = parseSnowflake(discordUserId);
+        if (id == 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid Discord user ID: " + discordUserId));
         }
+        PrivateChannel cached = privateChannels.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return jda.openPrivateChannelById(id).submit().thenApply(channel -> {
+            privateChannels.put(id, channel);
+            return channel;
+        });
     }
 
-    public void sendDirectMessageAndGetId(String discordUserId, String messageContent, String mediaUrl, java.util.function.Consumer<String> onMessageSent) {
-        if (!isEnabled() || discordUserId == null || discordUserId.isBlank())
+    /**
+     * Runs an action against the user's cached DM channel. If it fails, the cached handle is
+     * dropped so the next call reopens the channel instead of reusing a dead one.
+     */
+    private <T> CompletableFuture<T> withPrivateChannel(String discordUserId,
+                                                        Function<PrivateChannel, CompletableFuture<T>> action) {
+        return openPrivateChannel(discordUserId).thenCompose(action).whenComplete((result, error) -> {
+            if (error != null) {
+                invalidatePrivateChannel(discordUserId, error);
+            }
+        });
+    }
+
+    private void invalidatePrivateChannel(String discordUserId, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        // A missing message says nothing about the channel itself
+        if (cause instanceof net.dv8tion.jda.api.exceptions.ErrorResponseException ere
+                && ere.getErrorResponse() == net.dv8tion.jda.api.requests.ErrorResponse.UNKNOWN_MESSAGE) {
             return;
-        try {
-            jda.retrieveUserById(discordUserId).queue(user -> user.openPrivateChannel().queue(channel -> {
-                net.dv8tion.jda.api.utils.messages.MessageCreateBuilder builder = new net.dv8tion.jda.api.utils.messages.MessageCreateBuilder();
-                if (messageContent != null && !messageContent.isBlank()) {
-                    builder.setContent(messageContent);
-                }
-                if (mediaUrl != null && !mediaUrl.isBlank()) {
-                    try {
-                        java.net.URL url = new java.net.URL(mediaUrl);
-                        java.io.InputStream in = url.openStream();
-                        String filename = mediaUrl.contains("/") ? mediaUrl.substring(mediaUrl.lastIndexOf("/") + 1) : "attachment.png";
-                        if (filename.contains("?")) filename = filename.substring(0, filename.indexOf("?"));
-                        builder.addFiles(net.dv8tion.jda.api.utils.FileUpload.fromData(in, filename));
-                    } catch (Exception e) {
-                        logger.error("Failed to stream media for Discord attachment, falling back to text URL: {}", e.getMessage());
-                        if (builder.getContent() == null || builder.getContent().isBlank()) {
-                            builder.setContent(mediaUrl);
-                        } else {
-                            builder.setContent(builder.getContent() + "\n" + mediaUrl);
-                        }
+        }
+        privateChannels.remove(parseSnowflake(discordUserId));
+    }
+
+    /**
+     * Delivery step used by the outbox dispatcher. Completes with the Discord message ID.
+     */
+    public CompletableFuture<String> deliverDirectMessage(String discordUserId, String messageContent, String mediaUrl) {
+        if (!isEnabled()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Discord bot is not ready"));
+        }
+        return withPrivateChannel(discordUserId, channel -> {
+            net.dv8tion.jda.api.utils.messages.MessageCreateBuilder builder = new net.dv8tion.jda.api.utils.messages.MessageCreateBuilder();
+            if (messageContent != null && !messageContent.isBlank()) {
+                builder.setContent(messageContent);
+            }
+            if (mediaUrl != null && !mediaUrl.isBlank()) {
+                try {
+                    java.net.URL url = new java.net.URL(mediaUrl);
+                    java.io.InputStream in = url.openStream();
+                    String filename = mediaUrl.contains("/") ? mediaUrl.substring(mediaUrl.lastIndexOf("/") + 1) : "attachment.png";
+                    if (filename.contains("?")) filename = filename.substring(0, filename.indexOf("?"));
+                    builder.addFiles(net.dv8tion.jda.api.utils.FileUpload.fromData(in, filename));
+                } catch (Exception e) {
+                    logger.error("Failed to stream media for Discord attachment, falling back to text URL: {}", e.getMessage());
+                    if (builder.getContent() == null || builder.getContent().isBlank()) {
+                        builder.setContent(mediaUrl);
+                    } else {
+                        builder.setContent(builder.getContent() + "\n" + mediaUrl);
                     }
                 }
-                if (builder.isEmpty()) {
-                    return;
-                }
-                channel.sendMessage(builder.build()).queue(
-                    success -> {
-                        logger.info("Bot DM sent to user: {}", discordUserId);
-                        if (onMessageSent != null) {
-                            onMessageSent.accept(success.getId());
-                        }
-                    },
-                    error -> logger.error("Failed to send Bot DM to {}: {}", discordUserId, error.getMessage())
-                );
-            }), error -> logger.error("Failed to find Discord user {}: {}", discordUserId, error.getMessage()));
-        } catch (Exception e) {
-            logger.error("Error in sendDirectMessageAndGetId to {}: {}", discordUserId, e.getMessage());
+            }
+            if (builder.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return channel.sendMessage(builder.build()).submit()
+                    .thenApply(net.dv8tion.jda.api.entities.Message::getId);
+        });
+    }
+
+    /**
+     * Delivery step used by the outbox dispatcher.
+     */
+    public CompletableFuture<String> deliverChannelMessage(String channelId, String messageContent) {
+        if (!isEnabled()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Discord bot is not ready"));
+        }
+        net.dv8tion.jda.api.entities.channel.concrete.TextChannel channel = jda.getTextChannelById(channelId);
+        if (channel == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Text channel not found: " + channelId));
+        }
+        return channel.sendMessage(messageContent).submit().thenApply(net.dv8tion.jda.api.entities.Message::getId);
+    }
+
+    /**
+     * Delivery step used by the outbox dispatcher. Works by snowflake, so the member does not
+     * have to be cached or fetched first.
+     */
+    public CompletableFuture<Void> deliverRoleChange(String discordUserId, String roleId, boolean add) {
+        if (!isEnabled()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Discord bot is not ready"));
+        }
+        Guild guild = jda.getGuildById(guildId);
+        if (guild == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Guild not found: " + guildId));
+        }
+        Role role = guild.getRoleById(roleId);
+        if (role == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Role not found: " + roleId));
         }
+        UserSnowflake member = UserSnowflake.fromId(discordUserId);
+        return add ? guild.addRoleToMember(member, role).submit() : guild.removeRoleFromMember(member, role).submit();
     }
 
     public void addReactionToDirectMessage(String discordUserId, String discordMessageId, String emoji) {
         if (!isEnabled() || discordUserId == null || discordUserId.isBlank() || discordMessageId == null || discordMessageId.isBlank())
             return;
-        try {
-            jda.retrieveUserById(discordUserId).queue(user -> user.openPrivateChannel().queue(channel -> {
-                channel.addReactionById(discordMessageId, net.dv8tion.jda.api.entities.emoji.Emoji.fromUnicode(emoji)).queue(
-                    success -> logger.info("Added reaction {} to DM {}", emoji, discordMessageId),
-                    error -> logger.error("Failed to add reaction to DM {}: {}", discordMessageId, error.getMessage())
-                );
-            }), error -> logger.error("Failed to find user for adding reaction: {}", error.getMessage()));
-        } catch (Exception e) {
-            logger.error("Error adding reaction to DM {}: {}", discordMessageId, e.getMessage());
-        }
+        withPrivateChannel(discordUserId, channel -> channel.addReactionById(discordMessageId,
+                net.dv8tion.jda.api.entities.emoji.Emoji.fromUnicode(emoji)).submit())
+                .whenComplete((success, error) -> {
+                    if (error == null) {
+                        logger.info("Added reaction {} to DM {}", emoji, discordMessageId);
+                    } else {
+                        logger.error("Failed to add reaction to DM {}: {}", discordMessageId, error.getMessage());
+                    }
+                });
     }
 
     public void editDirectMessage(String discordUserId, String discordMessageId, String newContent, String mediaUrl) {
         if (!isEnabled() || discordUserId == null || discordUserId.isBlank() || discordMessageId == null || discordMessageId.isBlank())
             return;
-        try {
-            String fullContent = newContent != null ? newContent : "";
-            if (mediaUrl != null && !mediaUrl.isBlank()) {
-                if (!fullContent.isBlank()) {
-                    fullContent += "\n" + mediaUrl;
-                } else {
-                    fullContent = mediaUrl;
-                }
-            }
-            final String finalContent = fullContent;
-            jda.retrieveUserById(discordUserId).queue(user -> user.openPrivateChannel().queue(channel -> channel.editMessageById(discordMessageId, finalContent).queue(
-                    success -> logger.info("Bot DM edited: {}", discordMessageId),
-                    error -> logger.error("Failed to edit Bot DM {}: {}", discordMessageId, error.getMessage())
-            )), error -> logger.error("Failed to find user for editing DM: {}", error.getMessage()));
-        } catch (Exception e) {
-            logger.error("Error editing DM {}: {}", discordMessageId, e.getMessage());
-        }
+        String finalContent = composeEditedContent(newContent, mediaUrl);
+        withPrivateChannel(discordUserId, channel -> channel.editMessageById(discordMessageId, finalContent).submit())
+                .whenComplete((success, error) -> {
+                    if (error == null) {
+                        logger.info("Bot DM edited: {}", discordMessageId);
+                    } else {
+                        logger.error("Failed to edit Bot DM {}: {}", discordMessageId, error.getMessage());
+                    }
+                });
     }
 
     public void deleteDirectMessage(String discordUserId, String discordMessageId) {
         if (!isEnabled() || discordUserId == null || discordUserId.isBlank() || discordMessageId == null || discordMessageId.isBlank())
             return;
-        try {
-            jda.retrieveUserById(discordUserId).queue(user -> user.openPrivateChannel().queue(channel -> channel.deleteMessageById(discordMessageId).queue(
-                    success -> logger.info("Bot DM deleted: {}", discordMessageId),
-                    error -> logger.error("Failed to delete Bot DM {}: {}", discordMessageId, error.getMessage())
-            )), error -> logger.error("Failed to find user for deleting DM: {}", error.getMessage()));
-        } catch (Exception e) {
-            logger.error("Error deleting DM {}: {}", discordMessageId, e.getMessage());
+        withPrivateChannel(discordUserId, channel -> channel.deleteMessageById(discordMessageId).submit())
+                .whenComplete((success, error) -> {
+                    if (error == null) {
+                        logger.info("Bot DM deleted: {}", discordMessageId);
+                    } else {
+                        logger.error("Failed to delete Bot DM {}: {}", discordMessageId, error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Applies several edits, deletions and reactions to one player's DMs using a single channel
+     * handle. A failed operation is logged and does not stop the others.
+     */
+    public CompletableFuture<Void> applyDirectMessageOperations(String discordUserId, List<DirectMessageOperation> operations) {
+        if (!isEnabled() || discordUserId == null || discordUserId.isBlank() || operations.isEmpty())
+            return CompletableFuture.completedFuture(null);
+        return openPrivateChannel(discordUserId).thenCompose(channel -> {
+            List<CompletableFuture<?>> pending = new ArrayList<>();
+            for (DirectMessageOperation op : operations) {
+                if (op.discordMessageId() == null || op.discordMessageId().isBlank()) {
+                    continue;
+                }
+                CompletableFuture<?> future = switch (op.action()) {
+                    case EDIT -> channel.editMessageById(op.discordMessageId(),
+                            composeEditedContent(op.content(), op.mediaUrl())).submit();
+                    case DELETE -> channel.deleteMessageById(op.discordMessageId()).submit();
+                    case REACT -> channel.addReactionById(op.discordMessageId(),
+                            net.dv8tion.jda.api.entities.emoji.Emoji.fromUnicode(op.emoji())).submit();
+                    case UNREACT -> channel.removeReactionById(op.discordMessageId(),
+                            net.dv8tion.jda.api.entities.emoji.Emoji.fromUnicode(op.emoji())).submit();
+                };
+                pending.add(future.exceptionally(error -> {
+                    logger.error("Failed to apply {} to DM {}: {}", op.action(), op.discordMessageId(), error.getMessage());
+                    invalidatePrivateChannel(discordUserId, error);
+                    return null;
+                }));
+            }
+            return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+        }).whenComplete((success, error) -> {
+            if (error != null) {
+                logger.error("Failed to open DM channel for batch to {}: {}", discordUserId, error.getMessage());
+                invalidatePrivateChannel(discordUserId, error);
+            }
+        });
+    }
+
+    private static String composeEditedContent(String newContent, String mediaUrl) {
+        String fullContent = newContent != null ? newContent : "";
+        if (mediaUrl != null && !mediaUrl.isBlank()) {
+            if (!fullContent.isBlank()) {
+                fullContent += "\n" + mediaUrl;
+            } else {
+                fullContent = mediaUrl;
+            }
         }
+        return fullContent;
     }
 
     /**
@@ -635,18 +986,15 @@ public class DiscordService {
      * ADMIN/MODERATOR roles.
      */
     public void notifyAdminsAboutNewApplication(String applicantUsername) {
-        if (!isEnabled())
+        if (!isConfigured())
             return;
         String message = "📢 **Новая заявка!**\nПользователь **" + applicantUsername
                 + "** подал заявку на вступление. Зайдите в Админ Панель для рассмотрения.";
 
         if (applicationsChannelId != null && !applicationsChannelId.isBlank()) {
-            net.dv8tion.jda.api.entities.channel.concrete.TextChannel channel = jda
-                    .getTextChannelById(applicationsChannelId);
-            if (channel != null) {
-                channel.sendMessage(message).queue();
-                return;
-            }
+            outboxService.enqueue(DiscordOutboundType.CHANNEL_MESSAGE, DiscordOutboundPriority.APPLICATION,
+                    applicationsChannelId, null, message, null, null);
+            return;
         }
 
         // Fallback: send DM to all admins/mods
@@ -655,81 +1003,43 @@ public class DiscordService {
                         || u.getRole() == com.datapeice.slbackend.entity.UserRole.ROLE_MODERATOR)
                 .map(com.datapeice.slbackend.entity.User::getDiscordUserId)
                 .filter(id -> id != null && !id.isBlank())
-                .forEach(id -> sendDirectMessage(id, message));
+                .forEach(id -> sendDirectMessage(id, message, DiscordOutboundPriority.APPLICATION));
     }
 
     /**
-     * Assign the @SL role to a Discord user by their user ID.
+     * Queue assigning the @SL role to a Discord user by their user ID.
      */
-    public void assignSlRole(String discordUserId) {
-        if (!isEnabled() || discordUserId == null || discordUserId.isBlank() || slRoleId.isBlank())
-            return;
-        Guild guild = jda.getGuildById(guildId);
-        if (guild == null)
+    public void assignSlRole(String discordUserId, DiscordOutboundPriority priority) {
+        if (slRoleId.isBlank())
             return;
-        Role role = guild.getRoleById(slRoleId);
-        if (role == null) {
-            logger.error("SL role not found: {}", slRoleId);
-            return;
-        }
-        guild.retrieveMemberById(discordUserId).queue(member -> guild.addRoleToMember(member, role).queue(
-                success -> logger.info("SL role assigned to {}", discordUserId),
-                error -> logger.error("Failed to assign SL role to {}: {}", discordUserId, error.getMessage())), error -> logger.error("Member not found: {}", discordUserId));
+        assignRole(discordUserId, slRoleId, priority);
     }
 
     /**
-     * Remove the @SL role from a Discord user.
+     * Queue removing the @SL role from a Discord user.
      */
-    public void removeSlRole(String discordUserId) {
-        if (!isEnabled() || discordUserId == null || discordUserId.isBlank() || slRoleId.isBlank())
+    public void removeSlRole(String discordUserId, DiscordOutboundPriority priority) {
+        if (slRoleId.isBlank())
             return;
-        Guild guild = jda.getGuildById(guildId);
-        if (guild == null)
-            return;
-        Role role = guild.getRoleById(slRoleId);
-        if (role == null)
-            return;
-        guild.retrieveMemberById(discordUserId).queue(member -> guild.removeRoleFromMember(member, role).queue(
-                success -> logger.info("SL role removed from {}", discordUserId),
-                error -> logger.error("Failed to remove SL role from {}: {}", discordUserId, error.getMessage())), error -> logger.warn("Member not found for role removal: {}", discordUserId));
+        removeRole(discordUserId, slRoleId, priority);
     }
 
     /**
-     * Assign a specific Discord role to a user (for badge sync).
+     * Queue assigning a specific Discord role to a user (for badge sync).
      */
-    public void assignRole(String discordUserId, String roleId) {
-        if (!isEnabled() || discordUserId == null || roleId == null || roleId.isBlank())
-            return;
-        Guild guild = jda.getGuildById(guildId);
-        if (guild == null)
+    public void assignRole(String discordUserId, String roleId, DiscordOutboundPriority priority) {
+        if (!isConfigured() || discordUserId == null || discordUserId.isBlank() || roleId == null || roleId.isBlank())
             return;
-        Role role = guild.getRoleById(roleId);
-        if (role == null) {
-            logger.error("Role not found: {}", roleId);
-            return;
-        }
-        guild.retrieveMemberById(discordUserId).queue(member -> guild.addRoleToMember(member, role).queue(
-                success -> logger.info("Role {} assigned to {}", roleId, discordUserId),
-                error -> logger.error("Failed to assign role {} to {}: {}", roleId, discordUserId,
-                        error.getMessage())), error -> logger.warn("Member not found: {}", discordUserId));
+        outboxService.enqueue(DiscordOutboundType.ADD_ROLE, priority, discordUserId, roleId, null, null, null);
     }
 
     /**
-     * Remove a specific Discord role from a user (for badge sync).
+     * Queue removing a specific Discord role from a user (for badge sync).
      */
-    public void removeRole(String discordUserId, String roleId) {
-        if (!isEnabled() || discordUserId == null || roleId == null || roleId.isBlank())
-            return;
-        Guild guild = jda.getGuildById(guildId);
-        if (guild == null)
-            return;
-        Role role = guild.getRoleById(roleId);
-        if (role == null)
+    public void removeRole(String discordUserId, String roleId, DiscordOutboundPriority priority) {
+        if (!isConfigured() || discordUserId == null || discordUserId.isBlank() || roleId == null || roleId.isBlank())
             return;
-        guild.retrieveMemberById(discordUserId).queue(member -> guild.removeRoleFromMember(member, role).queue(
-                success -> logger.info("Role {} removed from {}", roleId, discordUserId),
-                error -> logger.error("Failed to remove role {} from {}: {}", roleId, discordUserId,
-                        error.getMessage())), error -> logger.warn("Member not found: {}", discordUserId));
+        outboxService.enqueue(DiscordOutboundType.REMOVE_ROLE, priority, discordUserId, roleId, null, null, null);
     }
 
     /**
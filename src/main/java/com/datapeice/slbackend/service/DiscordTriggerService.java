@@ -0,0 +1,348 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.dto.DiscordTriggerDto;
+import com.datapeice.slbackend.dto.DiscordTriggerRequest;
+import com.datapeice.slbackend.entity.DiscordTrigger;
+import com.datapeice.slbackend.repository.DiscordTriggerRepository;
+import com.datapeice.slbackend.util.KeywordAutomaton;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keyword triggers for the bot's message listener.
+ * <p>
+ * All keywords of all enabled triggers are compiled into one {@link KeywordAutomaton}, so a
+ * message is scanned once regardless of the number of triggers. The compiled table is immutable
+ * and swapped in whole after every admin change. Other instances pick up changes through a
+ * periodic fingerprint check, like the banned-word list.
+ */
+@Service
+@Slf4j
+public class DiscordTriggerService {
+
+    private static final String DUPLICATE_NAME = "Триггер с таким именем уже существует";
+
+    private final DiscordTriggerRepository repository;
+    private final AuditLogService auditLogService;
+
+    private volatile CompiledTriggers compiled = CompiledTriggers.EMPTY;
+    private volatile String lastFingerprint;
+
+    // "triggerId:channelId" -> last reply time, epoch millis
+    private final Map<String, Long> lastFired = new ConcurrentHashMap<>();
+
+    public DiscordTriggerService(DiscordTriggerRepository repository, AuditLogService auditLogService) {
+        this.repository = repository;
+        this.auditLogService = auditLogService;
+    }
+
+    private record TriggerRule(long id, String response, long[] channelIds, long cooldownMillis, boolean exclusive) {
+        boolean appliesTo(long channelId) {
+            return channelIds.length == 0 || Arrays.binarySearch(channelIds, channelId) >= 0;
+        }
+    }
+
+    private record CompiledTriggers(KeywordAutomaton automaton, int[] keywordToRule, List<TriggerRule> rules) {
+        static final CompiledTriggers EMPTY = new CompiledTriggers(new KeywordAutomaton(List.of()), new int[0], List.of());
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            if (repository.count() == 0) {
+                seedDefaults();
+            }
+            reload();
+        } catch (Exception e) {
+            log.error("[Triggers] Failed to load Discord triggers: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The easter eggs that used to be hard-coded in DiscordService.MessageListener.
+     */
+    private void seedDefaults() {
+        seed("mimi", List.of("mimi", "мими"),
+                "https://tenor.com/view/mimi-typh-heart-sit-mimi-the-dog-gif-13978401409055125823", true, 0);
+        seed("datapeice", List.of("<@861896140617809920>", "<@!861896140617809920>"),
+                "https://i.imgur.com/5hbmB3v.png", false, 10);
+        seed("lendspele", List.of("<@881159130990129212>", "<@!881159130990129212>"),
+                "<:angryping:1121035024179933204>", false, 20);
+        seed("roxy", List.of("рокси", "migurdia", "roxy", "мигурдия"),
+                "https://tenor.com/bvLHN.gif", false, 30);
+        seed("milky", List.of(
+                        "Биби", "Нетаньяху", "Сионизм", "Сионист", "ЦАХАЛ", "Моссад", "Газа", "Хамас", "Палестина", "Палантир",
+                        "Оракл", "Апартеид", "Оккупация", "Хасбара", "Яхуд", "Интифада", "Накба", "Поселенцы", "Нимбус",
+                        "Железный купол",
+                        "Bibi", "Netanyahu", "Zionism", "Zionist", "IDF", "Mossad", "Gaza", "Hamas", "Palestine", "Palantir",
+                        "Oracle", "Apartheid", "Occupation", "Hasbara", "Yahood", "Intifada", "Nakba", "Settlers", "Nimbus",
+                        "Iron Dome", "Израил", "Israel", "шекел", "shekel"),
+                "https://tenor.com/view/%D7%9E%D7%99%D7%9C%D7%A7%D7%99-%D7%99%D7%A9%D7%A8%D7%90%D7%9C-%D7%A0%D7%92%D7%91-%D7%A2%D7%91%D7%A8%D7%99%D7%AA-negev-gif-8641426212027285266",
+                false, 40);
+        log.info("[Triggers] Seeded default Discord triggers");
+    }
+
+    private void seed(String name, List<String> keywords, String response, boolean exclusive, int sortOrder) {
+        DiscordTrigger trigger = new DiscordTrigger();
+        trigger.setName(name);
+        trigger.setKeywords(String.join("\n", keywords));
+        trigger.setResponse(response);
+        trigger.setExclusive(exclusive);
+        trigger.setSortOrder(sortOrder);
+        trigger.setUpdatedBy("system");
+        repository.save(trigger);
+    }
+
+    /**
+     * Rebuilds the automaton from the database and swaps it in.
+     */
+    public synchronized void reload() {
+        // Taken before reading the rows: an edit in between makes the next check reload again
+        String fingerprint = fingerprint();
+        List<TriggerRule> rules = new ArrayList<>();
+        List<String> keywords = new ArrayList<>();
+        List<Integer> keywordOwners = new ArrayList<>();
+
+        for (DiscordTrigger trigger : repository.findAllByOrderBySortOrderAscIdAsc()) {
+            if (!trigger.isEnabled()) {
+                continue;
+            }
+            long[] channelIds;
+            try {
+                channelIds = parseChannelIds(trigger.getChannelIds());
+            } catch (NumberFormatException e) {
+                // One bad row (e.g. edited by hand) must not take every other trigger down with it
+                log.error("[Triggers] Skipping trigger '{}': invalid channel IDs '{}'", trigger.getName(),
+                        trigger.getChannelIds());
+                continue;
+            }
+            int ruleIndex = rules.size();
+            rules.add(new TriggerRule(trigger.getId(), trigger.getResponse(), channelIds,
+                    trigger.getCooldownSeconds() * 1000L, trigger.isExclusive()));
+            for (String keyword : splitKeywords(trigger.getKeywords())) {
+                keywords.add(keyword);
+                keywordOwners.add(ruleIndex);
+            }
+        }
+
+        compiled = new CompiledTriggers(new KeywordAutomaton(keywords),
+                keywordOwners.stream().mapToInt(Integer::intValue).toArray(),
+                Collections.unmodifiableList(rules));
+        lastFingerprint = fingerprint;
+        log.info("[Triggers] Compiled {} triggers ({} keywords) into automaton", rules.size(), keywords.size());
+    }
+
+    private String fingerprint() {
+        DiscordTriggerRepository.Fingerprint fp = repository.fingerprint();
+        return fp.getTriggerCount() + ":" + fp.getMaxId() + ":" + fp.getLastUpdated();
+    }
+
+    /**
+     * Picks up trigger changes made through another instance.
+     */
+    @Scheduled(fixedDelayString = "${discord.triggers.refresh-ms:60000}", initialDelayString = "${discord.triggers.refresh-ms:60000}")
+    public void refreshIfChanged() {
+        try {
+            if (!fingerprint().equals(lastFingerprint)) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("[Triggers] Change check failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Responses to send for a message, in trigger order. One automaton pass over the text.
+     */
+    public List<String> evaluate(String rawContent, long channelId) {
+        CompiledTriggers current = compiled;
+        if (current.rules().isEmpty() || rawContent == null || rawContent.isEmpty()) {
+            return List.of();
+        }
+
+        BitSet matchedKeywords = current.automaton().findAll(rawContent);
+        if (matchedKeywords.isEmpty()) {
+            return List.of();
+        }
+        BitSet matchedRules = new BitSet(current.rules().size());
+        for (int k = matchedKeywords.nextSetBit(0); k >= 0; k = matchedKeywords.nextSetBit(k + 1)) {
+            matchedRules.set(current.keywordToRule()[k]);
+        }
+
+        List<TriggerRule> candidates = new ArrayList<>();
+        for (int r = matchedRules.nextSetBit(0); r >= 0; r = matchedRules.nextSetBit(r + 1)) {
+            TriggerRule rule = current.rules().get(r);
+            if (rule.appliesTo(channelId)) {
+                candidates.add(rule);
+            }
+        }
+
+        // Exclusive rules are settled first, so a winning one never burns the cooldowns of the rules it suppresses
+        long now = System.currentTimeMillis();
+        for (TriggerRule rule : candidates) {
+            if (rule.exclusive() && acquireCooldown(rule, channelId, now)) {
+                return List.of(rule.response());
+            }
+        }
+        List<String> responses = new ArrayList<>();
+        for (TriggerRule rule : candidates) {
+            if (!rule.exclusive() && acquireCooldown(rule, channelId, now)) {
+                responses.add(rule.response());
+            }
+        }
+        return responses;
+    }
+
+    private boolean acquireCooldown(TriggerRule rule, long channelId, long now) {
+        if (rule.cooldownMillis() <= 0) {
+            return true;
+        }
+        String key = rule.id() + ":" + channelId;
+        boolean[] acquired = {false};
+        lastFired.compute(key, (k, last) -> {
+            if (last == null || now - last >= rule.cooldownMillis()) {
+                acquired[0] = true;
+                return now;
+            }
+            return last;
+        });
+        return acquired[0];
+    }
+
+    public List<DiscordTriggerDto> getAll() {
+        return repository.findAllByOrderBySortOrderAscIdAsc().stream().map(this::toDto).toList();
+    }
+
+    public DiscordTriggerDto create(DiscordTriggerRequest request, Long adminId, String adminName) {
+        if (repository.existsByNameIgnoreCase(request.getName().trim())) {
+            throw new IllegalArgumentException(DUPLICATE_NAME);
+        }
+        DiscordTrigger trigger = new DiscordTrigger();
+        apply(trigger, request, adminName);
+        DiscordTrigger saved = saveUnique(trigger);
+        reload();
+        auditLogService.logAction(adminId, adminName, "ADMIN_CREATE_DISCORD_TRIGGER",
+                "Создал триггер бота: " + saved.getName(), null, null);
+        log.info("[Triggers] {} created trigger '{}'", adminName, saved.getName());
+        return toDto(saved);
+    }
+
+    public DiscordTriggerDto update(Long id, DiscordTriggerRequest request, Long adminId, String adminName) {
+        DiscordTrigger trigger = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Триггер не найден"));
+        if (repository.existsByNameIgnoreCaseAndIdNot(request.getName().trim(), id)) {
+            throw new IllegalArgumentException(DUPLICATE_NAME);
+        }
+        String oldName = trigger.getName();
+        apply(trigger, request, adminName);
+        trigger.setUpdatedAt(LocalDateTime.now());
+        DiscordTrigger saved = saveUnique(trigger);
+        reload();
+        auditLogService.logAction(adminId, adminName, "ADMIN_UPDATE_DISCORD_TRIGGER",
+                oldName.equals(saved.getName()) ? "Изменил триггер бота: " + oldName
+                        : "Изменил триггер бота: " + oldName + " -> " + saved.getName(), null, null);
+        log.info("[Triggers] {} updated trigger '{}'", adminName, saved.getName());
+        return toDto(saved);
+    }
+
+    public void delete(Long id, Long adminId, String adminName) {
+        DiscordTrigger trigger = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Триггер не найден"));
+        repository.delete(trigger);
+        reload();
+        auditLogService.logAction(adminId, adminName, "ADMIN_DELETE_DISCORD_TRIGGER",
+                "Удалил триггер бота: " + trigger.getName(), null, null);
+        log.info("[Triggers] {} deleted trigger '{}'", adminName, trigger.getName());
+    }
+
+    // The name check can't see a concurrent save of the same name; the unique index can
+    private DiscordTrigger saveUnique(DiscordTrigger trigger) {
+        try {
+            return repository.saveAndFlush(trigger);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException(DUPLICATE_NAME);
+        }
+    }
+
+    private void apply(DiscordTrigger trigger, DiscordTriggerRequest request, String adminUsername) {
+        List<String> keywords = request.getKeywords().stream()
+                .map(String::trim)
+                .filter(k -> !k.isEmpty())
+                .toList();
+        if (keywords.isEmpty()) {
+            throw new IllegalArgumentException("Нужно указать хотя бы одно ключевое слово");
+        }
+        List<String> channelIds = request.getChannelIds() == null ? List.of() : request.getChannelIds().stream()
+                .map(String::trim)
+                .filter(c -> !c.isEmpty())
+                .toList();
+        for (String channelId : channelIds) {
+            // Same parse as reload(), so anything accepted here also compiles
+            try {
+                Long.parseLong(channelId);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Неверный ID канала: " + channelId);
+            }
+        }
+        trigger.setName(request.getName().trim());
+        trigger.setKeywords(String.join("\n", keywords));
+        trigger.setResponse(request.getResponse());
+        trigger.setChannelIds(channelIds.isEmpty() ? null : String.join(",", channelIds));
+        trigger.setCooldownSeconds(request.getCooldownSeconds());
+        trigger.setExclusive(request.isExclusive());
+        trigger.setEnabled(request.isEnabled());
+        trigger.setSortOrder(request.getSortOrder());
+        trigger.setUpdatedBy(adminUsername);
+    }
+
+    private static List<String> splitKeywords(String keywords) {
+        if (keywords == null || keywords.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(keywords.split("\n"))
+                .map(String::trim)
+                .filter(k -> !k.isEmpty())
+                .toList();
+    }
+
+    private static long[] parseChannelIds(String channelIds) {
+        if (channelIds == null || channelIds.isBlank()) {
+            return new long[0];
+        }
+        return Arrays.stream(channelIds.split(","))
+                .map(String::trim)
+                .filter(c -> !c.isEmpty())
+                .mapToLong(Long::parseLong)
+                .sorted()
+                .toArray();
+    }
+
+    private DiscordTriggerDto toDto(DiscordTrigger trigger) {
+        return new DiscordTriggerDto(
+                trigger.getId(),
+                trigger.getName(),
+                splitKeywords(trigger.getKeywords()),
+                trigger.getResponse(),
+                trigger.getChannelIds() == null ? List.of() : List.of(trigger.getChannelIds().split(",")),
+                trigger.getCooldownSeconds(),
+                trigger.isExclusive(),
+                trigger.isEnabled(),
+                trigger.getSortOrder(),
+                trigger.getUpdatedBy(),
+                trigger.getCreatedAt(),
+                trigger.getUpdatedAt()
+        );
+    }
+}
@@ -0,0 +1,213 @@
+package com.datapeice.slbackend.service;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.postgresql.PostgreSQLSelectForUpdateBasedProxyManager;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-limit buckets shared by all instances through Bucket4j's Postgres proxy manager
+ * (table {@value #TABLE}, one row of serialized bucket state per key).
+ * <p>
+ * The buckets have the same bandwidth as RateLimitService's local ones (capacity tokens, refilled
+ * all at once every period), so switching between the two only changes where the state lives.
+ * Each consume is a {@code SELECT ... FOR UPDATE} transaction. In {@code BATCHING} mode,
+ * concurrent requests for the same key on one instance share a transaction; {@code STRICT} runs
+ * one per request. Refill times use the instances' clocks, which are assumed to be roughly in sync.
+ * <p>
+ * Disabled unless {@code ratelimit.distributed.enabled=true}; RateLimitService then keeps using
+ * in-memory buckets, and it also falls back to them whenever the database is unreachable.
+ * <p>
+ * After {@code breaker.failure-threshold} failed round-trips in a row the limiter reports itself
+ * unavailable for {@code breaker.open-ms} (doubling on every further trip, up to
+ * {@code breaker.max-open-ms}), so during an outage requests go straight to the local buckets
+ * instead of each waiting for a connection timeout. Once the pause ends a single request probes
+ * the database; its success closes the breaker.
+ */
+@Service
+@Slf4j
+public class DistributedRateLimiter {
+
+    public enum Mode { STRICT, BATCHING }
+
+    static final String TABLE = "rate_limit_bucket_state";
+    private static final int BUCKET_CACHE_SIZE = 50_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ratelimit.distributed.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ratelimit.distributed.mode:BATCHING}")
+    private Mode mode;
+
+    @Value("${ratelimit.distributed.idle-retention-hours:25}")
+    private long idleRetentionHours;
+
+    @Value("${ratelimit.distributed.breaker.failure-threshold:3}")
+    private int breakerFailureThreshold;
+
+    @Value("${ratelimit.distributed.breaker.open-ms:5000}")
+    private long breakerOpenMillis;
+
+    @Value("${ratelimit.distributed.breaker.max-open-ms:60000}")
+    private long breakerMaxOpenMillis;
+
+    private TimeMeter clock = TimeMeter.SYSTEM_MILLISECONDS;
+    private ProxyManager<String> proxyManager;
+
+    // bucket key -> proxy. The proxies hold no tokens (only batching state), so evicting one is harmless
+    private final Map<String, Bucket> buckets = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > BUCKET_CACHE_SIZE;
+                }
+            });
+
+    private final AtomicLong longestPeriodMillis = new AtomicLong();
+    private final AtomicLong consumes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong consecutiveFailures = new AtomicLong();
+    private final AtomicLong breakerTrips = new AtomicLong();
+    // System.nanoTime() until which the database is skipped; 0 = closed
+    private final AtomicLong openUntilNanos = new AtomicLong();
+
+    public DistributedRateLimiter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        SQLProxyConfiguration<String> configuration = SQLProxyConfiguration.builder()
+                .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                .withTableSettings(BucketTableSettings.customSettings(TABLE, "bucket_key", "state"))
+                .withClientSideConfig(ClientSideConfig.getDefault().withClientClock(clock))
+                .build(jdbcTemplate.getDataSource());
+        proxyManager = new PostgreSQLSelectForUpdateBasedProxyManager<>(configuration);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enabled and not paused by the circuit breaker. When a pause has just ended, exactly one
+     * caller gets true (the probe) and the pause is extended for everyone else until it reports.
+     */
+    public boolean isAvailable() {
+        if (!enabled) {
+            return false;
+        }
+        long openUntil = openUntilNanos.get();
+        if (openUntil == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        return now - openUntil >= 0
+                && openUntilNanos.compareAndSet(openUntil, now + TimeUnit.MILLISECONDS.toNanos(breakerOpenMillis));
+    }
+
+    /**
+     * Takes one token from the shared bucket. Throws BucketExecutionException if the database is down.
+     */
+    public ConsumptionProbe tryConsume(String bucketKey, long capacity, Duration period) {
+        longestPeriodMillis.accumulateAndGet(period.toMillis(), Math::max);
+        Bucket bucket = buckets.computeIfAbsent(bucketKey, key -> {
+            RemoteBucketBuilder<String> builder = proxyManager.builder();
+            if (mode == Mode.BATCHING) {
+                builder = builder.withOptimization(Optimizations.batching());
+            }
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                    .addLimit(Bandwidth.builder().capacity(capacity).refillIntervally(capacity, period).build())
+                    .build();
+            return builder.build(key, () -> configuration);
+        });
+        consumes.incrementAndGet();
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        recordSuccess();
+        return probe;
+    }
+
+    public void recordFailure() {
+        failures.incrementAndGet();
+        long consecutive = consecutiveFailures.incrementAndGet();
+        // A failed probe after a pause re-opens right away
+        if (consecutive < breakerFailureThreshold && breakerTrips.get() == 0) {
+            return;
+        }
+        long trips = breakerTrips.incrementAndGet();
+        long openMillis = Math.min(breakerOpenMillis << Math.min(trips - 1, 20), breakerMaxOpenMillis);
+        openUntilNanos.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(openMillis));
+        consecutiveFailures.set(0);
+        log.warn("[RateLimit] Shared buckets unavailable after {} failed round-trips, using local ones for {} ms",
+                consecutive, openMillis);
+    }
+
+    private void recordSuccess() {
+        if (openUntilNanos.get() != 0 || consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+            breakerTrips.set(0);
+            if (openUntilNanos.getAndSet(0) != 0) {
+                log.info("[RateLimit] Shared buckets reachable again");
+            }
+        }
+    }
+
+    /**
+     * Deletes buckets nobody touched for longer than any refill period: they are full again, and a
+     * missing row is recreated full, so this never hands out extra tokens.
+     */
+    @Scheduled(fixedDelay = 300_000)
+    public void deleteExpired() {
+        if (!enabled) {
+            return;
+        }
+        long retentionMillis = Math.max(TimeUnit.HOURS.toMillis(idleRetentionHours), longestPeriodMillis.get());
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE touched_at < ?",
+                    new Timestamp(System.currentTimeMillis() - retentionMillis));
+            if (deleted > 0) {
+                log.debug("[RateLimit] Deleted {} idle shared buckets", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("[RateLimit] Could not delete idle shared buckets: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("mode", mode);
+        stats.put("cachedBuckets", buckets.size());
+        stats.put("consumes", consumes.get());
+        stats.put("failures", failures.get());
+        stats.put("breakerOpen", openUntilNanos.get() != 0);
+        stats.put("breakerTrips", breakerTrips.get());
+        return stats;
+    }
+}
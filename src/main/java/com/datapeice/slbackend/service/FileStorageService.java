@@ -197,6 +197,68 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Загружает объект под заданным ключом (без случайного имени). Для архивов и других служебных файлов
+     */
+    public void uploadObject(String objectKey, InputStream inputStream, long size, String contentType) {
+        if (minioClient == null) {
+            throw new IllegalStateException("Хранилище файлов не настроено");
+        }
+        try {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .stream(inputStream, size, -1)
+                            .contentType(contentType)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при загрузке объекта " + objectKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Открывает объект для чтения. Поток нужно закрыть
+     */
+    public InputStream openObject(String objectKey) {
+        if (minioClient == null) {
+            throw new IllegalStateException("Хранилище файлов не настроено");
+        }
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при чтении объекта " + objectKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Переносит объект под новый ключ (копия + удаление оригинала)
+     */
+    public void moveObject(String sourceKey, String targetKey) {
+        if (minioClient == null) {
+            throw new IllegalStateException("Хранилище файлов не настроено");
+        }
+        try {
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(targetKey)
+                            .source(CopySource.builder().bucket(bucketName).object(sourceKey).build())
+                            .build());
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(sourceKey)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при переносе объекта " + sourceKey + ": " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Удаляет файл из MinIO
      */
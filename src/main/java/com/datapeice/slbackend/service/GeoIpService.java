@@ -1,54 +1,222 @@
 package com.datapeice.slbackend.service;
 
+import com.datapeice.slbackend.security.ClientIpResolver;
+import com.datapeice.slbackend.util.GeoIpDatabase;
+import com.datapeice.slbackend.util.IpAddress;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
 
+/**
+ * Adds a rough location to IPs stored with logins and registrations.
+ * <p>
+ * Resolution order: local database file ({@code geoip.database.path}, memory-mapped, no network),
+ * then the in-memory cache, then ip-api.com ({@code geoip.online.base-url}). Remote lookups are
+ * asynchronous: a caller waits at most {@code geoip.online.max-wait-ms} and otherwise gets the
+ * bare IP while the lookup finishes in the background and fills the cache. The cache is
+ * LRU-bounded, entries are refreshed in the background once stale, and failures are cached for a
+ * shorter time so a dead API isn't hammered.
+ */
 @Service
 public class GeoIpService {
 
     private static final Logger logger = LoggerFactory.getLogger(GeoIpService.class);
-    private static final String API_URL = "http://ip-api.com/json/%s?fields=status,countryCode,city";
+    private static final String API_PATH = "/json/%s?fields=status,countryCode,city";
+    private static final int MAX_IN_FLIGHT = 32;
 
-    // Cache: IP -> formatted result (never expires, IPs don't change geo often)
-    private final Map<String, String> cache = new ConcurrentHashMap<>();
+    private record CachedGeo(String value, boolean failed, long refreshAtMillis, long expiresAtMillis) {
+    }
+
+    @Value("${geoip.database.path:}")
+    private String databasePath;
+
+    @Value("${geoip.online.enabled:true}")
+    private boolean onlineEnabled;
+
+    @Value("${geoip.online.base-url:http://ip-api.com}")
+    private String onlineBaseUrl;
+
+    @Value("${geoip.online.max-wait-ms:250}")
+    private long maxWaitMillis;
+
+    @Value("${geoip.cache.max-entries:20000}")
+    private int cacheMaxEntries;
+
+    @Value("${geoip.cache.ttl-hours:168}")
+    private long cacheTtlHours;
+
+    @Value("${geoip.cache.negative-ttl-minutes:10}")
+    private long negativeTtlMinutes;
+
+    private volatile GeoIpDatabase database;
+    private Map<String, CachedGeo> cache;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private LongSupplier clock = System::currentTimeMillis;
 
     private final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(3))
             .build();
 
+    private final ClientIpResolver clientIpResolver;
+
+    public GeoIpService(ClientIpResolver clientIpResolver) {
+        this.clientIpResolver = clientIpResolver;
+    }
+
+    @PostConstruct
+    public void init() {
+        int maxEntries = cacheMaxEntries;
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedGeo> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        if (databasePath != null && !databasePath.isBlank()) {
+            loadDatabase(Path.of(databasePath));
+        }
+    }
+
+    /**
+     * A {@code .csv} path is compiled to {@code <path>.bin} when the binary is missing or older.
+     */
+    private void loadDatabase(Path path) {
+        try {
+            Path binary = path;
+            if (path.toString().endsWith(".csv")) {
+                binary = Path.of(path + ".bin");
+                if (!Files.exists(binary) || Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(path)) < 0) {
+                    GeoIpDatabase.compileCsv(path, binary);
+                    logger.info("Compiled GeoIP CSV {} to {}", path, binary);
+                }
+            }
+            database = GeoIpDatabase.open(binary);
+            logger.info("Loaded GeoIP database {} ({} ranges)", binary, database.getRangeCount());
+        } catch (Exception e) {
+            logger.error("Could not load GeoIP database {}: {}", path, e.getMessage());
+        }
+    }
+
     /**
      * Returns formatted location string: "CC,City,IP"
      * e.g. "RU,Moscow,78.10.162.140"
      * Priority: CF-Connecting-IP > X-Forwarded-For > remote addr (handled in controller)
      */
     public String formatIpWithGeo(String ip) {
-        if (ip == null || ip.isBlank() || isLocalIp(ip)) {
+        if (ip == null || ip.isBlank() || clientIpResolver.isPrivate(ip)) {
+            return ip;
+        }
+        // Brackets, zones and odd spellings would miss the cache and can't go into the API URL
+        IpAddress parsed = IpAddress.parse(ip);
+        if (parsed == null) {
+            return ip;
+        }
+        ip = parsed.format();
+
+        GeoIpDatabase db = database;
+        if (db != null) {
+            String location = db.lookup(ip);
+            if (location != null) {
+                return location + "," + ip;
+            }
+        }
+
+        long now = clock.getAsLong();
+        CachedGeo cached = cache.get(ip);
+        if (cached != null && now < cached.expiresAtMillis()) {
+            if (now >= cached.refreshAtMillis() && !cached.failed()) {
+                lookupAsync(ip); // serve the stale value, refresh in the background
+            }
+            return cached.value();
+        }
+        if (!onlineEnabled) {
+            return ip;
+        }
+
+        CompletableFuture<String> lookup = lookupAsync(ip);
+        if (lookup == null || maxWaitMillis <= 0) {
+            return ip;
+        }
+        try {
+            return lookup.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return ip; // the cache gets the result when it arrives
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return ip;
         }
-        return cache.computeIfAbsent(ip, this::lookupGeo);
     }
 
-    private String lookupGeo(String ip) {
+    /**
+     * One remote lookup per IP at a time; null if too many are already running.
+     */
+    private CompletableFuture<String> lookupAsync(String ip) {
+        CompletableFuture<String> existing = inFlight.get(ip);
+        if (existing != null) {
+            return existing;
+        }
+        if (inFlight.size() >= MAX_IN_FLIGHT) {
+            return null;
+        }
+        HttpRequest request;
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(String.format(API_URL, ip)))
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(onlineBaseUrl + String.format(API_PATH, ip)))
                     .timeout(Duration.ofSeconds(3))
                     .GET()
                     .build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("GeoIP lookup skipped for {}: {}", ip, e.getMessage());
+            return null;
+        }
+        CompletableFuture<String> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(ip, created);
+        if (existing != null) {
+            return existing;
+        }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        try {
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) ->
+                            finish(ip, created, error == null ? parseResponse(ip, response) : null, error));
+        } catch (RuntimeException e) {
+            finish(ip, created, null, e);
+        }
+        return created;
+    }
+
+    private void finish(String ip, CompletableFuture<String> lookup, String formatted, Throwable error) {
+        if (error != null) {
+            logger.warn("GeoIP lookup failed for {}: {}", ip, error.getMessage());
+        }
+        remember(ip, formatted);
+        inFlight.remove(ip);
+        lookup.complete(formatted != null ? formatted : ip);
+    }
 
+    private String parseResponse(String ip, HttpResponse<String> response) {
+        try {
             if (response.statusCode() == 200) {
                 JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
                 String status = json.has("status") ? json.get("status").getAsString() : "";
@@ -61,21 +229,18 @@ public class GeoIpService {
         } catch (Exception e) {
             logger.warn("GeoIP lookup failed for {}: {}", ip, e.getMessage());
         }
-        return ip;
+        return null;
     }
 
-    private boolean isLocalIp(String ip) {
-        return ip.equals("127.0.0.1")
-                || ip.equals("0:0:0:0:0:0:0:1")
-                || ip.equals("::1")
-                || ip.startsWith("192.168.")
-                || ip.startsWith("10.")
-                || ip.startsWith("172.16.")
-                || ip.startsWith("172.17.")
-                || ip.startsWith("172.18.")
-                || ip.startsWith("172.19.")
-                || ip.startsWith("172.2")
-                || ip.startsWith("172.30.")
-                || ip.startsWith("172.31.");
+    private void remember(String ip, String formatted) {
+        long now = clock.getAsLong();
+        if (formatted == null) {
+            long expires = now + TimeUnit.MINUTES.toMillis(negativeTtlMinutes);
+            cache.put(ip, new CachedGeo(ip, true, expires, expires));
+            return;
+        }
+        long ttl = TimeUnit.HOURS.toMillis(cacheTtlHours);
+        // Refresh once three quarters of the TTL have passed, so busy IPs never expire
+        cache.put(ip, new CachedGeo(formatted, false, now + ttl * 3 / 4, now + ttl));
     }
 }
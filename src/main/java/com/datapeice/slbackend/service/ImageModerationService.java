@@ -0,0 +1,333 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.ImageModerationStatus;
+import com.datapeice.slbackend.entity.ImageModerationVerdict;
+import com.datapeice.slbackend.entity.ModeratedImage;
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.repository.ImageModerationVerdictRepository;
+import com.datapeice.slbackend.repository.ModeratedImageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks uploaded images with Sightengine without holding up the upload request.
+ * <p>
+ * An upload is served immediately and recorded as PENDING; a small bounded pool then checks it
+ * and moves the object under {@code quarantine/} if the verdict is negative. Verdicts are
+ * memoized by SHA-256 of the content in {@link ImageModerationVerdict}, so a re-uploaded picture
+ * costs no API call (and known-bad content is rejected before it is stored). Concurrent checks of
+ * the same content share one call. When the queue is full, or after a restart, PENDING uploads are
+ * picked up by the periodic sweep instead.
+ */
+@Service
+@Slf4j
+public class ImageModerationService {
+
+    public static final String QUARANTINE_PREFIX = "quarantine/";
+
+    private final ModerationService moderationService;
+    private final FileStorageService fileStorageService;
+    private final AuditLogService auditLogService;
+    private final ModeratedImageRepository imageRepository;
+    private final ImageModerationVerdictRepository verdictRepository;
+    private final int maxAttempts;
+
+    private final ThreadPoolExecutor checker;
+    // Content hash -> API call in progress
+    private final Map<String, CompletableFuture<ImageModerationVerdict>> inFlight = new ConcurrentHashMap<>();
+    // Upload ids being processed right now, so the sweep doesn't start a second run
+    private final Set<Long> processing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong apiCalls = new AtomicLong();
+    private final AtomicLong memoHits = new AtomicLong();
+    private final AtomicLong quarantined = new AtomicLong();
+    private final AtomicLong queueRejections = new AtomicLong();
+
+    public ImageModerationService(ModerationService moderationService,
+                                  FileStorageService fileStorageService,
+                                  AuditLogService auditLogService,
+                                  ModeratedImageRepository imageRepository,
+                                  ImageModerationVerdictRepository verdictRepository,
+                                  @Value("${moderation.image.concurrency:2}") int concurrency,
+                                  @Value("${moderation.image.queue-capacity:200}") int queueCapacity,
+                                  @Value("${moderation.image.max-attempts:5}") int maxAttempts) {
+        this.moderationService = moderationService;
+        this.fileStorageService = fileStorageService;
+        this.auditLogService = auditLogService;
+        this.imageRepository = imageRepository;
+        this.verdictRepository = verdictRepository;
+        this.maxAttempts = maxAttempts;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.checker = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "image-moderation-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unfinished uploads stay PENDING and are picked up by the sweep after restart
+        checker.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return moderationService.isImageModerationEnabled();
+    }
+
+    /**
+     * SHA-256 of the upload, hex. Reads the file once more; uploads are capped at 5MB.
+     */
+    public String hash(MultipartFile file) {
+        try (DigestInputStream in = new DigestInputStream(file.getInputStream(), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Не удалось прочитать файл: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rejects content that has already been judged inappropriate, before it is stored again.
+     */
+    public void rejectIfKnownBad(String contentHash) {
+        verdictRepository.findByContentHash(contentHash)
+                .filter(ImageModerationVerdict::isInappropriate)
+                .ifPresent(v -> {
+                    memoHits.incrementAndGet();
+                    throw new IllegalArgumentException("Изображение не прошло модерацию");
+                });
+    }
+
+    /**
+     * Records a stored upload and queues its check. Content with a memoized verdict is settled at once.
+     */
+    public void track(String objectKey, String contentHash, String contentType, User uploader) {
+        if (!isEnabled()) {
+            return;
+        }
+        ModeratedImage image = new ModeratedImage();
+        image.setObjectKey(objectKey);
+        image.setContentHash(contentHash);
+        image.setContentType(contentType);
+        if (uploader != null) {
+            image.setUploaderId(uploader.getId());
+            image.setUploaderUsername(uploader.getUsername());
+        }
+
+        ImageModerationVerdict known = verdictRepository.findByContentHash(contentHash).orElse(null);
+        if (known != null && !known.isInappropriate()) {
+            memoHits.incrementAndGet();
+            image.setStatus(ImageModerationStatus.APPROVED);
+            image.setCheckedAt(LocalDateTime.now());
+            imageRepository.save(image);
+            return;
+        }
+        ModeratedImage saved = imageRepository.save(image);
+        submit(saved.getId());
+    }
+
+    private void submit(Long imageId) {
+        try {
+            checker.execute(() -> process(imageId));
+        } catch (RejectedExecutionException e) {
+            queueRejections.incrementAndGet();
+            log.debug("[ImageModeration] Queue full, image id={} left for the sweep", imageId);
+        }
+    }
+
+    /**
+     * Re-queues uploads that were not checked yet: queue overflow, failed attempts, restarts.
+     */
+    @Scheduled(fixedDelayString = "${moderation.image.sweep-ms:60000}", initialDelayString = "${moderation.image.sweep-ms:60000}")
+    public void sweepPending() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            // Skip fresh uploads: they were just queued by track()
+            LocalDateTime before = LocalDateTime.now().minusSeconds(30);
+            for (ModeratedImage image : imageRepository
+                    .findTop100ByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(ImageModerationStatus.PENDING, before)) {
+                if (checker.getQueue().remainingCapacity() == 0) {
+                    break;
+                }
+                if (!processing.contains(image.getId())) {
+                    submit(image.getId());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[ImageModeration] Sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void process(Long imageId) {
+        if (!processing.add(imageId)) {
+            return;
+        }
+        try {
+            ModeratedImage image = imageRepository.findById(imageId).orElse(null);
+            if (image == null || image.getStatus() != ImageModerationStatus.PENDING) {
+                return;
+            }
+            try {
+                ImageModerationVerdict verdict = verdictFor(image);
+                if (verdict.isInappropriate()) {
+                    quarantine(image);
+                } else {
+                    image.setStatus(ImageModerationStatus.APPROVED);
+                }
+                image.setCheckedAt(LocalDateTime.now());
+                image.setLastError(null);
+            } catch (Exception e) {
+                image.setAttempts(image.getAttempts() + 1);
+                image.setLastError(e.getMessage());
+                if (image.getAttempts() >= maxAttempts) {
+                    image.setStatus(ImageModerationStatus.FAILED);
+                    log.error("[ImageModeration] Giving up on {} after {} attempts: {}",
+                            image.getObjectKey(), image.getAttempts(), e.getMessage());
+                } else {
+                    log.warn("[ImageModeration] Check of {} failed (attempt {}): {}",
+                            image.getObjectKey(), image.getAttempts(), e.getMessage());
+                }
+            }
+            imageRepository.save(image);
+        } finally {
+            processing.remove(imageId);
+        }
+    }
+
+    /**
+     * Memoized verdict for the image content; one API call per content, even if several uploads
+     * of it are checked at the same time.
+     */
+    private ImageModerationVerdict verdictFor(ModeratedImage image) throws Exception {
+        ImageModerationVerdict known = verdictRepository.findByContentHash(image.getContentHash()).orElse(null);
+        if (known != null) {
+            memoHits.incrementAndGet();
+            return known;
+        }
+
+        CompletableFuture<ImageModerationVerdict> own = new CompletableFuture<>();
+        CompletableFuture<ImageModerationVerdict> existing = inFlight.putIfAbsent(image.getContentHash(), own);
+        if (existing != null) {
+            memoHits.incrementAndGet();
+            return existing.get(60, TimeUnit.SECONDS);
+        }
+        try {
+            byte[] content;
+            try (InputStream in = fileStorageService.openObject(image.getObjectKey())) {
+                content = in.readAllBytes();
+            }
+            apiCalls.incrementAndGet();
+            ModerationService.ImageVerdict result = moderationService.checkImage(content, image.getContentType());
+
+            ImageModerationVerdict verdict = new ImageModerationVerdict();
+            verdict.setContentHash(image.getContentHash());
+            verdict.setInappropriate(result.inappropriate());
+            verdict.setSafeScore(result.safeScore());
+            try {
+                verdict = verdictRepository.save(verdict);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored the same content first
+                verdict = verdictRepository.findByContentHash(image.getContentHash()).orElse(verdict);
+            }
+            own.complete(verdict);
+            return verdict;
+        } catch (Exception e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(image.getContentHash(), own);
+        }
+    }
+
+    private void quarantine(ModeratedImage image) {
+        String originalKey = image.getObjectKey();
+        fileStorageService.moveObject(originalKey, QUARANTINE_PREFIX + originalKey);
+        image.setStatus(ImageModerationStatus.QUARANTINED);
+        quarantined.incrementAndGet();
+        log.warn("[ImageModeration] Quarantined {} uploaded by {}", originalKey, image.getUploaderUsername());
+        auditLogService.logAction(null, "system", "IMAGE_QUARANTINED",
+                "Изображение " + originalKey + " перемещено в карантин по результату модерации",
+                image.getUploaderId(), image.getUploaderUsername());
+    }
+
+    /**
+     * Restores a quarantined image and marks its content as safe, so it is not flagged again.
+     */
+    public ModeratedImage release(Long imageId, User admin) {
+        ModeratedImage image = imageRepository.findById(imageId)
+                .orElseThrow(() -> new IllegalArgumentException("Изображение не найдено"));
+        if (image.getStatus() != ImageModerationStatus.QUARANTINED) {
+            throw new IllegalArgumentException("Изображение не находится в карантине");
+        }
+        fileStorageService.moveObject(QUARANTINE_PREFIX + image.getObjectKey(), image.getObjectKey());
+
+        ImageModerationVerdict verdict = verdictRepository.findByContentHash(image.getContentHash())
+                .orElseGet(ImageModerationVerdict::new);
+        verdict.setContentHash(image.getContentHash());
+        verdict.setInappropriate(false);
+        verdict.setOverriddenBy(admin.getUsername());
+        verdict.setCheckedAt(LocalDateTime.now());
+        verdictRepository.save(verdict);
+
+        image.setStatus(ImageModerationStatus.RELEASED);
+        image.setCheckedAt(LocalDateTime.now());
+        ModeratedImage saved = imageRepository.save(image);
+        auditLogService.logAction(admin.getId(), admin.getUsername(), "IMAGE_RELEASED",
+                "Вернул изображение " + image.getObjectKey() + " из карантина",
+                image.getUploaderId(), image.getUploaderUsername());
+        return saved;
+    }
+
+    public Page<ModeratedImage> getImages(ImageModerationStatus status, int page, int size) {
+        return imageRepository.findByStatusOrderByCreatedAtDesc(status,
+                PageRequest.of(page, Math.min(Math.max(size, 1), 100)));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("pending", imageRepository.countByStatus(ImageModerationStatus.PENDING));
+        stats.put("quarantined", imageRepository.countByStatus(ImageModerationStatus.QUARANTINED));
+        stats.put("failed", imageRepository.countByStatus(ImageModerationStatus.FAILED));
+        stats.put("queued", checker.getQueue().size());
+        stats.put("active", checker.getActiveCount());
+        stats.put("inFlightHashes", inFlight.size());
+        stats.put("apiCalls", apiCalls.get());
+        stats.put("memoHits", memoHits.get());
+        stats.put("quarantinedSinceStart", quarantined.get());
+        stats.put("queueRejections", queueRejections.get());
+        return stats;
+    }
+}
@@ -0,0 +1,207 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.dto.BotMessageResponse;
+import com.datapeice.slbackend.entity.ConversationSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * STOMP destinations of the admin messenger:
+ * <ul>
+ *   <li>{@code /topic/admin/messenger/conversations/{userId}} - messages, edits, deletes and read
+ *       receipts of one conversation; subscribe only to the open one</li>
+ *   <li>{@code /topic/admin/messenger/inbox} - one small summary per conversation change for the list</li>
+ *   <li>{@code /user/queue/admin/messenger} - events for a single admin (delivery of their own messages)</li>
+ *   <li>{@code /topic/admin/messenger} - old catch-all topic, kept while {@code messenger.websocket.legacy-topic=true}</li>
+ * </ul>
+ * Conversation and inbox events are coalesced: everything published to one destination within
+ * {@code messenger.websocket.coalesce-ms} goes out as a single frame whose body is a JSON array.
+ * Inbox rows are keyed by conversation, so a burst for one player collapses to its latest row.
+ * <p>
+ * Topic frames are serialized here, once per frame, into a per-thread buffer that is reused
+ * from frame to frame; the broker then fans the same bytes out to every subscriber.
+ */
+@Component
+public class MessengerEventPublisher {
+
+    public static final String LEGACY_TOPIC = "/topic/admin/messenger";
+    public static final String INBOX_TOPIC = "/topic/admin/messenger/inbox";
+    public static final String CONVERSATION_TOPIC_PREFIX = "/topic/admin/messenger/conversations/";
+    public static final String ADMIN_QUEUE = "/queue/admin/messenger";
+
+    // Buffers that grew past this (one huge frame) are dropped instead of being kept per thread
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectWriter jsonWriter;
+    private final ThreadLocal<ByteArrayOutputStream> jsonBuffer =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(4096));
+
+    @Value("${messenger.websocket.legacy-topic:true}")
+    private boolean legacyTopic;
+
+    @Value("${messenger.websocket.coalesce-ms:25}")
+    private long coalesceMillis;
+
+    // Destination -> events waiting for the next flush of that destination
+    private final Map<String, Map<Object, Object>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong eventSequence = new AtomicLong();
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "messenger-ws-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MessengerEventPublisher(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.jsonWriter = objectMapper.writer();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        pending.keySet().forEach(this::flush);
+    }
+
+    public void messageChanged(BotMessageResponse message) {
+        publish(message.getRecipientUserId(), message);
+    }
+
+    public void messageDeleted(Long recipientUserId, Long messageId) {
+        publish(recipientUserId, Map.of("deletedMessageId", messageId, "recipientUserId", recipientUserId));
+    }
+
+    public void conversationRead(Long recipientUserId) {
+        publish(recipientUserId, Map.of("readRecipientUserId", recipientUserId));
+    }
+
+    /**
+     * Inbox row after a change; {@code summary == null} means the conversation no longer has messages.
+     */
+    public void inboxChanged(Long recipientUserId, ConversationSummary summary) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("recipientUserId", recipientUserId);
+        if (summary != null) {
+            payload.put("lastMessageId", summary.getLastMessageId());
+            payload.put("lastMessage", summary.getLastMessageSnippet());
+            payload.put("lastMessageTime", summary.getLastMessageTime());
+            payload.put("lastMessageIsEdited", summary.isLastMessageIsEdited());
+            payload.put("lastMessageFromPlayer", summary.isLastMessageFromPlayer());
+            payload.put("unreadCount", summary.getUnreadCount());
+        } else {
+            payload.put("removed", true);
+        }
+        enqueue(INBOX_TOPIC, recipientUserId, payload);
+    }
+
+    /**
+     * Tells the admin who wrote a message whether Discord accepted it.
+     */
+    public void deliveryStatus(String adminUsername, Long recipientUserId, Long messageId, boolean delivered, String error) {
+        if (adminUsername == null) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("messageId", messageId);
+        payload.put("recipientUserId", recipientUserId);
+        payload.put("delivered", delivered);
+        if (error != null) {
+            payload.put("error", error);
+        }
+        messagingTemplate.convertAndSendToUser(adminUsername, ADMIN_QUEUE, payload);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("coalesceMillis", coalesceMillis);
+        stats.put("eventsPublished", eventsPublished.get());
+        stats.put("framesSent", framesSent.get());
+        stats.put("pendingDestinations", pending.size());
+        return stats;
+    }
+
+    private void publish(Long recipientUserId, Object payload) {
+        // Conversation events all matter, so each gets its own key
+        enqueue(CONVERSATION_TOPIC_PREFIX + recipientUserId, eventSequence.incrementAndGet(), payload);
+        if (legacyTopic) {
+            sendJson(LEGACY_TOPIC, payload);
+        }
+    }
+
+    private void enqueue(String destination, Object key, Object payload) {
+        eventsPublished.incrementAndGet();
+        if (coalesceMillis <= 0) {
+            send(destination, List.of(payload));
+            return;
+        }
+        boolean[] opened = {false};
+        pending.compute(destination, (d, events) -> {
+            if (events == null) {
+                events = new LinkedHashMap<>();
+                opened[0] = true;
+            }
+            // Re-insert so a replaced entry moves to the end and keeps event order
+            events.remove(key);
+            events.put(key, payload);
+            return events;
+        });
+        if (opened[0]) {
+            flusher.schedule(() -> flush(destination), coalesceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(String destination) {
+        Map<Object, Object> events = pending.remove(destination);
+        if (events != null && !events.isEmpty()) {
+            send(destination, new ArrayList<>(events.values()));
+        }
+    }
+
+    private void send(String destination, List<Object> events) {
+        framesSent.incrementAndGet();
+        sendJson(destination, events);
+    }
+
+    private void sendJson(String destination, Object payload) {
+        ByteArrayOutputStream buffer = jsonBuffer.get();
+        buffer.reset();
+        byte[] json;
+        try {
+            jsonWriter.writeValue(buffer, payload);
+            json = buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (buffer.size() > MAX_RETAINED_BUFFER) {
+                jsonBuffer.remove();
+            }
+        }
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(json, headers.getMessageHeaders()));
+    }
+}
@@ -1,27 +1,23 @@
 package com.datapeice.slbackend.service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.UUID;
 import java.util.regex.Pattern;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URLEncoder;
+import java.time.Duration;
 
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
+import com.datapeice.slbackend.util.ToxicityMatcher;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
@@ -29,91 +25,21 @@ import com.google.gson.JsonParser;
 public class ModerationService {
     private static final Logger logger = LoggerFactory.getLogger(ModerationService.class);
 
-    @Value("classpath:banned_words.txt")
-    private Resource bannedWordsResource;
-
     @Value("${sightengine.api.user:}")
     private String sightengineApiUser;
 
     @Value("${sightengine.api.secret:}")
     private String sightengineApiSecret;
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    @Value("${sightengine.api.base-url:https://api.sightengine.com}")
+    private String sightengineBaseUrl;
 
-    private final Set<String> bannedWords = new HashSet<>();
-    private final List<Pattern> bannedPatterns = new ArrayList<>();
-
-    @PostConstruct
-    public void initBadWords() {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(bannedWordsResource.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim().toLowerCase();
-                if (!line.isEmpty() && !line.startsWith("#")) {
-                    String[] words = line.split(",");
-                    for (String word : words) {
-                        word = word.trim();
-                        if (!word.isEmpty()) {
-                            // Очищаем от любых разделителей типа точек (х.о.х.о.л -> хохол) для точного
-                            // списка,
-                            // если хотим, но так как ниже есть умный паттерн, можно оставить как есть
-                            bannedWords.add(word);
-                            // Создаем умный паттерн только для слов длиной от 4 символов,
-                            // чтобы избежать ложных срабатываний на союзах и предлогах.
-                            if (word.length() >= 4) {
-                                bannedPatterns.add(createBannedPattern(word));
-                            }
-                        }
-                    }
-                }
-            }
-            logger.info("Successfully loaded {} banned words and compiled smart patterns.", bannedWords.size());
-        } catch (Exception e) {
-            logger.error("Could not load banned_words.txt from resources! Loading default fallback list. Error: {}",
-                    e.getMessage());
-            for (String word : Arrays.asList("негр", "пидарас", "пидор", "ебан", "уеб", "хуй", "шлюха", "бляд", "spam",
-                    "scam")) {
-                bannedWords.add(word);
-                bannedPatterns.add(createBannedPattern(word));
-            }
-        }
-    }
-
-    private Pattern createBannedPattern(String word) {
-        String cleaned = word.replaceAll("[^a-zа-яё]", "");
-        if (cleaned.isEmpty()) {
-            return Pattern.compile("a^"); // Impossible match
-        }
-        StringBuilder regex = new StringBuilder();
-        for (char c : cleaned.toCharArray()) {
-            regex.append(Pattern.quote(String.valueOf(c))).append("+");
-        }
-        return Pattern.compile(regex.toString());
-    }
-
-    private String normalizeAndApplyHomoglyphs(String text) {
-        String s = text.toLowerCase();
-        // Replace common symbol substitutes
-        s = s.replace("@", "а").replace("0", "о").replace("3", "з")
-                .replace("4", "ч").replace("6", "б").replace("$", "с")
-                .replace("!", "и").replace("1", "и");
-
-        // Keep only letters
-        s = s.replaceAll("[^a-zа-яё]", "");
-
-        // Map Latin lookalikes to Cyrillic
-        s = s.replace("a", "а").replace("o", "о").replace("e", "е")
-                .replace("c", "с").replace("p", "р").replace("x", "х")
-                .replace("y", "у").replace("k", "к").replace("m", "м")
-                .replace("h", "н").replace("t", "т").replace("b", "в")
-                .replace("u", "и");
+    private final HttpClient httpClient = HttpClient.newHttpClient();
 
-        return s;
-    }
+    private final BannedWordService bannedWordService;
 
-    private String normalizeOnlyLetters(String text) {
-        return text.toLowerCase().replaceAll("[^a-zа-яё]", "");
+    public ModerationService(BannedWordService bannedWordService) {
+        this.bannedWordService = bannedWordService;
     }
 
     // Регулярка для поиска подозрительных паттернов (ссылки, попытки скрыть мат
@@ -124,53 +50,28 @@ public class ModerationService {
 
     /**
      * Локальная проверка текста.
-     * Работает мгновенно и бесплатно.
+     * Работает мгновенно и бесплатно: слова из BannedWordService скомпилированы в автомат,
+     * проверка - несколько линейных проходов по тексту независимо от размера списка.
      */
     public boolean isTextToxic(String text) {
         if (text == null || text.isBlank()) {
             return false;
         }
 
-        String lowerText = text.toLowerCase();
-        String lettersOnly = normalizeOnlyLetters(text);
-        String homoglyphs = normalizeAndApplyHomoglyphs(text);
-
-        // 1. Простая проверка на вхождение оригинальных слов
-        for (String banned : bannedWords) {
-            // Игнорируем слишком короткие слова (1-2 символа) во избежание ложных
-            // срабатываний
-            if (banned.length() <= 2)
-                continue;
-
-            if (banned.length() <= 5) {
-                // Короткие слова (3-5 символов) - проверяем только как отдельные слова
-                // Используем regex для проверки границ слов
-                String regex = "\\b" + Pattern.quote(banned) + "\\b";
-                if (Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CHARACTER_CLASS)
-                        .matcher(lowerText).find()) {
-                    logger.warn("Content flagged: contains short banned word '{}' as standalone", banned);
-                    return true;
-                }
-            } else {
-                // Длинные слова (>= 6) - проверяем как подстроку
-                if (lowerText.contains(banned)) {
-                    logger.warn("Content flagged: contains banned word '{}'", banned);
-                    return true;
-                }
-            }
-        }
-
-        // 2. Продвинутая проверка (игнорирует точки, пробелы, цифры, дубликаты букв,
-        // п0дмену я3ыков)
-        for (Pattern pattern : bannedPatterns) {
-            if (pattern.matcher(lettersOnly).find() || pattern.matcher(homoglyphs).find()) {
-                logger.warn("Content flagged by smart pattern: {}", pattern.pattern());
-                return true;
+        // 1. Оригинальные слова: короткие (3-5 символов) только как отдельные слова, длинные - как подстрока.
+        // 2. Умная проверка (игнорирует точки, пробелы, цифры, дубликаты букв, п0дмену я3ыков)
+        ToxicityMatcher.Hit hit = bannedWordService.getMatcher().find(text);
+        if (hit != null) {
+            switch (hit.kind()) {
+                case STANDALONE_WORD -> logger.warn("Content flagged: contains short banned word '{}' as standalone", hit.word());
+                case SUBSTRING -> logger.warn("Content flagged: contains banned word '{}'", hit.word());
+                case SMART_PATTERN -> logger.warn("Content flagged by smart pattern for '{}'", hit.word());
             }
+            return true;
         }
 
-        // 2. Проверка на подозрительные ссылки (если в профиле их нельзя)
-        if (SUSPICIOUS_PATTERN.matcher(lowerText).find()) {
+        // 3. Проверка на подозрительные ссылки (если в профиле их нельзя)
+        if (SUSPICIOUS_PATTERN.matcher(text.toLowerCase()).find()) {
             logger.warn("Content flagged: contains suspicious link or email");
             return true;
         }
@@ -178,6 +79,17 @@ public class ModerationService {
         return false;
     }
 
+    public boolean isImageModerationEnabled() {
+        return sightengineApiUser != null && !sightengineApiUser.isBlank()
+                && sightengineApiSecret != null && !sightengineApiSecret.isBlank();
+    }
+
+    /**
+     * Вердикт Sightengine: safeScore - вероятность "nudity.none"
+     */
+    public record ImageVerdict(boolean inappropriate, double safeScore) {
+    }
+
     /**
      * Проверка изображения через Sightengine API (Nudity 2.1)
      */
@@ -186,15 +98,14 @@ public class ModerationService {
             return false;
         }
 
-        if (sightengineApiUser == null || sightengineApiUser.isBlank() ||
-                sightengineApiSecret == null || sightengineApiSecret.isBlank()) {
+        if (!isImageModerationEnabled()) {
             logger.warn("Sightengine credentials are not configured. Skipping image moderation.");
             return false;
         }
 
         try {
             String encodedUrl = URLEncoder.encode(imageUrl, StandardCharsets.UTF_8);
-            String urlString = "https://api.sightengine.com/1.0/check.json?models=nudity-2.1&api_user="
+            String urlString = sightengineBaseUrl + "/1.0/check.json?models=nudity-2.1&api_user="
                     + sightengineApiUser + "&api_secret=" + sightengineApiSecret + "&url=" + encodedUrl;
 
             HttpRequest request = HttpRequest.newBuilder()
@@ -203,31 +114,71 @@ public class ModerationService {
                     .build();
 
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
-                if (jsonResponse.has("status") && "success".equals(jsonResponse.get("status").getAsString())) {
-                    JsonObject nudity = jsonResponse.getAsJsonObject("nudity");
-                    if (nudity != null) {
-                        double noneProbability = nudity.get("none").getAsDouble();
-                        // Если вероятность того, что контент 'безопасный' (none) ниже 50%, считаем
-                        // неуместным.
-                        if (noneProbability < 0.5) {
-                            logger.warn("Image flagged by Sightengine. Nudity prediction: {}", nudity);
-                            return true;
-                        }
-                    }
-                } else {
-                    logger.error("Sightengine API returned an error: {}", response.body());
-                }
-            } else {
-                logger.error("Failed to check image with Sightengine. Status: {}, Response: {}",
-                        response.statusCode(), response.body());
-            }
+            return parseImageVerdict(response).inappropriate();
         } catch (Exception e) {
             logger.error("Exception during Sightengine image moderation: {}", e.getMessage());
         }
 
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверка содержимого изображения (multipart-загрузка в Sightengine, публичный URL не нужен).
+     * В отличие от isImageInappropriate, ошибки API пробрасываются: вызывающий решает, повторять ли.
+     */
+    public ImageVerdict checkImage(byte[] content, String contentType) throws IOException, InterruptedException {
+        if (!isImageModerationEnabled()) {
+            throw new IllegalStateException("Sightengine credentials are not configured");
+        }
+        String boundary = "----sl" + UUID.randomUUID().toString().replace("-", "");
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 1024);
+        writeFormField(body, boundary, "models", "nudity-2.1");
+        writeFormField(body, boundary, "api_user", sightengineApiUser);
+        writeFormField(body, boundary, "api_secret", sightengineApiSecret);
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"media\"; filename=\"image\"\r\n"
+                + "Content-Type: " + (contentType == null ? "application/octet-stream" : contentType) + "\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(sightengineBaseUrl + "/1.0/check.json"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return parseImageVerdict(httpClient.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    private static void writeFormField(ByteArrayOutputStream body, String boundary, String name, String value)
+            throws IOException {
+        body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ImageVerdict parseImageVerdict(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            logger.error("Failed to check image with Sightengine. Status: {}, Response: {}",
+                    response.statusCode(), response.body());
+            throw new IllegalStateException("Sightengine HTTP " + response.statusCode());
+        }
+        JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
+        if (!jsonResponse.has("status") || !"success".equals(jsonResponse.get("status").getAsString())) {
+            logger.error("Sightengine API returned an error: {}", response.body());
+            throw new IllegalStateException("Sightengine API error");
+        }
+        JsonObject nudity = jsonResponse.getAsJsonObject("nudity");
+        if (nudity == null) {
+            return new ImageVerdict(false, 1.0);
+        }
+        double noneProbability = nudity.get("none").getAsDouble();
+        // Если вероятность того, что контент 'безопасный' (none) ниже 50%, считаем
+        // неуместным.
+        if (noneProbability < 0.5) {
+            logger.warn("Image flagged by Sightengine. Nudity prediction: {}", nudity);
+            return new ImageVerdict(true, noneProbability);
+        }
+        return new ImageVerdict(false, noneProbability);
+    }
+}
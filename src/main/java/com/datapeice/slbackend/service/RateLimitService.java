@@ -1,40 +1,124 @@
 package com.datapeice.slbackend.service;
 
+import com.datapeice.slbackend.util.ExpiringBucketStore;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.ConsumptionProbe;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.slf4j.Logger;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Per-key rate limits. Buckets are kept in memory per instance, or shared through Postgres when
+ * {@link DistributedRateLimiter} is enabled (with the in-memory buckets as fallback if the
+ * database does not answer).
+ */
 @Service
+@Slf4j
 public class RateLimitService {
 
-    private final Map<String, Bucket> emailBuckets = new ConcurrentHashMap<>();
-    private final Map<String, Bucket> authBuckets = new ConcurrentHashMap<>();
+    private static final Duration EMAIL_PERIOD = Duration.ofDays(1);
+    private static final Duration AUTH_PERIOD = Duration.ofMinutes(1);
+    private static final long EMAIL_CAPACITY = 3;
+    private static final long AUTH_CAPACITY = 10;
+
+    public record Decision(boolean consumed, long remaining, long nanosToReset, long nanosToRetry) {
+    }
+
+    private record Limit(long capacity, Duration period, ExpiringBucketStore localBuckets) {
+    }
+
+    private final DistributedRateLimiter distributedRateLimiter;
+
+    // Idle TTL = one refill period: after that an intervally refilled bucket is full again
+    private final Limit emailLimit;
+    private final Limit authLimit;
+    // Declarative policies of RateLimitFilter, by policy name
+    private final Map<String, Limit> policyLimits = new ConcurrentHashMap<>();
+
+    // Time spent in RateLimitFilter, to keep an eye on its per-request overhead
+    private final LongAdder filterChecks = new LongAdder();
+    private final LongAdder filterNanos = new LongAdder();
+    private final LongAdder filterRejections = new LongAdder();
+
+    public RateLimitService(DistributedRateLimiter distributedRateLimiter,
+                            @Value("${ratelimit.store.email.max-entries:100000}") int emailMaxEntries,
+                            @Value("${ratelimit.store.auth.max-entries:200000}") int authMaxEntries) {
+        this.distributedRateLimiter = distributedRateLimiter;
+        this.emailLimit = new Limit(EMAIL_CAPACITY, EMAIL_PERIOD,
+                new ExpiringBucketStore("email", emailMaxEntries, EMAIL_PERIOD, this::createEmailBucket));
+        this.authLimit = new Limit(AUTH_CAPACITY, AUTH_PERIOD,
+                new ExpiringBucketStore("auth", authMaxEntries, AUTH_PERIOD, this::createAuthBucket));
+    }
 
     /**
      * Проверяет лимит отправки email для IP (3 в день)
      */
     public boolean checkEmailRateLimit(String ipAddress) {
-        Bucket bucket = emailBuckets.computeIfAbsent(ipAddress, k -> createEmailBucket());
-        return bucket.tryConsume(1);
+        return consume("email", emailLimit, ipAddress).consumed();
     }
 
     /**
      * Проверяет лимит попыток аутентификации для IP (10 в минуту)
      */
     public boolean checkAuthRateLimit(String ipAddress) {
-        Bucket bucket = authBuckets.computeIfAbsent(ipAddress, k -> createAuthBucket());
-        return bucket.tryConsume(1);
+        return consume("auth", authLimit, ipAddress).consumed();
+    }
+
+    public void registerPolicy(String name, long capacity, Duration period, int maxEntries) {
+        Bandwidth limit = Bandwidth.builder().capacity(capacity).refillIntervally(capacity, period).build();
+        policyLimits.put(name, new Limit(capacity, period, new ExpiringBucketStore(name, maxEntries, period,
+                () -> Bucket.builder().addLimit(limit).build())));
+    }
+
+    public Decision tryConsume(String policyName, String key) {
+        Limit limit = policyLimits.get(policyName);
+        if (limit == null) {
+            throw new IllegalArgumentException("Unknown rate-limit policy: " + policyName);
+        }
+        return consume("p:" + policyName, limit, key);
+    }
+
+    private Decision consume(String namespace, Limit limit, String key) {
+        ConsumptionProbe probe = null;
+        // The breaker keeps a database outage from costing every request a connection timeout
+        if (distributedRateLimiter.isAvailable()) {
+            try {
+                probe = distributedRateLimiter.tryConsume(namespace + ":" + key, limit.capacity(), limit.period());
+            } catch (BucketExceptions.BucketExecutionException e) {
+                // Logged by the breaker when it opens, not once per request
+                distributedRateLimiter.recordFailure();
+                log.debug("[RateLimit] Shared bucket round-trip failed, using local one: {}", e.getMessage());
+            }
+        }
+        if (probe == null) {
+            probe = limit.localBuckets().get(key).tryConsumeAndReturnRemaining(1);
+        }
+        return new Decision(probe.isConsumed(), probe.getRemainingTokens(), probe.getNanosToWaitForReset(),
+                probe.getNanosToWaitForRefill());
+    }
+
+    public void recordFilterCheck(long nanos, boolean rejected) {
+        filterChecks.increment();
+        filterNanos.add(nanos);
+        if (rejected) {
+            filterRejections.increment();
+        }
     }
 
     private Bucket createEmailBucket() {
         // 3 письма в день
-        Bandwidth limit = Bandwidth.classic(3, Refill.intervally(3, Duration.ofDays(1)));
+        Bandwidth limit = Bandwidth.builder().capacity(EMAIL_CAPACITY).refillIntervally(EMAIL_CAPACITY, EMAIL_PERIOD).build();
         return Bucket.builder()
                 .addLimit(limit)
                 .build();
@@ -42,17 +126,38 @@ public class RateLimitService {
 
     private Bucket createAuthBucket() {
         // 10 попыток в минуту
-        Bandwidth limit = Bandwidth.classic(10, Refill.intervally(10, Duration.ofMinutes(1)));
+        Bandwidth limit = Bandwidth.builder().capacity(AUTH_CAPACITY).refillIntervally(AUTH_CAPACITY, AUTH_PERIOD).build();
         return Bucket.builder()
                 .addLimit(limit)
                 .build();
     }
 
     /**
-     * Очистка старых записей (опционально, вызывать периодически)
+     * Удаляет полностью восстановившиеся buckets; размер хранилищ ограничен сверху в любом случае
      */
+    @Scheduled(fixedDelay = 60_000)
     public void cleanupOldEntries() {
-        // Можно добавить логику очистки старых buckets
-        // Для простоты оставляем как есть, так как ConcurrentHashMap не будет бесконечно расти
+        emailLimit.localBuckets().sweep();
+        authLimit.localBuckets().sweep();
+        policyLimits.values().forEach(limit -> limit.localBuckets().sweep());
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> stores = new ArrayList<>();
+        stores.add(emailLimit.localBuckets().getStats());
+        stores.add(authLimit.localBuckets().getStats());
+        policyLimits.values().forEach(limit -> stores.add(limit.localBuckets().getStats()));
+
+        long checks = filterChecks.sum();
+        Map<String, Object> filter = new LinkedHashMap<>();
+        filter.put("checkedRequests", checks);
+        filter.put("rejectedRequests", filterRejections.sum());
+        filter.put("avgOverheadMicros", checks == 0 ? 0.0 : filterNanos.sum() / 1000.0 / checks);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stores", stores);
+        stats.put("filter", filter);
+        stats.put("distributed", distributedRateLimiter.getStats());
+        return stats;
     }
 }
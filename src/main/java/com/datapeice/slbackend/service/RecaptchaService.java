@@ -42,7 +42,7 @@ public class RecaptchaService {
 
     public boolean verifyRecaptcha(String token, String action) {
         // Если режим техобслуживания активен, пропускаем проверку reCAPTCHA
-        if (siteSettingsService != null && siteSettingsService.getSettings().isMaintenanceMode()) {
+        if (siteSettingsService != null && siteSettingsService.getSnapshot().isMaintenanceMode()) {
             logger.info("reCAPTCHA check bypassed: maintenance mode is active");
             return true;
         }
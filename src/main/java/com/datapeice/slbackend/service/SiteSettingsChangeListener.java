@@ -0,0 +1,97 @@
+package com.datapeice.slbackend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Keeps the settings snapshot of this instance in sync with updates made on other instances.
+ * <p>
+ * Keeps one pooled connection checked out for good; it LISTENs on
+ * {@link SiteSettingsService#NOTIFY_CHANNEL}; each notification triggers one reload. If the
+ * connection drops it is reopened, and the snapshot is reloaded in case a change was missed.
+ * Disabled unless {@code settings.notify.enabled=true}; single-instance deployments don't need it.
+ */
+@Component
+@Slf4j
+public class SiteSettingsChangeListener {
+
+    private static final int POLL_TIMEOUT_MS = 10_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    private final DataSource dataSource;
+    private final SiteSettingsService siteSettingsService;
+
+    @Value("${settings.notify.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public SiteSettingsChangeListener(DataSource dataSource, SiteSettingsService siteSettingsService) {
+        this.dataSource = dataSource;
+        this.siteSettingsService = siteSettingsService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listenLoop, "settings-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + SiteSettingsService.NOTIFY_CHANNEL);
+                }
+                log.info("[Settings] Listening for settings changes on '{}'", SiteSettingsService.NOTIFY_CHANNEL);
+                // Anything committed while we were not listening
+                siteSettingsService.reloadSnapshot();
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        // Several updates in a row need one reload
+                        siteSettingsService.reloadSnapshot();
+                        log.debug("[Settings] Snapshot reloaded after {} notification(s)", notifications.length);
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("[Settings] Settings listener connection lost: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
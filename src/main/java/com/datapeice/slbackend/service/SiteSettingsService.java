@@ -1,20 +1,97 @@
 package com.datapeice.slbackend.service;
 
 import com.datapeice.slbackend.dto.SiteSettingsRequest;
+import com.datapeice.slbackend.dto.SiteSettingsSnapshot;
 import com.datapeice.slbackend.entity.SiteSettings;
 import com.datapeice.slbackend.repository.SiteSettingsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Site settings are read on almost every request but change a few times a month, so readers get
+ * an immutable {@link SiteSettingsSnapshot} from memory. The snapshot is replaced after every
+ * committed update; other instances pick the change up through Postgres NOTIFY
+ * (see {@link SiteSettingsChangeListener}) or, as a fallback, the periodic refresh.
+ * <p>
+ * Every swap bumps a version. A reload only installs what it read if the version is still the one
+ * it started from, so a slow reload can't overwrite a snapshot published while it was reading.
+ */
 @Service
+@Slf4j
 public class SiteSettingsService {
 
+    public static final String NOTIFY_CHANNEL = "site_settings_changed";
+
     private final SiteSettingsRepository siteSettingsRepository;
     private final AuditLogService auditLogService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${settings.notify.enabled:false}")
+    private boolean notifyEnabled;
+
+    private record VersionedSnapshot(long version, SiteSettingsSnapshot snapshot) {
+    }
+
+    private final AtomicReference<VersionedSnapshot> current = new AtomicReference<>(new VersionedSnapshot(0, null));
 
-    public SiteSettingsService(SiteSettingsRepository siteSettingsRepository, AuditLogService auditLogService) {
+    public SiteSettingsService(SiteSettingsRepository siteSettingsRepository, AuditLogService auditLogService,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
         this.siteSettingsRepository = siteSettingsRepository;
         this.auditLogService = auditLogService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Current settings without touching the database (after the first call).
+     */
+    public SiteSettingsSnapshot getSnapshot() {
+        SiteSettingsSnapshot snapshot = current.get().snapshot();
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = current.get().snapshot();
+                if (snapshot == null) {
+                    snapshot = reloadSnapshot();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reads the row and swaps the snapshot in, unless a newer one was published meanwhile.
+     * Called on NOTIFY and periodically. Returns the snapshot in effect afterwards.
+     */
+    public SiteSettingsSnapshot reloadSnapshot() {
+        VersionedSnapshot seen = current.get();
+        // Through the template: a self-call to getSettings() would skip its @Transactional proxy
+        SiteSettings settings = transactionTemplate.execute(status -> getSettings());
+        VersionedSnapshot fresh = new VersionedSnapshot(seen.version() + 1, SiteSettingsSnapshot.of(settings));
+        if (current.compareAndSet(seen, fresh)) {
+            return fresh.snapshot();
+        }
+        log.debug("[Settings] Discarded reloaded snapshot, a newer one was published meanwhile");
+        return current.get().snapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${settings.snapshot.refresh-ms:60000}", initialDelayString = "${settings.snapshot.refresh-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            reloadSnapshot();
+        } catch (Exception e) {
+            log.warn("[Settings] Snapshot refresh failed, keeping the previous one: {}", e.getMessage());
+        }
     }
 
     @Transactional(readOnly = true)
@@ -92,6 +169,7 @@ public class SiteSettingsService {
         }
 
         SiteSettings saved = siteSettingsRepository.save(settings);
+        publishAfterCommit(SiteSettingsSnapshot.of(saved));
 
         if (!changes.isEmpty()) {
             auditLogService.logAction(adminId, adminName, "ADMIN_UPDATE_SETTINGS",
@@ -100,4 +178,25 @@ public class SiteSettingsService {
 
         return saved;
     }
+
+    private void publishAfterCommit(SiteSettingsSnapshot updated) {
+        if (notifyEnabled) {
+            // Delivered by Postgres only when this transaction commits
+            jdbcTemplate.execute("NOTIFY " + NOTIFY_CHANNEL);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(updated);
+                }
+            });
+        } else {
+            publish(updated);
+        }
+    }
+
+    private void publish(SiteSettingsSnapshot updated) {
+        current.updateAndGet(previous -> new VersionedSnapshot(previous.version() + 1, updated));
+    }
 }
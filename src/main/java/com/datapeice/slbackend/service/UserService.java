@@ -6,9 +6,10 @@ import com.datapeice.slbackend.dto.BadgeResponse;
 import com.datapeice.slbackend.dto.UpdateUserRequest;
 import com.datapeice.slbackend.dto.UserResponse;
 import com.datapeice.slbackend.dto.PublicUserResponse;
+import com.datapeice.slbackend.entity.DiscordOutboundPriority;
 import com.datapeice.slbackend.entity.User;
 import com.datapeice.slbackend.entity.UserRole;
-import com.datapeice.slbackend.entity.SiteSettings;
+import com.datapeice.slbackend.dto.SiteSettingsSnapshot;
 import com.datapeice.slbackend.repository.UserRepository;
 import com.datapeice.slbackend.repository.ApplicationRepository;
 import com.datapeice.slbackend.repository.WarningRepository;
@@ -39,6 +40,7 @@ public class UserService {
     private final WarningRepository warningRepository;
     private final RconService rconService;
     private final AnticheatSnapshotRepository anticheatSnapshotRepository;
+    private final DiscordIdentityResolver identityResolver;
 
     public UserService(UserRepository userRepository,
             AuditLogService auditLogService,
@@ -52,7 +54,8 @@ public class UserService {
             ApplicationRepository applicationRepository,
             WarningRepository warningRepository,
             RconService rconService,
-            AnticheatSnapshotRepository anticheatSnapshotRepository) {
+            AnticheatSnapshotRepository anticheatSnapshotRepository,
+            DiscordIdentityResolver identityResolver) {
         this.userRepository = userRepository;
         this.auditLogService = auditLogService;
         this.discordService = discordService;
@@ -66,10 +69,11 @@ public class UserService {
         this.warningRepository = warningRepository;
         this.rconService = rconService;
         this.anticheatSnapshotRepository = anticheatSnapshotRepository;
+        this.identityResolver = identityResolver;
     }
 
-    private SiteSettings getSiteSettings() {
-        return siteSettingsService.getSettings();
+    private SiteSettingsSnapshot getSiteSettings() {
+        return siteSettingsService.getSnapshot();
     }
 
     @Transactional
@@ -192,6 +196,8 @@ public class UserService {
         }
 
         User updated = userRepository.save(user);
+        // A new Discord nickname may belong to someone whose DMs were cached as unknown
+        identityResolver.forgetUser(updated);
 
         if (!changes.isEmpty()) {
             auditLogService.logAction(user.getId(), user.getUsername(), "USER_UPDATE_PROFILE",
@@ -286,27 +292,27 @@ public class UserService {
         rconService.removePlayerFromWhitelist(user.getMinecraftNickname());
 
         // Resolve Discord user ID if needed
-        if (user.getDiscordUserId() == null && discordService.isEnabled()) {
+        if (user.getDiscordUserId() == null && discordService.isConfigured()) {
             discordService.findDiscordUserId(user.getDiscordNickname())
                     .ifPresent(user::setDiscordUserId);
         }
 
         User updated = userRepository.save(user);
 
-        SiteSettings settings = getSiteSettings();
+        SiteSettingsSnapshot settings = getSiteSettings();
 
         String durationStr = (durationDays != null && durationDays > 0) ? (durationDays + " дней") : "Навсегда";
 
-        if (!silent && settings.isSendDiscordDmOnBan() && user.getDiscordUserId() != null && discordService.isEnabled()) {
-            discordService.removeSlRole(user.getDiscordUserId());
+        if (!silent && settings.isSendDiscordDmOnBan() && user.getDiscordUserId() != null && discordService.isConfigured()) {
+            discordService.removeSlRole(user.getDiscordUserId(), DiscordOutboundPriority.MODERATION);
             discordService.sendDirectMessage(user.getDiscordUserId(),
                     "🚫 **StoryLegends** — Ваш аккаунт был **заблокирован** администрацией.\n" +
                             "**Причина:** " + normalizedReason + "\n" +
                             "**Срок:** " + durationStr + "\n" +
                             "**Модератор:** " + adminName + "\n" +
-                            "***С уважением, <:slteam:1244336090928906351>***");
-        } else if (user.getDiscordUserId() != null && discordService.isEnabled()) {
-            discordService.removeSlRole(user.getDiscordUserId());
+                            "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.MODERATION);
+        } else if (user.getDiscordUserId() != null && discordService.isConfigured()) {
+            discordService.removeSlRole(user.getDiscordUserId(), DiscordOutboundPriority.MODERATION);
         }
 
         if (settings.isSendEmailOnBan()) {
@@ -331,20 +337,20 @@ public class UserService {
         rconService.addPlayerToWhitelist(user.getMinecraftNickname());
 
         // Resolve Discord user ID if needed
-        if (user.getDiscordUserId() == null && discordService.isEnabled()) {
+        if (user.getDiscordUserId() == null && discordService.isConfigured()) {
             discordService.findDiscordUserId(user.getDiscordNickname())
                     .ifPresent(user::setDiscordUserId);
         }
 
         User updated = userRepository.save(user);
 
-        if (user.getDiscordUserId() != null && discordService.isEnabled()) {
-            discordService.assignSlRole(user.getDiscordUserId());
+        if (user.getDiscordUserId() != null && discordService.isConfigured()) {
+            discordService.assignSlRole(user.getDiscordUserId(), DiscordOutboundPriority.MODERATION);
             discordService.sendDirectMessage(user.getDiscordUserId(),
                     "✅ **StoryLegends** — Ваш аккаунт был **разблокирован** администрацией.\n" +
                             "**Модератор:** " + adminName + "\n" +
                             "Добро пожаловать обратно!\n" +
-                            "***С уважением, <:slteam:1244336090928906351>***");
+                            "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.MODERATION);
         }
 
         auditLogService.logAction(adminId, adminName, "ADMIN_UNBAN_USER", "Разбанил пользователя", user.getId(),
@@ -440,7 +446,7 @@ public class UserService {
                         : request.getDiscordNickname());
             }
 
-            if (discordService.isEnabled()) {
+            if (discordService.isConfigured()) {
                 // If ID is missing or nick changed, try to find current ID
                 if (user.getDiscordUserId() == null || nickChanged) {
                     discordService.findDiscordUserId(user.getDiscordNickname())
@@ -474,8 +480,8 @@ public class UserService {
         }
 
         if (Boolean.TRUE.equals(request.getUnlinkDiscord())) {
-            if (user.getDiscordUserId() != null && discordService.isEnabled()) {
-                discordService.removeSlRole(user.getDiscordUserId());
+            if (user.getDiscordUserId() != null && discordService.isConfigured()) {
+                discordService.removeSlRole(user.getDiscordUserId(), DiscordOutboundPriority.MODERATION);
             }
             changes.add("Unlinked Discord (" + user.getDiscordNickname() + ")");
             user.setDiscordNickname(null);
@@ -516,7 +522,7 @@ public class UserService {
                 }
 
                 // Sync @SL Discord role
-                if (discordService.isEnabled()) {
+                if (discordService.isConfigured()) {
                     // Resolve Discord user ID if not yet saved
                     if (user.getDiscordUserId() == null) {
                         discordService.findDiscordUserId(user.getDiscordNickname())
@@ -524,7 +530,7 @@ public class UserService {
                     }
                     if (user.getDiscordUserId() != null) {
                         if (nowPlayer) {
-                            discordService.assignSlRole(user.getDiscordUserId());
+                            discordService.assignSlRole(user.getDiscordUserId(), DiscordOutboundPriority.APPLICATION);
                             if (!isSilent) {
                                 discordService.sendDirectMessage(user.getDiscordUserId(),
                                         "**Приветствую!**\n" +
@@ -534,16 +540,16 @@ public class UserService {
                                                 "Так-же если вы ещё не ознакомилсь с [правилами](https://www.storylegends.xyz/rules) сервера, то обязательно это сделайте!\n"
                                                 +
                                                 "**Модератор:** " + adminName + "\n" +
-                                                "***С уважением, <:slteam:1244336090928906351>***");
+                                                "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.APPLICATION);
                             }
                         } else {
-                            discordService.removeSlRole(user.getDiscordUserId());
+                            discordService.removeSlRole(user.getDiscordUserId(), DiscordOutboundPriority.MODERATION);
                             if (!isSilent) {
                                 discordService.sendDirectMessage(user.getDiscordUserId(),
                                         "**StoryLegends** — Ваш статус игрока был отозван администрацией. Роль @SL удалена.\n"
                                                 +
                                                 "**Модератор:** " + adminName + "\n" +
-                                                "**С уважением, <:slteam:1244336090928906351>**");
+                                                "**С уважением, <:slteam:1244336090928906351>**", DiscordOutboundPriority.MODERATION);
                             }
                         }
                     }
@@ -552,6 +558,7 @@ public class UserService {
         }
 
         User updated = userRepository.save(user);
+        identityResolver.forgetUser(updated);
 
         if (!changes.isEmpty()) {
             auditLogService.logAction(adminId, adminName, "ADMIN_UPDATE_USER",
@@ -627,6 +634,7 @@ public class UserService {
         user.setEmailVerified(request.isEmailVerified());
 
         User saved = userRepository.save(user);
+        identityResolver.forgetUser(saved);
 
         // Sync Discord Avatar & Role if available
         if (saved.getDiscordNickname() != null && discordService.isEnabled()) {
@@ -637,7 +645,7 @@ public class UserService {
                         syncDiscordAvatarForUser(saved);
 
                         if (saved.isPlayer()) {
-                            discordService.assignSlRole(discordId);
+                            discordService.assignSlRole(discordId, DiscordOutboundPriority.APPLICATION);
                             discordService.sendDirectMessage(discordId,
                                     "**Приветствую!**\n" +
                                             "Вам выдана роль @SL на сервере StoryLegends\n" +
@@ -646,7 +654,7 @@ public class UserService {
                                             "Так-же если вы ещё не ознакомилсь с [правилами](https://www.storylegends.xyz/rules) сервера, то обязательно это сделайте!\n"
                                             +
                                             "**Модератор:** " + adminName + "\n" +
-                                            "***С уважением, <:slteam:1244336090928906351>***");
+                                            "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.APPLICATION);
                         }
                     });
         }
@@ -756,7 +764,7 @@ public class UserService {
      * - Old full S3/MinIO URL → extracts object key, then generates fresh URL
      * - External URL (Discord CDN etc.) → returned as-is
      */
-    private String resolveAvatarUrl(String avatarUrl, String username) {
+    public String resolveAvatarUrl(String avatarUrl, String username) {
         if (avatarUrl == null || avatarUrl.isBlank()) {
             return username != null && !username.isBlank() ? username.substring(0, 1).toUpperCase() : null;
         }
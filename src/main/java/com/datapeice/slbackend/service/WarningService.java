@@ -1,7 +1,8 @@
 package com.datapeice.slbackend.service;
 
 import com.datapeice.slbackend.dto.WarningResponse;
-import com.datapeice.slbackend.entity.SiteSettings;
+import com.datapeice.slbackend.entity.DiscordOutboundPriority;
+import com.datapeice.slbackend.dto.SiteSettingsSnapshot;
 import com.datapeice.slbackend.entity.User;
 import com.datapeice.slbackend.entity.Warning;
 import com.datapeice.slbackend.repository.SiteSettingsRepository;
@@ -63,7 +64,7 @@ public class WarningService {
 
         Warning saved = warningRepository.save(warning);
 
-        SiteSettings settings = siteSettingsService.getSettings();
+        SiteSettingsSnapshot settings = siteSettingsService.getSnapshot();
 
         String durationStr = (durationDays != null && durationDays > 0) ? (durationDays + " дней") : "Навсегда";
 
@@ -77,7 +78,7 @@ public class WarningService {
                             "**Модератор:** " + (issuedBy != null ? issuedBy.getUsername() : "Система") + "\n" +
                             "**Активных предупреждений:** " + activeCount + "/" + settings.getMaxWarningsBeforeBan()
                             + "\n" +
-                            "***С уважением, <:slteam:1244336090928906351>***");
+                            "***С уважением, <:slteam:1244336090928906351>***", DiscordOutboundPriority.MODERATION);
         }
 
         if (settings.isSendEmailOnWarning()) {
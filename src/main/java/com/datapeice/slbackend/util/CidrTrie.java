@@ -0,0 +1,118 @@
+package com.datapeice.slbackend.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of IPv4/IPv6 CIDR blocks as a binary trie (one level per address bit), separate roots for
+ * the two families. {@link #contains} walks at most 32 or 128 nodes and allocates nothing.
+ * <p>
+ * Nodes live in a flat int array; fill the trie once (usually at startup) and then share it
+ * read-only.
+ */
+public final class CidrTrie {
+
+    private static final int ROOT_V4 = 0;
+    private static final int ROOT_V6 = 1;
+
+    // children[2 * node] = child for bit 0, children[2 * node + 1] = child for bit 1; 0 = none
+    private int[] children = new int[64];
+    private boolean[] terminal = new boolean[32];
+    private int nodeCount = 2;
+    private int size;
+
+    /**
+     * Adds "a.b.c.d", "a.b.c.d/n", an IPv6 address or "ipv6/n".
+     *
+     * @throws IllegalArgumentException if the entry is not a valid address or prefix
+     */
+    public CidrTrie add(String cidr) {
+        String entry = cidr.trim();
+        int slash = entry.indexOf('/');
+        IpAddress address = IpAddress.parse(entry, 0, slash < 0 ? entry.length() : slash);
+        if (address == null) {
+            throw new IllegalArgumentException("Invalid IP or CIDR: " + cidr);
+        }
+        int prefix = address.bitLength();
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(entry.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CIDR prefix: " + cidr);
+            }
+            if (prefix < 0 || prefix > address.bitLength()) {
+                throw new IllegalArgumentException("Invalid CIDR prefix: " + cidr);
+            }
+        }
+        add(address, prefix);
+        return this;
+    }
+
+    public CidrTrie addAll(Iterable<String> cidrs) {
+        for (String cidr : cidrs) {
+            add(cidr);
+        }
+        return this;
+    }
+
+    public void add(IpAddress address, int prefixLength) {
+        int node = address.v4() ? ROOT_V4 : ROOT_V6;
+        for (int depth = 0; depth < prefixLength; depth++) {
+            if (terminal[node]) {
+                return; // already covered by a shorter prefix
+            }
+            int slot = 2 * node + address.bit(depth);
+            if (children[slot] == 0) {
+                int child = newNode(); // may reallocate children, so not inline in the assignment
+                children[slot] = child;
+            }
+            node = children[slot];
+        }
+        if (!terminal[node]) {
+            terminal[node] = true;
+            size++;
+        }
+    }
+
+    private int newNode() {
+        if (nodeCount == terminal.length) {
+            terminal = Arrays.copyOf(terminal, nodeCount * 2);
+            children = Arrays.copyOf(children, nodeCount * 4);
+        }
+        return nodeCount++;
+    }
+
+    public boolean contains(IpAddress address) {
+        if (address == null) {
+            return false;
+        }
+        int node = address.v4() ? ROOT_V4 : ROOT_V6;
+        int bits = address.bitLength();
+        for (int depth = 0; ; depth++) {
+            if (terminal[node]) {
+                return true;
+            }
+            if (depth == bits) {
+                return false;
+            }
+            node = children[2 * node + address.bit(depth)];
+            if (node == 0) {
+                return false;
+            }
+        }
+    }
+
+    public boolean contains(CharSequence ip) {
+        return contains(IpAddress.parse(ip));
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Number of distinct blocks added (blocks inside a shorter one added first don't count).
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,169 @@
+package com.datapeice.slbackend.util;
+
+import io.github.bucket4j.Bucket;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded per-key Bucket4j store for rate limiting by client IP.
+ * <p>
+ * A bucket whose key has not been used for {@code idleTtl} (the time it takes to refill
+ * completely) is indistinguishable from a new one, so it is dropped and recreated on demand.
+ * On top of that the store never holds more than {@code maxEntries} buckets: when full, the least
+ * recently used one is evicted. A flood of distinct IPs therefore costs a fixed amount of heap and
+ * at worst lets an evicted client start over with a full bucket.
+ * <p>
+ * Keys are spread over independently locked stripes, each an access-ordered {@link LinkedHashMap}.
+ */
+public final class ExpiringBucketStore {
+
+    private static final int STRIPES = 16;
+    // Rough retained size of one entry: map node + IP string key + single-bandwidth bucket + timestamp
+    private static final int ESTIMATED_ENTRY_BYTES = 320;
+
+    private final String name;
+    private final int maxEntries;
+    private final long idleTtlNanos;
+    private final Supplier<Bucket> factory;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private static final class Entry {
+        final Bucket bucket;
+        long lastAccessNanos;
+
+        Entry(Bucket bucket, long now) {
+            this.bucket = bucket;
+            this.lastAccessNanos = now;
+        }
+    }
+
+    private final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final int capacity;
+        final LinkedHashMap<String, Entry> map;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > Stripe.this.capacity) {
+                        evicted.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    public ExpiringBucketStore(String name, int maxEntries, Duration idleTtl, Supplier<Bucket> factory) {
+        if (maxEntries < STRIPES) {
+            throw new IllegalArgumentException("maxEntries must be at least " + STRIPES);
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.factory = factory;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxEntries / STRIPES);
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * The bucket for this key, creating a fresh one if it is new, expired or was evicted.
+     */
+    public Bucket get(String key) {
+        Stripe stripe = stripeFor(key);
+        long now = System.nanoTime();
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.map.get(key);
+            if (entry != null && now - entry.lastAccessNanos < idleTtlNanos) {
+                entry.lastAccessNanos = now;
+                hits.incrementAndGet();
+                return entry.bucket;
+            }
+            if (entry != null) {
+                expired.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            Entry created = new Entry(factory.get(), now);
+            stripe.map.put(key, created);
+            return created.bucket;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every bucket that has refilled completely. Entries are in access order and share one
+     * TTL, so each stripe is scanned only up to its first live entry.
+     */
+    public int sweep() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Entry> it = stripe.map.values().iterator();
+                while (it.hasNext()) {
+                    if (now - it.next().lastAccessNanos < idleTtlNanos) {
+                        break;
+                    }
+                    it.remove();
+                    removed++;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        expired.addAndGet(removed);
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.map.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public Map<String, Object> getStats() {
+        int size = size();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("entries", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("occupancy", (double) size / maxEntries);
+        stats.put("estimatedBytes", (long) size * ESTIMATED_ENTRY_BYTES);
+        stats.put("maxEstimatedBytes", (long) maxEntries * ESTIMATED_ENTRY_BYTES);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("expired", expired.get());
+        stats.put("evicted", evicted.get());
+        return stats;
+    }
+}
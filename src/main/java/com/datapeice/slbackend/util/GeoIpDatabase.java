@@ -0,0 +1,219 @@
+package com.datapeice.slbackend.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only IPv4 range -> location table in a memory-mapped file.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int magic, int rangeCount, int locationCount
+ * rangeCount x (int start, int end, int locationIndex)   sorted by start, unsigned, non-overlapping
+ * locationCount x int offset                              into the UTF-8 blob below
+ * locationCount x (short length, byte[length])            "CC,City"
+ * </pre>
+ * Lookups are a binary search over the mapped ranges with absolute reads, so the table is never
+ * copied onto the heap and concurrent readers need no locking. Build a file from CSV with
+ * {@link #compileCsv}.
+ */
+public final class GeoIpDatabase {
+
+    private static final int MAGIC = 0x534C4731; // "SLG1"
+    private static final int HEADER_BYTES = 12;
+    private static final int RANGE_BYTES = 12;
+
+    private final MappedByteBuffer buffer;
+    private final int rangeCount;
+    private final int locationCount;
+    private final int offsetsStart;
+    private final int blobStart;
+
+    private GeoIpDatabase(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a GeoIP database file");
+        }
+        this.rangeCount = buffer.getInt(4);
+        this.locationCount = buffer.getInt(8);
+        this.offsetsStart = HEADER_BYTES + rangeCount * RANGE_BYTES;
+        this.blobStart = offsetsStart + locationCount * 4;
+        if (rangeCount < 0 || locationCount < 0 || blobStart > buffer.capacity()) {
+            throw new IllegalArgumentException("Corrupt GeoIP database file");
+        }
+    }
+
+    public static GeoIpDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new GeoIpDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * "CC,City" for an IPv4 address (plain or IPv4-mapped IPv6), or null if it is not covered or
+     * not IPv4.
+     */
+    public String lookup(String ip) {
+        IpAddress parsed = IpAddress.parse(ip);
+        if (parsed == null || !parsed.v4()) {
+            return null;
+        }
+        long address = parsed.lo();
+        int lo = 0;
+        int hi = rangeCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int base = HEADER_BYTES + mid * RANGE_BYTES;
+            long start = Integer.toUnsignedLong(buffer.getInt(base));
+            long end = Integer.toUnsignedLong(buffer.getInt(base + 4));
+            if (address < start) {
+                hi = mid - 1;
+            } else if (address > end) {
+                lo = mid + 1;
+            } else {
+                return location(buffer.getInt(base + 8));
+            }
+        }
+        return null;
+    }
+
+    private String location(int index) {
+        if (index < 0 || index >= locationCount) {
+            return null;
+        }
+        int pos = blobStart + buffer.getInt(offsetsStart + index * 4);
+        int length = Short.toUnsignedInt(buffer.getShort(pos));
+        byte[] bytes = new byte[length];
+        buffer.get(pos + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+    /**
+     * IPv4 address as an unsigned 32-bit value, or -1 if the string is not a dotted IPv4 address.
+     */
+    public static long parseIpv4(String ip) {
+        return ip == null ? -1 : IpAddress.parseIpv4(ip, 0, ip.length());
+    }
+
+    /**
+     * Builds a database file from CSV lines {@code network,countryCode,city} where network is a
+     * CIDR block ({@code 5.8.0.0/19}) or a range ({@code 5.8.0.0-5.8.31.255}). Blank lines and
+     * lines starting with '#' are skipped. Overlapping ranges are rejected.
+     */
+    public static void compileCsv(Path csv, Path out) throws IOException {
+        record Range(long start, long end, int location) {
+        }
+        List<Range> ranges = new ArrayList<>();
+        Map<String, Integer> locationIndex = new HashMap<>();
+        List<String> locations = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",", 3);
+                if (parts.length < 3) {
+                    throw new IllegalArgumentException("GeoIP CSV line " + lineNo + ": expected network,country,city");
+                }
+                long[] bounds = parseNetwork(parts[0].trim());
+                if (bounds == null) {
+                    throw new IllegalArgumentException("GeoIP CSV line " + lineNo + ": bad network " + parts[0]);
+                }
+                String location = parts[1].trim() + "," + parts[2].trim();
+                int index = locationIndex.computeIfAbsent(location, l -> {
+                    locations.add(l);
+                    return locations.size() - 1;
+                });
+                ranges.add(new Range(bounds[0], bounds[1], index));
+            }
+        }
+        ranges.sort((a, b) -> Long.compare(a.start(), b.start()));
+        for (int i = 1; i < ranges.size(); i++) {
+            if (ranges.get(i).start() <= ranges.get(i - 1).end()) {
+                throw new IllegalArgumentException("GeoIP CSV: overlapping ranges at " + ranges.get(i).start());
+            }
+        }
+
+        Path tmp = Files.createTempFile(out.toAbsolutePath().getParent(), "geoip", ".tmp");
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(file))) {
+            data.writeInt(MAGIC);
+            data.writeInt(ranges.size());
+            data.writeInt(locations.size());
+            for (Range range : ranges) {
+                data.writeInt((int) range.start());
+                data.writeInt((int) range.end());
+                data.writeInt(range.location());
+            }
+            List<byte[]> encoded = new ArrayList<>(locations.size());
+            int offset = 0;
+            for (String location : locations) {
+                byte[] bytes = location.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    throw new IllegalArgumentException("GeoIP CSV: location too long");
+                }
+                encoded.add(bytes);
+                data.writeInt(offset);
+                offset += 2 + bytes.length;
+            }
+            for (byte[] bytes : encoded) {
+                data.writeShort(bytes.length);
+                data.write(bytes);
+            }
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long[] parseNetwork(String network) {
+        int slash = network.indexOf('/');
+        if (slash >= 0) {
+            long base = parseIpv4(network.substring(0, slash));
+            int prefix;
+            try {
+                prefix = Integer.parseInt(network.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (base < 0 || prefix < 0 || prefix > 32) {
+                return null;
+            }
+            long mask = prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+            long start = base & mask;
+            return new long[]{start, start | (~mask & 0xFFFFFFFFL)};
+        }
+        int dash = network.indexOf('-');
+        if (dash >= 0) {
+            long start = parseIpv4(network.substring(0, dash).trim());
+            long end = parseIpv4(network.substring(dash + 1).trim());
+            return start < 0 || end < start ? null : new long[]{start, end};
+        }
+        long single = parseIpv4(network);
+        return single < 0 ? null : new long[]{single, single};
+    }
+}
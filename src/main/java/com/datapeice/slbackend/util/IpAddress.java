@@ -0,0 +1,223 @@
+package com.datapeice.slbackend.util;
+
+/**
+ * An IPv4 or IPv6 address as primitives, parsed in one pass without splitting or regexes.
+ * <p>
+ * IPv4 addresses (including IPv4-mapped IPv6 ones like {@code ::ffff:1.2.3.4}) are stored in the
+ * low 32 bits of {@code lo} with {@code v4 = true}; IPv6 addresses use all 128 bits of
+ * {@code hi:lo}.
+ */
+public record IpAddress(long hi, long lo, boolean v4) {
+
+    private static final long V4_MAPPED_PREFIX = 0x0000_FFFF_0000_0000L;
+
+    public int bitLength() {
+        return v4 ? 32 : 128;
+    }
+
+    /**
+     * Bit {@code index} counted from the most significant bit.
+     */
+    public int bit(int index) {
+        if (v4) {
+            return (int) (lo >>> (31 - index)) & 1;
+        }
+        return index < 64 ? (int) (hi >>> (63 - index)) & 1 : (int) (lo >>> (127 - index)) & 1;
+    }
+
+    /**
+     * Canonical text: dotted IPv4, or IPv6 as in RFC 5952 (lower case, no leading zeros, the
+     * longest run of two or more zero groups written as {@code ::}).
+     */
+    public String format() {
+        if (v4) {
+            return (lo >>> 24 & 0xFF) + "." + (lo >>> 16 & 0xFF) + "." + (lo >>> 8 & 0xFF) + "." + (lo & 0xFF);
+        }
+        int[] groups = new int[8];
+        for (int k = 0; k < 8; k++) {
+            groups[k] = (int) ((k < 4 ? hi : lo) >>> (48 - 16 * (k % 4))) & 0xFFFF;
+        }
+        int gapAt = -1;
+        int gapLength = 1;
+        for (int k = 0; k < 8; ) {
+            int run = k;
+            while (run < 8 && groups[run] == 0) {
+                run++;
+            }
+            if (run - k > gapLength) {
+                gapAt = k;
+                gapLength = run - k;
+            }
+            k = Math.max(run, k + 1);
+        }
+        StringBuilder text = new StringBuilder(39);
+        for (int k = 0; k < 8; k++) {
+            if (k == gapAt) {
+                text.append("::");
+                k += gapLength - 1;
+                continue;
+            }
+            if (!text.isEmpty() && text.charAt(text.length() - 1) != ':') {
+                text.append(':');
+            }
+            text.append(Integer.toHexString(groups[k]));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Parses an address, optionally in brackets and with an IPv6 zone ({@code fe80::1%eth0}).
+     * Surrounding whitespace is ignored. Returns null if the text is not an IP address.
+     */
+    public static IpAddress parse(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        return parse(text, 0, text.length());
+    }
+
+    public static IpAddress parse(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end - start >= 2 && s.charAt(start) == '[' && s.charAt(end - 1) == ']') {
+            start++;
+            end--;
+        }
+        if (start >= end) {
+            return null;
+        }
+        boolean colon = false;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == ':') {
+                colon = true;
+            } else if (c == '%') {
+                end = i; // zone id
+                break;
+            }
+        }
+        if (!colon) {
+            long v4 = parseIpv4(s, start, end);
+            return v4 < 0 ? null : new IpAddress(0, v4, true);
+        }
+        return parseIpv6(s, start, end);
+    }
+
+    /**
+     * Dotted IPv4 as an unsigned 32-bit value, or -1.
+     */
+    public static long parseIpv4(CharSequence s, int start, int end) {
+        long result = 0;
+        int octets = 0;
+        int value = -1;
+        int digits = 0;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? s.charAt(i) : '.';
+            if (c == '.') {
+                if (value < 0 || ++octets > 4) {
+                    return -1;
+                }
+                result = (result << 8) | value;
+                value = -1;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && ++digits <= 3) {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        return octets == 4 ? result : -1;
+    }
+
+    private static IpAddress parseIpv6(CharSequence s, int start, int end) {
+        int[] groups = new int[8];
+        int count = 0;
+        int gapAt = -1; // group index where "::" stands
+        int i = start;
+
+        if (s.charAt(i) == ':') {
+            if (end - i < 2 || s.charAt(i + 1) != ':') {
+                return null;
+            }
+            gapAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            int j = i;
+            int value = 0;
+            while (j < end && j - i < 4) {
+                int digit = Character.digit(s.charAt(j), 16);
+                if (digit < 0) {
+                    break;
+                }
+                value = (value << 4) | digit;
+                j++;
+            }
+            if (j < end && s.charAt(j) == '.') {
+                // Trailing embedded IPv4, takes two groups
+                long v4 = parseIpv4(s, i, end);
+                if (v4 < 0 || count > 6) {
+                    return null;
+                }
+                groups[count++] = (int) (v4 >>> 16);
+                groups[count++] = (int) (v4 & 0xFFFF);
+                i = end;
+                break;
+            }
+            if (j == i || count == 8) {
+                return null;
+            }
+            groups[count++] = value;
+            if (j == end) {
+                i = end;
+                break;
+            }
+            if (s.charAt(j) != ':') {
+                return null;
+            }
+            j++;
+            if (j < end && s.charAt(j) == ':') {
+                if (gapAt >= 0) {
+                    return null;
+                }
+                gapAt = count;
+                j++;
+            } else if (j == end) {
+                return null; // single trailing colon
+            }
+            i = j;
+        }
+
+        if (gapAt >= 0 ? count > 7 : count != 8) {
+            return null;
+        }
+        long hi = 0;
+        long lo = 0;
+        int zeros = 8 - count;
+        int g = 0;
+        for (int k = 0; k < 8; k++) {
+            int value;
+            if (gapAt >= 0 && k >= gapAt && k < gapAt + zeros) {
+                value = 0;
+            } else {
+                value = groups[g++];
+            }
+            if (k < 4) {
+                hi = (hi << 16) | value;
+            } else {
+                lo = (lo << 16) | value;
+            }
+        }
+        if (hi == 0 && (lo & 0xFFFF_FFFF_0000_0000L) == V4_MAPPED_PREFIX) {
+            return new IpAddress(0, lo & 0xFFFF_FFFFL, true);
+        }
+        return new IpAddress(hi, lo, false);
+    }
+}
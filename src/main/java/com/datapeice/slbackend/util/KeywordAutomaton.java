@@ -0,0 +1,216 @@
+package com.datapeice.slbackend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Aho–Corasick automaton over a fixed set of keywords.
+ * <p>
+ * Finds every keyword occurring in a text in a single left-to-right pass, no matter how many
+ * keywords there are. Matching is case-insensitive: keywords and input are folded char by char
+ * with {@link Character#toLowerCase(char)}, so the input never has to be lowercased into a copy.
+ * Instances are immutable after construction and safe to share between threads.
+ */
+public final class KeywordAutomaton {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    /**
+     * Receives every match found by {@link #scan}.
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+        /**
+         * @param keywordId index of the keyword in the constructor list
+         * @param end       index just past the last char of the match in the scanned text
+         * @return true to stop scanning
+         */
+        boolean onMatch(int keywordId, int end);
+    }
+
+    // Per state: sorted edge labels and their target states
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    // Keyword ids that end in this state, including those reached through failure links
+    private final int[][] output;
+    private final int keywordCount;
+
+    /**
+     * @param keywords keyword id = index in this list; blank entries never match
+     */
+    public KeywordAutomaton(List<String> keywords) {
+        this.keywordCount = keywords.size();
+
+        List<char[]> chars = new ArrayList<>();
+        List<int[]> targets = new ArrayList<>();
+        List<int[]> outputs = new ArrayList<>();
+        chars.add(new char[0]);
+        targets.add(new int[0]);
+        outputs.add(NO_OUTPUT);
+
+        for (int id = 0; id < keywords.size(); id++) {
+            String keyword = keywords.get(id);
+            if (keyword == null || keyword.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                int next = find(chars.get(state), targets.get(state), c);
+                if (next < 0) {
+                    next = chars.size();
+                    chars.add(new char[0]);
+                    targets.add(new int[0]);
+                    outputs.add(NO_OUTPUT);
+                    insertEdge(chars, targets, state, c, next);
+                }
+                state = next;
+            }
+            outputs.set(state, append(outputs.get(state), id));
+        }
+
+        int stateCount = chars.size();
+        this.edgeChars = chars.toArray(new char[0][]);
+        this.edgeTargets = targets.toArray(new int[0][]);
+        this.output = outputs.toArray(new int[0][]);
+        this.fail = new int[stateCount];
+
+        // Breadth-first so a state's failure target is always finished before the state itself
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            fail[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = 0; e < edgeChars[state].length; e++) {
+                char c = edgeChars[state][e];
+                int child = edgeTargets[state][e];
+                int f = fail[state];
+                int next;
+                while ((next = find(edgeChars[f], edgeTargets[f], c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = next >= 0 && next != child ? next : 0;
+                if (output[fail[child]].length > 0) {
+                    output[child] = merge(output[child], output[fail[child]]);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private static void insertEdge(List<char[]> chars, List<int[]> targets, int state, char c, int next) {
+        char[] oldChars = chars.get(state);
+        int[] oldTargets = targets.get(state);
+        int pos = -(Arrays.binarySearch(oldChars, c) + 1);
+        char[] newChars = new char[oldChars.length + 1];
+        int[] newTargets = new int[oldTargets.length + 1];
+        System.arraycopy(oldChars, 0, newChars, 0, pos);
+        System.arraycopy(oldTargets, 0, newTargets, 0, pos);
+        newChars[pos] = c;
+        newTargets[pos] = next;
+        System.arraycopy(oldChars, pos, newChars, pos + 1, oldChars.length - pos);
+        System.arraycopy(oldTargets, pos, newTargets, pos + 1, oldTargets.length - pos);
+        chars.set(state, newChars);
+        targets.set(state, newTargets);
+    }
+
+    private static int find(char[] keys, int[] values, char c) {
+        int i = Arrays.binarySearch(keys, c);
+        return i >= 0 ? values[i] : -1;
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int next = find(edgeChars[state], edgeTargets[state], c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * Ids of all keywords that occur in the text.
+     */
+    public BitSet findAll(CharSequence text) {
+        BitSet found = new BitSet(keywordCount);
+        if (text == null) {
+            return found;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            for (int id : output[state]) {
+                found.set(id);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * True if any keyword occurs in the text. Stops at the first hit.
+     */
+    public boolean containsAny(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            if (output[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports every keyword occurrence with its position, left to right by end index.
+     *
+     * @return true if the handler stopped the scan
+     */
+    public boolean scan(CharSequence text, MatchHandler handler) {
+        if (text == null) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            for (int id : output[state]) {
+                if (handler.onMatch(id, i + 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    public int getStateCount() {
+        return fail.length;
+    }
+}
@@ -0,0 +1,208 @@
+package com.datapeice.slbackend.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Banned-word matcher compiled once from a word list; every check is a few linear passes over the
+ * text, however long the list is.
+ * <p>
+ * Two rules, both backed by a {@link KeywordAutomaton}:
+ * <ul>
+ *     <li>Plain words (3+ chars) are searched in the lowercased text. Words of 3-5 chars must stand
+ *     alone, with the same boundary rule as {@code \b} under {@code UNICODE_CHARACTER_CLASS};
+ *     longer words match anywhere.</li>
+ *     <li>"Smart" words are reduced to Latin/Cyrillic letters and matched with repeated-letter
+ *     tolerance (like {@code a+b+c+}) against two normalised forms of the text: letters only, and
+ *     letters after undoing digit/symbol and Latin lookalike substitutions ({@code п0дм3на}).
+ *     Repeats are handled by collapsing letter runs on both sides and checking run lengths.</li>
+ * </ul>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class ToxicityMatcher {
+
+    public enum Kind { STANDALONE_WORD, SUBSTRING, SMART_PATTERN }
+
+    public record Hit(Kind kind, String word) {
+    }
+
+    // Normalisation tables indexed by (lowercase) char; 0 = drop. Chars past the end are dropped too.
+    private static final char[] LETTERS = new char['ё' + 1];
+    private static final char[] HOMOGLYPHS;
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            LETTERS[c] = c;
+        }
+        for (char c = 'а'; c <= 'я'; c++) {
+            LETTERS[c] = c;
+        }
+        LETTERS['ё'] = 'ё';
+
+        HOMOGLYPHS = LETTERS.clone();
+        String symbols = "@0346$!1";
+        String symbolLetters = "аозчбсии";
+        for (int i = 0; i < symbols.length(); i++) {
+            HOMOGLYPHS[symbols.charAt(i)] = symbolLetters.charAt(i);
+        }
+        String latin = "aoecpxykmhtbu";
+        String cyrillic = "аоесрхукмнтви";
+        for (int i = 0; i < latin.length(); i++) {
+            HOMOGLYPHS[latin.charAt(i)] = cyrillic.charAt(i);
+        }
+    }
+
+    private final KeywordAutomaton wordAutomaton;
+    private final String[] words;
+    private final boolean[] standaloneOnly;
+
+    private final KeywordAutomaton smartAutomaton;
+    private final String[] smartWords;
+    private final int[] smartRunCounts;
+    // Minimum length of each letter run per smart word; null when every run is a single letter
+    private final int[][] smartMinRuns;
+
+    /**
+     * @param bannedWords            lowercased, trimmed words
+     * @param smartPatternMinLength  words at least this long also get a repeated-letter-tolerant rule
+     */
+    public ToxicityMatcher(Collection<String> bannedWords, int smartPatternMinLength) {
+        List<String> plain = new ArrayList<>();
+        List<String> smart = new ArrayList<>();
+        List<String> smartSources = new ArrayList<>();
+        List<int[]> smartRuns = new ArrayList<>();
+
+        for (String word : bannedWords) {
+            // 1-2 chars would flag half of all texts
+            if (word.length() > 2) {
+                plain.add(word);
+            }
+            if (word.length() >= smartPatternMinLength) {
+                StringBuilder collapsed = new StringBuilder();
+                List<Integer> runs = new ArrayList<>();
+                for (int i = 0; i < word.length(); i++) {
+                    char c = word.charAt(i);
+                    if (c >= LETTERS.length || LETTERS[c] == 0) {
+                        continue;
+                    }
+                    if (!collapsed.isEmpty() && collapsed.charAt(collapsed.length() - 1) == c) {
+                        runs.set(runs.size() - 1, runs.get(runs.size() - 1) + 1);
+                    } else {
+                        collapsed.append(c);
+                        runs.add(1);
+                    }
+                }
+                if (collapsed.isEmpty()) {
+                    continue;
+                }
+                smart.add(collapsed.toString());
+                smartSources.add(word);
+                smartRuns.add(runs.stream().anyMatch(r -> r > 1)
+                        ? runs.stream().mapToInt(Integer::intValue).toArray() : null);
+            }
+        }
+
+        this.wordAutomaton = new KeywordAutomaton(plain);
+        this.words = plain.toArray(new String[0]);
+        this.standaloneOnly = new boolean[words.length];
+        for (int i = 0; i < words.length; i++) {
+            // Short words (3-5 chars) are often parts of harmless words
+            standaloneOnly[i] = words[i].length() <= 5;
+        }
+
+        this.smartAutomaton = new KeywordAutomaton(smart);
+        this.smartWords = smartSources.toArray(new String[0]);
+        this.smartRunCounts = smart.stream().mapToInt(String::length).toArray();
+        this.smartMinRuns = smartRuns.toArray(new int[0][]);
+    }
+
+    /**
+     * First banned word found in the text, or null.
+     */
+    public Hit find(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        String lower = text.toLowerCase();
+
+        Hit[] hit = new Hit[1];
+        wordAutomaton.scan(lower, (id, end) -> {
+            String word = words[id];
+            if (standaloneOnly[id] && !isStandalone(lower, end - word.length(), end)) {
+                return false;
+            }
+            hit[0] = new Hit(standaloneOnly[id] ? Kind.STANDALONE_WORD : Kind.SUBSTRING, word);
+            return true;
+        });
+        if (hit[0] != null) {
+            return hit[0];
+        }
+
+        Hit smartHit = findSmart(lower, LETTERS);
+        return smartHit != null ? smartHit : findSmart(lower, HOMOGLYPHS);
+    }
+
+    private Hit findSmart(String lower, char[] table) {
+        StringBuilder runs = new StringBuilder(lower.length());
+        int[] runLengths = new int[lower.length()];
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            char mapped = c < table.length ? table[c] : 0;
+            if (mapped == 0) {
+                continue;
+            }
+            if (!runs.isEmpty() && runs.charAt(runs.length() - 1) == mapped) {
+                runLengths[runs.length() - 1]++;
+            } else {
+                runLengths[runs.length()] = 1;
+                runs.append(mapped);
+            }
+        }
+
+        Hit[] hit = new Hit[1];
+        smartAutomaton.scan(runs, (id, end) -> {
+            int[] minRuns = smartMinRuns[id];
+            if (minRuns != null) {
+                int start = end - smartRunCounts[id];
+                for (int r = 0; r < minRuns.length; r++) {
+                    if (runLengths[start + r] < minRuns[r]) {
+                        return false;
+                    }
+                }
+            }
+            hit[0] = new Hit(Kind.SMART_PATTERN, smartWords[id]);
+            return true;
+        });
+        return hit[0];
+    }
+
+    private static boolean isStandalone(String text, int start, int end) {
+        return isBoundary(text, start) && isBoundary(text, end);
+    }
+
+    // Same rule as java.util.regex \b with UNICODE_CHARACTER_CLASS
+    private static boolean isBoundary(String text, int index) {
+        boolean left = index > 0 && isWordChar(text.codePointBefore(index));
+        boolean right = index < text.length() && isWordChar(text.codePointAt(index));
+        return left != right;
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        if (Character.isAlphabetic(codePoint) || codePoint == 0x200C || codePoint == 0x200D) {
+            return true;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK
+                || type == Character.COMBINING_SPACING_MARK || type == Character.DECIMAL_DIGIT_NUMBER
+                || type == Character.CONNECTOR_PUNCTUATION;
+    }
+
+    public int getWordCount() {
+        return words.length;
+    }
+
+    public int getSmartWordCount() {
+        return smartWords.length;
+    }
+}
@@ -0,0 +1,280 @@
+package com.datapeice.slbackend.config;
+
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.entity.UserRole;
+import com.datapeice.slbackend.security.ClientIpResolver;
+import com.datapeice.slbackend.security.JwtCore;
+import com.datapeice.slbackend.security.StompAuthChannelInterceptor;
+import com.datapeice.slbackend.service.CustomUserDetailsService;
+import com.datapeice.slbackend.service.MessengerEventPublisher;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketMessagingAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The real WebSocketConfig, StompAuthChannelInterceptor and MessengerEventPublisher on an embedded
+ * Tomcat with the in-memory broker; JWT checks and the user lookup are stubbed (the token is the
+ * username). Many admin sessions subscribe to the inbox, one conversation and their own queue,
+ * and every event has to reach every subscriber exactly as addressed. Clients offer
+ * permessage-deflate like browsers do, and every session must have negotiated it.
+ */
+@SpringBootTest(classes = MessengerWebSocketLoadTest.TestApp.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"websocket.auth.required=false", "messenger.websocket.coalesce-ms=25",
+                "spring.main.banner-mode=off"})
+class MessengerWebSocketLoadTest {
+
+    private static final int ADMINS = 200;
+    private static final int CONVERSATIONS = 50;
+    private static final int EVENTS_PER_CONVERSATION = 20;
+
+    @Configuration
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebSocketServletAutoConfiguration.class, WebSocketMessagingAutoConfiguration.class,
+            JacksonAutoConfiguration.class})
+    @Import({WebSocketConfig.class, WebSocketTrafficStats.class, StompAuthChannelInterceptor.class,
+            MessengerEventPublisher.class, ClientIpResolver.class})
+    static class TestApp {
+
+        @Bean
+        JwtCore jwtCore() {
+            JwtCore jwtCore = mock(JwtCore.class);
+            when(jwtCore.getUsernameFromToken(anyString())).thenAnswer(inv -> inv.getArgument(0));
+            when(jwtCore.validateToken(anyString(), any(), any(), any())).thenReturn(true);
+            return jwtCore;
+        }
+
+        @Bean
+        CustomUserDetailsService customUserDetailsService() {
+            CustomUserDetailsService service = mock(CustomUserDetailsService.class);
+            when(service.loadUserByUsername(anyString())).thenAnswer(inv -> {
+                String username = inv.getArgument(0);
+                User user = new User();
+                user.setUsername(username);
+                user.setRole(username.startsWith("admin") ? UserRole.ROLE_ADMIN : UserRole.ROLE_USER);
+                return user;
+            });
+            return service;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MessengerEventPublisher publisher;
+
+    @Autowired
+    private WebSocketTrafficStats trafficStats;
+
+    private final List<StompSession> sessions = new ArrayList<>();
+    private WebSocketStompClient stompClient;
+
+    @AfterEach
+    void tearDown() {
+        sessions.stream().filter(StompSession::isConnected).forEach(StompSession::disconnect);
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+    }
+
+    @Test
+    void anonymousSessionsCannotReadMessengerTopics() throws Exception {
+        assertThat(subscribeError(null, MessengerEventPublisher.INBOX_TOPIC)).contains("Нет доступа");
+        assertThat(subscribeError(null, MessengerEventPublisher.CONVERSATION_TOPIC_PREFIX + 7)).contains("Нет доступа");
+        assertThat(subscribeError("player", MessengerEventPublisher.INBOX_TOPIC)).contains("Нет доступа");
+        assertThat(subscribeError(null, MessengerEventPublisher.LEGACY_TOPIC)).contains("Нет доступа");
+
+        // The old catch-all topic carries the same messages, so it is staff-only as well
+        AtomicInteger legacyFrames = new AtomicInteger();
+        StompSession admin = connect("admin-legacy", new StompSessionHandlerAdapter() {
+        });
+        admin.subscribe(MessengerEventPublisher.LEGACY_TOPIC, counting(payload -> legacyFrames.incrementAndGet()));
+        awaitTrue(() -> {
+            publisher.conversationRead(7L);
+            return legacyFrames.get() > 0;
+        });
+    }
+
+    @Test
+    void manyAdminSessionsReceiveEveryEventOnce() throws Exception {
+        List<AdminClient> admins = new ArrayList<>();
+        for (int i = 0; i < ADMINS; i++) {
+            admins.add(new AdminClient("admin" + i, 1 + i % CONVERSATIONS));
+        }
+
+        // Subscriptions are registered asynchronously: poke every destination until each session hears it
+        awaitTrue(() -> {
+            publisher.inboxChanged(0L, null);
+            for (long conversation = 1; conversation <= CONVERSATIONS; conversation++) {
+                publisher.conversationRead(conversation);
+            }
+            admins.forEach(a -> publisher.deliveryStatus(a.username, 0L, 0L, true, null));
+            return admins.stream().allMatch(AdminClient::warmedUp);
+        });
+        Thread.sleep(300); // let the last warm-up frames drain
+        admins.forEach(AdminClient::reset);
+
+        for (int round = 0; round < EVENTS_PER_CONVERSATION; round++) {
+            for (long conversation = 1; conversation <= CONVERSATIONS; conversation++) {
+                publisher.conversationRead(conversation);
+                publisher.inboxChanged(conversation, null);
+            }
+        }
+        for (int i = 0; i < ADMINS; i++) {
+            publisher.deliveryStatus(admins.get(i).username, 1L, 1000L + i, true, null);
+        }
+        awaitTrue(() -> admins.stream().allMatch(a -> a.conversationEvents.get() >= EVENTS_PER_CONVERSATION
+                && a.inboxIds.size() >= CONVERSATIONS && !a.deliveredIds.isEmpty()));
+        Thread.sleep(200); // anything late or misaddressed would show up now
+        for (int i = 0; i < ADMINS; i++) {
+            AdminClient admin = admins.get(i);
+            assertThat(admin.conversationEvents.get()).as(admin.username).isEqualTo(EVENTS_PER_CONVERSATION);
+            assertThat(admin.inboxIds).as(admin.username).hasSize(CONVERSATIONS);
+            assertThat(admin.deliveredIds).as(admin.username).containsExactly(1000L + i);
+            assertThat(admin.errors).as(admin.username).isEmpty();
+        }
+        // Sessions of the other test may still be closing, and they offered deflate too
+        assertThat((Integer) trafficStats.getStats().get("deflateSessions")).isGreaterThanOrEqualTo(ADMINS);
+    }
+
+    private final class AdminClient {
+        final String username;
+        final AtomicInteger conversationEvents = new AtomicInteger();
+        final Set<Long> inboxIds = ConcurrentHashMap.newKeySet();
+        final Set<Long> deliveredIds = ConcurrentHashMap.newKeySet();
+        final List<String> errors = new ArrayList<>();
+
+        AdminClient(String username, long conversation) throws Exception {
+            this.username = username;
+            StompSession session = connect(username, new StompSessionHandlerAdapter() {
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    synchronized (errors) {
+                        errors.add(headers.getFirst("message"));
+                    }
+                }
+            });
+            session.subscribe(MessengerEventPublisher.INBOX_TOPIC,
+                    counting(row -> inboxIds.add(row.get("recipientUserId").asLong())));
+            session.subscribe(MessengerEventPublisher.CONVERSATION_TOPIC_PREFIX + conversation,
+                    counting(event -> conversationEvents.incrementAndGet()));
+            session.subscribe("/user" + MessengerEventPublisher.ADMIN_QUEUE,
+                    counting(status -> deliveredIds.add(status.get("messageId").asLong())));
+        }
+
+        boolean warmedUp() {
+            return conversationEvents.get() > 0 && inboxIds.contains(0L) && deliveredIds.contains(0L);
+        }
+
+        void reset() {
+            conversationEvents.set(0);
+            inboxIds.clear();
+            deliveredIds.clear();
+        }
+    }
+
+    /**
+     * Frame handler that feeds each event to {@code consumer}; conversation and inbox frames carry
+     * a JSON array of events, the other destinations a single object.
+     */
+    private static StompFrameHandler counting(Consumer<JsonNode> consumer) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return JsonNode.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                JsonNode frame = (JsonNode) payload;
+                if (frame.isArray()) {
+                    frame.forEach(consumer);
+                } else {
+                    consumer.accept(frame);
+                }
+            }
+        };
+    }
+
+    private String subscribeError(String token, String destination) throws Exception {
+        CompletableFuture<String> error = new CompletableFuture<>();
+        StompSession session = connect(token, new StompSessionHandlerAdapter() {
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                error.complete(headers.getFirst("message"));
+            }
+        });
+        session.subscribe(destination, counting(event -> error.complete("received " + event)));
+        return error.get(10, TimeUnit.SECONDS);
+    }
+
+    private StompSession connect(String token, StompSessionHandlerAdapter handler) throws Exception {
+        if (stompClient == null) {
+            ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+            scheduler.initialize();
+            stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+            stompClient.setTaskScheduler(scheduler);
+        }
+        StompHeaders connectHeaders = new StompHeaders();
+        if (token != null) {
+            connectHeaders.add("Authorization", "Bearer " + token);
+        }
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.setSecWebSocketExtensions(List.of(new WebSocketExtension("permessage-deflate")));
+        StompSession session = stompClient.connectAsync("ws://localhost:" + port + "/ws/admin",
+                handshakeHeaders, connectHeaders, handler).get(10, TimeUnit.SECONDS);
+        synchronized (sessions) {
+            sessions.add(session);
+        }
+        return session;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
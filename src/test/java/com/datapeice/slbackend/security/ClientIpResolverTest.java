@@ -0,0 +1,82 @@
+package com.datapeice.slbackend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientIpResolverTest {
+
+    @Test
+    void byDefaultOnlyPrivatePeersMayForward() {
+        ClientIpResolver resolver = new ClientIpResolver("");
+
+        assertThat(resolver.resolve("203.0.113.5", "1.1.1.1", "2.2.2.2")).isEqualTo("203.0.113.5");
+        assertThat(resolver.resolve("10.1.2.3", null, "2.2.2.2")).isEqualTo("2.2.2.2");
+        assertThat(resolver.resolve("10.1.2.3", null, "6.6.6.6, 2.2.2.2")).isEqualTo("2.2.2.2");
+        assertThat(resolver.resolve("::1", null, "2001:db8::7")).isEqualTo("2001:db8::7");
+    }
+
+    @Test
+    void privatePeerCannotVouchForCfConnectingIp() {
+        ClientIpResolver resolver = new ClientIpResolver("");
+
+        // Client talking to the Heroku router directly: the router appends it and passes the header on
+        assertThat(resolver.resolve("10.1.2.3", "1.1.1.1", "203.0.113.5")).isEqualTo("203.0.113.5");
+        assertThat(resolver.resolve("10.1.2.3", "1.1.1.1", null)).isEqualTo("10.1.2.3");
+        assertThat(resolver.resolve("127.0.0.1", "1.1.1.1", "10.0.0.9")).isEqualTo("10.0.0.9");
+    }
+
+    @Test
+    void cfConnectingIpIsBelievedThroughConfiguredProxies() {
+        ClientIpResolver resolver = new ClientIpResolver("173.245.48.0/20");
+
+        // Cloudflare -> Heroku router -> app
+        assertThat(resolver.resolve("10.1.2.3", "198.51.100.1", "198.51.100.1, 173.245.48.7")).isEqualTo("198.51.100.1");
+        assertThat(resolver.resolve("10.1.2.3", "198.51.100.1", "173.245.48.7, 10.0.0.4")).isEqualTo("198.51.100.1");
+        // Cloudflare connecting directly
+        assertThat(resolver.resolve("173.245.48.7", "198.51.100.1", null)).isEqualTo("198.51.100.1");
+        // Bypassing Cloudflare, even with a Cloudflare IP further left in the chain
+        assertThat(resolver.resolve("10.1.2.3", "1.1.1.1", "173.245.48.7, 203.0.113.5")).isEqualTo("203.0.113.5");
+    }
+
+    @Test
+    void forwardedChainIsWalkedFromTheRightPastTrustedProxies() {
+        ClientIpResolver resolver = new ClientIpResolver("198.51.100.0/24, 2001:db8:cf::/48");
+
+        assertThat(resolver.resolve("198.51.100.9", null, "6.6.6.6, 203.0.113.5, 10.0.0.2, 198.51.100.10"))
+                .isEqualTo("203.0.113.5");
+        assertThat(resolver.resolve("2001:db8:cf::1", null, "203.0.113.5")).isEqualTo("203.0.113.5");
+        // Garbage stops the walk at the last good hop
+        assertThat(resolver.resolve("198.51.100.9", null, "203.0.113.5, junk, 198.51.100.10"))
+                .isEqualTo("198.51.100.10");
+        // Nothing usable: the peer itself
+        assertThat(resolver.resolve("198.51.100.9", "junk", " ")).isEqualTo("198.51.100.9");
+    }
+
+    @Test
+    void wildcardIsAnExplicitOptInToTheLeftmostHop() {
+        ClientIpResolver resolver = new ClientIpResolver("*");
+
+        assertThat(resolver.resolve("203.0.113.5", null, "6.6.6.6, 2.2.2.2")).isEqualTo("6.6.6.6");
+        assertThat(resolver.resolve("203.0.113.5", " 1.1.1.1 ", null)).isEqualTo("1.1.1.1");
+    }
+
+    @Test
+    void privateRangesCoverBothFamilies() {
+        ClientIpResolver resolver = new ClientIpResolver("");
+
+        assertThat(resolver.isPrivate("172.31.255.255")).isTrue();
+        assertThat(resolver.isPrivate("172.32.0.0")).isFalse();
+        assertThat(resolver.isPrivate("100.64.0.1")).isTrue();
+        assertThat(resolver.isPrivate("fd12::1")).isTrue();
+        assertThat(resolver.isPrivate("::ffff:192.168.0.1")).isTrue();
+        assertThat(resolver.isPrivate("2606:4700::1")).isFalse();
+        assertThat(resolver.isPrivate("garbage")).isFalse();
+    }
+
+    @Test
+    void allowListSkipsInvalidEntries() {
+        assertThat(ClientIpResolver.parseAllowList(" 1.2.3.4, nope, 10.0.0.0/8 ,,", "test").size()).isEqualTo(2);
+        assertThat(ClientIpResolver.parseAllowList(null, "test").isEmpty()).isTrue();
+    }
+}
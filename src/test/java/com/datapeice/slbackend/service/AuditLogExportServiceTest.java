@@ -0,0 +1,112 @@
+package com.datapeice.slbackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditLogExportServiceTest {
+
+    private static final AuditLogExportService.ExportFilter ALL =
+            new AuditLogExportService.ExportFilter(null, null, null, null, null);
+
+    private JdbcTemplate jdbcTemplate;
+    private AuditLogExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE audit_logs (
+                    id BIGINT PRIMARY KEY,
+                    created_at TIMESTAMP NOT NULL,
+                    actor_id BIGINT,
+                    actor_username VARCHAR(255),
+                    action_type VARCHAR(255),
+                    details TEXT,
+                    target_user_id BIGINT,
+                    target_username VARCHAR(255),
+                    ip_address VARCHAR(255),
+                    user_agent TEXT
+                )
+                """);
+        exportService = new AuditLogExportService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                new ObjectMapper(), 2, 1);
+        ReflectionTestUtils.setField(exportService, "maxRows", 3L);
+    }
+
+    private void insert(long id, String actorUsername, String details) {
+        jdbcTemplate.update("INSERT INTO audit_logs (id, created_at, actor_id, actor_username, action_type, details) " +
+                        "VALUES (?, ?, ?, ?, 'TEST', ?)",
+                id, Timestamp.valueOf(LocalDateTime.of(2026, 1, 1, 12, 0).plusMinutes(id)), id, actorUsername, details);
+    }
+
+    private List<String> export(AuditLogExportService.Format format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ALL, format, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    @Test
+    void csvCellsThatLookLikeFormulasAreNeutralized() {
+        insert(1, "=HYPERLINK(\"http://evil\")", "+1 warning");
+        insert(2, "@admin", "-5, then\ttab");
+
+        List<String> lines = export(AuditLogExportService.Format.CSV);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(1)).isEqualTo("2,2026-01-01T12:02,2,'@admin,TEST,\"'-5, then\ttab\",,,,");
+        assertThat(lines.get(2)).isEqualTo("1,2026-01-01T12:01,1,\"'=HYPERLINK(\"\"http://evil\"\")\",TEST,'+1 warning,,,,");
+        assertThat(AuditLogExportService.neutralizeFormula("\tcmd")).isEqualTo("'\tcmd");
+        assertThat(AuditLogExportService.neutralizeFormula("plain")).isEqualTo("plain");
+        assertThat(AuditLogExportService.neutralizeFormula("")).isEmpty();
+    }
+
+    @Test
+    void exportCutAtMaxRowsEndsWithATrailer() {
+        for (long id = 1; id <= 5; id++) {
+            insert(id, "user" + id, "d");
+        }
+
+        List<String> csv = export(AuditLogExportService.Format.CSV);
+        assertThat(csv).hasSize(5);
+        assertThat(csv.get(3)).startsWith("3,");
+        assertThat(csv.get(4)).startsWith("# TRUNCATED").contains("3 rows");
+
+        List<String> ndjson = export(AuditLogExportService.Format.NDJSON);
+        assertThat(ndjson).hasSize(4);
+        assertThat(ndjson.get(3)).isEqualTo("{\"truncated\":true,\"maxRows\":3}");
+    }
+
+    @Test
+    void exportThatFitsExactlyHasNoTrailer() {
+        for (long id = 1; id <= 3; id++) {
+            insert(id, "user" + id, "d");
+        }
+
+        assertThat(export(AuditLogExportService.Format.NDJSON)).hasSize(3).noneMatch(line -> line.contains("truncated"));
+        assertThat(export(AuditLogExportService.Format.CSV)).hasSize(4).noneMatch(line -> line.startsWith("#"));
+    }
+
+    @Test
+    void concurrentExportsAreCapped() {
+        assertThat(exportService.tryAcquireSlot()).isTrue();
+        assertThat(exportService.tryAcquireSlot()).isFalse();
+        exportService.releaseSlot();
+        assertThat(exportService.tryAcquireSlot()).isTrue();
+    }
+}
@@ -0,0 +1,82 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.AuditLog;
+import com.datapeice.slbackend.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditLogServiceTest {
+
+    private AuditLogRepository repository;
+    private AuditLogService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AuditLogRepository.class);
+        service = new AuditLogService(repository, mock(AuditLogWriter.class));
+    }
+
+    @Test
+    void ipSearchUsesSubstringMatch() {
+        AuditLog hit = new AuditLog();
+        when(repository.searchLogsBySubstring("%192.168.1.15%", 20, 0)).thenReturn(List.of(hit));
+        when(repository.countSearchLogsBySubstring("%192.168.1.15%")).thenReturn(1L);
+
+        Page<AuditLog> page = service.getLogs(" 192.168.1.15 ", PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).containsExactly(hit);
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        verify(repository, never()).searchLogs(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void ipv6SearchUsesSubstringMatch() {
+        service.getLogs("2001:db8::1", PageRequest.of(1, 10));
+
+        verify(repository).searchLogsBySubstring("%2001:db8::1%", 10, 10);
+    }
+
+    @Test
+    void emailSearchUsesSubstringMatchWithWildcardsEscaped() {
+        service.getLogs("steve_100%@mail.ru", PageRequest.of(0, 20));
+
+        verify(repository).searchLogsBySubstring("%steve\\_100\\%@mail.ru%", 20, 0);
+        verify(repository, never()).searchLogs(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void usernameSearchUsesFullTextPrefixQuery() {
+        service.getLogs("Steve_Builder ban", PageRequest.of(0, 20));
+
+        // Same split as the 'simple' parser applies to search_tsv
+        verify(repository).searchLogs("steve:* & builder:* & ban:*", 20, 0);
+        verify(repository, never()).searchLogsBySubstring(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void blankSearchListsEverything() {
+        PageRequest pageable = PageRequest.of(0, 20);
+        service.getLogs("  ", pageable);
+
+        verify(repository).findAll(pageable);
+    }
+
+    @Test
+    void prefixQueryDropsTsqueryOperators() {
+        assertThat(AuditLogService.toPrefixTsQuery("bob & !(admin | x):*")).isEqualTo("bob:* & admin:* & x:*");
+        assertThat(AuditLogService.toPrefixTsQuery("&|!")).isNull();
+    }
+}
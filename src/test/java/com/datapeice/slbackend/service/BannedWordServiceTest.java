@@ -0,0 +1,110 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.repository.BannedWordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Background rebuilds of the banned-word matcher against a mocked repository.
+ */
+class BannedWordServiceTest {
+
+    private final BannedWordRepository repository = mock(BannedWordRepository.class);
+    private final AtomicInteger loads = new AtomicInteger();
+    private BannedWordService service;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.count()).thenReturn(1L);
+        when(repository.fingerprint()).thenReturn(new BannedWordRepository.Fingerprint() {
+            @Override
+            public long getWordCount() {
+                return 1;
+            }
+
+            @Override
+            public Long getMaxId() {
+                return 1L;
+            }
+
+            @Override
+            public LocalDateTime getLastUpdated() {
+                return null;
+            }
+        });
+        service = new BannedWordService(repository, mock(AuditLogService.class),
+                new ByteArrayResource("classpathword\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void burstOfEditsIsBuiltOnceAtTheNewestVersion() throws Exception {
+        CountDownLatch firstLoadStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstLoad = new CountDownLatch(1);
+        when(repository.findAllWords()).thenAnswer(inv -> {
+            if (loads.incrementAndGet() == 1) {
+                firstLoadStarted.countDown();
+                releaseFirstLoad.await(10, TimeUnit.SECONDS);
+                return List.of("firstword");
+            }
+            return List.of("lastword");
+        });
+        service.init();
+        assertThat(firstLoadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Queued behind the running build; only the newest of them should be built
+        service.requestRebuild();
+        service.requestRebuild();
+        long newest = service.requestRebuild();
+        assertThat(service.getStatus()).containsEntry("rebuilding", true);
+        releaseFirstLoad.countDown();
+
+        awaitTrue(() -> service.getStatus().get("version").equals(newest));
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(service.getMatcher().find("this lastword here")).isNotNull();
+        assertThat(service.getMatcher().find("this firstword here")).isNull();
+        assertThat(service.getStatus()).containsEntry("rebuilding", false);
+    }
+
+    @Test
+    void failedRebuildKeepsTheOldMatcherAndEndsTheRebuild() throws Exception {
+        when(repository.findAllWords()).thenReturn(List.of("dbword")).thenThrow(new IllegalStateException("db down"));
+        service.init();
+        awaitTrue(() -> service.getStatus().get("version").equals(1L));
+
+        long failed = service.requestRebuild();
+        awaitTrue(() -> service.getStatus().get("failedVersion").equals(failed));
+
+        assertThat(service.getMatcher().find("a dbword b")).isNotNull();
+        assertThat(service.getStatus())
+                .containsEntry("version", 1L)
+                .containsEntry("rebuilding", false)
+                .containsEntry("lastError", "db down");
+    }
+}
@@ -0,0 +1,134 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.dto.BotMessageBatchRequest;
+import com.datapeice.slbackend.entity.BotMessage;
+import com.datapeice.slbackend.entity.User;
+import com.datapeice.slbackend.repository.BotMessageReactionRepository;
+import com.datapeice.slbackend.repository.BotMessageRepository;
+import com.datapeice.slbackend.repository.ConversationSummaryRepository;
+import com.datapeice.slbackend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * applyBatch with mocked repositories and a manually driven transaction synchronization.
+ */
+class BotMessengerServiceTest {
+
+    private final BotMessageRepository botMessageRepository = mock(BotMessageRepository.class);
+    private final BotMessageReactionRepository reactionRepository = mock(BotMessageReactionRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final DiscordService discordService = mock(DiscordService.class);
+    private final MessengerEventPublisher eventPublisher = mock(MessengerEventPublisher.class);
+    private BotMessengerService service;
+    private User recipient;
+
+    @BeforeEach
+    void setUp() {
+        service = new BotMessengerService(botMessageRepository, reactionRepository,
+                mock(ConversationSummaryRepository.class), userRepository, discordService,
+                mock(DiscordIdentityResolver.class), mock(UserService.class), eventPublisher);
+        recipient = user(5L);
+        recipient.setDiscordUserId("123456789");
+        when(userRepository.findById(5L)).thenReturn(Optional.of(recipient));
+        when(botMessageRepository.save(any(BotMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        return user;
+    }
+
+    private BotMessage message(long id, User recipientUser) {
+        BotMessage message = new BotMessage();
+        message.setId(id);
+        message.setRecipientUser(recipientUser);
+        message.setContent("old");
+        message.setDiscordMessageId("d" + id);
+        return message;
+    }
+
+    private static BotMessageBatchRequest.Operation op(long messageId, BotMessageBatchRequest.Action action, String value) {
+        BotMessageBatchRequest.Operation op = new BotMessageBatchRequest.Operation();
+        op.setMessageId(messageId);
+        op.setAction(action);
+        op.setContent(value);
+        op.setEmoji(value);
+        return op;
+    }
+
+    private static BotMessageBatchRequest batch(BotMessageBatchRequest.Operation... operations) {
+        BotMessageBatchRequest request = new BotMessageBatchRequest();
+        request.setOperations(List.of(operations));
+        return request;
+    }
+
+    @Test
+    void invalidOperationRejectsTheBatchBeforeAnythingChanges() {
+        BotMessage first = message(1L, recipient);
+        BotMessage second = message(2L, recipient);
+        when(botMessageRepository.findAllById(any())).thenReturn(List.of(first, second));
+
+        assertThatThrownBy(() -> service.applyBatch(5L, 9L, batch(
+                op(1L, BotMessageBatchRequest.Action.EDIT, "new"),
+                op(2L, BotMessageBatchRequest.Action.DELETE, null),
+                op(2L, BotMessageBatchRequest.Action.REACT, "👍"))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(first.getContent()).isEqualTo("old");
+        verify(botMessageRepository, never()).save(any());
+        verify(botMessageRepository, never()).delete(any());
+        verifyNoInteractions(reactionRepository, eventPublisher, discordService);
+    }
+
+    @Test
+    void messagesWithoutARecipientAreRejectedNotDereferenced() {
+        when(botMessageRepository.findAllById(any())).thenReturn(List.of(message(1L, null)));
+
+        assertThatThrownBy(() -> service.applyBatch(5L, 9L, batch(op(1L, BotMessageBatchRequest.Action.EDIT, "new"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Сообщение относится к другому диалогу");
+    }
+
+    @Test
+    void eventsAndDiscordOperationsWaitForTheCommit() {
+        when(botMessageRepository.findAllById(any())).thenReturn(List.of(message(1L, recipient), message(2L, recipient)));
+
+        service.applyBatch(5L, 9L, batch(
+                op(1L, BotMessageBatchRequest.Action.EDIT, "new"),
+                op(2L, BotMessageBatchRequest.Action.DELETE, null)));
+
+        verifyNoInteractions(eventPublisher, discordService);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(eventPublisher).messageChanged(any());
+        verify(eventPublisher).messageDeleted(5L, 2L);
+        verify(eventPublisher).inboxChanged(eq(5L), any());
+        verify(discordService).applyDirectMessageOperations(eq("123456789"), anyList());
+    }
+}
@@ -0,0 +1,79 @@
+package com.datapeice.slbackend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiscordMemberStoreTest {
+
+    private static final long BASE_ID = 1_100_000_000_000_000_000L;
+
+    @Test
+    void findsMembersByAnyNameIgnoringCase() {
+        DiscordMemberStore store = new DiscordMemberStore();
+        store.put(BASE_ID + 1, "steve", "Steve Global", "Стив", 0, null);
+
+        assertThat(store.findIdByName("STEVE")).isEqualTo(BASE_ID + 1);
+        assertThat(store.findIdByName("steve global")).isEqualTo(BASE_ID + 1);
+        assertThat(store.findIdByName("стив")).isEqualTo(BASE_ID + 1);
+        assertThat(store.findIdByName("alex")).isZero();
+        assertThat(store.findIdByName(" ")).isZero();
+        assertThat(store.findIdByName(null)).isZero();
+    }
+
+    @Test
+    void renameDropsTheOldNames() {
+        DiscordMemberStore store = new DiscordMemberStore();
+        store.put(BASE_ID + 1, "steve", null, "old nick", 0, null);
+        store.put(BASE_ID + 1, "steve", null, "new nick", 0, null);
+
+        assertThat(store.findIdByName("old nick")).isZero();
+        assertThat(store.findIdByName("new nick")).isEqualTo(BASE_ID + 1);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sharedNameSurvivesRemovalOfOneHolder() {
+        DiscordMemberStore store = new DiscordMemberStore();
+        store.put(BASE_ID + 1, "first", "Alex", null, 0, null);
+        store.put(BASE_ID + 2, "second", "alex", null, 0, null);
+
+        assertThat(store.findIdByName("alex")).isEqualTo(BASE_ID + 1);
+        store.remove(BASE_ID + 1);
+        assertThat(store.findIdByName("alex")).isEqualTo(BASE_ID + 2);
+        assertThat(store.findIdByName("first")).isZero();
+        store.remove(BASE_ID + 2);
+        assertThat(store.findIdByName("alex")).isZero();
+    }
+
+    @Test
+    void hashCollisionsAreConfirmedAgainstTheStoredNames() {
+        DiscordMemberStore store = new DiscordMemberStore();
+        // Same case-insensitive hash: 31 * 'a' + '~' == 31 * 'b' + '_'
+        store.put(BASE_ID + 1, "a~", null, null, 0, null);
+
+        assertThat(store.findIdByName("b_")).isZero();
+        store.put(BASE_ID + 2, "b_", null, null, 0, null);
+        assertThat(store.findIdByName("B_")).isEqualTo(BASE_ID + 2);
+        assertThat(store.findIdByName("A~")).isEqualTo(BASE_ID + 1);
+    }
+
+    @Test
+    void indexFollowsRehashAndRemovals() {
+        DiscordMemberStore store = new DiscordMemberStore();
+        int members = 20_000;
+        for (int i = 0; i < members; i++) {
+            store.put(BASE_ID + (long) i * 4_194_304, "user" + i, null, null, 0, null);
+        }
+        for (int i = 0; i < members; i += 2) {
+            store.remove(BASE_ID + (long) i * 4_194_304);
+        }
+
+        assertThat(store.size()).isEqualTo(members / 2);
+        for (int i = 0; i < members; i++) {
+            long expected = i % 2 == 0 ? 0 : BASE_ID + (long) i * 4_194_304;
+            assertThat(store.findIdByName("USER" + i)).isEqualTo(expected);
+            assertThat(store.contains(BASE_ID + (long) i * 4_194_304)).isEqualTo(i % 2 != 0);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.DiscordOutboundMessage;
+import com.datapeice.slbackend.entity.DiscordOutboundPriority;
+import com.datapeice.slbackend.entity.DiscordOutboundStatus;
+import com.datapeice.slbackend.entity.DiscordOutboundType;
+import com.datapeice.slbackend.repository.BotMessageRepository;
+import com.datapeice.slbackend.repository.DiscordOutboundMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dispatch with a mocked repository and a Discord send the test completes by hand.
+ */
+class DiscordOutboxServiceTest {
+
+    private final DiscordOutboundMessageRepository repository = mock(DiscordOutboundMessageRepository.class);
+    private final DiscordService discordService = mock(DiscordService.class);
+    private final CompletableFuture<String> send = new CompletableFuture<>();
+    private DiscordOutboxService outbox;
+    private DiscordOutboundMessage message;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new DiscordOutboxService(repository, mock(BotMessageRepository.class), discordService,
+                mock(MessengerEventPublisher.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(outbox, "batchSize", 20);
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 5);
+        ReflectionTestUtils.setField(outbox, "inFlightTimeoutSeconds", 120);
+        ReflectionTestUtils.setField(outbox, "sendTimeoutSeconds", 600);
+        ReflectionTestUtils.setField(outbox, "rateWindowSeconds", 5);
+        ReflectionTestUtils.setField(outbox, "directMessageRate", 5);
+        ReflectionTestUtils.setField(outbox, "channelMessageRate", 5);
+        ReflectionTestUtils.setField(outbox, "roleRate", 5);
+        outbox.init();
+
+        message = new DiscordOutboundMessage();
+        message.setId(42L);
+        message.setType(DiscordOutboundType.DIRECT_MESSAGE);
+        message.setPriority(DiscordOutboundPriority.MESSENGER);
+        message.setTargetId("123456789");
+        message.setContent("hi");
+        when(discordService.isEnabled()).thenReturn(true);
+        when(discordService.deliverDirectMessage("123456789", "hi", null)).thenReturn(send);
+        when(repository.lockDueBatch(any(), anyInt())).thenReturn(List.of(message));
+        when(repository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void leaseOfASlowSendIsRenewedUntilItCompletes() {
+        outbox.dispatch();
+        assertThat(message.getStatus()).isEqualTo(DiscordOutboundStatus.SENDING);
+
+        outbox.renewLeases();
+        outbox.renewLeases();
+        verify(repository, times(2)).renewClaims(eq(List.of(42L)), any());
+
+        send.complete("987");
+        assertThat(message.getStatus()).isEqualTo(DiscordOutboundStatus.SENT);
+        outbox.renewLeases();
+        verify(repository, times(2)).renewClaims(any(), any());
+    }
+
+    @Test
+    void nothingToRenewWhenIdle() {
+        outbox.renewLeases();
+        verify(repository, never()).renewClaims(any(), any());
+    }
+}
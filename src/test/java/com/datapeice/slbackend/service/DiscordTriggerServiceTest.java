@@ -0,0 +1,118 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.dto.DiscordTriggerRequest;
+import com.datapeice.slbackend.entity.DiscordTrigger;
+import com.datapeice.slbackend.repository.DiscordTriggerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * DiscordTriggerService with a mocked repository whose rows and fingerprint the tests edit directly,
+ * standing in for changes made through another instance.
+ */
+class DiscordTriggerServiceTest {
+
+    private final DiscordTriggerRepository repository = mock(DiscordTriggerRepository.class);
+    private final AuditLogService auditLogService = mock(AuditLogService.class);
+    private final List<DiscordTrigger> rows = new ArrayList<>();
+    private final long[] fingerprint = {1};
+    private DiscordTriggerService service;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.count()).thenAnswer(inv -> (long) rows.size());
+        when(repository.findAllByOrderBySortOrderAscIdAsc()).thenAnswer(inv -> List.copyOf(rows));
+        when(repository.fingerprint()).thenAnswer(inv -> new DiscordTriggerRepository.Fingerprint() {
+            @Override
+            public long getTriggerCount() {
+                return rows.size();
+            }
+
+            @Override
+            public Long getMaxId() {
+                return fingerprint[0];
+            }
+
+            @Override
+            public LocalDateTime getLastUpdated() {
+                return null;
+            }
+        });
+        when(repository.saveAndFlush(any(DiscordTrigger.class))).thenAnswer(inv -> inv.getArgument(0));
+        rows.add(trigger(1L, "hello", "привет"));
+        rows.add(trigger(2L, "bye", "пока"));
+        service = new DiscordTriggerService(repository, auditLogService);
+        service.init();
+    }
+
+    private static DiscordTrigger trigger(long id, String name, String keyword) {
+        DiscordTrigger trigger = new DiscordTrigger();
+        trigger.setId(id);
+        trigger.setName(name);
+        trigger.setKeywords(keyword);
+        trigger.setResponse(name + "!");
+        return trigger;
+    }
+
+    private static DiscordTriggerRequest request(String name, String keyword) {
+        DiscordTriggerRequest request = new DiscordTriggerRequest();
+        request.setName(name);
+        request.setKeywords(List.of(keyword));
+        request.setResponse(name + "!");
+        return request;
+    }
+
+    @Test
+    void renamingOntoAnotherTriggersNameIsRejected() {
+        when(repository.findById(2L)).thenReturn(Optional.of(rows.get(1)));
+        when(repository.existsByNameIgnoreCaseAndIdNot("Hello", 2L)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.update(2L, request("Hello", "пока"), 7L, "admin"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Триггер с таким именем уже существует");
+        assertThat(rows.get(1).getName()).isEqualTo("bye");
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void changesAreAudited() {
+        when(repository.findById(2L)).thenReturn(Optional.of(rows.get(1)));
+
+        service.update(2L, request("farewell", "пока"), 7L, "admin");
+        service.delete(2L, 7L, "admin");
+
+        verify(auditLogService).logAction(eq(7L), eq("admin"), eq("ADMIN_UPDATE_DISCORD_TRIGGER"),
+                eq("Изменил триггер бота: bye -> farewell"), any(), any());
+        verify(auditLogService).logAction(eq(7L), eq("admin"), eq("ADMIN_DELETE_DISCORD_TRIGGER"),
+                anyString(), any(), any());
+    }
+
+    @Test
+    void editsMadeElsewhereArePickedUpByTheFingerprintCheck() {
+        assertThat(service.evaluate("ну привет", 1L)).containsExactly("hello!");
+
+        rows.set(0, trigger(1L, "hello", "здравствуй"));
+        service.refreshIfChanged();
+        assertThat(service.evaluate("ну привет", 1L)).containsExactly("hello!");
+
+        fingerprint[0]++;
+        service.refreshIfChanged();
+        assertThat(service.evaluate("ну привет", 1L)).isEmpty();
+        assertThat(service.evaluate("здравствуй", 1L)).containsExactly("hello!");
+    }
+}
@@ -0,0 +1,233 @@
+package com.datapeice.slbackend.service;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.TimeMeter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bucket4j's Postgres proxy manager running its real SQL against H2 in PostgreSQL mode. The table
+ * mirrors the one DatabaseMigrationService creates; H2 keeps touched_at current with ON UPDATE
+ * where Postgres uses a trigger, and only knows {@code ON CONFLICT DO NOTHING} without a conflict
+ * target, so the connections drop that one clause.
+ */
+class DistributedRateLimiterTest {
+
+    private static final class ManualClock implements TimeMeter {
+        private volatile long nanos = TimeUnit.DAYS.toNanos(20_000) + 12_345_678L;
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+
+        @Override
+        public long currentTimeNanos() {
+            return nanos;
+        }
+
+        @Override
+        public boolean isWallClockBased() {
+            return true;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate = database(true);
+    }
+
+    private static JdbcTemplate database(boolean withTable) {
+        JdbcTemplate template = new JdbcTemplate(withoutConflictTarget(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")));
+        if (withTable) {
+            template.execute("""
+                    CREATE TABLE rate_limit_bucket_state (
+                        bucket_key VARCHAR(255) PRIMARY KEY,
+                        state BYTEA,
+                        touched_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+                            ON UPDATE CURRENT_TIMESTAMP NOT NULL
+                    )
+                    """);
+        }
+        return template;
+    }
+
+    private static DataSource withoutConflictTarget(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                            if (method.getName().equals("prepareStatement") && args != null && args[0] instanceof String sql) {
+                                args[0] = sql.replace("ON CONFLICT(bucket_key) DO NOTHING", "ON CONFLICT DO NOTHING");
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+
+    private DistributedRateLimiter limiter(JdbcTemplate template, DistributedRateLimiter.Mode mode) {
+        DistributedRateLimiter limiter = new DistributedRateLimiter(template);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "mode", mode);
+        ReflectionTestUtils.setField(limiter, "idleRetentionHours", 25L);
+        ReflectionTestUtils.setField(limiter, "breakerFailureThreshold", 3);
+        ReflectionTestUtils.setField(limiter, "breakerOpenMillis", 5000L);
+        ReflectionTestUtils.setField(limiter, "breakerMaxOpenMillis", 60000L);
+        ReflectionTestUtils.setField(limiter, "clock", clock);
+        limiter.init();
+        return limiter;
+    }
+
+    @Test
+    void instancesShareOneBudget() {
+        DistributedRateLimiter first = limiter(jdbcTemplate, DistributedRateLimiter.Mode.STRICT);
+        DistributedRateLimiter second = limiter(jdbcTemplate, DistributedRateLimiter.Mode.BATCHING);
+        Duration day = Duration.ofDays(1);
+
+        assertThat(first.tryConsume("email:1.2.3.4", 3, day).getRemainingTokens()).isEqualTo(2);
+        assertThat(second.tryConsume("email:1.2.3.4", 3, day).getRemainingTokens()).isEqualTo(1);
+        assertThat(first.tryConsume("email:1.2.3.4", 3, day).getRemainingTokens()).isZero();
+
+        ConsumptionProbe denied = second.tryConsume("email:1.2.3.4", 3, day);
+        assertThat(denied.isConsumed()).isFalse();
+        assertThat(denied.getNanosToWaitForRefill()).isEqualTo(day.toNanos());
+        assertThat(second.tryConsume("email:5.6.7.8", 3, day).isConsumed()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_bucket_state", Long.class)).isEqualTo(2);
+    }
+
+    @Test
+    void refillIsCountedFromFirstUseLikeTheLocalBucket() {
+        DistributedRateLimiter limiter = limiter(jdbcTemplate, DistributedRateLimiter.Mode.STRICT);
+        Duration day = Duration.ofDays(1);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryConsume("email:1.2.3.4", 3, day).isConsumed()).isTrue();
+        }
+        // A calendar-aligned window would have reset at midnight UTC; the bucket waits a full day
+        clock.advance(Duration.ofHours(23).plusMinutes(59));
+        assertThat(limiter.tryConsume("email:1.2.3.4", 3, day).isConsumed()).isFalse();
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(limiter.tryConsume("email:1.2.3.4", 3, day).getRemainingTokens()).isEqualTo(2);
+    }
+
+    @Test
+    void agreesWithTheLocalBucketOnRandomTraffic() {
+        for (DistributedRateLimiter.Mode mode : DistributedRateLimiter.Mode.values()) {
+            DistributedRateLimiter limiter = limiter(jdbcTemplate, mode);
+            Bucket local = Bucket.builder()
+                    .addLimit(Bandwidth.builder().capacity(5).refillIntervally(5, Duration.ofMinutes(1)).build())
+                    .withCustomTimePrecision(clock)
+                    .build();
+            Random random = new Random(7);
+            // Intervals count from creation, so both buckets must start at the same instant
+            for (int step = 0; step < 300; step++) {
+                ConsumptionProbe expected = local.tryConsumeAndReturnRemaining(1);
+                ConsumptionProbe actual = limiter.tryConsume("p:random:" + mode, 5, Duration.ofMinutes(1));
+
+                assertThat(actual.isConsumed()).as("%s step %d", mode, step).isEqualTo(expected.isConsumed());
+                assertThat(actual.getRemainingTokens()).as("%s step %d", mode, step).isEqualTo(expected.getRemainingTokens());
+                assertThat(actual.getNanosToWaitForRefill()).as("%s step %d", mode, step)
+                        .isEqualTo(expected.getNanosToWaitForRefill());
+                clock.advance(Duration.ofMillis(random.nextInt(random.nextBoolean() ? 2_000 : 40_000)));
+            }
+        }
+    }
+
+    @Test
+    void concurrentConsumersNeverExceedTheBudget() throws Exception {
+        List<DistributedRateLimiter> instances = List.of(
+                limiter(jdbcTemplate, DistributedRateLimiter.Mode.BATCHING),
+                limiter(jdbcTemplate, DistributedRateLimiter.Mode.STRICT));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                DistributedRateLimiter limiter = instances.get(t % 2);
+                results.add(pool.submit(() -> {
+                    int granted = 0;
+                    for (int i = 0; i < 25; i++) {
+                        if (limiter.tryConsume("auth:9.9.9.9", 120, Duration.ofMinutes(1)).isConsumed()) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            int granted = 0;
+            for (Future<Integer> result : results) {
+                granted += result.get(60, TimeUnit.SECONDS);
+            }
+            assertThat(granted).isEqualTo(120);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void idleBucketsAreDeletedAndComeBackFull() {
+        DistributedRateLimiter limiter = limiter(jdbcTemplate, DistributedRateLimiter.Mode.STRICT);
+        Duration day = Duration.ofDays(1);
+        limiter.tryConsume("email:idle", 3, day);
+        limiter.tryConsume("email:idle", 3, day);
+        limiter.tryConsume("email:busy", 3, day);
+        jdbcTemplate.update("UPDATE rate_limit_bucket_state SET touched_at = ? WHERE bucket_key = 'email:idle'",
+                new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(26)));
+
+        limiter.deleteExpired();
+
+        assertThat(jdbcTemplate.queryForList("SELECT bucket_key FROM rate_limit_bucket_state", String.class))
+                .containsExactly("email:busy");
+        assertThat(limiter.tryConsume("email:idle", 3, day).getRemainingTokens()).isEqualTo(2);
+    }
+
+    @Test
+    void databaseFailuresFallBackToLocalBucketsAndOpenTheBreaker() {
+        DistributedRateLimiter limiter = limiter(database(false), DistributedRateLimiter.Mode.BATCHING);
+        RateLimitService service = new RateLimitService(limiter, 100, 100);
+        service.registerPolicy("pages", 2, Duration.ofMinutes(1), 100);
+
+        assertThat(service.tryConsume("pages", "ip:1.1.1.1").consumed()).isTrue();
+        assertThat(service.tryConsume("pages", "ip:1.1.1.1").consumed()).isTrue();
+        assertThat(service.tryConsume("pages", "ip:1.1.1.1").consumed()).isFalse();
+
+        assertThat(limiter.getStats()).containsEntry("failures", 3L).containsEntry("breakerOpen", true);
+        assertThat(limiter.isAvailable()).isFalse();
+        // Skipped while open: no further failures
+        service.tryConsume("pages", "ip:2.2.2.2");
+        assertThat(limiter.getStats()).containsEntry("failures", 3L);
+    }
+}
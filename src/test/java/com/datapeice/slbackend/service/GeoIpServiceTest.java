@@ -0,0 +1,222 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.security.ClientIpResolver;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GeoIpService against a local stand-in for ip-api.com, with a settable clock for the cache paths.
+ */
+class GeoIpServiceTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    // ip -> {status code, body}; unknown IPs get a "fail" status
+    private final Map<String, Object[]> responses = new ConcurrentHashMap<>();
+    private final long[] now = {1_700_000_000_000L};
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/json/", exchange -> {
+            calls.incrementAndGet();
+            String ip = exchange.getRequestURI().getPath().substring("/json/".length());
+            Object[] response = responses.getOrDefault(ip, new Object[]{200, "{\"status\":\"fail\"}"});
+            byte[] body = ((String) response[1]).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders((Integer) response[0], body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void localDatabaseAnswersWithoutTheApi() throws IOException {
+        Path csv = Files.writeString(dir.resolve("geo.csv"), "5.8.0.0/19,RU,Moscow\n");
+        GeoIpService service = service(csv.toString());
+
+        assertThat(service.formatIpWithGeo("5.8.31.255")).isEqualTo("RU,Moscow,5.8.31.255");
+        assertThat(Files.exists(dir.resolve("geo.csv.bin"))).isTrue();
+        assertThat(calls.get()).isZero();
+    }
+
+    @Test
+    void privateAndBlankAddressesAreReturnedAsIs() {
+        GeoIpService service = service("");
+
+        assertThat(service.formatIpWithGeo("10.0.0.7")).isEqualTo("10.0.0.7");
+        assertThat(service.formatIpWithGeo("fd00::1")).isEqualTo("fd00::1");
+        assertThat(service.formatIpWithGeo(" ")).isEqualTo(" ");
+        assertThat(service.formatIpWithGeo(null)).isNull();
+        assertThat(calls.get()).isZero();
+    }
+
+    @Test
+    void databaseMissFallsBackToTheApiAndCaches() throws IOException {
+        Path csv = Files.writeString(dir.resolve("geo.csv"), "5.8.0.0/19,RU,Moscow\n");
+        GeoIpService service = service(csv.toString());
+        answer("2a02:6b8::1", "RU", "Moscow");
+
+        assertThat(service.formatIpWithGeo("2a02:6b8::1")).isEqualTo("RU,Moscow,2a02:6b8::1");
+        assertThat(service.formatIpWithGeo("2a02:6b8::1")).isEqualTo("RU,Moscow,2a02:6b8::1");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void addressesAreNormalisedBeforeTheCacheAndTheApi() {
+        GeoIpService service = service("");
+        answer("2001:db8::1", "NL", "Amsterdam");
+
+        assertThat(service.formatIpWithGeo("[2001:db8::1]")).isEqualTo("NL,Amsterdam,2001:db8::1");
+        assertThat(service.formatIpWithGeo("2001:DB8:0::1")).isEqualTo("NL,Amsterdam,2001:db8::1");
+        assertThat(service.formatIpWithGeo("not an ip")).isEqualTo("not an ip");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void requestsThatCannotBeBuiltDoNotLeakInFlightSlots() {
+        GeoIpService service = service("");
+        ReflectionTestUtils.setField(service, "onlineBaseUrl", "http://bad host");
+        for (int i = 1; i <= 40; i++) {
+            assertThat(service.formatIpWithGeo("198.51.100." + i)).isEqualTo("198.51.100." + i);
+        }
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(service, "inFlight")).isEmpty();
+
+        ReflectionTestUtils.setField(service, "onlineBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        answer("198.51.100.77", "DE", "Berlin");
+        assertThat(service.formatIpWithGeo("198.51.100.77")).isEqualTo("DE,Berlin,198.51.100.77");
+    }
+
+    @Test
+    void failuresAreCachedUntilTheNegativeTtlRunsOut() throws Exception {
+        GeoIpService service = service("");
+        responses.put("203.0.113.9", new Object[]{503, "busy"});
+
+        assertThat(service.formatIpWithGeo("203.0.113.9")).isEqualTo("203.0.113.9");
+        assertThat(service.formatIpWithGeo("203.0.113.9")).isEqualTo("203.0.113.9");
+        assertThat(calls.get()).isEqualTo(1);
+
+        // A "fail" answer is cached the same way
+        assertThat(service.formatIpWithGeo("203.0.113.10")).isEqualTo("203.0.113.10");
+        assertThat(service.formatIpWithGeo("203.0.113.10")).isEqualTo("203.0.113.10");
+        assertThat(calls.get()).isEqualTo(2);
+
+        now[0] += TimeUnit.MINUTES.toMillis(10) - 1;
+        service.formatIpWithGeo("203.0.113.9");
+        assertThat(calls.get()).isEqualTo(2);
+
+        now[0] += 1;
+        answer("203.0.113.9", "DE", "Berlin");
+        assertThat(service.formatIpWithGeo("203.0.113.9")).isEqualTo("DE,Berlin,203.0.113.9");
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void staleEntriesAreServedWhileRefreshingInTheBackground() throws Exception {
+        GeoIpService service = service("");
+        answer("198.51.100.4", "FI", "Helsinki");
+        assertThat(service.formatIpWithGeo("198.51.100.4")).isEqualTo("FI,Helsinki,198.51.100.4");
+
+        // Fresh for three quarters of the 168 h TTL
+        now[0] += 126 * HOUR - 1;
+        assertThat(service.formatIpWithGeo("198.51.100.4")).isEqualTo("FI,Helsinki,198.51.100.4");
+        assertThat(calls.get()).isEqualTo(1);
+
+        now[0] += 1;
+        answer("198.51.100.4", "FI", "Espoo");
+        assertThat(service.formatIpWithGeo("198.51.100.4")).isEqualTo("FI,Helsinki,198.51.100.4");
+        awaitCalls(2);
+        awaitValue(service, "198.51.100.4", "FI,Espoo,198.51.100.4");
+
+        // The refresh restarted the TTL from the new clock value
+        now[0] += 126 * HOUR - 1;
+        assertThat(service.formatIpWithGeo("198.51.100.4")).isEqualTo("FI,Espoo,198.51.100.4");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntriesAreLookedUpAgain() {
+        GeoIpService service = service("");
+        answer("198.51.100.5", "SE", "Stockholm");
+        service.formatIpWithGeo("198.51.100.5");
+
+        now[0] += 168 * HOUR;
+        answer("198.51.100.5", "SE", "Malmö");
+        assertThat(service.formatIpWithGeo("198.51.100.5")).isEqualTo("SE,Malmö,198.51.100.5");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void offlineModeNeverCallsTheApi() {
+        GeoIpService service = service("");
+        ReflectionTestUtils.setField(service, "onlineEnabled", false);
+        answer("198.51.100.6", "NO", "Oslo");
+
+        assertThat(service.formatIpWithGeo("198.51.100.6")).isEqualTo("198.51.100.6");
+        assertThat(calls.get()).isZero();
+    }
+
+    private GeoIpService service(String databasePath) {
+        GeoIpService service = new GeoIpService(new ClientIpResolver(""));
+        ReflectionTestUtils.setField(service, "databasePath", databasePath);
+        ReflectionTestUtils.setField(service, "onlineEnabled", true);
+        ReflectionTestUtils.setField(service, "onlineBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "maxWaitMillis", 5000L);
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(service, "cacheTtlHours", 168L);
+        ReflectionTestUtils.setField(service, "negativeTtlMinutes", 10L);
+        ReflectionTestUtils.setField(service, "clock", (LongSupplier) () -> now[0]);
+        service.init();
+        return service;
+    }
+
+    private void answer(String ip, String country, String city) {
+        responses.put(ip, new Object[]{200,
+                "{\"status\":\"success\",\"countryCode\":\"" + country + "\",\"city\":\"" + city + "\"}"});
+    }
+
+    private void awaitCalls(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(calls.get()).isEqualTo(expected);
+    }
+
+    private static void awaitValue(GeoIpService service, String ip, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!expected.equals(service.formatIpWithGeo(ip)) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.formatIpWithGeo(ip)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,284 @@
+package com.datapeice.slbackend.service;
+
+import com.datapeice.slbackend.entity.ImageModerationStatus;
+import com.datapeice.slbackend.entity.ImageModerationVerdict;
+import com.datapeice.slbackend.entity.ModeratedImage;
+import com.datapeice.slbackend.repository.ImageModerationVerdictRepository;
+import com.datapeice.slbackend.repository.ModeratedImageRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ImageModerationService with the real ModerationService talking to a local stand-in for
+ * Sightengine ({@code sightengine.api.base-url}); storage and repositories are in-memory.
+ * The stand-in answers by the uploaded bytes: "nsfw" is flagged, "broken" gets HTTP 500,
+ * anything else is safe.
+ */
+class ImageModerationServiceTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private HttpServer server;
+    private final AtomicInteger apiCalls = new AtomicInteger();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    private final Map<Long, ModeratedImage> images = new ConcurrentHashMap<>();
+    private final Map<String, ImageModerationVerdict> verdicts = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private FileStorageService storage;
+    private AuditLogService auditLog;
+    private ImageModerationService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/1.0/check.json", exchange -> {
+            apiCalls.incrementAndGet();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int status = body.contains("broken") ? 500 : 200;
+            String json = body.contains("nsfw")
+                    ? "{\"status\":\"success\",\"nudity\":{\"none\":0.08}}"
+                    : "{\"status\":\"success\",\"nudity\":{\"none\":0.97}}";
+            byte[] response = (status == 200 ? json : "{\"status\":\"failure\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        ModerationService moderation = new ModerationService(mock(BannedWordService.class));
+        ReflectionTestUtils.setField(moderation, "sightengineApiUser", "user");
+        ReflectionTestUtils.setField(moderation, "sightengineApiSecret", "secret");
+        ReflectionTestUtils.setField(moderation, "sightengineBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+
+        storage = mock(FileStorageService.class);
+        when(storage.openObject(anyString())).thenAnswer(inv -> new ByteArrayInputStream(objects.get(inv.<String>getArgument(0))));
+        auditLog = mock(AuditLogService.class);
+
+        service = new ImageModerationService(moderation, storage, auditLog, imageRepository(), verdictRepository(),
+                4, 100, MAX_ATTEMPTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void memoizedVerdictSkipsTheApi() throws Exception {
+        upload("avatars/1.png", "cat picture");
+        awaitStatus("avatars/1.png", ImageModerationStatus.APPROVED);
+
+        upload("avatars/2.png", "cat picture");
+
+        assertThat(status("avatars/2.png")).isEqualTo(ImageModerationStatus.APPROVED);
+        assertThat(apiCalls.get()).isEqualTo(1);
+        assertThat(service.getStats()).containsEntry("apiCalls", 1L).containsEntry("memoHits", 1L);
+    }
+
+    @Test
+    void concurrentUploadsOfTheSameContentShareOneCall() throws Exception {
+        gate = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            upload("avatars/same-" + i + ".png", "holiday photo");
+        }
+        // One upload is at the API, the other three are waiting on its result
+        awaitTrue(() -> apiCalls.get() == 1 && Long.valueOf(3).equals(service.getStats().get("memoHits")));
+        gate.countDown();
+
+        for (int i = 0; i < 4; i++) {
+            awaitStatus("avatars/same-" + i + ".png", ImageModerationStatus.APPROVED);
+        }
+        assertThat(apiCalls.get()).isEqualTo(1);
+        assertThat(verdicts).hasSize(1);
+        assertThat(service.getStats()).containsEntry("inFlightHashes", 0);
+    }
+
+    @Test
+    void flaggedImageIsMovedToQuarantine() throws Exception {
+        upload("avatars/bad.png", "nsfw content");
+        awaitStatus("avatars/bad.png", ImageModerationStatus.QUARANTINED);
+
+        verify(storage).moveObject("avatars/bad.png", ImageModerationService.QUARANTINE_PREFIX + "avatars/bad.png");
+        verify(auditLog).logAction(any(), eq("system"), eq("IMAGE_QUARANTINED"), anyString(), any(), any());
+        assertThat(image("avatars/bad.png").getCheckedAt()).isNotNull();
+
+        // The same bytes are now refused before they are stored again
+        assertThatThrownBy(() -> service.rejectIfKnownBad(sha256("nsfw content")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(apiCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void apiErrorsCountAttemptsAndEndInFailed() throws Exception {
+        upload("avatars/broken.png", "broken upload");
+        awaitAttempts("avatars/broken.png", 1);
+
+        ModeratedImage afterFirst = image("avatars/broken.png");
+        assertThat(afterFirst.getStatus()).isEqualTo(ImageModerationStatus.PENDING);
+        assertThat(afterFirst.getLastError()).contains("HTTP 500");
+
+        // The sweep skips fresh uploads, then retries until max-attempts is used up
+        service.sweepPending();
+        Thread.sleep(100);
+        assertThat(apiCalls.get()).isEqualTo(1);
+        image("avatars/broken.png").setCreatedAt(LocalDateTime.now().minusMinutes(1));
+        for (int attempt = 2; attempt <= MAX_ATTEMPTS; attempt++) {
+            service.sweepPending();
+            awaitAttempts("avatars/broken.png", attempt);
+        }
+        assertThat(image("avatars/broken.png").getStatus()).isEqualTo(ImageModerationStatus.FAILED);
+        assertThat(apiCalls.get()).isEqualTo(MAX_ATTEMPTS);
+
+        // FAILED uploads are not swept again, and nothing was moved
+        service.sweepPending();
+        Thread.sleep(100);
+        assertThat(apiCalls.get()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(verdicts).isEmpty();
+        verify(storage, never()).moveObject(anyString(), anyString());
+    }
+
+    private void upload(String key, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        objects.put(key, bytes);
+        service.track(key, sha256(content), "image/png", null);
+    }
+
+    private ModeratedImage image(String key) {
+        return images.values().stream().filter(i -> key.equals(i.getObjectKey())).findFirst().orElseThrow();
+    }
+
+    private ImageModerationStatus status(String key) {
+        return image(key).getStatus();
+    }
+
+    private void awaitStatus(String key, ImageModerationStatus expected) throws InterruptedException {
+        awaitTrue(() -> status(key) == expected);
+    }
+
+    /**
+     * Until the attempt is recorded and its worker has let go of the upload, so a sweep can pick it up.
+     */
+    private void awaitAttempts(String key, int attempts) throws InterruptedException {
+        awaitTrue(() -> image(key).getAttempts() == attempts && Integer.valueOf(0).equals(service.getStats().get("active")));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stores copies, so the test thread never reads an entity a worker is still changing.
+     */
+    private ModeratedImageRepository imageRepository() {
+        ModeratedImageRepository repository = mock(ModeratedImageRepository.class);
+        when(repository.save(any(ModeratedImage.class))).thenAnswer(inv -> {
+            ModeratedImage image = inv.getArgument(0);
+            if (image.getId() == null) {
+                image.setId(ids.incrementAndGet());
+            }
+            images.put(image.getId(), copy(image));
+            return image;
+        });
+        when(repository.findById(anyLong())).thenAnswer(inv ->
+                Optional.ofNullable(images.get(inv.<Long>getArgument(0))).map(ImageModerationServiceTest::copy));
+        when(repository.findTop100ByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(any(), any())).thenAnswer(inv ->
+                images.values().stream()
+                        .filter(i -> i.getStatus() == inv.getArgument(0))
+                        .filter(i -> i.getCreatedAt().isBefore(inv.getArgument(1)))
+                        .map(ImageModerationServiceTest::copy)
+                        .toList());
+        return repository;
+    }
+
+    private ImageModerationVerdictRepository verdictRepository() {
+        ImageModerationVerdictRepository repository = mock(ImageModerationVerdictRepository.class);
+        when(repository.findByContentHash(anyString())).thenAnswer(inv ->
+                Optional.ofNullable(verdicts.get(inv.<String>getArgument(0))));
+        when(repository.save(any(ImageModerationVerdict.class))).thenAnswer(inv -> {
+            ImageModerationVerdict verdict = inv.getArgument(0);
+            if (verdict.getId() != null) {
+                verdicts.put(verdict.getContentHash(), verdict);
+            } else if (verdicts.putIfAbsent(verdict.getContentHash(), verdict) != null) {
+                throw new DataIntegrityViolationException("duplicate content_hash");
+            } else {
+                verdict.setId(ids.incrementAndGet());
+            }
+            return verdict;
+        });
+        return repository;
+    }
+
+    private static ModeratedImage copy(ModeratedImage source) {
+        ModeratedImage image = new ModeratedImage();
+        image.setId(source.getId());
+        image.setObjectKey(source.getObjectKey());
+        image.setContentHash(source.getContentHash());
+        image.setContentType(source.getContentType());
+        image.setUploaderId(source.getUploaderId());
+        image.setUploaderUsername(source.getUploaderUsername());
+        image.setStatus(source.getStatus());
+        image.setAttempts(source.getAttempts());
+        image.setLastError(source.getLastError());
+        image.setCreatedAt(source.getCreatedAt());
+        image.setCheckedAt(source.getCheckedAt());
+        return image;
+    }
+}
@@ -0,0 +1,118 @@
+package com.datapeice.slbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CidrTrieTest {
+
+    @Test
+    void matchesBlocksAndSingleAddresses() {
+        CidrTrie trie = new CidrTrie().addAll(List.of("10.0.0.0/8", "192.168.1.7", "2001:db8::/32", "::1"));
+
+        assertThat(trie.contains("10.255.0.1")).isTrue();
+        assertThat(trie.contains("11.0.0.0")).isFalse();
+        assertThat(trie.contains("192.168.1.7")).isTrue();
+        assertThat(trie.contains("192.168.1.8")).isFalse();
+        assertThat(trie.contains("2001:db8:ffff::1")).isTrue();
+        assertThat(trie.contains("2001:db9::1")).isFalse();
+        assertThat(trie.contains("::1")).isTrue();
+        assertThat(trie.contains("::ffff:10.1.1.1")).isTrue();
+        assertThat(trie.contains("not an ip")).isFalse();
+        assertThat(trie.contains((CharSequence) null)).isFalse();
+    }
+
+    @Test
+    void familiesDoNotLeakIntoEachOther() {
+        CidrTrie v4Everything = new CidrTrie().add("0.0.0.0/0");
+        assertThat(v4Everything.contains("8.8.8.8")).isTrue();
+        assertThat(v4Everything.contains("2001:db8::1")).isFalse();
+
+        CidrTrie v6Everything = new CidrTrie().add("::/0");
+        assertThat(v6Everything.contains("2001:db8::1")).isTrue();
+        assertThat(v6Everything.contains("8.8.8.8")).isFalse();
+    }
+
+    @Test
+    void nestedBlocksCountOnce() {
+        CidrTrie trie = new CidrTrie().add("10.0.0.0/8").add("10.1.0.0/16").add(" 10.0.0.0/8 ");
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(new CidrTrie().isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedEntries() {
+        CidrTrie trie = new CidrTrie();
+        for (String bad : List.of("10.0.0.0/33", "::/129", "10.0.0.0/-1", "10.0.0.0/x", "10.0.0/8", "host/8", "")) {
+            assertThatThrownBy(() -> trie.add(bad)).as(bad).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(trie.isEmpty()).isTrue();
+    }
+
+    /**
+     * Random blocks and probes, checked against a plain prefix comparison of InetAddress bytes.
+     */
+    @Test
+    void agreesWithPrefixComparisonOfInetAddressBytes() throws UnknownHostException {
+        Random random = new Random(46);
+        List<byte[]> blocks = new ArrayList<>();
+        List<Integer> prefixes = new ArrayList<>();
+        CidrTrie trie = new CidrTrie();
+        for (int i = 0; i < 300; i++) {
+            byte[] raw = randomAddress(random);
+            int prefix = random.nextInt(raw.length * 8 / 2) + raw.length * 2;
+            blocks.add(raw);
+            prefixes.add(prefix);
+            trie.add(InetAddress.getByAddress(raw).getHostAddress() + "/" + prefix);
+        }
+
+        for (int i = 0; i < 50_000; i++) {
+            byte[] probe = i % 2 == 0 ? randomAddress(random) : nearBlock(random, blocks.get(random.nextInt(blocks.size())));
+            boolean expected = false;
+            for (int b = 0; b < blocks.size() && !expected; b++) {
+                expected = samePrefix(blocks.get(b), probe, prefixes.get(b));
+            }
+            String text = InetAddress.getByAddress(probe).getHostAddress();
+            assertThat(trie.contains(text)).as(text).isEqualTo(expected);
+        }
+    }
+
+    private static byte[] randomAddress(Random random) {
+        byte[] raw = new byte[random.nextBoolean() ? 4 : 16];
+        random.nextBytes(raw);
+        if (raw.length == 16 && raw[0] == 0) {
+            raw[0] = 0x20; // keep clear of ::ffff:0:0/96, which InetAddress turns into IPv4
+        }
+        return raw;
+    }
+
+    /**
+     * The block's address with a few low bits flipped, so probes land inside and just outside it.
+     */
+    private static byte[] nearBlock(Random random, byte[] block) {
+        int bits = block.length * 8;
+        BigInteger value = new BigInteger(1, block).flipBit(random.nextInt(bits / 2));
+        byte[] flipped = value.toByteArray();
+        byte[] raw = new byte[block.length];
+        int copy = Math.min(flipped.length, raw.length);
+        System.arraycopy(flipped, flipped.length - copy, raw, raw.length - copy, copy);
+        return raw;
+    }
+
+    private static boolean samePrefix(byte[] block, byte[] probe, int prefix) {
+        if (block.length != probe.length) {
+            return false;
+        }
+        int bits = block.length * 8;
+        BigInteger mask = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE.shiftLeft(bits - prefix));
+        return new BigInteger(1, block).and(mask).equals(new BigInteger(1, probe).and(mask));
+    }
+}
@@ -0,0 +1,115 @@
+package com.datapeice.slbackend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeoIpDatabaseTest {
+
+    private static final String CSV = """
+            # network,country,city
+            0.0.0.0/8,ZZ,Zero
+            5.8.0.0/19,RU,Moscow
+
+            5.8.32.0-5.8.32.255,RU,Санкт-Петербург
+            77.88.8.8,RU,Yandex DNS
+            128.0.0.0/24,NL,Amsterdam, Noord-Holland
+            255.255.255.0/24,ZZ,Top
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void lookupsHitRangeEdgesAndMissJustOutside() throws IOException {
+        GeoIpDatabase db = compile(CSV);
+
+        assertThat(db.getRangeCount()).isEqualTo(6);
+        assertThat(db.lookup("5.8.0.0")).isEqualTo("RU,Moscow");
+        assertThat(db.lookup("5.8.31.255")).isEqualTo("RU,Moscow");
+        assertThat(db.lookup("5.7.255.255")).isNull();
+        assertThat(db.lookup("5.8.32.0")).isEqualTo("RU,Санкт-Петербург");
+        assertThat(db.lookup("5.8.32.255")).isEqualTo("RU,Санкт-Петербург");
+        assertThat(db.lookup("5.8.33.0")).isNull();
+        assertThat(db.lookup("77.88.8.8")).isEqualTo("RU,Yandex DNS");
+        assertThat(db.lookup("77.88.8.7")).isNull();
+        assertThat(db.lookup("77.88.8.9")).isNull();
+        // The city keeps its commas
+        assertThat(db.lookup("128.0.0.255")).isEqualTo("NL,Amsterdam, Noord-Holland");
+    }
+
+    @Test
+    void startsAndEndsAreComparedUnsigned() throws IOException {
+        GeoIpDatabase db = compile(CSV);
+
+        assertThat(db.lookup("0.0.0.0")).isEqualTo("ZZ,Zero");
+        assertThat(db.lookup("127.255.255.255")).isNull();
+        assertThat(db.lookup("128.0.0.0")).isEqualTo("NL,Amsterdam, Noord-Holland");
+        assertThat(db.lookup("255.255.255.255")).isEqualTo("ZZ,Top");
+        assertThat(db.lookup("255.255.254.255")).isNull();
+    }
+
+    @Test
+    void ipv6OnlyResolvesWhenItIsMappedIpv4() throws IOException {
+        GeoIpDatabase db = compile(CSV);
+
+        assertThat(db.lookup("::ffff:5.8.1.1")).isEqualTo("RU,Moscow");
+        assertThat(db.lookup("[::ffff:77.88.8.8]")).isEqualTo("RU,Yandex DNS");
+        assertThat(db.lookup("2a02:6b8::feed:0ff")).isNull();
+        assertThat(db.lookup("::5.8.1.1")).isNull();
+        assertThat(db.lookup("not-an-ip")).isNull();
+        assertThat(db.lookup(null)).isNull();
+    }
+
+    @Test
+    void emptyDatabaseMissesEverything() throws IOException {
+        GeoIpDatabase db = compile("# nothing yet\n");
+
+        assertThat(db.getRangeCount()).isZero();
+        assertThat(db.lookup("5.8.0.1")).isNull();
+    }
+
+    @Test
+    void overlappingRangesAreRejected() throws IOException {
+        assertThatThrownBy(() -> compile("5.8.0.0/19,RU,Moscow\n5.8.31.0-5.8.40.0,RU,Tver\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("overlapping");
+        assertThatThrownBy(() -> compile("10.0.0.0/8,A,B\n10.1.2.3,C,D\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("overlapping");
+        // Nothing is left behind for the service to pick up
+        assertThat(Files.exists(dir.resolve("geo.bin"))).isFalse();
+    }
+
+    @Test
+    void malformedLinesNameTheLine() {
+        assertThatThrownBy(() -> compile("5.8.0.0/19,RU,Moscow\n5.8.0.0/33,RU,Moscow\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 2");
+        assertThatThrownBy(() -> compile("5.9.0.0-5.8.0.0,RU,Moscow\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 1");
+        assertThatThrownBy(() -> compile("5.8.0.0/19,RU\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("expected network,country,city");
+    }
+
+    @Test
+    void openRejectsOtherFiles() throws IOException {
+        Path other = Files.writeString(dir.resolve("other.bin"), "definitely not a geoip table");
+        assertThatThrownBy(() -> GeoIpDatabase.open(other)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private GeoIpDatabase compile(String csv) throws IOException {
+        Path source = Files.writeString(dir.resolve("geo.csv"), csv);
+        Path binary = dir.resolve("geo.bin");
+        GeoIpDatabase.compileCsv(source, binary);
+        return GeoIpDatabase.open(binary);
+    }
+}
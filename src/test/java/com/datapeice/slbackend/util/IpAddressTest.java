@@ -0,0 +1,177 @@
+package com.datapeice.slbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link IpAddress#parse} checked against {@link InetAddress}. Only literals reach InetAddress:
+ * anything that might not be one is wrapped in brackets, which makes it reject instead of asking DNS.
+ */
+class IpAddressTest {
+
+    private static final List<String> VALID = List.of(
+            "0.0.0.0", "1.2.3.4", "255.255.255.255", "10.0.0.1", "192.168.001.010",
+            "::", "::1", "1::", "2001:db8::1", "2001:0db8:0000:0000:0000:ff00:0042:8329",
+            "fe80::1:2:3:4", "1:2:3:4:5:6:7:8", "1::8", "1:2:3:4:5:6::8", "::2:3:4:5:6:7:8",
+            "FFFF:ffff:FFFF:ffff:FFFF:ffff:FFFF:ffff", "::ffff:1.2.3.4", "::FFFF:192.168.0.1",
+            "::1.2.3.4", "64:ff9b::192.0.2.33", "1:2:3:4:5:6:1.2.3.4");
+
+    private static final List<String> INVALID_V6 = List.of(
+            ":", ":::", "1:::2", "::1::", "1::2::3", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7", "12345::",
+            "g::1", "1:2:3:4:5:6:7:", ":1:2:3:4:5:6:7", "::1.2.3", "::1.2.3.256", "1:2:3:4:5:6:7:1.2.3.4",
+            "::ffff:1.2.3.4.5", "1.2.3.4::", "::1.2.3.4:5", "::-1", "1:2:3:4:5:6:7:8::");
+
+    private static final List<String> INVALID_V4 = List.of(
+            "", " ", "1", "1.2.3", "1.2.3.4.5", "256.0.0.0", "1.2.3.-4", "1..2.3", ".1.2.3", "1.2.3.",
+            "1.2.3.4x", "0001.2.3.4", "a.b.c.d", "localhost");
+
+    // Over-long digit runs, where InetAddress is laxer than the RFC (see zeroPaddedGroupsBeyondFourDigitsAreRejected)
+    private static final Pattern LONG_RUN = Pattern.compile("[0-9a-f]{5}|\\d{4}\\.|\\.\\d{4}");
+
+    @Test
+    void validAddressesMatchInetAddress() throws UnknownHostException {
+        for (String text : VALID) {
+            assertThat(bytes(IpAddress.parse(text))).as(text).isEqualTo(InetAddress.getByName(text).getAddress());
+        }
+    }
+
+    @Test
+    void invalidIpv6IsRejectedLikeInetAddress() {
+        for (String text : INVALID_V6) {
+            assertThat(IpAddress.parse(text)).as(text).isNull();
+            assertThat(inetLiteral(text)).as("InetAddress " + text).isNull();
+        }
+    }
+
+    @Test
+    void invalidIpv4IsRejected() {
+        for (String text : INVALID_V4) {
+            assertThat(IpAddress.parse(text)).as(text).isNull();
+        }
+        assertThat(IpAddress.parse((CharSequence) null)).isNull();
+    }
+
+    @Test
+    void bracketsZonesAndWhitespaceAreStripped() {
+        IpAddress expected = IpAddress.parse("fe80::1");
+        assertThat(IpAddress.parse("[fe80::1]")).isEqualTo(expected);
+        assertThat(IpAddress.parse("fe80::1%eth0")).isEqualTo(expected);
+        assertThat(IpAddress.parse("  fe80::1 ")).isEqualTo(expected);
+        assertThat(IpAddress.parse("x, 1.2.3.4 ,y", 2, 11)).isEqualTo(IpAddress.parse("1.2.3.4"));
+    }
+
+    @Test
+    void mappedIpv4IsTheSameAsPlainIpv4() {
+        assertThat(IpAddress.parse("::ffff:10.1.2.3")).isEqualTo(IpAddress.parse("10.1.2.3"));
+        assertThat(IpAddress.parse("::ffff:a01:203")).isEqualTo(IpAddress.parse("10.1.2.3"));
+        assertThat(IpAddress.parse("10.1.2.3").v4()).isTrue();
+        assertThat(IpAddress.parse("::10.1.2.3").v4()).isFalse();
+    }
+
+    @Test
+    void randomAddressesRoundTripThroughInetAddress() throws UnknownHostException {
+        Random random = new Random(46);
+        for (int i = 0; i < 20_000; i++) {
+            byte[] raw = new byte[random.nextBoolean() ? 4 : 16];
+            random.nextBytes(raw);
+            if (raw.length == 16 && random.nextInt(4) == 0) {
+                // Runs of zero groups, so "::" shows up in the formatted text
+                int from = random.nextInt(16);
+                Arrays.fill(raw, from, Math.min(16, from + 2 + random.nextInt(10)), (byte) 0);
+            }
+            InetAddress address = InetAddress.getByAddress(raw);
+            String text = address.getHostAddress();
+            assertThat(bytes(IpAddress.parse(text))).as(text).isEqualTo(address.getAddress());
+            assertThat(bytes(IpAddress.parse(compress(text)))).as(compress(text)).isEqualTo(address.getAddress());
+            assertThat(IpAddress.parse(text).format()).isEqualTo(compress(text));
+        }
+    }
+
+    @Test
+    void formatIsCanonical() {
+        assertThat(IpAddress.parse("[2001:0DB8:0:0::1]").format()).isEqualTo("2001:db8::1");
+        assertThat(IpAddress.parse("fe80::1%eth0").format()).isEqualTo("fe80::1");
+        assertThat(IpAddress.parse("::ffff:10.1.2.3").format()).isEqualTo("10.1.2.3");
+        assertThat(IpAddress.parse("::").format()).isEqualTo("::");
+        assertThat(IpAddress.parse("1:0:0:2:0:0:0:3").format()).isEqualTo("1:0:0:2::3");
+        assertThat(IpAddress.parse("1:0:2:3:4:5:6:7").format()).isEqualTo("1:0:2:3:4:5:6:7");
+        assertThat(IpAddress.parse(" 010.001.002.003 ").format()).isEqualTo("10.1.2.3");
+    }
+
+    @Test
+    void zeroPaddedGroupsBeyondFourDigitsAreRejected() {
+        // InetAddress takes "00001::" and "::0001.2.3.4"; RFC 4291/4001 forms allow at most 4 hex / 3 decimal digits
+        assertThat(inetLiteral("00001::")).isNotNull();
+        assertThat(IpAddress.parse("00001::")).isNull();
+        assertThat(IpAddress.parse("::0001.2.3.4")).isNull();
+    }
+
+    @Test
+    void randomColonStringsAgreeWithInetAddress() {
+        Random random = new Random(4646);
+        String alphabet = "0123456789abcdef::::..";
+        int accepted = 0;
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder text = new StringBuilder(":");
+            int length = 1 + random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                text.insert(random.nextInt(text.length() + 1), alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            if (LONG_RUN.matcher(text).find()) {
+                continue;
+            }
+            IpAddress ours = IpAddress.parse(text);
+            assertThat(bytes(ours)).as(text.toString()).isEqualTo(inetLiteral(text.toString()));
+            if (ours != null) {
+                accepted++;
+            }
+        }
+        assertThat(accepted).isPositive();
+    }
+
+    /**
+     * Zero-padded groups collapsed to the shortest form, e.g. "1:0:0:0:0:0:0:2" -> "1::2".
+     */
+    private static String compress(String text) {
+        if (!text.contains(":")) {
+            return text;
+        }
+        String padded = ":" + text + ":";
+        for (int zeros = 8; zeros >= 2; zeros--) {
+            String run = ":" + "0:".repeat(zeros);
+            int at = padded.indexOf(run);
+            if (at >= 0) {
+                String shortened = padded.substring(0, at) + "::" + padded.substring(at + run.length());
+                return shortened.replaceAll("^:(?!:)|(?<!:):$", "");
+            }
+        }
+        return text;
+    }
+
+    private static byte[] inetLiteral(String text) {
+        try {
+            return InetAddress.getByName("[" + text + "]").getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] bytes(IpAddress address) {
+        if (address == null) {
+            return null;
+        }
+        if (address.v4()) {
+            return ByteBuffer.allocate(4).putInt((int) address.lo()).array();
+        }
+        return ByteBuffer.allocate(16).putLong(address.hi()).putLong(address.lo()).array();
+    }
+}
@@ -0,0 +1,232 @@
+package com.datapeice.slbackend.util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ToxicityMatcher against the implementation it replaced: one {@code \b} regex per short word,
+ * {@code contains} for long ones and an {@code a+b+c+} regex per smart word, run over a letters-only
+ * and a homoglyph-normalised copy of the text. Both must give the same verdict on every text of
+ * a corpus built from the bundled word list.
+ */
+class ToxicityMatcherTest {
+
+    private static final int SMART_PATTERN_MIN_LENGTH = 4;
+
+    private static Set<String> words;
+    private static ToxicityMatcher matcher;
+    private static LegacyMatcher legacy;
+
+    @BeforeAll
+    static void loadWords() throws IOException {
+        words = readBundledWords();
+        matcher = new ToxicityMatcher(words, SMART_PATTERN_MIN_LENGTH);
+        legacy = new LegacyMatcher(words, SMART_PATTERN_MIN_LENGTH);
+    }
+
+    @Test
+    void agreesWithTheRegexImplementationOnTheWordListCorpus() {
+        List<String> corpus = corpus(new Random(42));
+        List<String> mismatches = new ArrayList<>();
+        int toxic = 0;
+        for (String text : corpus) {
+            boolean expected = legacy.isToxic(text);
+            boolean actual = matcher.find(text) != null;
+            if (expected) {
+                toxic++;
+            }
+            if (expected != actual && mismatches.size() < 20) {
+                mismatches.add((expected ? "missed: " : "extra: ") + text + " -> " + matcher.find(text));
+            }
+        }
+
+        assertThat(mismatches).isEmpty();
+        // The corpus has to exercise both verdicts to mean anything
+        assertThat(toxic).isBetween(corpus.size() / 10, corpus.size() * 9 / 10);
+    }
+
+    @Test
+    void reportsWhichRuleMatched() {
+        ToxicityMatcher small = new ToxicityMatcher(List.of("bot", "griefer", "читер", "ab"), SMART_PATTERN_MIN_LENGTH);
+
+        assertThat(small.find("a bot, again")).isEqualTo(new ToxicityMatcher.Hit(ToxicityMatcher.Kind.STANDALONE_WORD, "bot"));
+        assertThat(small.find("robots and abbots")).isNull();
+        assertThat(small.find("known griefers")).isEqualTo(new ToxicityMatcher.Hit(ToxicityMatcher.Kind.SUBSTRING, "griefer"));
+        assertThat(small.find("ч.и.т.т.е.р")).isEqualTo(new ToxicityMatcher.Hit(ToxicityMatcher.Kind.SMART_PATTERN, "читер"));
+        assertThat(small.find("4uтеp")).isEqualTo(new ToxicityMatcher.Hit(ToxicityMatcher.Kind.SMART_PATTERN, "читер"));
+        // Two-letter words are ignored entirely
+        assertThat(small.find("ab ab ab")).isNull();
+        assertThat(small.find("")).isNull();
+        assertThat(small.find(null)).isNull();
+    }
+
+    @Test
+    void repeatedLettersInTheWordNeedAsManyInTheText() {
+        ToxicityMatcher small = new ToxicityMatcher(List.of("ссора"), SMART_PATTERN_MIN_LENGTH);
+
+        assertThat(small.find("с-с-с-сооора")).isNotNull();
+        assertThat(small.find("с.ора")).isNull();
+        assertThat(legacy("ссора").isToxic("с.ора")).isFalse();
+    }
+
+    private static LegacyMatcher legacy(String... list) {
+        return new LegacyMatcher(new LinkedHashSet<>(List.of(list)), SMART_PATTERN_MIN_LENGTH);
+    }
+
+    /**
+     * Every word plainly, inside other text, glued to other letters, upper-cased, dotted and with
+     * doubled letters, with lookalike substitutions and split in two; plus random strings over the
+     * characters the normalisation cares about and random chat built from harmless words.
+     */
+    private static List<String> corpus(Random random) {
+        String filler = "Привет, я играю на сервере уже давно. Люблю строить замки и ходить в шахты! hello world 123 ";
+        String[] fillerWords = filler.split(" ");
+        String alphabet = "абвгдеёжзийклмнопрстуфхцчшщъыьэюяabcdefghijklmnopqrstuvwxyz0134689@$!._ -ЁABСХ";
+
+        List<String> corpus = new ArrayList<>();
+        for (String word : words) {
+            corpus.add(word);
+            corpus.add("я " + word + " тут");
+            corpus.add("xx" + word + "yy");
+            corpus.add(word.toUpperCase());
+            StringBuilder dotted = new StringBuilder();
+            for (char c : word.toCharArray()) {
+                dotted.append(c);
+                if (random.nextInt(3) == 0) {
+                    dotted.append(c);
+                }
+                if (random.nextInt(3) == 0) {
+                    dotted.append(". 1_".charAt(random.nextInt(4)));
+                }
+            }
+            corpus.add(dotted.toString());
+            corpus.add(word.replace('о', '0').replace('а', 'a').replace('е', 'e').replace('с', 'c').replace('и', '1'));
+            if (word.length() > 3) {
+                corpus.add(word.substring(1) + " " + word.substring(0, word.length() - 1));
+            }
+            int half = word.length() / 2;
+            corpus.add(filler + word.substring(0, Math.max(1, half)) + "_" + word.substring(half));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder noise = new StringBuilder();
+            int length = 1 + random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                noise.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            corpus.add(noise.toString());
+            StringBuilder chat = new StringBuilder();
+            for (int j = 0; j < 8; j++) {
+                chat.append(fillerWords[random.nextInt(fillerWords.length)]).append(random.nextBoolean() ? " " : "");
+            }
+            corpus.add(chat.toString());
+        }
+        return corpus;
+    }
+
+    // Same parsing as BannedWordService.readClasspathWords
+    private static Set<String> readBundledWords() throws IOException {
+        Set<String> result = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(ToxicityMatcherTest.class.getResourceAsStream("/banned_words.txt")),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim().toLowerCase();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                for (String word : line.split(",")) {
+                    word = word.trim();
+                    if (!word.isEmpty()) {
+                        result.add(word);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The regex-based check ModerationService used before ToxicityMatcher, kept as the oracle.
+     */
+    private static final class LegacyMatcher {
+
+        private final Set<String> bannedWords;
+        private final List<Pattern> bannedPatterns = new ArrayList<>();
+
+        LegacyMatcher(Set<String> bannedWords, int smartPatternMinLength) {
+            this.bannedWords = bannedWords;
+            for (String word : bannedWords) {
+                if (word.length() >= smartPatternMinLength) {
+                    bannedPatterns.add(createBannedPattern(word));
+                }
+            }
+        }
+
+        private static Pattern createBannedPattern(String word) {
+            String cleaned = word.replaceAll("[^a-zа-яё]", "");
+            if (cleaned.isEmpty()) {
+                return Pattern.compile("a^");
+            }
+            StringBuilder regex = new StringBuilder();
+            for (char c : cleaned.toCharArray()) {
+                regex.append(Pattern.quote(String.valueOf(c))).append("+");
+            }
+            return Pattern.compile(regex.toString());
+        }
+
+        private static String normalizeHomoglyphs(String text) {
+            String s = text.toLowerCase();
+            s = s.replace("@", "а").replace("0", "о").replace("3", "з").replace("4", "ч")
+                    .replace("6", "б").replace("$", "с").replace("!", "и").replace("1", "и");
+            s = s.replaceAll("[^a-zа-яё]", "");
+            s = s.replace("a", "а").replace("o", "о").replace("e", "е").replace("c", "с").replace("p", "р")
+                    .replace("x", "х").replace("y", "у").replace("k", "к").replace("m", "м").replace("h", "н")
+                    .replace("t", "т").replace("b", "в").replace("u", "и");
+            return s;
+        }
+
+        boolean isToxic(String text) {
+            if (text == null || text.isBlank()) {
+                return false;
+            }
+            String lowerText = text.toLowerCase();
+            String lettersOnly = lowerText.replaceAll("[^a-zа-яё]", "");
+            String homoglyphs = normalizeHomoglyphs(text);
+            for (String banned : bannedWords) {
+                if (banned.length() <= 2) {
+                    continue;
+                }
+                if (banned.length() <= 5) {
+                    Pattern standalone = Pattern.compile("\\b" + Pattern.quote(banned) + "\\b",
+                            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CHARACTER_CLASS);
+                    if (standalone.matcher(lowerText).find()) {
+                        return true;
+                    }
+                } else if (lowerText.contains(banned)) {
+                    return true;
+                }
+            }
+            for (Pattern pattern : bannedPatterns) {
+                if (pattern.matcher(lettersOnly).find() || pattern.matcher(homoglyphs).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}